@@ -0,0 +1,313 @@
+package com.openclassrooms.tourguide.admission;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Admission control of the HTTP endpoints.
+ *
+ * A request is admitted in three steps:
+ * <ol>
+ * <li>the number of requests in the application, waiting or running, must be
+ * below the share of the global limit allowed to the priority class of the
+ * endpoint;</li>
+ * <li>the wait for a slot of the endpoint, estimated from the queue length and
+ * the average service time, must fit in the queue-time budget of the
+ * class;</li>
+ * <li>a slot of the endpoint must become free within that budget.</li>
+ * </ol>
+ * A request failing any step is rejected at once instead of queuing behind the
+ * external services, with an estimate of when to retry.
+ *
+ * Unknown paths, 404s included, share a single {@link Priority#STANDARD}
+ * endpoint with {@value #DEFAULT_ENDPOINT_LIMIT} slots, so clients cannot
+ * create endpoints.
+ */
+@Slf4j
+@Component
+public class AdmissionControl {
+
+	static final int DEFAULT_ENDPOINT_LIMIT = 16;
+	static final String OTHER_PATHS = "*";
+
+	private static final Map<String, EndpointPolicy> DEFAULT_POLICIES = Map.ofEntries(
+			Map.entry("/", new EndpointPolicy(Priority.CRITICAL, 16)),
+			Map.entry("/getRewards", new EndpointPolicy(Priority.CRITICAL, 32)),
+			Map.entry("/getRewardSummary", new EndpointPolicy(Priority.CRITICAL, 32)),
+			Map.entry("/getRewardLeaderboard", new EndpointPolicy(Priority.CRITICAL, 16)),
+			Map.entry("/getAttractionRewards", new EndpointPolicy(Priority.CRITICAL, 16)),
+			Map.entry("/getRewardCacheStatistics", new EndpointPolicy(Priority.CRITICAL, 4)),
+			Map.entry("/getLocationCacheStatistics", new EndpointPolicy(Priority.CRITICAL, 4)),
+			Map.entry("/getLocation", new EndpointPolicy(Priority.STANDARD, 32)),
+			Map.entry("/getLocationHistory", new EndpointPolicy(Priority.STANDARD, 16)),
+			Map.entry("/getAllCurrentLocations", new EndpointPolicy(Priority.STANDARD, 4)),
+			Map.entry("/addUser", new EndpointPolicy(Priority.STANDARD, 16)),
+			Map.entry("/getNearbyAttractions", new EndpointPolicy(Priority.SHEDDABLE, 16)),
+			Map.entry("/getTripDeals", new EndpointPolicy(Priority.SHEDDABLE, 8)));
+
+	private final boolean enabled;
+	private final int globalLimit;
+	private final Map<Priority, Long> queueBudgetNanos = new EnumMap<>(Priority.class);
+	private final Map<String, Endpoint> endpoints;
+	private final Endpoint otherPaths = new Endpoint(OTHER_PATHS,
+			new EndpointPolicy(Priority.STANDARD, DEFAULT_ENDPOINT_LIMIT));
+	private final AtomicInteger inApplication = new AtomicInteger();
+
+	/**
+	 * Creates the admission control with the default endpoint policies.
+	 *
+	 * @param enabled               Enables the admission control
+	 * @param globalLimit           Maximum number of requests waiting or running
+	 *                              in the application
+	 * @param criticalBudgetMillis  Longest wait for a slot of a critical endpoint
+	 * @param standardBudgetMillis  Longest wait for a slot of a standard endpoint
+	 * @param sheddableBudgetMillis Longest wait for a slot of a sheddable
+	 *                              endpoint
+	 */
+	@Autowired
+	public AdmissionControl(@Value("${tourguide.admission.enabled:true}") boolean enabled,
+			@Value("${tourguide.admission.globalLimit:128}") int globalLimit,
+			@Value("${tourguide.admission.queueBudgetMillis.critical:1000}") long criticalBudgetMillis,
+			@Value("${tourguide.admission.queueBudgetMillis.standard:500}") long standardBudgetMillis,
+			@Value("${tourguide.admission.queueBudgetMillis.sheddable:200}") long sheddableBudgetMillis) {
+		this(enabled, globalLimit, Map.of(Priority.CRITICAL, criticalBudgetMillis, Priority.STANDARD,
+				standardBudgetMillis, Priority.SHEDDABLE, sheddableBudgetMillis), DEFAULT_POLICIES);
+	}
+
+	/**
+	 * Creates the admission control.
+	 *
+	 * @param enabled           Enables the admission control
+	 * @param globalLimit       Maximum number of requests waiting or running in
+	 *                          the application
+	 * @param queueBudgetMillis Longest wait for an endpoint slot of each class
+	 * @param policies          Policies of the known endpoints, by path
+	 * @throws IllegalArgumentException if a limit is not strictly positive, or a
+	 *                                  budget is missing or negative
+	 */
+	public AdmissionControl(boolean enabled, int globalLimit, Map<Priority, Long> queueBudgetMillis,
+			Map<String, EndpointPolicy> policies) {
+		if (globalLimit <= 0) {
+			throw new IllegalArgumentException("Global limit must be strictly positive");
+		}
+		for (Priority priority : Priority.values()) {
+			Long budget = queueBudgetMillis.get(priority);
+			if (budget == null || budget < 0) {
+				throw new IllegalArgumentException("Missing or negative queue budget for " + priority);
+			}
+			queueBudgetNanos.put(priority, TimeUnit.MILLISECONDS.toNanos(budget));
+		}
+		this.enabled = enabled;
+		this.globalLimit = globalLimit;
+		Map<String, Endpoint> known = new HashMap<>();
+		policies.forEach((path, policy) -> known.put(path, new Endpoint(path, policy)));
+		this.endpoints = Map.copyOf(known);
+	}
+
+	/**
+	 * Indicates whether the admission control is enabled.
+	 *
+	 * @return true if requests may be rejected
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Admits a request, waiting at most the queue budget of its endpoint.
+	 *
+	 * @param path Path of the request, without the context path
+	 * @return Permit to release when the request completes, or null if the
+	 *         request is rejected
+	 * @throws IllegalStateException if the admission control is disabled
+	 */
+	public Permit tryAdmit(String path) {
+		if (!enabled) {
+			throw new IllegalStateException("Admission control is disabled");
+		}
+		Endpoint endpoint = endpointOf(path);
+		Priority priority = endpoint.policy.priority();
+		long budget = queueBudgetNanos.get(priority);
+
+		if (!enterApplication(priority.limitOf(globalLimit))) {
+			return endpoint.reject();
+		}
+		if (endpoint.estimatedWaitNanos() > budget) {
+			inApplication.decrementAndGet();
+			return endpoint.reject();
+		}
+		long waitStart = System.nanoTime();
+		boolean acquired;
+		try {
+			acquired = endpoint.slots.tryAcquire(budget, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			acquired = false;
+		}
+		if (!acquired) {
+			inApplication.decrementAndGet();
+			return endpoint.reject();
+		}
+		endpoint.admitted.increment();
+		return new Permit(endpoint, System.nanoTime() - waitStart);
+	}
+
+	/**
+	 * Returns the delay after which a rejected request is likely to be admitted.
+	 *
+	 * @param path Path of the request, without the context path
+	 * @return Delay in seconds, at least 1
+	 */
+	public long getRetryAfterSeconds(String path) {
+		Endpoint endpoint = endpointOf(path);
+		long nanos = Math.max(endpoint.estimatedWaitNanos(), endpoint.serviceTimeNanos.get());
+		return Math.max(1, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+	}
+
+	/**
+	 * Returns the number of requests waiting or running in the application.
+	 *
+	 * @return Number of admitted or queued requests
+	 */
+	public int getInApplicationCount() {
+		return inApplication.get();
+	}
+
+	/**
+	 * Returns the number of requests of an endpoint admitted so far.
+	 *
+	 * @param path Path of the endpoint
+	 * @return Number of admitted requests
+	 */
+	public long getAdmittedCount(String path) {
+		return endpointOf(path).admitted.sum();
+	}
+
+	/**
+	 * Returns the number of requests of an endpoint rejected so far.
+	 *
+	 * @param path Path of the endpoint
+	 * @return Number of rejected requests
+	 */
+	public long getRejectedCount(String path) {
+		return endpointOf(path).rejected.sum();
+	}
+
+	private boolean enterApplication(int limit) {
+		while (true) {
+			int current = inApplication.get();
+			if (current >= limit) {
+				return false;
+			}
+			if (inApplication.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	private Endpoint endpointOf(String path) {
+		return endpoints.getOrDefault(path, otherPaths);
+	}
+
+	/**
+	 * Priority class and concurrency limit of an endpoint.
+	 *
+	 * @param priority       Priority class of the endpoint
+	 * @param maxConcurrency Maximum number of requests of the endpoint running
+	 *                       at the same time
+	 */
+	public record EndpointPolicy(Priority priority, int maxConcurrency) {
+
+		public EndpointPolicy {
+			if (maxConcurrency <= 0) {
+				throw new IllegalArgumentException("Endpoint concurrency must be strictly positive");
+			}
+		}
+	}
+
+	/**
+	 * Right for an admitted request to run; must be released exactly once.
+	 */
+	public final class Permit {
+
+		private final Endpoint endpoint;
+		private final long queueTimeNanos;
+		private final long start = System.nanoTime();
+
+		private Permit(Endpoint endpoint, long queueTimeNanos) {
+			this.endpoint = endpoint;
+			this.queueTimeNanos = queueTimeNanos;
+		}
+
+		/**
+		 * Returns the time spent waiting for a slot of the endpoint.
+		 *
+		 * @return Queue time in nanoseconds
+		 */
+		public long getQueueTimeNanos() {
+			return queueTimeNanos;
+		}
+
+		/**
+		 * Frees the slot of the request and records its service time.
+		 */
+		public void release() {
+			endpoint.recordServiceTime(System.nanoTime() - start);
+			endpoint.slots.release();
+			inApplication.decrementAndGet();
+		}
+	}
+
+	private static final class Endpoint {
+
+		/** Weight of the last sample in the average service time, as a shift. */
+		private static final int SERVICE_TIME_SMOOTHING = 3;
+
+		private final String path;
+		private final EndpointPolicy policy;
+		private final Semaphore slots;
+		private final AtomicLong serviceTimeNanos = new AtomicLong();
+		private final LongAdder admitted = new LongAdder();
+		private final LongAdder rejected = new LongAdder();
+
+		Endpoint(String path, EndpointPolicy policy) {
+			this.path = path;
+			this.policy = policy;
+			this.slots = new Semaphore(policy.maxConcurrency(), true);
+		}
+
+		/**
+		 * Estimates the wait of a new request: each slot serves the requests
+		 * queued before it one average service time after the other.
+		 */
+		long estimatedWaitNanos() {
+			if (slots.availablePermits() > 0) {
+				return 0;
+			}
+			return (slots.getQueueLength() + 1) * serviceTimeNanos.get() / policy.maxConcurrency();
+		}
+
+		void recordServiceTime(long nanos) {
+			serviceTimeNanos.accumulateAndGet(nanos, (average, sample) -> average == 0 ? sample
+					: average + ((sample - average) >> SERVICE_TIME_SMOOTHING));
+		}
+
+		Permit reject() {
+			rejected.increment();
+			log.debug("Request to {} rejected by the admission control", path);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.openclassrooms.tourguide.admission;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Applies the {@link AdmissionControl} to the requests.
+ *
+ * Rejected requests are answered with {@code 503 Service Unavailable} and a
+ * {@code Retry-After} header, without reaching the controller.
+ */
+@Component
+@RequiredArgsConstructor
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+	private static final String PERMIT_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".permit";
+
+	private final AdmissionControl admissionControl;
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (!admissionControl.isEnabled()) {
+			return true;
+		}
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		AdmissionControl.Permit permit = admissionControl.tryAdmit(path);
+		if (permit == null) {
+			response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+			response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(admissionControl.getRetryAfterSeconds(path)));
+			return false;
+		}
+		request.setAttribute(PERMIT_ATTRIBUTE, permit);
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof AdmissionControl.Permit permit) {
+			request.removeAttribute(PERMIT_ATTRIBUTE);
+			permit.release();
+		}
+	}
+}
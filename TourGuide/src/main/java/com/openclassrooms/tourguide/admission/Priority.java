@@ -0,0 +1,37 @@
+package com.openclassrooms.tourguide.admission;
+
+/**
+ * Priority class of an endpoint.
+ *
+ * Each class may only be admitted while the number of requests in the
+ * application is below its share of the global limit, so the lower classes are
+ * shed first when the load grows and the cheap endpoints keep some capacity.
+ */
+public enum Priority {
+
+	/** Cheap reads served from memory, shed last. */
+	CRITICAL(1.0),
+
+	/** Endpoints that may call an external service once. */
+	STANDARD(0.75),
+
+	/** Expensive endpoints calling slow external services, shed first. */
+	SHEDDABLE(0.5);
+
+	private final double share;
+
+	Priority(double share) {
+		this.share = share;
+	}
+
+	/**
+	 * Returns the number of requests in the application above which this class
+	 * is rejected.
+	 *
+	 * @param globalLimit Maximum number of requests in the application
+	 * @return Limit of the class, at least 1
+	 */
+	public int limitOf(int globalLimit) {
+		return Math.max(1, (int) (globalLimit * share));
+	}
+}
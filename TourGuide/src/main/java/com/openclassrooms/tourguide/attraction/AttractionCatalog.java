@@ -0,0 +1,227 @@
+package com.openclassrooms.tourguide.attraction;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.openclassrooms.tourguide.geo.NearbyAttractionGrid;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Catalog of the attractions known by gpsUtil.
+ *
+ * The attractions are loaded once instead of on every tracking call, and each
+ * one gets a dense ordinal that can index arrays and bit sets: its index in
+ * the first load. Attractions are identified by name because gpsUtil gives
+ * them a new random id on every call. A name keeps its ordinal for the life of
+ * the catalog, so attractions added by a later load get the next ordinals and
+ * those removed leave their ordinal unused.
+ *
+ * A new {@link NearbyAttractionGrid} comes with every load that changes the
+ * attractions, so the nearest attractions of a location are found among a few
+ * candidates. Loads can be repeated at a fixed delay, see {@link #start}.
+ */
+@Slf4j
+public class AttractionCatalog implements AutoCloseable {
+
+	/** Largest number of nearest attractions answered through the grid. */
+	public static final int NEARBY_GRID_LIMIT = 5;
+	private static final double NEARBY_GRID_CELL_SIZE_DEGREES = 1;
+
+	private final GpsUtil gpsUtil;
+	private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "attraction-catalog");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private volatile Snapshot snapshot;
+
+	/**
+	 * Attractions of one load, with the structures derived from them. The
+	 * ordinals cover every name loaded so far, removed attractions included.
+	 */
+	private record Snapshot(List<Attraction> attractions, Map<String, Attraction> attractionsByName,
+			Map<String, Integer> ordinalsByName, List<String> namesByOrdinal,
+			NearbyAttractionGrid<Attraction> nearbyGrid) {
+	}
+
+	/**
+	 * Creates the catalog and loads the attractions.
+	 *
+	 * @param gpsUtil Service providing the attractions
+	 */
+	public AttractionCatalog(GpsUtil gpsUtil) {
+		this.gpsUtil = gpsUtil;
+		refresh();
+	}
+
+	/**
+	 * Reloads the attractions from gpsUtil and rebuilds the nearest-attractions
+	 * grid if they changed.
+	 *
+	 * gpsUtil gives its attractions a new random id on every call, so an
+	 * attraction whose name, city, state and position are unchanged keeps the
+	 * instance, and the id, of the previous load.
+	 *
+	 * @return true if the attractions changed
+	 */
+	public synchronized boolean refresh() {
+		Snapshot previous = snapshot;
+		List<Attraction> loaded = new ArrayList<>();
+		boolean changed = previous == null;
+		for (Attraction attraction : gpsUtil.getAttractions()) {
+			Attraction known = previous == null ? null : previous.attractionsByName().get(attraction.attractionName);
+			if (known != null && sameAttraction(known, attraction)) {
+				loaded.add(known);
+			} else {
+				loaded.add(attraction);
+				changed = true;
+			}
+		}
+		if (!changed && loaded.size() == previous.attractions().size()) {
+			return false;
+		}
+		Map<String, Integer> ordinals = previous == null ? new HashMap<>() : new HashMap<>(previous.ordinalsByName());
+		List<String> names = previous == null ? new ArrayList<>() : new ArrayList<>(previous.namesByOrdinal());
+		for (Attraction attraction : loaded) {
+			ordinals.computeIfAbsent(attraction.attractionName, name -> {
+				names.add(name);
+				return names.size() - 1;
+			});
+		}
+		NearbyAttractionGrid<Attraction> nearbyGrid = new NearbyAttractionGrid<>(loaded, NEARBY_GRID_LIMIT,
+				NEARBY_GRID_CELL_SIZE_DEGREES);
+		Map<String, Attraction> byName = loaded.stream()
+				.collect(Collectors.toUnmodifiableMap(a -> a.attractionName, Function.identity(), (a, b) -> a));
+		this.snapshot = new Snapshot(List.copyOf(loaded), byName, Map.copyOf(ordinals), List.copyOf(names),
+				nearbyGrid);
+		log.debug("Attraction catalog loaded with {} attractions", loaded.size());
+		return true;
+	}
+
+	/**
+	 * Reloads the attractions at a fixed delay.
+	 *
+	 * @param interval Delay between the end of a load and the start of the next
+	 */
+	public void start(Duration interval) {
+		executorService.scheduleWithFixedDelay(this::refreshSafely, interval.toMillis(), interval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the scheduled loads.
+	 */
+	@Override
+	public void close() {
+		executorService.shutdownNow();
+	}
+
+	/**
+	 * Returns the attractions of the catalog.
+	 *
+	 * @return Immutable list of attractions, the same instance until the next
+	 *         refresh
+	 */
+	public List<Attraction> getAttractions() {
+		return snapshot.attractions();
+	}
+
+	/**
+	 * Returns the attractions closest to a location, sorted by increasing
+	 * distance, as a full scan of the catalog would.
+	 *
+	 * Up to {@value #NEARBY_GRID_LIMIT} attractions, only the candidates of the
+	 * grid cell of the location are compared.
+	 *
+	 * @param location Reference location
+	 * @param limit    Maximum number of attractions to return
+	 * @return Closest attractions, nearest first
+	 */
+	public List<Attraction> getNearestAttractions(Location location, int limit) {
+		return snapshot.nearbyGrid().nearest(location, limit);
+	}
+
+	/**
+	 * Returns the ordinal of an attraction.
+	 *
+	 * @param attraction Attraction concerned
+	 * @return Dense ordinal of the attraction, or -1 if the catalog never had
+	 *         an attraction with its name
+	 */
+	public int ordinalOf(Attraction attraction) {
+		return ordinalOf(attraction.attractionName);
+	}
+
+	/**
+	 * Returns the ordinal of an attraction name.
+	 *
+	 * @param attractionName Name of the attraction
+	 * @return Dense ordinal of the attraction, or -1 if the catalog never had
+	 *         an attraction with this name
+	 */
+	public int ordinalOf(String attractionName) {
+		Integer ordinal = snapshot.ordinalsByName().get(attractionName);
+		return ordinal == null ? -1 : ordinal;
+	}
+
+	/**
+	 * Returns the name of the attraction of an ordinal.
+	 *
+	 * @param ordinal Ordinal of the attraction
+	 * @return Name of the attraction, or null if no attraction has this ordinal
+	 */
+	public String getAttractionName(int ordinal) {
+		List<String> names = snapshot.namesByOrdinal();
+		return ordinal >= 0 && ordinal < names.size() ? names.get(ordinal) : null;
+	}
+
+	/**
+	 * Returns the number of ordinals given so far. Every ordinal is below it, so
+	 * it sizes the arrays and bit sets indexed by ordinal; it only grows when a
+	 * load adds attractions.
+	 *
+	 * @return Number of attraction names loaded since the creation
+	 */
+	public int getOrdinalCount() {
+		return snapshot.namesByOrdinal().size();
+	}
+
+	/**
+	 * Returns the attraction of the catalog with the given name.
+	 *
+	 * gpsUtil gives its attractions a new random id on every call, so the name
+	 * is what identifies an attraction outside the catalog.
+	 *
+	 * @param attractionName Name of the attraction
+	 * @return The attraction, or null if the catalog has none with this name
+	 */
+	public Attraction getAttraction(String attractionName) {
+		return snapshot.attractionsByName().get(attractionName);
+	}
+
+	private void refreshSafely() {
+		try {
+			refresh();
+		} catch (RuntimeException e) {
+			// The previous attractions stay in use until the next load
+			log.error("Attraction catalog refresh failed", e);
+		}
+	}
+
+	private static boolean sameAttraction(Attraction a, Attraction b) {
+		return a.city.equals(b.city) && a.state.equals(b.state) && a.latitude == b.latitude
+				&& a.longitude == b.longitude;
+	}
+}
@@ -0,0 +1,273 @@
+package com.openclassrooms.tourguide.cache;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.openclassrooms.tourguide.geo.GeoDistance;
+
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Cache of the latest location of the users, with a time to live per entry.
+ *
+ * The time to live of a location is the time the user needs to move by the
+ * tolerated distance at the speed measured between their two latest locations,
+ * bounded by a minimum and a maximum: locations of fast users expire sooner.
+ * Callers also give the staleness they accept, so a location is only served
+ * when it is younger than both.
+ *
+ * Once a location has lived a share of its time to live, the next read asks
+ * the caller to refresh it in the background while it is still served, so the
+ * users that are read often rarely miss.
+ *
+ * The age of every served location is recorded in a histogram.
+ */
+public class FreshnessAwareLocationCache {
+
+	private final Settings settings;
+	private final LongSupplier clockMillis;
+	private final Cache<UUID, Entry> entries;
+	private final Set<UUID> refreshing = ConcurrentHashMap.newKeySet();
+	private final StalenessHistogram staleness = new StalenessHistogram();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder refreshes = new LongAdder();
+
+	/**
+	 * Creates an empty cache.
+	 *
+	 * @param settings Time to live and refresh settings
+	 */
+	public FreshnessAwareLocationCache(Settings settings) {
+		this(settings, System::currentTimeMillis);
+	}
+
+	FreshnessAwareLocationCache(Settings settings, LongSupplier clockMillis) {
+		if (settings.minTtl().isNegative() || settings.minTtl().compareTo(settings.maxTtl()) > 0) {
+			throw new IllegalArgumentException("Minimum time to live must be between 0 and the maximum");
+		}
+		if (settings.refreshAheadRatio() <= 0 || settings.refreshAheadRatio() > 1) {
+			throw new IllegalArgumentException("Refresh-ahead ratio must be in ]0, 1]");
+		}
+		this.settings = settings;
+		this.clockMillis = clockMillis;
+		this.entries = Caffeine.newBuilder()
+				.maximumSize(settings.maxSize())
+				.expireAfter(new Expiry<UUID, Entry>() {
+					@Override
+					public long expireAfterCreate(UUID key, Entry entry, long currentTime) {
+						return TimeUnit.MILLISECONDS.toNanos(entry.ttlMillis());
+					}
+
+					@Override
+					public long expireAfterUpdate(UUID key, Entry entry, long currentTime, long currentDuration) {
+						return TimeUnit.MILLISECONDS.toNanos(entry.ttlMillis());
+					}
+
+					@Override
+					public long expireAfterRead(UUID key, Entry entry, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.ticker(() -> TimeUnit.MILLISECONDS.toNanos(clockMillis.getAsLong()))
+				.build();
+	}
+
+	/**
+	 * Returns the cached location of a user if it is fresh enough.
+	 *
+	 * @param userId       Id of the user
+	 * @param maxStaleness Oldest location the caller accepts
+	 * @return Cached location, or null if there is none younger than both the
+	 *         accepted staleness and its time to live
+	 */
+	public VisitedLocation getIfFresh(UUID userId, Duration maxStaleness) {
+		Entry entry = entries.getIfPresent(userId);
+		if (entry != null) {
+			long age = clockMillis.getAsLong() - entry.storedAtMillis();
+			if (age < maxStaleness.toMillis() && age <= entry.ttlMillis()) {
+				hits.increment();
+				staleness.record(age);
+				return entry.location();
+			}
+		}
+		misses.increment();
+		return null;
+	}
+
+	/**
+	 * Claims the background refresh of the location of a user, if it has lived
+	 * past the refresh-ahead share of its time to live and no refresh is running
+	 * for it. A successful claim must be followed by {@link #put} or
+	 * {@link #releaseRefresh}.
+	 *
+	 * @param userId Id of the user
+	 * @return true if the caller must refresh the location
+	 */
+	public boolean claimRefresh(UUID userId) {
+		Entry entry = entries.getIfPresent(userId);
+		if (entry == null || clockMillis.getAsLong() - entry.storedAtMillis() < entry.ttlMillis()
+				* settings.refreshAheadRatio()) {
+			return false;
+		}
+		if (!refreshing.add(userId)) {
+			return false;
+		}
+		refreshes.increment();
+		return true;
+	}
+
+	/**
+	 * Gives up a refresh claimed with {@link #claimRefresh}.
+	 *
+	 * @param userId Id of the user
+	 */
+	public void releaseRefresh(UUID userId) {
+		refreshing.remove(userId);
+	}
+
+	/**
+	 * Stores a location just obtained, which is served with a staleness of 0.
+	 *
+	 * @param userId           Id of the user
+	 * @param location         New location of the user
+	 * @param previousLocation Previous location of the user, used to measure
+	 *                         their speed, or null if unknown
+	 */
+	public void put(UUID userId, VisitedLocation location, VisitedLocation previousLocation) {
+		entries.put(userId, new Entry(location, clockMillis.getAsLong(), ttlMillis(location, previousLocation)));
+		refreshing.remove(userId);
+		staleness.record(0);
+	}
+
+	/**
+	 * Returns the time to live given to a location.
+	 *
+	 * @param location         New location of the user
+	 * @param previousLocation Previous location of the user, or null if unknown
+	 * @return Time to live in milliseconds
+	 */
+	public long ttlMillis(VisitedLocation location, VisitedLocation previousLocation) {
+		long maxTtl = settings.maxTtl().toMillis();
+		if (previousLocation == null) {
+			return maxTtl;
+		}
+		long elapsed = location.timeVisited.getTime() - previousLocation.timeVisited.getTime();
+		double miles = GeoDistance.miles(previousLocation.location, location.location);
+		if (elapsed <= 0 || miles == 0) {
+			return miles == 0 ? maxTtl : settings.minTtl().toMillis();
+		}
+		double ttl = settings.toleranceMiles() * elapsed / miles;
+		return (long) Math.max(settings.minTtl().toMillis(), Math.min(maxTtl, ttl));
+	}
+
+	/**
+	 * Returns the counters of the cache and the distribution of the age of the
+	 * served locations.
+	 *
+	 * @return Statistics since the creation of the cache
+	 */
+	public Statistics getStatistics() {
+		return new Statistics(hits.sum(), misses.sum(), refreshes.sum(), entries.estimatedSize(),
+				staleness.percentile(0.5), staleness.percentile(0.95), staleness.percentile(0.99), staleness.max());
+	}
+
+	private record Entry(VisitedLocation location, long storedAtMillis, long ttlMillis) {
+	}
+
+	/**
+	 * Settings of a {@link FreshnessAwareLocationCache}.
+	 *
+	 * @param minTtl            Time to live of the locations of the fastest
+	 *                          users
+	 * @param maxTtl            Time to live of the locations of still users, or
+	 *                          of unknown speed
+	 * @param toleranceMiles    Distance a user may have moved since a served
+	 *                          location
+	 * @param refreshAheadRatio Share of the time to live after which a read
+	 *                          triggers a background refresh
+	 * @param maxSize           Maximum number of cached locations
+	 */
+	public record Settings(Duration minTtl, Duration maxTtl, double toleranceMiles, double refreshAheadRatio,
+			long maxSize) {
+
+		/**
+		 * Returns the settings used when none are configured.
+		 *
+		 * @return Default settings
+		 */
+		public static Settings defaults() {
+			return new Settings(Duration.ofSeconds(30), Duration.ofMinutes(5), 0.5, 0.8, 500_000);
+		}
+	}
+
+	/**
+	 * Counters of a location cache.
+	 *
+	 * @param hits           Reads served from the cache
+	 * @param misses         Reads that had to locate the user
+	 * @param refreshes      Background refreshes triggered by reads
+	 * @param size           Approximate number of cached locations
+	 * @param p50StalenessMs Median age of the served locations, in milliseconds
+	 * @param p95StalenessMs 95th percentile of the age of the served locations
+	 * @param p99StalenessMs 99th percentile of the age of the served locations
+	 * @param maxStalenessMs Oldest location served
+	 */
+	public record Statistics(long hits, long misses, long refreshes, long size, long p50StalenessMs,
+			long p95StalenessMs, long p99StalenessMs, long maxStalenessMs) {
+	}
+
+	/**
+	 * Histogram with power of two buckets: bucket i counts the ages below 2^i
+	 * milliseconds and at least half of it. Percentiles are reported as the
+	 * upper bound of their bucket.
+	 */
+	private static final class StalenessHistogram {
+
+		private final LongAdder[] buckets = new LongAdder[Long.SIZE];
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		StalenessHistogram() {
+			for (int i = 0; i < buckets.length; i++) {
+				buckets[i] = new LongAdder();
+			}
+		}
+
+		void record(long ageMillis) {
+			long age = Math.max(0, ageMillis);
+			buckets[Long.SIZE - Long.numberOfLeadingZeros(age)].increment();
+			max.accumulate(age);
+		}
+
+		long percentile(double rank) {
+			long[] counts = new long[buckets.length];
+			long total = 0;
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] = buckets[i].sum();
+				total += counts[i];
+			}
+			long target = (long) Math.ceil(total * rank);
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= target && seen > 0) {
+					return Math.min(i == 0 ? 0 : (1L << i) - 1, max.get());
+				}
+			}
+			return 0;
+		}
+
+		long max() {
+			return max.get();
+		}
+	}
+}
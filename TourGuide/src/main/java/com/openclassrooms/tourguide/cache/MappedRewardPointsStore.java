@@ -0,0 +1,275 @@
+package com.openclassrooms.tourguide.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reward points stored in a memory-mapped file, which survives restarts.
+ *
+ * The file is a fixed hash table of {@value #SLOT_SIZE}-byte slots grouped in
+ * buckets of {@value #SLOTS_PER_BUCKET} slots. A slot holds the user id, an
+ * expiry time, the points and the UTF-8 name of the attraction, which is
+ * compared in full on lookups so that names with the same hash never share
+ * points:
+ *
+ * <pre>
+ * 0             8            16                      24       28            30     64
+ * | userId high | userId low | expires at (epoch ms) | points | name length | name |
+ * </pre>
+ *
+ * Names longer than {@value #MAX_NAME_BYTES} bytes cannot be stored.
+ *
+ * A key always lives in the same bucket, so each bucket is guarded by one lock
+ * of a striped set and lookups never scan more than one bucket. When a bucket
+ * is full, the entry expiring first is replaced.
+ *
+ * The file is recreated when its header does not match the configured
+ * capacity.
+ */
+public class MappedRewardPointsStore implements AutoCloseable {
+
+	public static final int SLOT_SIZE = 64;
+	public static final int SLOTS_PER_BUCKET = 8;
+	public static final int MAX_NAME_BYTES = 34;
+
+	private static final long MAGIC = 0x5447525043303032L;
+	private static final int HEADER_SIZE = 64;
+	private static final int BUCKET_SIZE = SLOT_SIZE * SLOTS_PER_BUCKET;
+	private static final int LOCK_STRIPES = 256;
+
+	private static final int USER_HIGH_OFFSET = 0;
+	private static final int USER_LOW_OFFSET = 8;
+	private static final int EXPIRES_OFFSET = 16;
+	private static final int POINTS_OFFSET = 24;
+	private static final int NAME_LENGTH_OFFSET = 28;
+	private static final int NAME_OFFSET = 30;
+
+	private final Path path;
+	private final int bucketCount;
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final Object[] locks = new Object[LOCK_STRIPES];
+
+	/**
+	 * Opens the store, creating or resetting the file if needed.
+	 *
+	 * @param path     File of the store
+	 * @param capacity Number of entries, rounded up to a power of two number of
+	 *                 buckets
+	 * @throws IllegalArgumentException if the capacity is not strictly positive
+	 *                                  or too large to be mapped
+	 * @throws UncheckedIOException     if the file cannot be opened
+	 */
+	public MappedRewardPointsStore(Path path, long capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be strictly positive");
+		}
+		long neededBuckets = (capacity + SLOTS_PER_BUCKET - 1) / SLOTS_PER_BUCKET;
+		long buckets = neededBuckets == 1 ? 1 : Long.highestOneBit(neededBuckets - 1) << 1;
+		long size = HEADER_SIZE + buckets * BUCKET_SIZE;
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Capacity too large for a single mapped file: " + capacity);
+		}
+		this.path = path;
+		this.bucketCount = (int) buckets;
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new Object();
+		}
+
+		try {
+			if (path.getParent() != null) {
+				Files.createDirectories(path.getParent());
+			}
+			this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			boolean reset = channel.size() != size;
+			if (reset) {
+				channel.truncate(0);
+			}
+			this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			if (reset || buffer.getLong(0) != MAGIC || buffer.getInt(8) != SLOT_SIZE
+					|| buffer.getInt(12) != SLOTS_PER_BUCKET || buffer.getLong(16) != bucketCount) {
+				initialize(size);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot open the reward points store " + path, e);
+		}
+	}
+
+	/**
+	 * Returns the file of the store.
+	 *
+	 * @return Path of the mapped file
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Returns the number of entries the store can hold.
+	 *
+	 * @return Capacity in entries
+	 */
+	public long getCapacity() {
+		return (long) bucketCount * SLOTS_PER_BUCKET;
+	}
+
+	/**
+	 * Tells whether the name of an attraction fits in a slot.
+	 *
+	 * @param attractionName Name of the attraction
+	 * @return true if entries of the attraction can be stored
+	 */
+	public static boolean canStore(String attractionName) {
+		return attractionName.getBytes(StandardCharsets.UTF_8).length <= MAX_NAME_BYTES;
+	}
+
+	/**
+	 * Returns the points stored for a key, unless they expired.
+	 *
+	 * @param userIdHigh     High half of the user id
+	 * @param userIdLow      Low half of the user id
+	 * @param attractionName Name of the attraction
+	 * @param now            Current time, in epoch milliseconds
+	 * @return Points and remaining time to live, or null if there is no valid
+	 *         entry
+	 */
+	public Entry get(long userIdHigh, long userIdLow, String attractionName, long now) {
+		byte[] name = attractionName.getBytes(StandardCharsets.UTF_8);
+		if (name.length > MAX_NAME_BYTES) {
+			return null;
+		}
+		int bucket = bucketOf(userIdHigh, userIdLow, attractionName.hashCode());
+		synchronized (lockOf(bucket)) {
+			int slot = find(bucket, userIdHigh, userIdLow, name);
+			long expiresAt = slot < 0 ? 0 : buffer.getLong(slot + EXPIRES_OFFSET);
+			if (expiresAt <= now) {
+				return null;
+			}
+			return new Entry(buffer.getInt(slot + POINTS_OFFSET), expiresAt - now);
+		}
+	}
+
+	/**
+	 * Stores the points of a key.
+	 *
+	 * @param userIdHigh     High half of the user id
+	 * @param userIdLow      Low half of the user id
+	 * @param attractionName Name of the attraction
+	 * @param points         Points to store, positive or zero
+	 * @param expiresAt      Expiry time, in epoch milliseconds
+	 * @throws IllegalArgumentException if the name of the attraction is longer
+	 *                                  than {@value #MAX_NAME_BYTES} bytes
+	 */
+	public void put(long userIdHigh, long userIdLow, String attractionName, int points, long expiresAt) {
+		byte[] name = attractionName.getBytes(StandardCharsets.UTF_8);
+		if (name.length > MAX_NAME_BYTES) {
+			throw new IllegalArgumentException("Attraction name too long to be stored: " + attractionName);
+		}
+		int bucket = bucketOf(userIdHigh, userIdLow, attractionName.hashCode());
+		synchronized (lockOf(bucket)) {
+			int slot = find(bucket, userIdHigh, userIdLow, name);
+			if (slot < 0) {
+				slot = victim(bucket);
+			}
+			buffer.putLong(slot + USER_HIGH_OFFSET, userIdHigh);
+			buffer.putLong(slot + USER_LOW_OFFSET, userIdLow);
+			buffer.putInt(slot + POINTS_OFFSET, points);
+			buffer.putShort(slot + NAME_LENGTH_OFFSET, (short) name.length);
+			buffer.put(slot + NAME_OFFSET, name);
+			buffer.putLong(slot + EXPIRES_OFFSET, expiresAt);
+		}
+	}
+
+	/**
+	 * Flushes the mapped pages to the file and closes it.
+	 */
+	@Override
+	public void close() {
+		try {
+			buffer.force();
+			channel.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot close the reward points store " + path, e);
+		}
+	}
+
+	private void initialize(long size) {
+		for (long position = 0; position < size; position += 8) {
+			buffer.putLong((int) position, 0);
+		}
+		buffer.putLong(0, MAGIC);
+		buffer.putInt(8, SLOT_SIZE);
+		buffer.putInt(12, SLOTS_PER_BUCKET);
+		buffer.putLong(16, bucketCount);
+	}
+
+	private int find(int bucket, long userIdHigh, long userIdLow, byte[] name) {
+		int first = HEADER_SIZE + bucket * BUCKET_SIZE;
+		for (int slot = first; slot < first + BUCKET_SIZE; slot += SLOT_SIZE) {
+			if (buffer.getLong(slot + EXPIRES_OFFSET) != 0 && buffer.getLong(slot + USER_LOW_OFFSET) == userIdLow
+					&& buffer.getLong(slot + USER_HIGH_OFFSET) == userIdHigh && hasName(slot, name)) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	private boolean hasName(int slot, byte[] name) {
+		if (buffer.getShort(slot + NAME_LENGTH_OFFSET) != name.length) {
+			return false;
+		}
+		for (int i = 0; i < name.length; i++) {
+			if (buffer.get(slot + NAME_OFFSET + i) != name[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the slot of a bucket expiring first; empty slots never expire
+	 * later than used ones.
+	 */
+	private int victim(int bucket) {
+		int first = HEADER_SIZE + bucket * BUCKET_SIZE;
+		int victim = first;
+		long earliest = Long.MAX_VALUE;
+		for (int slot = first; slot < first + BUCKET_SIZE; slot += SLOT_SIZE) {
+			long expiresAt = buffer.getLong(slot + EXPIRES_OFFSET);
+			if (expiresAt < earliest) {
+				earliest = expiresAt;
+				victim = slot;
+			}
+		}
+		return victim;
+	}
+
+	private int bucketOf(long userIdHigh, long userIdLow, int nameHash) {
+		long hash = userIdHigh * 0x9E3779B97F4A7C15L ^ userIdLow ^ (nameHash * 0xC2B2AE3D27D4EB4FL);
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		return (int) (hash & (bucketCount - 1));
+	}
+
+	private Object lockOf(int bucket) {
+		return locks[bucket & (LOCK_STRIPES - 1)];
+	}
+
+	/**
+	 * Points found in the store.
+	 *
+	 * @param points          Points of the entry
+	 * @param remainingMillis Time left before the entry expires, in
+	 *                        milliseconds
+	 */
+	public record Entry(int points, long remainingMillis) {
+	}
+}
@@ -0,0 +1,29 @@
+package com.openclassrooms.tourguide.cache;
+
+import java.util.UUID;
+
+/**
+ * Compact key of the reward points of a user at an attraction.
+ *
+ * Holds the two halves of the user id and the attraction ordinal as
+ * primitives, instead of building a string for every lookup.
+ *
+ * @param userIdMostSignificantBits  High half of the user id
+ * @param userIdLeastSignificantBits Low half of the user id
+ * @param attractionOrdinal          Ordinal of the attraction
+ */
+public record RewardPointsKey(long userIdMostSignificantBits, long userIdLeastSignificantBits,
+		int attractionOrdinal) {
+
+	/**
+	 * Builds the key of a user and an attraction.
+	 *
+	 * @param userId            User id
+	 * @param attractionOrdinal Ordinal of the attraction
+	 * @return Key of the pair
+	 */
+	public static RewardPointsKey of(UUID userId, int attractionOrdinal) {
+		return new RewardPointsKey(userId.getMostSignificantBits(), userId.getLeastSignificantBits(),
+				attractionOrdinal);
+	}
+}
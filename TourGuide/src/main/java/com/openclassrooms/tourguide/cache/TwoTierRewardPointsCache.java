@@ -0,0 +1,209 @@
+package com.openclassrooms.tourguide.cache;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Cache of reward points in two tiers.
+ *
+ * The first tier is an on-heap Caffeine cache keyed by {@link RewardPointsKey}.
+ * Its misses go to an optional {@link MappedRewardPointsStore}, larger and kept
+ * across restarts, and only then to the loader, whose result is written to both
+ * tiers.
+ *
+ * Attraction ordinals depend on the order in which the catalog loaded the
+ * attractions, so the second tier identifies attractions by their full name
+ * instead. Attractions whose name does not fit in the second tier always go to
+ * the loader.
+ *
+ * Entries promoted from the second tier keep the time to live they have left
+ * there, so a value is never served longer than the time to live after it was
+ * loaded, whichever tier serves it.
+ */
+public class TwoTierRewardPointsCache implements AutoCloseable {
+
+	private final Cache<RewardPointsKey, Points> l1;
+	private final MappedRewardPointsStore l2;
+	private final long ttlMillis;
+	private final LongSupplier clockMillis;
+	private final LongAdder l2Hits = new LongAdder();
+	private final LongAdder l2Misses = new LongAdder();
+	private final LongAdder loads = new LongAdder();
+
+	/**
+	 * Creates a cache with only the on-heap tier.
+	 *
+	 * @param ttl       Time to live of the entries
+	 * @param l1MaxSize Maximum number of entries kept on the heap
+	 */
+	public TwoTierRewardPointsCache(Duration ttl, long l1MaxSize) {
+		this(ttl, l1MaxSize, null);
+	}
+
+	/**
+	 * Creates a cache.
+	 *
+	 * @param ttl       Time to live of the entries, in both tiers
+	 * @param l1MaxSize Maximum number of entries kept on the heap
+	 * @param l2        Second tier, or null to only use the heap
+	 * @throws IllegalArgumentException if the time to live or the size is not
+	 *                                  strictly positive
+	 */
+	public TwoTierRewardPointsCache(Duration ttl, long l1MaxSize, MappedRewardPointsStore l2) {
+		this(ttl, l1MaxSize, l2, System::currentTimeMillis);
+	}
+
+	TwoTierRewardPointsCache(Duration ttl, long l1MaxSize, MappedRewardPointsStore l2, LongSupplier clockMillis) {
+		if (ttl.isZero() || ttl.isNegative() || l1MaxSize <= 0) {
+			throw new IllegalArgumentException("Time to live and size must be strictly positive");
+		}
+		this.ttlMillis = ttl.toMillis();
+		this.l2 = l2;
+		this.clockMillis = clockMillis;
+		this.l1 = Caffeine.newBuilder()
+				.maximumSize(l1MaxSize)
+				.expireAfter(new Expiry<RewardPointsKey, Points>() {
+					@Override
+					public long expireAfterCreate(RewardPointsKey key, Points points, long currentTime) {
+						return TimeUnit.MILLISECONDS.toNanos(points.ttlMillis());
+					}
+
+					@Override
+					public long expireAfterUpdate(RewardPointsKey key, Points points, long currentTime,
+							long currentDuration) {
+						return TimeUnit.MILLISECONDS.toNanos(points.ttlMillis());
+					}
+
+					@Override
+					public long expireAfterRead(RewardPointsKey key, Points points, long currentTime,
+							long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.ticker(() -> TimeUnit.MILLISECONDS.toNanos(clockMillis.getAsLong()))
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * Returns the points of a key, looking in the heap, then on disk, then
+	 * calling the loader. Concurrent misses on the same key call the loader
+	 * once.
+	 *
+	 * @param key            Key of the points
+	 * @param attractionName Name of the attraction of the key, which
+	 *                       identifies it in the second tier
+	 * @param loader         Loader of the points when neither tier has them,
+	 *                       returning a positive or zero value
+	 * @return Points of the key
+	 */
+	public int get(RewardPointsKey key, String attractionName, IntSupplier loader) {
+		return l1.get(key, k -> loadThroughL2(k, attractionName, loader)).points();
+	}
+
+	/**
+	 * Tells whether the heap tier holds the points of a key. Does not count as a
+	 * lookup in the statistics.
+	 *
+	 * @param key Key of the points
+	 * @return true if the points are served without any I/O
+	 */
+	public boolean contains(RewardPointsKey key) {
+		return l1.policy().getIfPresentQuietly(key) != null;
+	}
+
+	/**
+	 * Returns the hit and miss counts of both tiers.
+	 *
+	 * @return Statistics since the creation of the cache
+	 */
+	public Statistics getStatistics() {
+		CacheStats stats = l1.stats();
+		return new Statistics(stats.hitCount(), stats.missCount(), l2Hits.sum(), l2Misses.sum(), loads.sum(),
+				l1.estimatedSize(), l2 == null ? 0 : l2.getCapacity());
+	}
+
+	/**
+	 * Closes the second tier, flushing it to disk.
+	 */
+	@Override
+	public void close() {
+		if (l2 != null) {
+			l2.close();
+		}
+	}
+
+	private Points loadThroughL2(RewardPointsKey key, String attractionName, IntSupplier loader) {
+		if (l2 == null || !MappedRewardPointsStore.canStore(attractionName)) {
+			loads.increment();
+			return new Points(loader.getAsInt(), ttlMillis);
+		}
+
+		long now = clockMillis.getAsLong();
+		MappedRewardPointsStore.Entry entry = l2.get(key.userIdMostSignificantBits(),
+				key.userIdLeastSignificantBits(), attractionName, now);
+		if (entry != null) {
+			l2Hits.increment();
+			return new Points(entry.points(), entry.remainingMillis());
+		}
+		l2Misses.increment();
+		loads.increment();
+		int points = loader.getAsInt();
+		l2.put(key.userIdMostSignificantBits(), key.userIdLeastSignificantBits(), attractionName, points,
+				now + ttlMillis);
+		return new Points(points, ttlMillis);
+	}
+
+	/**
+	 * Points held on the heap, with the time to live they were cached for.
+	 */
+	private record Points(int points, long ttlMillis) {
+	}
+
+	/**
+	 * Hit and miss counts of the cache tiers.
+	 *
+	 * @param l1Hits     Lookups served by the heap
+	 * @param l1Misses   Lookups not found on the heap
+	 * @param l2Hits     Heap misses served by the disk
+	 * @param l2Misses   Heap misses not found on the disk
+	 * @param loads      Calls to the loader
+	 * @param l1Size     Approximate number of entries on the heap
+	 * @param l2Capacity Number of entries the disk can hold, 0 without a disk
+	 *                   tier
+	 */
+	public record Statistics(long l1Hits, long l1Misses, long l2Hits, long l2Misses, long loads, long l1Size,
+			long l2Capacity) {
+
+		/**
+		 * Returns the share of lookups served by the heap.
+		 *
+		 * @return Ratio between 0 and 1, 0 without lookups
+		 */
+		public double l1HitRatio() {
+			return ratio(l1Hits, l1Misses);
+		}
+
+		/**
+		 * Returns the share of heap misses served by the disk.
+		 *
+		 * @return Ratio between 0 and 1, 0 without lookups on the disk
+		 */
+		public double l2HitRatio() {
+			return ratio(l2Hits, l2Misses);
+		}
+
+		private static double ratio(long hits, long misses) {
+			long total = hits + misses;
+			return total == 0 ? 0 : (double) hits / total;
+		}
+	}
+}
@@ -0,0 +1,195 @@
+package com.openclassrooms.tourguide.cluster;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Static cluster membership with heartbeats between the instances.
+ *
+ * Every instance is configured with its own base URL and the base URLs of all
+ * the instances of the cluster. Each instance pings the others periodically on
+ * {@value #PING_PATH} and places itself and the peers that answered on a
+ * {@link ConsistentHashRing}. When a peer stops answering or comes back, the
+ * ring is rebuilt and the ownership of the users moves accordingly; no
+ * external coordination service is involved.
+ *
+ * When the cluster mode is disabled, the instance owns every user.
+ */
+@Slf4j
+@Component
+public class ClusterMembership implements UserOwnership, DisposableBean {
+
+	public static final String PING_PATH = "/cluster/ping";
+
+	private final boolean enabled;
+	private final String self;
+	private final List<String> peers;
+	private final int virtualNodes;
+	private final Duration heartbeatTimeout;
+	private final HttpClient httpClient;
+	private final ScheduledExecutorService heartbeatExecutor;
+	private volatile ConsistentHashRing ring;
+
+	/**
+	 * Creates the membership of the current instance.
+	 *
+	 * @param enabled                 Enables the cluster mode
+	 * @param self                    Base URL of this instance, as seen by the
+	 *                                other instances
+	 * @param nodes                   Base URLs of all the instances of the
+	 *                                cluster, this one may be included
+	 * @param virtualNodes            Number of points of each instance on the
+	 *                                ring
+	 * @param heartbeatIntervalMillis Delay between two heartbeat rounds
+	 * @param heartbeatTimeoutMillis  Time after which a peer that did not answer
+	 *                                is considered down
+	 * @throws IllegalStateException if the cluster mode is enabled without the
+	 *                               URL of this instance
+	 */
+	public ClusterMembership(@Value("${tourguide.cluster.enabled:false}") boolean enabled,
+			@Value("${tourguide.cluster.self:}") String self,
+			@Value("${tourguide.cluster.nodes:}") List<String> nodes,
+			@Value("${tourguide.cluster.virtualNodes:128}") int virtualNodes,
+			@Value("${tourguide.cluster.heartbeatIntervalMillis:2000}") long heartbeatIntervalMillis,
+			@Value("${tourguide.cluster.heartbeatTimeoutMillis:1000}") long heartbeatTimeoutMillis) {
+		this.enabled = enabled;
+		this.self = normalize(self);
+		this.virtualNodes = virtualNodes;
+		this.heartbeatTimeout = Duration.ofMillis(heartbeatTimeoutMillis);
+
+		Set<String> others = new LinkedHashSet<>();
+		for (String node : nodes) {
+			String url = normalize(node);
+			if (!url.isEmpty() && !url.equals(this.self)) {
+				others.add(url);
+			}
+		}
+		this.peers = List.copyOf(others);
+
+		if (!enabled) {
+			this.httpClient = null;
+			this.heartbeatExecutor = null;
+			return;
+		}
+		if (this.self.isEmpty()) {
+			throw new IllegalStateException("tourguide.cluster.self is required when the cluster mode is enabled");
+		}
+		this.ring = new ConsistentHashRing(List.of(this.self), virtualNodes);
+		this.httpClient = HttpClient.newBuilder().connectTimeout(heartbeatTimeout).build();
+		this.heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "cluster-heartbeat");
+			thread.setDaemon(true);
+			return thread;
+		});
+		heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, 0, heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+		log.info("Cluster mode enabled on {} with peers {}", this.self, peers);
+	}
+
+	/**
+	 * Indicates whether the cluster mode is enabled.
+	 *
+	 * @return true if the users are shared between several instances
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Returns the base URL of this instance.
+	 *
+	 * @return Base URL, empty if the cluster mode is disabled and no URL is set
+	 */
+	public String getSelf() {
+		return self;
+	}
+
+	/**
+	 * Returns the instances currently on the ring, this one included.
+	 *
+	 * @return Base URLs of the live instances
+	 */
+	public List<String> getLiveNodes() {
+		ConsistentHashRing current = ring;
+		return current == null ? List.of(self) : current.getNodes();
+	}
+
+	/**
+	 * Returns the instance owning a user.
+	 *
+	 * @param userName Name of the user
+	 * @return Base URL of the owning instance
+	 */
+	public String ownerOf(String userName) {
+		ConsistentHashRing current = ring;
+		return current == null ? self : current.ownerOf(userName.trim());
+	}
+
+	@Override
+	public boolean isOwnedLocally(String userName) {
+		return !enabled || self.equals(ownerOf(userName));
+	}
+
+	/**
+	 * Pings every peer and rebuilds the ring if the set of live instances
+	 * changed.
+	 */
+	public void heartbeat() {
+		if (!enabled) {
+			return;
+		}
+		List<String> live = new ArrayList<>();
+		live.add(self);
+		for (String peer : peers) {
+			if (isAlive(peer)) {
+				live.add(peer);
+			}
+		}
+		ConsistentHashRing current = ring;
+		if (!current.getNodes().equals(live.stream().sorted().toList())) {
+			ring = new ConsistentHashRing(live, virtualNodes);
+			log.info("Cluster membership changed: {}", ring.getNodes());
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (heartbeatExecutor != null) {
+			heartbeatExecutor.shutdownNow();
+		}
+	}
+
+	private boolean isAlive(String peer) {
+		try {
+			HttpRequest request = HttpRequest.newBuilder(URI.create(peer + PING_PATH)).timeout(heartbeatTimeout)
+					.GET().build();
+			return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (Exception e) {
+			log.debug("Peer {} did not answer the heartbeat: {}", peer, e.getMessage());
+			return false;
+		}
+	}
+
+	private static String normalize(String url) {
+		String trimmed = url == null ? "" : url.trim();
+		return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+	}
+}
@@ -0,0 +1,46 @@
+package com.openclassrooms.tourguide.cluster;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Redirects requests about users owned by another instance of the cluster.
+ *
+ * Requests carrying a {@code userName} parameter are answered with a
+ * {@code 307 Temporary Redirect} to the same path and query on the owning
+ * instance, so the method and parameters are kept. Other requests, and all
+ * requests when the cluster mode is disabled, go through unchanged.
+ */
+@Component
+@RequiredArgsConstructor
+public class ClusterRoutingInterceptor implements HandlerInterceptor {
+
+	private static final String USER_NAME_PARAMETER = "userName";
+
+	private final ClusterMembership clusterMembership;
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (!clusterMembership.isEnabled()) {
+			return true;
+		}
+		String userName = request.getParameter(USER_NAME_PARAMETER);
+		if (userName == null || userName.isBlank()) {
+			return true;
+		}
+		String owner = clusterMembership.ownerOf(userName);
+		if (owner.equals(clusterMembership.getSelf())) {
+			return true;
+		}
+		String query = request.getQueryString();
+		response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+		response.setHeader(HttpHeaders.LOCATION, owner + request.getRequestURI() + (query == null ? "" : "?" + query));
+		return false;
+	}
+}
@@ -0,0 +1,100 @@
+package com.openclassrooms.tourguide.cluster;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring assigning user names to cluster nodes.
+ *
+ * Every node is placed on the ring at several points (virtual nodes) so the
+ * users are spread evenly. A user belongs to the first node found clockwise
+ * from the hash of its name. When a node joins or leaves, only the users of the
+ * ranges next to its points change owner.
+ *
+ * The hash only depends on the characters of the names, so every instance
+ * configured with the same nodes builds the same ring.
+ */
+public class ConsistentHashRing {
+
+	private final List<String> nodes;
+	private final long[] points;
+	private final String[] owners;
+
+	/**
+	 * Builds a ring.
+	 *
+	 * @param nodes        Identifiers of the nodes, duplicates are ignored
+	 * @param virtualNodes Number of points of each node on the ring
+	 * @throws IllegalArgumentException if there is no node or the number of
+	 *                                  virtual nodes is not strictly positive
+	 */
+	public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+		if (nodes == null || nodes.isEmpty()) {
+			throw new IllegalArgumentException("A ring needs at least one node");
+		}
+		if (virtualNodes <= 0) {
+			throw new IllegalArgumentException("Virtual nodes must be strictly positive");
+		}
+		this.nodes = List.copyOf(new TreeSet<>(nodes));
+
+		long[][] entries = new long[this.nodes.size() * virtualNodes][];
+		int count = 0;
+		for (int node = 0; node < this.nodes.size(); node++) {
+			for (int replica = 0; replica < virtualNodes; replica++) {
+				entries[count++] = new long[] { hash(this.nodes.get(node) + "#" + replica), node };
+			}
+		}
+		// Ties between points are broken by node so every instance agrees
+		Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+		this.points = new long[count];
+		this.owners = new String[count];
+		for (int i = 0; i < count; i++) {
+			points[i] = entries[i][0];
+			owners[i] = this.nodes.get((int) entries[i][1]);
+		}
+	}
+
+	/**
+	 * Returns the node owning a key.
+	 *
+	 * @param key Key to place on the ring, usually a user name
+	 * @return Identifier of the owning node
+	 */
+	public String ownerOf(String key) {
+		int index = Arrays.binarySearch(points, hash(key));
+		if (index < 0) {
+			index = -index - 1;
+		}
+		return owners[index == points.length ? 0 : index];
+	}
+
+	/**
+	 * Returns the nodes of the ring.
+	 *
+	 * @return Node identifiers, sorted
+	 */
+	public List<String> getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * 64-bit FNV-1a of the characters, followed by the MurmurHash3 finalizer to
+	 * spread close names over the whole ring.
+	 */
+	static long hash(String key) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < key.length(); i++) {
+			hash ^= key.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
@@ -0,0 +1,19 @@
+package com.openclassrooms.tourguide.cluster;
+
+/**
+ * Tells which users are handled by the current instance.
+ */
+@FunctionalInterface
+public interface UserOwnership {
+
+	/** Ownership of a single instance, handling every user. */
+	UserOwnership ALL = userName -> true;
+
+	/**
+	 * Indicates whether a user is handled by the current instance.
+	 *
+	 * @param userName Name of the user
+	 * @return true if this instance tracks and serves the user
+	 */
+	boolean isOwnedLocally(String userName);
+}
@@ -0,0 +1,209 @@
+package com.openclassrooms.tourguide.codec;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.UUID;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.openclassrooms.tourguide.dto.LocationHistoryPageDTO;
+import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.user.UserReward;
+
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Compact binary encoding of the locations, rewards and nearby attractions,
+ * returned instead of JSON to the clients accepting {@value #MEDIA_TYPE_VALUE}.
+ *
+ * Every response starts with the bytes 'T', 'G', the format version and the
+ * kind of content, followed by big-endian fields without names; strings are
+ * modified UTF-8 preceded by their length on two bytes, see {@link FlatWriter}:
+ *
+ * <pre>
+ * LOCATION  userId(16) latitude(8) longitude(8) time ms(8)
+ * PAGE      userName userId(16) total(4) offset(4) nextOffset(4, -1 if none) count(4)
+ *           count * [latitude(8) longitude(8) time ms(8)]
+ * REWARDS   count(4) count * [attractionId(16) attractionName city state attraction latitude(8)
+ *           attraction longitude(8) visit latitude(8) visit longitude(8) visit time ms(8) points(4)]
+ * NEARBY    count(4) count * [attractionName attraction latitude(8) attraction longitude(8)
+ *           user latitude(8) user longitude(8) distance(8) points(4)]
+ * </pre>
+ *
+ * The user id of the page and of the rewards is the same for every location,
+ * so it is written once or not at all. Responses are encoded in a buffer
+ * reused by each thread, then written in one go.
+ */
+public class FlatBinaryMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+	public static final String MEDIA_TYPE_VALUE = "application/vnd.tourguide.flat";
+	public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+	public static final int VERSION = 1;
+
+	public static final int LOCATION = 1;
+	public static final int PAGE = 2;
+	public static final int REWARDS = 3;
+	public static final int NEARBY = 4;
+
+	private static final int INITIAL_BUFFER_BYTES = 4096;
+	// Buffers grown beyond this size by a large response are not kept
+	private static final int MAX_RETAINED_BUFFER_BYTES = 1 << 20;
+	private static final UUID NO_USER = new UUID(0, 0);
+
+	private final ThreadLocal<FlatWriter> writers = ThreadLocal
+			.withInitial(() -> new FlatWriter(INITIAL_BUFFER_BYTES));
+
+	public FlatBinaryMessageConverter() {
+		super(MEDIA_TYPE);
+	}
+
+	/**
+	 * Accepts any collection, since the element type is unknown here; Spring
+	 * lists the media types a value can be written as from its class alone.
+	 * {@link #canWrite(Type, Class, MediaType)} then checks the element type.
+	 */
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return VisitedLocation.class.isAssignableFrom(clazz) || LocationHistoryPageDTO.class.isAssignableFrom(clazz)
+				|| Collection.class.isAssignableFrom(clazz);
+	}
+
+	@Override
+	public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+		return canWrite(mediaType) && kindOf(type, clazz) != 0;
+	}
+
+	@Override
+	public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+		throw new HttpMessageNotReadableException("The flat binary format is only written", inputMessage);
+	}
+
+	@Override
+	protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+		throw new HttpMessageNotReadableException("The flat binary format is only written", inputMessage);
+	}
+
+	@Override
+	protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+		FlatWriter writer = writers.get();
+		writer.reset();
+		encode(value, kindOf(type, value.getClass()), writer);
+		outputMessage.getHeaders().setContentLength(writer.size());
+		writer.writeTo(outputMessage.getBody());
+		if (writer.capacity() > MAX_RETAINED_BUFFER_BYTES) {
+			writers.remove();
+		}
+	}
+
+	/**
+	 * Encodes a value.
+	 *
+	 * @param value  Location, location history page, rewards or nearby
+	 *               attractions
+	 * @param kind   Kind of the value, one of the constants of this class
+	 * @param writer Destination of the bytes
+	 * @throws IllegalArgumentException if the kind is unknown
+	 */
+	@SuppressWarnings("unchecked")
+	public static void encode(Object value, int kind, FlatWriter writer) {
+		writer.writeByte('T');
+		writer.writeByte('G');
+		writer.writeByte(VERSION);
+		writer.writeByte(kind);
+		switch (kind) {
+		case LOCATION -> writeLocation((VisitedLocation) value, writer);
+		case PAGE -> writePage((LocationHistoryPageDTO) value, writer);
+		case REWARDS -> writeRewards((Collection<UserReward>) value, writer);
+		case NEARBY -> writeNearby((Collection<NearbyAttractionDTO>) value, writer);
+		default -> throw new IllegalArgumentException("Unknown kind " + kind);
+		}
+	}
+
+	private static void writeLocation(VisitedLocation location, FlatWriter writer) {
+		writer.writeUuid(location.userId);
+		writer.writeDouble(location.location.latitude);
+		writer.writeDouble(location.location.longitude);
+		writer.writeLong(location.timeVisited.getTime());
+	}
+
+	private static void writePage(LocationHistoryPageDTO page, FlatWriter writer) {
+		writer.writeString(page.userName);
+		writer.writeUuid(page.locations.isEmpty() ? NO_USER : page.locations.get(0).userId);
+		writer.writeInt(page.total);
+		writer.writeInt(page.offset);
+		writer.writeInt(page.nextOffset == null ? -1 : page.nextOffset);
+		writer.writeInt(page.locations.size());
+		for (VisitedLocation location : page.locations) {
+			writer.writeDouble(location.location.latitude);
+			writer.writeDouble(location.location.longitude);
+			writer.writeLong(location.timeVisited.getTime());
+		}
+	}
+
+	private static void writeRewards(Collection<UserReward> rewards, FlatWriter writer) {
+		writer.writeInt(rewards.size());
+		for (UserReward reward : rewards) {
+			writer.writeUuid(reward.attraction.attractionId);
+			writer.writeString(reward.attraction.attractionName);
+			writer.writeString(reward.attraction.city);
+			writer.writeString(reward.attraction.state);
+			writer.writeDouble(reward.attraction.latitude);
+			writer.writeDouble(reward.attraction.longitude);
+			writer.writeDouble(reward.visitedLocation.location.latitude);
+			writer.writeDouble(reward.visitedLocation.location.longitude);
+			writer.writeLong(reward.visitedLocation.timeVisited.getTime());
+			writer.writeInt(reward.getRewardPoints());
+		}
+	}
+
+	private static void writeNearby(Collection<NearbyAttractionDTO> attractions, FlatWriter writer) {
+		writer.writeInt(attractions.size());
+		for (NearbyAttractionDTO attraction : attractions) {
+			writer.writeString(attraction.attractionName);
+			writer.writeDouble(attraction.attractionLatitude);
+			writer.writeDouble(attraction.attractionLongitude);
+			writer.writeDouble(attraction.userLatitude);
+			writer.writeDouble(attraction.userLongitude);
+			writer.writeDouble(attraction.distance);
+			writer.writeInt(attraction.rewardPoints);
+		}
+	}
+
+	/**
+	 * Returns the kind of a type, 0 if it cannot be encoded.
+	 */
+	private static int kindOf(Type type, Class<?> clazz) {
+		ResolvableType resolved = type != null ? ResolvableType.forType(type) : ResolvableType.forClass(clazz);
+		Class<?> raw = resolved.resolve(clazz);
+		if (raw == null) {
+			return 0;
+		}
+		if (VisitedLocation.class.isAssignableFrom(raw)) {
+			return LOCATION;
+		}
+		if (LocationHistoryPageDTO.class.isAssignableFrom(raw)) {
+			return PAGE;
+		}
+		if (Collection.class.isAssignableFrom(raw)) {
+			Class<?> element = resolved.asCollection().resolveGeneric(0);
+			if (element != null && UserReward.class.isAssignableFrom(element)) {
+				return REWARDS;
+			}
+			if (element != null && NearbyAttractionDTO.class.isAssignableFrom(element)) {
+				return NEARBY;
+			}
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,157 @@
+package com.openclassrooms.tourguide.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Growable big-endian byte buffer, readable with a
+ * {@link java.io.DataInputStream}.
+ *
+ * Values are written straight into the buffer, in the encoding of
+ * {@link java.io.DataOutputStream}: strings are encoded to modified UTF-8
+ * character by character, so writing a field never allocates. A writer is
+ * meant to be reset and reused by one thread.
+ */
+public class FlatWriter {
+
+	public static final int MAX_STRING_BYTES = 0xFFFF;
+
+	private byte[] buffer;
+	private int size;
+
+	/**
+	 * Creates an empty writer.
+	 *
+	 * @param initialCapacity Initial size of the buffer, in bytes
+	 */
+	public FlatWriter(int initialCapacity) {
+		this.buffer = new byte[Math.max(initialCapacity, 16)];
+	}
+
+	/**
+	 * Returns the number of bytes written since the last reset.
+	 *
+	 * @return Number of bytes
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the size of the buffer.
+	 *
+	 * @return Number of bytes the writer holds without growing
+	 */
+	public int capacity() {
+		return buffer.length;
+	}
+
+	/**
+	 * Forgets the bytes written, keeping the buffer.
+	 */
+	public void reset() {
+		size = 0;
+	}
+
+	public void writeByte(int value) {
+		ensureCapacity(1);
+		buffer[size++] = (byte) value;
+	}
+
+	public void writeShort(int value) {
+		ensureCapacity(2);
+		buffer[size++] = (byte) (value >>> 8);
+		buffer[size++] = (byte) value;
+	}
+
+	public void writeInt(int value) {
+		ensureCapacity(4);
+		buffer[size++] = (byte) (value >>> 24);
+		buffer[size++] = (byte) (value >>> 16);
+		buffer[size++] = (byte) (value >>> 8);
+		buffer[size++] = (byte) value;
+	}
+
+	public void writeLong(long value) {
+		ensureCapacity(8);
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			buffer[size++] = (byte) (value >>> shift);
+		}
+	}
+
+	public void writeDouble(double value) {
+		writeLong(Double.doubleToRawLongBits(value));
+	}
+
+	public void writeUuid(UUID value) {
+		writeLong(value.getMostSignificantBits());
+		writeLong(value.getLeastSignificantBits());
+	}
+
+	/**
+	 * Writes a string as its length in bytes, on two bytes, followed by its
+	 * modified UTF-8 encoding, as {@link java.io.DataOutputStream#writeUTF}
+	 * does: the character 0 takes two bytes and each half of a surrogate pair
+	 * three bytes.
+	 *
+	 * @param value String to write, null being written as an empty string
+	 * @throws IllegalArgumentException if the encoding is longer than
+	 *                                  {@value #MAX_STRING_BYTES} bytes
+	 */
+	public void writeString(String value) {
+		int start = size;
+		writeShort(0);
+		if (value != null) {
+			int length = value.length();
+			for (int i = 0; i < length; i++) {
+				char c = value.charAt(i);
+				if (c != 0 && c < 0x80) {
+					writeByte(c);
+				} else if (c < 0x800) {
+					ensureCapacity(2);
+					buffer[size++] = (byte) (0xC0 | (c >> 6));
+					buffer[size++] = (byte) (0x80 | (c & 0x3F));
+				} else {
+					ensureCapacity(3);
+					buffer[size++] = (byte) (0xE0 | (c >> 12));
+					buffer[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+					buffer[size++] = (byte) (0x80 | (c & 0x3F));
+				}
+			}
+		}
+		int bytes = size - start - 2;
+		if (bytes > MAX_STRING_BYTES) {
+			size = start;
+			throw new IllegalArgumentException("String of " + bytes + " bytes, longer than " + MAX_STRING_BYTES);
+		}
+		buffer[start] = (byte) (bytes >>> 8);
+		buffer[start + 1] = (byte) bytes;
+	}
+
+	/**
+	 * Copies the bytes written to a stream.
+	 *
+	 * @param output Destination
+	 * @throws IOException if the stream fails
+	 */
+	public void writeTo(OutputStream output) throws IOException {
+		output.write(buffer, 0, size);
+	}
+
+	/**
+	 * Returns a copy of the bytes written.
+	 *
+	 * @return Bytes written since the last reset
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(buffer, size);
+	}
+
+	private void ensureCapacity(int bytes) {
+		if (size + bytes > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + bytes));
+		}
+	}
+}
@@ -1,10 +1,17 @@
 package com.openclassrooms.tourguide.configuration;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.concurrent.ExecutorService;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.openclassrooms.tourguide.cache.MappedRewardPointsStore;
+import com.openclassrooms.tourguide.cache.TwoTierRewardPointsCache;
+import com.openclassrooms.tourguide.gps.ResilientGpsClient;
+import com.openclassrooms.tourguide.profiling.LatencyBreakdownHandler;
 import com.openclassrooms.tourguide.service.RewardsService;
 
 import gpsUtil.GpsUtil;
@@ -29,4 +36,76 @@ public class TourGuideModule {
 		return new RewardCentral();
 	}
 
+	/**
+	 * Creates the reward points cache shared by every rewards service, so that a
+	 * single instance maps the disk tier.
+	 *
+	 * @param ttl        Time to live of the entries
+	 * @param l1MaxSize  Maximum number of entries kept on the heap
+	 * @param l2Path     File of the disk tier, empty to only use the heap
+	 * @param l2Capacity Number of entries of the disk tier
+	 * @return Reward points cache
+	 */
+	@Bean(destroyMethod = "close")
+	public TwoTierRewardPointsCache getRewardPointsCache(@Value("${tourguide.rewards.cache.ttl:10m}") Duration ttl,
+			@Value("${tourguide.rewards.cache.l1MaxSize:100000}") long l1MaxSize,
+			@Value("${tourguide.rewards.cache.l2Path:}") String l2Path,
+			@Value("${tourguide.rewards.cache.l2Capacity:4194304}") long l2Capacity) {
+		MappedRewardPointsStore l2 = l2Path.isBlank() ? null
+				: new MappedRewardPointsStore(Path.of(l2Path), l2Capacity);
+		return new TwoTierRewardPointsCache(ttl, l1MaxSize, l2);
+	}
+
+	/**
+	 * Creates the client bounding the calls to the GPS service.
+	 *
+	 * @param gpsUtil                     GPS service
+	 * @param deadline                    Longest wait for a location
+	 * @param minHedgeDelay               Shortest delay before a second attempt
+	 * @param maxHedgeRatio               Maximum number of second attempts per
+	 *                                    call
+	 * @param maxConcurrentCalls          Maximum number of GPS calls running at
+	 *                                    the same time
+	 * @param breakerWindowSize           Number of recent calls considered by
+	 *                                    the circuit breaker
+	 * @param breakerMinimumCalls         Number of calls needed before the
+	 *                                    circuit may open
+	 * @param breakerFailureRateThreshold Share of failed calls opening the
+	 *                                    circuit
+	 * @param breakerOpenDuration         Time during which no call is made once
+	 *                                    the circuit is open
+	 * @return GPS client
+	 */
+	@Bean(destroyMethod = "close")
+	public ResilientGpsClient getResilientGpsClient(GpsUtil gpsUtil,
+			@Value("${tourguide.gps.deadline:1s}") Duration deadline,
+			@Value("${tourguide.gps.minHedgeDelay:20ms}") Duration minHedgeDelay,
+			@Value("${tourguide.gps.maxHedgeRatio:0.1}") double maxHedgeRatio,
+			@Value("${tourguide.gps.maxConcurrentCalls:256}") int maxConcurrentCalls,
+			@Value("${tourguide.gps.breaker.windowSize:100}") int breakerWindowSize,
+			@Value("${tourguide.gps.breaker.minimumCalls:20}") int breakerMinimumCalls,
+			@Value("${tourguide.gps.breaker.failureRateThreshold:0.5}") double breakerFailureRateThreshold,
+			@Value("${tourguide.gps.breaker.openDuration:5s}") Duration breakerOpenDuration) {
+		return ResilientGpsClient.of(gpsUtil, new ResilientGpsClient.Settings(deadline, minHedgeDelay, maxHedgeRatio,
+				maxConcurrentCalls, breakerWindowSize, breakerMinimumCalls, breakerFailureRateThreshold,
+				breakerOpenDuration));
+	}
+
+	/**
+	 * Creates the handler breaking down the latency of the sampled requests,
+	 * registered on the observation registry by Spring Boot.
+	 *
+	 * @param sampleRate     Share of the requests traced, 0 to trace none
+	 * @param minDuration    Duration under which a traced request is dropped
+	 * @param recentCapacity Number of breakdowns kept for the actuator endpoint
+	 * @return Latency breakdown handler
+	 */
+	@Bean
+	public LatencyBreakdownHandler getLatencyBreakdownHandler(
+			@Value("${tourguide.tracing.sampleRate:0}") double sampleRate,
+			@Value("${tourguide.tracing.minDuration:0ms}") Duration minDuration,
+			@Value("${tourguide.tracing.recentCapacity:100}") int recentCapacity) {
+		return new LatencyBreakdownHandler(sampleRate, minDuration, recentCapacity);
+	}
+
 }
@@ -0,0 +1,37 @@
+package com.openclassrooms.tourguide.configuration;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.openclassrooms.tourguide.admission.AdmissionInterceptor;
+import com.openclassrooms.tourguide.cluster.ClusterRoutingInterceptor;
+import com.openclassrooms.tourguide.codec.FlatBinaryMessageConverter;
+
+import lombok.RequiredArgsConstructor;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ClusterRoutingInterceptor clusterRoutingInterceptor;
+    private final AdmissionInterceptor admissionInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(clusterRoutingInterceptor).excludePathPatterns("/cluster/**");
+        registry.addInterceptor(admissionInterceptor).excludePathPatterns("/cluster/**");
+    }
+
+    /**
+     * Adds the flat binary format after the default converters, so that JSON
+     * stays the format of the clients that do not ask for it.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new FlatBinaryMessageConverter());
+    }
+}
@@ -0,0 +1,34 @@
+package com.openclassrooms.tourguide.controller;
+
+import java.util.List;
+
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.openclassrooms.tourguide.cluster.ClusterMembership;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/cluster")
+@RequiredArgsConstructor
+public class ClusterController {
+
+    private final ClusterMembership clusterMembership;
+
+    @RequestMapping("/ping")
+    public String ping() {
+        return "pong";
+    }
+
+    @RequestMapping("/members")
+    public List<String> members() {
+        return clusterMembership.getLiveNodes();
+    }
+
+    @RequestMapping("/owner")
+    public String owner(@RequestParam String userName) {
+        return clusterMembership.ownerOf(userName);
+    }
+}
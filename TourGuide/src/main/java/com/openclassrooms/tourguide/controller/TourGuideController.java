@@ -1,19 +1,31 @@
 package com.openclassrooms.tourguide.controller;
 
-import java.util.Comparator;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.openclassrooms.tourguide.cache.FreshnessAwareLocationCache;
+import com.openclassrooms.tourguide.cache.TwoTierRewardPointsCache;
+import com.openclassrooms.tourguide.dto.AttractionRewardsDTO;
+import com.openclassrooms.tourguide.dto.LeaderboardEntryDTO;
+import com.openclassrooms.tourguide.dto.LocationCacheStatisticsDTO;
+import com.openclassrooms.tourguide.dto.LocationHistoryPageDTO;
 import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.dto.RewardCacheStatisticsDTO;
+import com.openclassrooms.tourguide.dto.RewardSummaryDTO;
+import com.openclassrooms.tourguide.service.RewardStatistics;
 import com.openclassrooms.tourguide.service.RewardsService;
 import com.openclassrooms.tourguide.service.TourGuideService;
 import com.openclassrooms.tourguide.user.User;
 import com.openclassrooms.tourguide.user.UserReward;
+import com.openclassrooms.tourguide.user.UserState;
 
 import gpsUtil.location.VisitedLocation;
 import lombok.RequiredArgsConstructor;
@@ -27,6 +39,7 @@ public class TourGuideController {
 
     private final TourGuideService tourGuideService;
     private final RewardsService rewardsService;
+    private final RewardStatistics rewardStatistics;
 
     @RequestMapping("/")
     public String index() {
@@ -34,8 +47,34 @@ public class TourGuideController {
     }
 
     @RequestMapping("/getLocation")
-    public VisitedLocation getLocation(@RequestParam String userName) {
-        return tourGuideService.getUserLocation(getUser(userName));
+    public VisitedLocation getLocation(@RequestParam String userName,
+            @RequestParam(required = false) Long maxStalenessSeconds) {
+        User user = getUser(userName);
+        if (maxStalenessSeconds == null) {
+            return tourGuideService.getUserLocation(user);
+        }
+        return tourGuideService.getUserLocation(user, Duration.ofSeconds(Math.max(0, maxStalenessSeconds)));
+    }
+
+    @RequestMapping("/getLocationCacheStatistics")
+    public LocationCacheStatisticsDTO getLocationCacheStatistics() {
+        FreshnessAwareLocationCache.Statistics statistics = tourGuideService.getLocationCache().getStatistics();
+        return new LocationCacheStatisticsDTO(statistics.hits(), statistics.misses(), statistics.refreshes(),
+                statistics.size(), statistics.p50StalenessMs(), statistics.p95StalenessMs(),
+                statistics.p99StalenessMs(), statistics.maxStalenessMs());
+    }
+
+    @RequestMapping("/getLocationHistory")
+    public LocationHistoryPageDTO getLocationHistory(@RequestParam String userName,
+            @RequestParam(required = false) Instant from, @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "0") int offset, @RequestParam(defaultValue = "100") int limit) {
+        List<VisitedLocation> locations = tourGuideService.getLocationHistory(getUser(userName),
+                from == null ? Instant.EPOCH : from, to == null ? Instant.now() : to);
+        int start = Math.min(Math.max(0, offset), locations.size());
+        // At least one location per page, so a client following nextOffset always moves forward
+        int end = Math.min(locations.size(), start + Math.max(1, Math.min(limit, 1000)));
+        return new LocationHistoryPageDTO(userName, locations.size(), start,
+                end < locations.size() ? end : null, locations.subList(start, end));
     }
 
     @RequestMapping("/getNearbyAttractions")
@@ -52,8 +91,6 @@ public class TourGuideController {
                         visitedLocation.location.longitude,
                         rewardsService.getDistance(attraction, visitedLocation.location),
                         rewardsService.getRewardPoints(attraction, user)))
-                .sorted(Comparator.comparingDouble(dto -> dto.distance))
-                .limit(5)
                 .collect(Collectors.toList());
     }
 
@@ -63,6 +100,38 @@ public class TourGuideController {
                 .collect(Collectors.toList());
     }
 
+    @RequestMapping("/getRewardSummary")
+    public RewardSummaryDTO getRewardSummary(@RequestParam String userName) {
+        User user = getUser(userName);
+        UserState state = user.getState();
+        return new RewardSummaryDTO(user.getUserName(), state.userRewards().size(), state.rewardPoints());
+    }
+
+    @RequestMapping("/getRewardLeaderboard")
+    public List<LeaderboardEntryDTO> getRewardLeaderboard(@RequestParam(defaultValue = "10") int limit) {
+        List<RewardStatistics.LeaderboardEntry> topUsers = rewardStatistics.getTopUsers(Math.min(limit, 1000));
+        return IntStream.range(0, topUsers.size())
+                .mapToObj(i -> new LeaderboardEntryDTO(i + 1, topUsers.get(i).userName(),
+                        topUsers.get(i).rewardPoints()))
+                .collect(Collectors.toList());
+    }
+
+    @RequestMapping("/getAttractionRewards")
+    public List<AttractionRewardsDTO> getAttractionRewards() {
+        return rewardStatistics.getAttractionRewards().stream()
+                .map(rewards -> new AttractionRewardsDTO(rewards.attractionName(), rewards.rewardCount(),
+                        rewards.rewardPoints()))
+                .collect(Collectors.toList());
+    }
+
+    @RequestMapping("/getRewardCacheStatistics")
+    public RewardCacheStatisticsDTO getRewardCacheStatistics() {
+        TwoTierRewardPointsCache.Statistics statistics = rewardsService.getRewardPointsCache().getStatistics();
+        return new RewardCacheStatisticsDTO(statistics.l1Hits(), statistics.l1Misses(), statistics.l1HitRatio(),
+                statistics.l1Size(), statistics.l2Hits(), statistics.l2Misses(), statistics.l2HitRatio(),
+                statistics.l2Capacity(), statistics.loads());
+    }
+
     @RequestMapping("/getTripDeals")
     public List<Provider> getTripDeals(@RequestParam String userName) {
         return tourGuideService.getTripDeals(getUser(userName)).parallelStream()
@@ -0,0 +1,13 @@
+package com.openclassrooms.tourguide.dto;
+
+public class AttractionRewardsDTO {
+    public String attractionName;
+    public long rewardCount;
+    public long rewardPoints;
+
+    public AttractionRewardsDTO(String attractionName, long rewardCount, long rewardPoints) {
+        this.attractionName = attractionName;
+        this.rewardCount = rewardCount;
+        this.rewardPoints = rewardPoints;
+    }
+}
@@ -0,0 +1,13 @@
+package com.openclassrooms.tourguide.dto;
+
+public class LeaderboardEntryDTO {
+    public int rank;
+    public String userName;
+    public long rewardPoints;
+
+    public LeaderboardEntryDTO(int rank, String userName, long rewardPoints) {
+        this.rank = rank;
+        this.userName = userName;
+        this.rewardPoints = rewardPoints;
+    }
+}
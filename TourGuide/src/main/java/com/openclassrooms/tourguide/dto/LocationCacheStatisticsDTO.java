@@ -0,0 +1,24 @@
+package com.openclassrooms.tourguide.dto;
+
+public class LocationCacheStatisticsDTO {
+    public long hits;
+    public long misses;
+    public long refreshes;
+    public long size;
+    public long p50StalenessMs;
+    public long p95StalenessMs;
+    public long p99StalenessMs;
+    public long maxStalenessMs;
+
+    public LocationCacheStatisticsDTO(long hits, long misses, long refreshes, long size, long p50StalenessMs,
+            long p95StalenessMs, long p99StalenessMs, long maxStalenessMs) {
+        this.hits = hits;
+        this.misses = misses;
+        this.refreshes = refreshes;
+        this.size = size;
+        this.p50StalenessMs = p50StalenessMs;
+        this.p95StalenessMs = p95StalenessMs;
+        this.p99StalenessMs = p99StalenessMs;
+        this.maxStalenessMs = maxStalenessMs;
+    }
+}
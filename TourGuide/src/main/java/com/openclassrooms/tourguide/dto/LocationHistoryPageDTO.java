@@ -0,0 +1,22 @@
+package com.openclassrooms.tourguide.dto;
+
+import java.util.List;
+
+import gpsUtil.location.VisitedLocation;
+
+public class LocationHistoryPageDTO {
+    public String userName;
+    public int total;
+    public int offset;
+    public Integer nextOffset;
+    public List<VisitedLocation> locations;
+
+    public LocationHistoryPageDTO(String userName, int total, int offset, Integer nextOffset,
+            List<VisitedLocation> locations) {
+        this.userName = userName;
+        this.total = total;
+        this.offset = offset;
+        this.nextOffset = nextOffset;
+        this.locations = locations;
+    }
+}
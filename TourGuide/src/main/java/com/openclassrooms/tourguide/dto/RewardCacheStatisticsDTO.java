@@ -0,0 +1,26 @@
+package com.openclassrooms.tourguide.dto;
+
+public class RewardCacheStatisticsDTO {
+    public long l1Hits;
+    public long l1Misses;
+    public double l1HitRatio;
+    public long l1Size;
+    public long l2Hits;
+    public long l2Misses;
+    public double l2HitRatio;
+    public long l2Capacity;
+    public long loads;
+
+    public RewardCacheStatisticsDTO(long l1Hits, long l1Misses, double l1HitRatio, long l1Size, long l2Hits,
+            long l2Misses, double l2HitRatio, long l2Capacity, long loads) {
+        this.l1Hits = l1Hits;
+        this.l1Misses = l1Misses;
+        this.l1HitRatio = l1HitRatio;
+        this.l1Size = l1Size;
+        this.l2Hits = l2Hits;
+        this.l2Misses = l2Misses;
+        this.l2HitRatio = l2HitRatio;
+        this.l2Capacity = l2Capacity;
+        this.loads = loads;
+    }
+}
@@ -0,0 +1,13 @@
+package com.openclassrooms.tourguide.dto;
+
+public class RewardSummaryDTO {
+    public String userName;
+    public int rewardCount;
+    public long rewardPoints;
+
+    public RewardSummaryDTO(String userName, int rewardCount, long rewardPoints) {
+        this.userName = userName;
+        this.rewardCount = rewardCount;
+        this.rewardPoints = rewardPoints;
+    }
+}
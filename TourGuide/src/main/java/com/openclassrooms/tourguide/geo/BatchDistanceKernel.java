@@ -0,0 +1,62 @@
+package com.openclassrooms.tourguide.geo;
+
+import org.slf4j.LoggerFactory;
+
+import gpsUtil.location.Location;
+
+/**
+ * Computes the distances from one location to many locations at once.
+ */
+public interface BatchDistanceKernel {
+
+	String VECTOR_MODULE = "jdk.incubator.vector";
+
+	/**
+	 * Computes the distance from a location to every location of the arrays.
+	 *
+	 * @param from   Reference location
+	 * @param to     Target locations
+	 * @param result Array receiving the distances in miles, at the index of each
+	 *               target; must be at least as long as the targets
+	 */
+	void distances(Location from, CoordinateArrays to, double[] result);
+
+	/**
+	 * Returns the scalar kernel, which gives the same results as
+	 * {@link GeoDistance#miles(Location, Location)}.
+	 *
+	 * @return Scalar kernel
+	 */
+	static BatchDistanceKernel scalar() {
+		return ScalarBatchDistanceKernel.INSTANCE;
+	}
+
+	/**
+	 * Returns the kernel matching the requested mode.
+	 *
+	 * The SIMD kernel relies on the incubating Vector API; when the
+	 * {@value #VECTOR_MODULE} module is not available at runtime (the JVM must be
+	 * started with {@code --add-modules jdk.incubator.vector}), the scalar kernel
+	 * is returned instead.
+	 *
+	 * @param simd true to use the SIMD kernel when possible
+	 * @return SIMD kernel if requested and available, scalar kernel otherwise
+	 */
+	static BatchDistanceKernel create(boolean simd) {
+		if (!simd) {
+			return scalar();
+		}
+		if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+			LoggerFactory.getLogger(BatchDistanceKernel.class)
+					.warn("Module {} is not available, falling back on the scalar distance kernel", VECTOR_MODULE);
+			return scalar();
+		}
+		try {
+			return new VectorBatchDistanceKernel();
+		} catch (LinkageError e) {
+			LoggerFactory.getLogger(BatchDistanceKernel.class)
+					.warn("SIMD distance kernel unavailable, falling back on the scalar kernel", e);
+			return scalar();
+		}
+	}
+}
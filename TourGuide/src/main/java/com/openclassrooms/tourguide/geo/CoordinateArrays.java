@@ -0,0 +1,72 @@
+package com.openclassrooms.tourguide.geo;
+
+import java.util.List;
+
+import gpsUtil.location.Location;
+
+/**
+ * Coordinates of a list of locations held in primitive arrays, with the sine
+ * and cosine of each latitude computed once.
+ *
+ * Used as the input of a {@link BatchDistanceKernel}, which computes the
+ * distances from one point to all these locations in a single pass.
+ */
+public final class CoordinateArrays {
+
+	private final List<? extends Location> source;
+	private final double[] longitudes;
+	private final double[] sinLatitudes;
+	private final double[] cosLatitudes;
+
+	private CoordinateArrays(List<? extends Location> source) {
+		int size = source.size();
+		this.source = source;
+		this.longitudes = new double[size];
+		this.sinLatitudes = new double[size];
+		this.cosLatitudes = new double[size];
+		for (int i = 0; i < size; i++) {
+			Location location = source.get(i);
+			double latitude = Math.toRadians(location.latitude);
+			longitudes[i] = Math.toRadians(location.longitude);
+			sinLatitudes[i] = Math.sin(latitude);
+			cosLatitudes[i] = Math.cos(latitude);
+		}
+	}
+
+	/**
+	 * Builds the coordinate arrays of a list of locations.
+	 *
+	 * @param locations Locations, in the order of the resulting arrays
+	 * @return Coordinate arrays of the locations
+	 */
+	public static CoordinateArrays of(List<? extends Location> locations) {
+		return new CoordinateArrays(locations);
+	}
+
+	/**
+	 * Indicates whether these arrays were built from the given list.
+	 *
+	 * @param locations List to compare with
+	 * @return true if the arrays were built from this very list and its size did
+	 *         not change
+	 */
+	public boolean isBuiltFrom(List<? extends Location> locations) {
+		return source == locations && longitudes.length == locations.size();
+	}
+
+	public int size() {
+		return longitudes.length;
+	}
+
+	double[] longitudes() {
+		return longitudes;
+	}
+
+	double[] sinLatitudes() {
+		return sinLatitudes;
+	}
+
+	double[] cosLatitudes() {
+		return cosLatitudes;
+	}
+}
@@ -0,0 +1,50 @@
+package com.openclassrooms.tourguide.geo;
+
+import gpsUtil.location.Location;
+
+/**
+ * Distance formulas shared by the services and the geographic indexes.
+ */
+public final class GeoDistance {
+
+	public static final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
+	public static final double MILES_PER_DEGREE = 60 * STATUTE_MILES_PER_NAUTICAL_MILE;
+
+	private GeoDistance() {
+	}
+
+	/**
+	 * Calculates the great-circle distance between two locations with the
+	 * spherical law of cosines.
+	 *
+	 * @param loc1 First point (latitude, longitude)
+	 * @param loc2 Second point
+	 * @return Distance between the two locations in miles
+	 */
+	public static double miles(Location loc1, Location loc2) {
+		return miles(loc1.latitude, loc1.longitude, loc2.latitude, loc2.longitude);
+	}
+
+	/**
+	 * Calculates the great-circle distance between two points given by their
+	 * coordinates, without any {@link Location}.
+	 *
+	 * @param latitude1  Latitude of the first point, in degrees
+	 * @param longitude1 Longitude of the first point, in degrees
+	 * @param latitude2  Latitude of the second point, in degrees
+	 * @param longitude2 Longitude of the second point, in degrees
+	 * @return Distance between the two points in miles
+	 */
+	public static double miles(double latitude1, double longitude1, double latitude2, double longitude2) {
+		double lat1 = Math.toRadians(latitude1);
+		double lon1 = Math.toRadians(longitude1);
+		double lat2 = Math.toRadians(latitude2);
+		double lon2 = Math.toRadians(longitude2);
+
+		double angle = Math.acos(Math.sin(lat1) * Math.sin(lat2)
+				+ Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2));
+
+		double nauticalMiles = 60 * Math.toDegrees(angle);
+		return STATUTE_MILES_PER_NAUTICAL_MILE * nauticalMiles;
+	}
+}
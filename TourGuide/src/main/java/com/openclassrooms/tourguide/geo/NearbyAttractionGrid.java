@@ -0,0 +1,200 @@
+package com.openclassrooms.tourguide.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import gpsUtil.location.Location;
+
+/**
+ * Precomputed table of the attractions that can be among the nearest ones from
+ * any point of a latitude/longitude cell.
+ *
+ * For each cell, the distances from its center to every attraction are
+ * computed once. If r is the largest distance from the center to a point of
+ * the cell and D the distance from the center to its k-th nearest attraction,
+ * the triangle inequality shows that the k nearest attractions of any point of
+ * the cell are within D + 2r of the center. Only those candidates are kept, so
+ * a query computes a handful of exact distances instead of sorting every
+ * attraction, and returns the same attractions in the same order as a full
+ * scan.
+ *
+ * The candidates of a cell are computed the first time the cell is queried and
+ * kept for the life of the grid, so the cost of the table only depends on the
+ * cells where users are, not on the 64,800 cells of a 1 degree grid. The grid
+ * never sees attraction changes; it must be replaced when they change.
+ *
+ * @param <T> Type of the attractions
+ */
+public class NearbyAttractionGrid<T extends Location> {
+
+	/** Absorbs the rounding of the distances and of the cell radius. */
+	private static final double RELATIVE_MARGIN = 0.01;
+	private static final double MARGIN_MILES = 0.01;
+
+	private final List<T> attractions;
+	private final int maxLimit;
+	private final double cellSizeDegrees;
+	private final int latitudeCells;
+	private final int longitudeCells;
+	private final CoordinateArrays coordinates;
+	private final AtomicReferenceArray<int[]> candidates;
+
+	/**
+	 * Creates the grid, without computing any cell yet.
+	 *
+	 * @param attractions     Attractions to index, in the order used to break
+	 *                        ties between equal distances
+	 * @param maxLimit        Largest number of nearest attractions a query can
+	 *                        ask for through the grid
+	 * @param cellSizeDegrees Side of a cell, in degrees
+	 * @throws IllegalArgumentException if the limit or the cell size is not
+	 *                                  strictly positive
+	 */
+	public NearbyAttractionGrid(List<T> attractions, int maxLimit, double cellSizeDegrees) {
+		if (maxLimit <= 0) {
+			throw new IllegalArgumentException("Limit must be strictly positive");
+		}
+		if (cellSizeDegrees <= 0 || cellSizeDegrees > 180) {
+			throw new IllegalArgumentException("Cell size must be between 0 and 180 degrees");
+		}
+		this.attractions = List.copyOf(attractions);
+		this.maxLimit = maxLimit;
+		this.cellSizeDegrees = cellSizeDegrees;
+		this.latitudeCells = (int) Math.ceil(180 / cellSizeDegrees);
+		this.longitudeCells = (int) Math.ceil(360 / cellSizeDegrees);
+		this.coordinates = CoordinateArrays.of(this.attractions);
+		this.candidates = new AtomicReferenceArray<>(latitudeCells * longitudeCells);
+	}
+
+	/**
+	 * Returns the number of cells of the grid.
+	 *
+	 * @return Number of cells
+	 */
+	public int getCellCount() {
+		return candidates.length();
+	}
+
+	/**
+	 * Returns the number of candidate attractions of the cell containing a
+	 * location.
+	 *
+	 * @param location Location concerned
+	 * @return Number of attractions whose distance is computed by a query there
+	 */
+	public int getCandidateCount(Location location) {
+		return candidatesOf(cellOf(location)).length;
+	}
+
+	/**
+	 * Returns the attractions closest to a location, sorted by increasing
+	 * distance. Equal distances keep the order of the attraction list.
+	 *
+	 * Limits above the one the grid was built for fall back on a scan of every
+	 * attraction.
+	 *
+	 * @param location Reference location
+	 * @param limit    Maximum number of attractions to return
+	 * @return Closest attractions, nearest first
+	 */
+	public List<T> nearest(Location location, int limit) {
+		int count = Math.min(Math.max(limit, 0), attractions.size());
+		int[] cellCandidates = limit <= maxLimit ? candidatesOf(cellOf(location)) : null;
+		int candidateCount = cellCandidates == null ? attractions.size() : cellCandidates.length;
+
+		int[] closest = new int[count];
+		double[] closestDistances = new double[count];
+		int found = 0;
+		for (int c = 0; c < candidateCount; c++) {
+			int index = cellCandidates == null ? c : cellCandidates[c];
+			double distance = GeoDistance.miles(location, attractions.get(index));
+			if (found == count && (count == 0 || distance >= closestDistances[count - 1])) {
+				continue;
+			}
+			int position = found < count ? found++ : count - 1;
+			while (position > 0 && closestDistances[position - 1] > distance) {
+				closest[position] = closest[position - 1];
+				closestDistances[position] = closestDistances[position - 1];
+				position--;
+			}
+			closest[position] = index;
+			closestDistances[position] = distance;
+		}
+
+		List<T> result = new ArrayList<>(found);
+		for (int i = 0; i < found; i++) {
+			result.add(attractions.get(closest[i]));
+		}
+		return result;
+	}
+
+	private int[] candidatesOf(int cell) {
+		int[] cellCandidates = candidates.get(cell);
+		if (cellCandidates == null) {
+			// Concurrent first queries compute the same candidates
+			cellCandidates = computeCandidates(cell / longitudeCells, cell % longitudeCells);
+			candidates.set(cell, cellCandidates);
+		}
+		return cellCandidates;
+	}
+
+	private int[] computeCandidates(int latitudeIndex, int longitudeIndex) {
+		int k = Math.min(maxLimit, attractions.size());
+		if (k == 0) {
+			return new int[0];
+		}
+		double south = -90 + latitudeIndex * cellSizeDegrees;
+		double north = Math.min(90, south + cellSizeDegrees);
+		double west = -180 + longitudeIndex * cellSizeDegrees;
+		double east = Math.min(180, west + cellSizeDegrees);
+		Location center = new Location((south + north) / 2, (west + east) / 2);
+		double radius = Math.max(
+				Math.max(GeoDistance.miles(center, new Location(south, west)),
+						GeoDistance.miles(center, new Location(south, east))),
+				Math.max(GeoDistance.miles(center, new Location(north, west)),
+						GeoDistance.miles(center, new Location(north, east))));
+		radius = radius * (1 + RELATIVE_MARGIN) + MARGIN_MILES;
+
+		double[] distances = new double[attractions.size()];
+		BatchDistanceKernel.scalar().distances(center, coordinates, distances);
+		double bound = kthSmallest(distances, new double[k]) * (1 + RELATIVE_MARGIN) + 2 * radius + MARGIN_MILES;
+
+		int size = 0;
+		int[] selected = new int[distances.length];
+		for (int i = 0; i < distances.length; i++) {
+			if (distances[i] <= bound) {
+				selected[size++] = i;
+			}
+		}
+		return Arrays.copyOf(selected, size);
+	}
+
+	/**
+	 * Returns the k-th smallest distance, k being the length of the work array.
+	 */
+	private static double kthSmallest(double[] distances, double[] nearest) {
+		int found = 0;
+		for (double distance : distances) {
+			if (found == nearest.length && distance >= nearest[found - 1]) {
+				continue;
+			}
+			int position = found < nearest.length ? found++ : found - 1;
+			while (position > 0 && nearest[position - 1] > distance) {
+				nearest[position] = nearest[position - 1];
+				position--;
+			}
+			nearest[position] = distance;
+		}
+		return nearest[nearest.length - 1];
+	}
+
+	private int cellOf(Location location) {
+		int latitudeIndex = (int) Math.floor((location.latitude + 90) / cellSizeDegrees);
+		latitudeIndex = Math.min(Math.max(latitudeIndex, 0), latitudeCells - 1);
+		int longitudeIndex = Math.floorMod((int) Math.floor((location.longitude + 180) / cellSizeDegrees),
+				longitudeCells);
+		return latitudeIndex * longitudeCells + longitudeIndex;
+	}
+}
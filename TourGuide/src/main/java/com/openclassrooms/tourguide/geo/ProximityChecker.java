@@ -0,0 +1,133 @@
+package com.openclassrooms.tourguide.geo;
+
+import gpsUtil.location.Location;
+
+/**
+ * Decides whether two locations are within a given distance of each other.
+ *
+ * In exact mode every check runs {@link GeoDistance#miles(Location, Location)}.
+ * In approximate mode the check goes through three stages:
+ * <ol>
+ * <li>a bounding-box test on latitude and longitude differences, which uses
+ * true lower bounds of the great-circle distance and rejects far away
+ * candidates without any trigonometry;</li>
+ * <li>an equirectangular approximation for the remaining candidates;</li>
+ * <li>the exact formula when the approximation falls in the borderline band
+ * around the radius.</li>
+ * </ol>
+ *
+ * The equirectangular approximation is only used when both points are within
+ * {@value #MAX_APPROXIMATED_LATITUDE} degrees of the equator and the radius is
+ * at most {@value #MAX_APPROXIMATED_RADIUS} miles. In that range its relative
+ * error stays below 0.6%, so a borderline band of {@link #MAX_RELATIVE_ERROR}
+ * of the radius guarantees the same answer as the exact formula. Outside that
+ * range the exact formula is used.
+ */
+public class ProximityChecker {
+
+	/** Relative width of the borderline band handed over to the exact formula. */
+	public static final double MAX_RELATIVE_ERROR = 0.01;
+	public static final double MAX_APPROXIMATED_RADIUS = 500;
+	public static final double MAX_APPROXIMATED_LATITUDE = 70;
+
+	/** Absorbs the rounding of acos near 0 in the exact formula. */
+	private static final double MARGIN_MILES = 0.01;
+	private static final double[] COSINE_LOWER_BOUNDS = new double[91];
+
+	static {
+		for (int degree = 0; degree <= 90; degree++) {
+			COSINE_LOWER_BOUNDS[degree] = Math.max(0, Math.cos(Math.toRadians(degree + 1.0)));
+		}
+	}
+
+	private final boolean approximate;
+
+	/**
+	 * Creates a proximity checker.
+	 *
+	 * @param approximate true to enable the bounding-box prefilter and the
+	 *                    equirectangular approximation, false to always use the
+	 *                    exact formula
+	 */
+	public ProximityChecker(boolean approximate) {
+		this.approximate = approximate;
+	}
+
+	/**
+	 * Indicates whether the approximate mode is enabled.
+	 *
+	 * @return true if the prefilter and the approximation are used
+	 */
+	public boolean isApproximate() {
+		return approximate;
+	}
+
+	/**
+	 * Checks whether two locations are within a radius of each other.
+	 *
+	 * The answer is always the same as comparing
+	 * {@link GeoDistance#miles(Location, Location)} with the radius, called with
+	 * the locations in the same order.
+	 *
+	 * @param from        First location
+	 * @param to          Second location
+	 * @param radiusMiles Maximum distance, in miles
+	 * @return true if the distance is less than or equal to the radius
+	 */
+	public boolean isWithin(Location from, Location to, double radiusMiles) {
+		return isWithin(from.latitude, from.longitude, to.latitude, to.longitude, radiusMiles);
+	}
+
+	/**
+	 * Checks whether two points given by their coordinates are within a radius
+	 * of each other, without any {@link Location}.
+	 *
+	 * @param fromLatitude  Latitude of the first point, in degrees
+	 * @param fromLongitude Longitude of the first point, in degrees
+	 * @param toLatitude    Latitude of the second point, in degrees
+	 * @param toLongitude   Longitude of the second point, in degrees
+	 * @param radiusMiles   Maximum distance, in miles
+	 * @return true if the distance is less than or equal to the radius
+	 * @see #isWithin(Location, Location, double)
+	 */
+	public boolean isWithin(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude,
+			double radiusMiles) {
+		if (!approximate) {
+			return GeoDistance.miles(fromLatitude, fromLongitude, toLatitude, toLongitude) <= radiusMiles;
+		}
+
+		double latitudeDelta = Math.abs(fromLatitude - toLatitude);
+		if (latitudeDelta * GeoDistance.MILES_PER_DEGREE > radiusMiles + MARGIN_MILES) {
+			return false;
+		}
+
+		double longitudeDelta = Math.abs(fromLongitude - toLongitude);
+		if (longitudeDelta > 180) {
+			longitudeDelta = 360 - longitudeDelta;
+		}
+		double widestLatitude = Math.max(Math.abs(fromLatitude), Math.abs(toLatitude));
+		double cosineLowerBound = COSINE_LOWER_BOUNDS[(int) Math.min(widestLatitude, 90)];
+		// 2R.sin(dLon/2) >= R.dLon.(1 - dLon^2/24) bounds the distance from below
+		double halfLongitudeRadians = Math.toRadians(longitudeDelta) / 2;
+		double longitudeLowerBound = longitudeDelta * GeoDistance.MILES_PER_DEGREE * cosineLowerBound
+				* (1 - halfLongitudeRadians * halfLongitudeRadians / 6);
+		if (longitudeLowerBound > radiusMiles + MARGIN_MILES) {
+			return false;
+		}
+
+		if (radiusMiles > MAX_APPROXIMATED_RADIUS || widestLatitude > MAX_APPROXIMATED_LATITUDE) {
+			return GeoDistance.miles(fromLatitude, fromLongitude, toLatitude, toLongitude) <= radiusMiles;
+		}
+
+		double x = longitudeDelta * Math.cos(Math.toRadians((fromLatitude + toLatitude) / 2));
+		double approximation = GeoDistance.MILES_PER_DEGREE * Math.sqrt(x * x + latitudeDelta * latitudeDelta);
+		double band = radiusMiles * MAX_RELATIVE_ERROR + MARGIN_MILES;
+		if (approximation < radiusMiles - band) {
+			return true;
+		}
+		if (approximation > radiusMiles + band) {
+			return false;
+		}
+		return GeoDistance.miles(fromLatitude, fromLongitude, toLatitude, toLongitude) <= radiusMiles;
+	}
+}
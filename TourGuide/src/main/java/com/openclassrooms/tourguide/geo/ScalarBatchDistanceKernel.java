@@ -0,0 +1,46 @@
+package com.openclassrooms.tourguide.geo;
+
+import gpsUtil.location.Location;
+
+/**
+ * Batch distance kernel computing one pair at a time with the same formula as
+ * {@link GeoDistance#miles(Location, Location)}, the target latitudes' sine and
+ * cosine being read from the arrays instead of being recomputed.
+ */
+final class ScalarBatchDistanceKernel implements BatchDistanceKernel {
+
+	static final ScalarBatchDistanceKernel INSTANCE = new ScalarBatchDistanceKernel();
+
+	private ScalarBatchDistanceKernel() {
+	}
+
+	@Override
+	public void distances(Location from, CoordinateArrays to, double[] result) {
+		distances(from, to, 0, result);
+	}
+
+	/**
+	 * Computes the distances to the targets starting at a given index.
+	 *
+	 * @param from   Reference location
+	 * @param to     Target locations
+	 * @param start  Index of the first target to compute
+	 * @param result Array receiving the distances in miles
+	 */
+	static void distances(Location from, CoordinateArrays to, int start, double[] result) {
+		double latitude = Math.toRadians(from.latitude);
+		double longitude = Math.toRadians(from.longitude);
+		double sinLatitude = Math.sin(latitude);
+		double cosLatitude = Math.cos(latitude);
+		double[] longitudes = to.longitudes();
+		double[] sinLatitudes = to.sinLatitudes();
+		double[] cosLatitudes = to.cosLatitudes();
+
+		for (int i = start; i < to.size(); i++) {
+			double angle = Math.acos(sinLatitude * sinLatitudes[i]
+					+ cosLatitude * cosLatitudes[i] * Math.cos(longitude - longitudes[i]));
+			double nauticalMiles = 60 * Math.toDegrees(angle);
+			result[i] = GeoDistance.STATUTE_MILES_PER_NAUTICAL_MILE * nauticalMiles;
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package com.openclassrooms.tourguide.geo;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+import com.openclassrooms.tourguide.user.User;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Spatial index of the latest known position of every user.
+ *
+ * The globe is divided into a grid of square latitude/longitude cells. Each
+ * user is stored in the cell containing its latest {@link VisitedLocation}, so
+ * a range query only has to look at the few cells overlapping the bounding box
+ * of the search radius instead of every user.
+ *
+ * Updates for a given user are expected to come from one thread at a time (the
+ * tracking task of that user), while queries may run concurrently.
+ */
+public class UserLocationIndex {
+
+	private final double cellSizeDegrees;
+	private final int latitudeCells;
+	private final int longitudeCells;
+	private final Map<Long, Map<UUID, IndexedUser>> cells = new ConcurrentHashMap<>();
+	private final Map<UUID, IndexedUser> positions = new ConcurrentHashMap<>();
+
+	/**
+	 * Latest indexed position of a user.
+	 *
+	 * @param user     Indexed user
+	 * @param location Latest visited location of this user
+	 */
+	public record IndexedUser(User user, VisitedLocation location) {
+	}
+
+	/**
+	 * Creates an empty index.
+	 *
+	 * @param cellSizeDegrees Side of a grid cell, in degrees
+	 * @throws IllegalArgumentException if the cell size is not strictly positive
+	 */
+	public UserLocationIndex(double cellSizeDegrees) {
+		if (cellSizeDegrees <= 0 || cellSizeDegrees > 180) {
+			throw new IllegalArgumentException("Cell size must be between 0 and 180 degrees");
+		}
+		this.cellSizeDegrees = cellSizeDegrees;
+		this.latitudeCells = (int) Math.ceil(180 / cellSizeDegrees);
+		this.longitudeCells = (int) Math.ceil(360 / cellSizeDegrees);
+	}
+
+	/**
+	 * Records the latest position of a user, moving it to another cell if needed.
+	 *
+	 * @param user     User to index
+	 * @param location Latest visited location of the user
+	 */
+	public void update(User user, VisitedLocation location) {
+		IndexedUser entry = new IndexedUser(user, location);
+		long cell = cellOf(location.location);
+		IndexedUser previous = positions.put(user.getUserId(), entry);
+		if (previous != null) {
+			long previousCell = cellOf(previous.location().location);
+			if (previousCell != cell) {
+				Map<UUID, IndexedUser> previousMembers = cells.get(previousCell);
+				if (previousMembers != null) {
+					previousMembers.remove(user.getUserId(), previous);
+				}
+			}
+		}
+		cells.computeIfAbsent(cell, k -> new ConcurrentHashMap<>()).put(user.getUserId(), entry);
+	}
+
+	/**
+	 * Removes a user from the index.
+	 *
+	 * @param user User to remove
+	 */
+	public void remove(User user) {
+		IndexedUser previous = positions.remove(user.getUserId());
+		if (previous != null) {
+			Map<UUID, IndexedUser> members = cells.get(cellOf(previous.location().location));
+			if (members != null) {
+				members.remove(user.getUserId(), previous);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of indexed users.
+	 *
+	 * @return Number of users with a known position
+	 */
+	public int size() {
+		return positions.size();
+	}
+
+	/**
+	 * Calls the given action for every indexed user whose latest position is
+	 * within the radius of the center.
+	 *
+	 * Only the cells overlapping the bounding box of the radius are visited; the
+	 * proximity checker is applied to the users found in those cells.
+	 *
+	 * @param center      Center of the search
+	 * @param radiusMiles Search radius, in miles
+	 * @param checker     Proximity checker used for the final check
+	 * @param action      Action called with each matching user and its location
+	 */
+	public void forEachWithin(Location center, double radiusMiles, ProximityChecker checker,
+			BiConsumer<User, VisitedLocation> action) {
+		double latitudeDelta = radiusMiles / GeoDistance.MILES_PER_DEGREE;
+		double minLatitude = Math.max(-90, center.latitude - latitudeDelta);
+		double maxLatitude = Math.min(90, center.latitude + latitudeDelta);
+
+		double widestLatitude = Math.max(Math.abs(minLatitude), Math.abs(maxLatitude));
+		double cosine = Math.cos(Math.toRadians(widestLatitude));
+		double longitudeDelta = cosine <= 0 ? 180 : latitudeDelta / cosine;
+
+		int firstLatitudeCell = latitudeCell(minLatitude);
+		int lastLatitudeCell = latitudeCell(maxLatitude);
+		int firstLongitudeCell;
+		int longitudeCellCount;
+		if (longitudeDelta >= 180) {
+			firstLongitudeCell = 0;
+			longitudeCellCount = longitudeCells;
+		} else {
+			firstLongitudeCell = longitudeCell(center.longitude - longitudeDelta);
+			int lastLongitudeCell = longitudeCell(center.longitude + longitudeDelta);
+			longitudeCellCount = Math.floorMod(lastLongitudeCell - firstLongitudeCell, longitudeCells) + 1;
+		}
+
+		for (int latitudeIndex = firstLatitudeCell; latitudeIndex <= lastLatitudeCell; latitudeIndex++) {
+			for (int i = 0; i < longitudeCellCount; i++) {
+				int longitudeIndex = (firstLongitudeCell + i) % longitudeCells;
+				Map<UUID, IndexedUser> members = cells.get(cellKey(latitudeIndex, longitudeIndex));
+				if (members == null) {
+					continue;
+				}
+				for (IndexedUser entry : members.values()) {
+					if (checker.isWithin(center, entry.location().location, radiusMiles)) {
+						action.accept(entry.user(), entry.location());
+					}
+				}
+			}
+		}
+	}
+
+	private long cellOf(Location location) {
+		return cellKey(latitudeCell(location.latitude), longitudeCell(location.longitude));
+	}
+
+	private long cellKey(int latitudeIndex, int longitudeIndex) {
+		return (long) latitudeIndex * longitudeCells + longitudeIndex;
+	}
+
+	private int latitudeCell(double latitude) {
+		int index = (int) Math.floor((latitude + 90) / cellSizeDegrees);
+		return Math.min(Math.max(index, 0), latitudeCells - 1);
+	}
+
+	private int longitudeCell(double longitude) {
+		int index = (int) Math.floor((longitude + 180) / cellSizeDegrees);
+		return Math.floorMod(index, longitudeCells);
+	}
+}
@@ -0,0 +1,41 @@
+package com.openclassrooms.tourguide.geo;
+
+import gpsUtil.location.Location;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Batch distance kernel processing several targets per instruction with the
+ * incubating Vector API.
+ *
+ * Only instantiated by {@link BatchDistanceKernel#create(boolean)} once the
+ * {@code jdk.incubator.vector} module is known to be available. Results may
+ * differ from the scalar kernel in the last bits.
+ */
+final class VectorBatchDistanceKernel implements BatchDistanceKernel {
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+	private static final double MILES_PER_RADIAN = GeoDistance.MILES_PER_DEGREE * 180 / Math.PI;
+
+	@Override
+	public void distances(Location from, CoordinateArrays to, double[] result) {
+		double latitude = Math.toRadians(from.latitude);
+		double sinLatitude = Math.sin(latitude);
+		double cosLatitude = Math.cos(latitude);
+		DoubleVector longitude = DoubleVector.broadcast(SPECIES, Math.toRadians(from.longitude));
+		double[] longitudes = to.longitudes();
+		double[] sinLatitudes = to.sinLatitudes();
+		double[] cosLatitudes = to.cosLatitudes();
+
+		int upperBound = SPECIES.loopBound(to.size());
+		for (int i = 0; i < upperBound; i += SPECIES.length()) {
+			DoubleVector cosDelta = longitude.sub(DoubleVector.fromArray(SPECIES, longitudes, i))
+					.lanewise(VectorOperators.COS);
+			DoubleVector cosAngle = DoubleVector.fromArray(SPECIES, sinLatitudes, i).mul(sinLatitude)
+					.add(DoubleVector.fromArray(SPECIES, cosLatitudes, i).mul(cosLatitude).mul(cosDelta));
+			cosAngle.lanewise(VectorOperators.ACOS).mul(MILES_PER_RADIAN).intoArray(result, i);
+		}
+		ScalarBatchDistanceKernel.distances(from, to, upperBound, result);
+	}
+}
@@ -0,0 +1,159 @@
+package com.openclassrooms.tourguide.gps;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker.
+ *
+ * The outcomes of the last calls are kept in a sliding window. When enough
+ * calls were made and the share of failures reaches the threshold, the breaker
+ * opens and rejects every call for the open duration. It then lets a single
+ * trial call through: its success closes the breaker, its failure opens it
+ * again.
+ */
+public class CircuitBreaker {
+
+	/**
+	 * State of a circuit breaker.
+	 */
+	public enum State {
+		/** Calls go through and their outcomes are recorded. */
+		CLOSED,
+		/** Calls are rejected. */
+		OPEN,
+		/** A single trial call is let through. */
+		HALF_OPEN
+	}
+
+	private final boolean[] failedCalls;
+	private final int minimumCalls;
+	private final double failureRateThreshold;
+	private final long openNanos;
+	private final LongSupplier nanoClock;
+
+	private State state = State.CLOSED;
+	private int position;
+	private int callCount;
+	private int failureCount;
+	private long openedAt;
+	private boolean trialInFlight;
+
+	/**
+	 * Creates a closed circuit breaker.
+	 *
+	 * @param windowSize           Number of recent calls considered
+	 * @param minimumCalls         Number of calls needed before the breaker may
+	 *                             open
+	 * @param failureRateThreshold Share of failed calls opening the breaker,
+	 *                             between 0 and 1
+	 * @param openDuration         Time during which calls are rejected
+	 */
+	public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, Duration openDuration) {
+		this(windowSize, minimumCalls, failureRateThreshold, openDuration, System::nanoTime);
+	}
+
+	CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, Duration openDuration,
+			LongSupplier nanoClock) {
+		if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize) {
+			throw new IllegalArgumentException("Minimum calls must be between 1 and the window size");
+		}
+		if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+			throw new IllegalArgumentException("Failure rate threshold must be in ]0, 1]");
+		}
+		this.failedCalls = new boolean[windowSize];
+		this.minimumCalls = minimumCalls;
+		this.failureRateThreshold = failureRateThreshold;
+		this.openNanos = openDuration.toNanos();
+		this.nanoClock = nanoClock;
+	}
+
+	/**
+	 * Asks for the right to make a call. Every granted call must be followed by
+	 * {@link #recordSuccess()} or {@link #recordFailure()}.
+	 *
+	 * @return true if the call may be made
+	 */
+	public synchronized boolean tryAcquire() {
+		if (state == State.OPEN) {
+			if (nanoClock.getAsLong() - openedAt < openNanos) {
+				return false;
+			}
+			state = State.HALF_OPEN;
+			trialInFlight = false;
+		}
+		if (state == State.HALF_OPEN) {
+			if (trialInFlight) {
+				return false;
+			}
+			trialInFlight = true;
+		}
+		return true;
+	}
+
+	/**
+	 * Records a successful call.
+	 */
+	public synchronized void recordSuccess() {
+		if (state == State.HALF_OPEN) {
+			close();
+			return;
+		}
+		record(false);
+	}
+
+	/**
+	 * Records a failed call, which may open the breaker.
+	 */
+	public synchronized void recordFailure() {
+		if (state == State.HALF_OPEN) {
+			open();
+			return;
+		}
+		record(true);
+		if (callCount >= minimumCalls && failureCount >= failureRateThreshold * callCount) {
+			open();
+		}
+	}
+
+	/**
+	 * Returns the current state of the breaker.
+	 *
+	 * @return State of the breaker
+	 */
+	public synchronized State getState() {
+		return state;
+	}
+
+	private void record(boolean failed) {
+		if (state != State.CLOSED) {
+			return;
+		}
+		if (callCount == failedCalls.length) {
+			if (failedCalls[position]) {
+				failureCount--;
+			}
+		} else {
+			callCount++;
+		}
+		failedCalls[position] = failed;
+		if (failed) {
+			failureCount++;
+		}
+		position = (position + 1) % failedCalls.length;
+	}
+
+	private void open() {
+		state = State.OPEN;
+		openedAt = nanoClock.getAsLong();
+		trialInFlight = false;
+	}
+
+	private void close() {
+		state = State.CLOSED;
+		position = 0;
+		callCount = 0;
+		failureCount = 0;
+		trialInFlight = false;
+	}
+}
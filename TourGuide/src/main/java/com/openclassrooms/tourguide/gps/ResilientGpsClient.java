@@ -0,0 +1,297 @@
+package com.openclassrooms.tourguide.gps;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import com.openclassrooms.tourguide.profiling.ExternalCallEvent;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.VisitedLocation;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Client of the GPS service bounding the time spent waiting for it.
+ *
+ * Calls run on a dedicated pool, so the caller waits at most the deadline and
+ * a slow call never pins the caller's thread for longer:
+ * <ul>
+ * <li>when the first attempt is still running after the hedge delay, the
+ * recent 95th percentile of the call latencies, a second attempt is started and
+ * the first answer wins. Hedges are limited to a share of the calls so that
+ * they cannot double the load;</li>
+ * <li>calls that fail or miss the deadline are reported to a
+ * {@link CircuitBreaker}; while it is open, calls are not made at all.</li>
+ * </ul>
+ * A call that gets no location returns an empty result, and the caller falls
+ * back on the last known location of the user.
+ */
+@Slf4j
+public class ResilientGpsClient implements AutoCloseable {
+
+	private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+	private final Function<UUID, VisitedLocation> gps;
+	private final Settings settings;
+	private final ThreadPoolExecutor executor;
+	private final CircuitBreaker circuitBreaker;
+	private final LatencyWindow latencies = new LatencyWindow();
+	private final LongAdder calls = new LongAdder();
+	private final LongAdder hedges = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private final LongAdder shortCircuits = new LongAdder();
+
+	/**
+	 * Creates a client.
+	 *
+	 * @param gps      Call to the GPS service
+	 * @param settings Deadlines, hedging and circuit breaker settings
+	 */
+	public ResilientGpsClient(Function<UUID, VisitedLocation> gps, Settings settings) {
+		this.gps = gps;
+		this.settings = settings;
+		this.circuitBreaker = new CircuitBreaker(settings.breakerWindowSize(), settings.breakerMinimumCalls(),
+				settings.breakerFailureRateThreshold(), settings.breakerOpenDuration());
+		int pool = POOL_NUMBER.incrementAndGet();
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(0, settings.maxConcurrentCalls(), 30, TimeUnit.SECONDS,
+				new SynchronousQueue<>(), runnable -> {
+					Thread thread = new Thread(runnable, "gps-client-" + pool + "-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	/**
+	 * Creates a client of gpsUtil, whose calls are recorded as external calls.
+	 *
+	 * @param gpsUtil  GPS service
+	 * @param settings Deadlines, hedging and circuit breaker settings
+	 * @return GPS client
+	 */
+	public static ResilientGpsClient of(GpsUtil gpsUtil, Settings settings) {
+		return new ResilientGpsClient(userId -> ExternalCallEvent.record(ExternalCallEvent.GPS_UTIL,
+				"getUserLocation", () -> gpsUtil.getUserLocation(userId)), settings);
+	}
+
+	/**
+	 * Gets the current location of a user, within the deadline.
+	 *
+	 * @param userId Id of the user to locate
+	 * @return Location of the user, or empty if the GPS service failed, missed
+	 *         the deadline or is considered down
+	 */
+	public Optional<VisitedLocation> getUserLocation(UUID userId) {
+		if (!circuitBreaker.tryAcquire()) {
+			shortCircuits.increment();
+			return Optional.empty();
+		}
+		calls.increment();
+		long start = System.nanoTime();
+		CompletableFuture<VisitedLocation> result = new CompletableFuture<>();
+		AtomicInteger pendingAttempts = new AtomicInteger(1);
+		try {
+			executor.execute(() -> attempt(userId, result, pendingAttempts));
+		} catch (RejectedExecutionException e) {
+			return fail("GPS client saturated", null);
+		}
+
+		try {
+			long hedgeDelay = getHedgeDelayNanos();
+			long deadline = settings.deadline().toNanos();
+			VisitedLocation location;
+			if (hedgeDelay < deadline) {
+				try {
+					location = result.get(hedgeDelay, TimeUnit.NANOSECONDS);
+				} catch (TimeoutException e) {
+					hedge(userId, result, pendingAttempts);
+					location = result.get(Math.max(0, deadline - (System.nanoTime() - start)), TimeUnit.NANOSECONDS);
+				}
+			} else {
+				location = result.get(deadline, TimeUnit.NANOSECONDS);
+			}
+			circuitBreaker.recordSuccess();
+			return Optional.of(location);
+		} catch (TimeoutException e) {
+			return fail("GPS call for user {} missed its deadline", userId);
+		} catch (ExecutionException e) {
+			return fail("GPS call for user {} failed", userId);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return fail("GPS call for user {} interrupted", userId);
+		}
+	}
+
+	/**
+	 * Returns the delay after which a second attempt is started.
+	 *
+	 * @return The 95th percentile of the recent latencies, at least the minimum
+	 *         hedge delay, in nanoseconds
+	 */
+	public long getHedgeDelayNanos() {
+		return Math.max(settings.minHedgeDelay().toNanos(), latencies.p95());
+	}
+
+	/**
+	 * Returns the state of the circuit breaker.
+	 *
+	 * @return State of the breaker
+	 */
+	public CircuitBreaker.State getCircuitState() {
+		return circuitBreaker.getState();
+	}
+
+	/**
+	 * Returns the number of calls made to the GPS service, without the hedges.
+	 *
+	 * @return Number of calls
+	 */
+	public long getCallCount() {
+		return calls.sum();
+	}
+
+	/**
+	 * Returns the number of second attempts started.
+	 *
+	 * @return Number of hedges
+	 */
+	public long getHedgeCount() {
+		return hedges.sum();
+	}
+
+	/**
+	 * Returns the number of calls that failed or missed their deadline.
+	 *
+	 * @return Number of failed calls
+	 */
+	public long getFailureCount() {
+		return failures.sum();
+	}
+
+	/**
+	 * Returns the number of calls not made because the circuit was open.
+	 *
+	 * @return Number of short-circuited calls
+	 */
+	public long getShortCircuitCount() {
+		return shortCircuits.sum();
+	}
+
+	/**
+	 * Stops the pool, interrupting the running calls.
+	 */
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	private void hedge(UUID userId, CompletableFuture<VisitedLocation> result, AtomicInteger pendingAttempts) {
+		if (hedges.sum() >= calls.sum() * settings.maxHedgeRatio()
+				|| circuitBreaker.getState() != CircuitBreaker.State.CLOSED) {
+			return;
+		}
+		pendingAttempts.incrementAndGet();
+		try {
+			executor.execute(() -> attempt(userId, result, pendingAttempts));
+			hedges.increment();
+		} catch (RejectedExecutionException e) {
+			if (pendingAttempts.decrementAndGet() == 0) {
+				result.completeExceptionally(e);
+			}
+		}
+	}
+
+	private void attempt(UUID userId, CompletableFuture<VisitedLocation> result, AtomicInteger pendingAttempts) {
+		long start = System.nanoTime();
+		try {
+			VisitedLocation location = gps.apply(userId);
+			latencies.record(System.nanoTime() - start);
+			result.complete(location);
+		} catch (RuntimeException e) {
+			if (pendingAttempts.decrementAndGet() == 0) {
+				result.completeExceptionally(e);
+			}
+		}
+	}
+
+	private Optional<VisitedLocation> fail(String message, UUID userId) {
+		failures.increment();
+		circuitBreaker.recordFailure();
+		log.debug(message, userId);
+		return Optional.empty();
+	}
+
+	/**
+	 * Settings of a {@link ResilientGpsClient}.
+	 *
+	 * @param deadline                    Longest wait for a location
+	 * @param minHedgeDelay               Shortest delay before a second attempt
+	 * @param maxHedgeRatio               Maximum number of second attempts per
+	 *                                    call
+	 * @param maxConcurrentCalls          Maximum number of GPS calls running at
+	 *                                    the same time
+	 * @param breakerWindowSize           Number of recent calls considered by
+	 *                                    the circuit breaker
+	 * @param breakerMinimumCalls         Number of calls needed before the
+	 *                                    circuit may open
+	 * @param breakerFailureRateThreshold Share of failed calls opening the
+	 *                                    circuit
+	 * @param breakerOpenDuration         Time during which no call is made once
+	 *                                    the circuit is open
+	 */
+	public record Settings(Duration deadline, Duration minHedgeDelay, double maxHedgeRatio, int maxConcurrentCalls,
+			int breakerWindowSize, int breakerMinimumCalls, double breakerFailureRateThreshold,
+			Duration breakerOpenDuration) {
+
+		/**
+		 * Returns the settings used when none are configured.
+		 *
+		 * @return Default settings
+		 */
+		public static Settings defaults() {
+			return new Settings(Duration.ofSeconds(1), Duration.ofMillis(20), 0.1, 256, 100, 20, 0.5,
+					Duration.ofSeconds(5));
+		}
+	}
+
+	/**
+	 * Latencies of the last {@value #SIZE} attempts, with their 95th percentile
+	 * recomputed every {@value #REFRESH_INTERVAL} samples.
+	 */
+	private static final class LatencyWindow {
+
+		private static final int SIZE = 256;
+		private static final int REFRESH_INTERVAL = 32;
+		private static final int MIN_SAMPLES = 20;
+
+		private final long[] samples = new long[SIZE];
+		private final AtomicLong count = new AtomicLong();
+		private volatile long p95;
+
+		void record(long nanos) {
+			long recorded = count.incrementAndGet();
+			samples[(int) ((recorded - 1) % SIZE)] = nanos;
+			if (recorded == MIN_SAMPLES || recorded > MIN_SAMPLES && recorded % REFRESH_INTERVAL == 0) {
+				long[] sorted = Arrays.copyOf(samples, (int) Math.min(recorded, SIZE));
+				Arrays.sort(sorted);
+				p95 = sorted[(int) Math.ceil(sorted.length * 0.95) - 1];
+			}
+		}
+
+		long p95() {
+			return p95;
+		}
+	}
+}
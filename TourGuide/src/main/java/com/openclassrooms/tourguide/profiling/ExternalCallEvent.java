@@ -0,0 +1,62 @@
+package com.openclassrooms.tourguide.profiling;
+
+import java.util.function.Supplier;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a call to an external service: gpsUtil,
+ * RewardCentral or TripPricer.
+ */
+@Name("com.openclassrooms.tourguide.ExternalCall")
+@Label("External Call")
+@Category({ "TourGuide", "External Services" })
+@Description("Call to gpsUtil, RewardCentral or TripPricer")
+public class ExternalCallEvent extends Event {
+
+	public static final String GPS_UTIL = "gpsUtil";
+	public static final String REWARD_CENTRAL = "RewardCentral";
+	public static final String TRIP_PRICER = "TripPricer";
+
+	@Label("Service")
+	public String service;
+
+	@Label("Operation")
+	public String operation;
+
+	@Label("Failed")
+	public boolean failed;
+
+	/**
+	 * Calls an external service, recording the call if it lasts longer than the
+	 * threshold of the event.
+	 *
+	 * @param <T>       Type of the result
+	 * @param service   Name of the service
+	 * @param operation Name of the method called
+	 * @param call      Call to the service
+	 * @return Result of the call
+	 */
+	public static <T> T record(String service, String operation, Supplier<T> call) {
+		ExternalCallEvent event = new ExternalCallEvent();
+		event.begin();
+		boolean failed = true;
+		try {
+			T result = call.get();
+			failed = false;
+			return result;
+		} finally {
+			event.end();
+			if (event.shouldCommit()) {
+				event.service = service;
+				event.operation = operation;
+				event.failed = failed;
+				event.commit();
+			}
+		}
+	}
+}
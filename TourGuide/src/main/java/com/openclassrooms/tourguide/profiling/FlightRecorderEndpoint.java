@@ -0,0 +1,189 @@
+package com.openclassrooms.tourguide.profiling;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Actuator endpoint starting, dumping and stopping a Flight Recorder recording
+ * on demand, at {@code /actuator/flightrecorder}.
+ *
+ * The recording uses the JDK "default" profile with the settings of the
+ * TourGuide events from {@value #SETTINGS}. It keeps a bounded window of
+ * events, which a dump writes to a file without stopping the recording.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "flightrecorder")
+public class FlightRecorderEndpoint {
+
+	static final String SETTINGS = "/jfr/tourguide.jfc";
+	static final String DUMP = "dump";
+
+	private final Path dumpDirectory;
+	private final Duration maxAge;
+	private final DataSize maxSize;
+	private Recording recording;
+
+	/**
+	 * Creates the endpoint, without starting any recording.
+	 *
+	 * @param dumpDirectory Directory of the dumped recordings, created if needed
+	 * @param maxAge        Age of the oldest events kept by the recording
+	 * @param maxSize       Size of the events kept by the recording
+	 */
+	@Autowired
+	public FlightRecorderEndpoint(@Value("${tourguide.jfr.dumpDirectory:data/recordings}") Path dumpDirectory,
+			@Value("${tourguide.jfr.maxAge:30m}") Duration maxAge,
+			@Value("${tourguide.jfr.maxSize:100MB}") DataSize maxSize) {
+		this.dumpDirectory = dumpDirectory;
+		this.maxAge = maxAge;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * State of the recording.
+	 *
+	 * @param state     NEW, RUNNING, STOPPED or CLOSED, or NONE if no recording
+	 *                  was started
+	 * @param startTime Start of the recording, null if not started
+	 * @param maxAge    Age of the oldest events kept
+	 * @param maxSize   Size of the events kept, in bytes
+	 */
+	public record RecordingStatus(String state, Instant startTime, Duration maxAge, long maxSize) {
+	}
+
+	/**
+	 * Returns the state of the recording.
+	 *
+	 * @return Recording status
+	 */
+	@ReadOperation
+	public synchronized RecordingStatus status() {
+		if (recording == null) {
+			return new RecordingStatus("NONE", null, maxAge, maxSize.toBytes());
+		}
+		return new RecordingStatus(recording.getState().name(), recording.getStartTime(), recording.getMaxAge(),
+				recording.getMaxSize());
+	}
+
+	/**
+	 * Starts a recording, unless one is running.
+	 *
+	 * @return Recording status
+	 */
+	@WriteOperation
+	public synchronized RecordingStatus start() {
+		if (recording == null || recording.getState() != RecordingState.RUNNING) {
+			closeRecording();
+			recording = new Recording(settings());
+			recording.setName("tourguide");
+			recording.setToDisk(true);
+			recording.setMaxAge(maxAge);
+			recording.setMaxSize(maxSize.toBytes());
+			recording.start();
+			log.info("Flight recording started");
+		}
+		return status();
+	}
+
+	/**
+	 * Writes the events of the running recording to a new file, on
+	 * {@code POST /actuator/flightrecorder/dump}.
+	 *
+	 * @param action Action requested, only {@value #DUMP} is known
+	 * @return Path of the file
+	 * @throws InvalidEndpointRequestException if the action is not
+	 *                                         {@value #DUMP}
+	 * @throws IllegalStateException           if no recording is running
+	 * @throws UncheckedIOException            if the file cannot be written
+	 */
+	@WriteOperation
+	public synchronized String dump(@Selector String action) {
+		if (!DUMP.equals(action)) {
+			throw new InvalidEndpointRequestException("Unknown flight recorder action " + action,
+					"Unknown action");
+		}
+		if (recording == null || recording.getState() != RecordingState.RUNNING) {
+			throw new IllegalStateException("No flight recording is running");
+		}
+		Path file = dumpDirectory.resolve("tourguide-" + Instant.now().toEpochMilli() + ".jfr");
+		try {
+			Files.createDirectories(dumpDirectory);
+			recording.dump(file);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot dump the flight recording to " + file, e);
+		}
+		log.info("Flight recording dumped to {}", file);
+		return file.toAbsolutePath().toString();
+	}
+
+	/**
+	 * Stops and discards the recording.
+	 *
+	 * @return Recording status
+	 */
+	@DeleteOperation
+	public synchronized RecordingStatus stop() {
+		close();
+		return status();
+	}
+
+	/**
+	 * Discards the recording when the application stops.
+	 */
+	@PreDestroy
+	public synchronized void close() {
+		closeRecording();
+		recording = null;
+	}
+
+	private void closeRecording() {
+		if (recording != null) {
+			recording.close();
+		}
+	}
+
+	/**
+	 * Returns the settings of the JDK default profile, overridden by those of
+	 * the TourGuide profile.
+	 */
+	static Map<String, String> settings() {
+		try (Reader reader = new InputStreamReader(FlightRecorderEndpoint.class.getResourceAsStream(SETTINGS),
+				StandardCharsets.UTF_8)) {
+			Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+			settings.putAll(Configuration.create(reader).getSettings());
+			return settings;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot read the flight recorder settings " + SETTINGS, e);
+		} catch (ParseException e) {
+			throw new IllegalStateException("Invalid flight recorder settings " + SETTINGS, e);
+		}
+	}
+}
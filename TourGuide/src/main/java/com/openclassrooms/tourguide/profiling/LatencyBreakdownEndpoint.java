@@ -0,0 +1,41 @@
+package com.openclassrooms.tourguide.profiling;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint listing the latency breakdowns of the most recent sampled
+ * requests, at {@code /actuator/latencybreakdown}.
+ */
+@Component
+@Endpoint(id = "latencybreakdown")
+public class LatencyBreakdownEndpoint {
+
+	private final LatencyBreakdownHandler handler;
+
+	public LatencyBreakdownEndpoint(LatencyBreakdownHandler handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * Returns the most recent breakdowns.
+	 *
+	 * @return Breakdowns, the most recent first
+	 */
+	@ReadOperation
+	public List<LatencyBreakdownHandler.Breakdown> breakdowns() {
+		return handler.getRecentBreakdowns();
+	}
+
+	/**
+	 * Forgets the breakdowns kept so far.
+	 */
+	@DeleteOperation
+	public void clear() {
+		handler.clear();
+	}
+}
@@ -0,0 +1,197 @@
+package com.openclassrooms.tourguide.profiling;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationView;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Observation handler building the latency breakdown of the HTTP requests,
+ * without any remote tracing backend.
+ *
+ * A sampled request is the root span of a tree holding the service methods
+ * and external calls observed while it runs, see {@link LatencySpans}. When
+ * the request ends, its breakdown is logged and kept among the most recent
+ * ones, unless the request was faster than the minimum duration. Observations
+ * outside a sampled request cost a context lookup and nothing else.
+ */
+@Slf4j
+public class LatencyBreakdownHandler implements ObservationHandler<Observation.Context> {
+
+	public static final String REQUEST = "http.server.requests";
+
+	private final double sampleRate;
+	private final long minDurationNanos;
+	private final int recentCapacity;
+	private final Deque<Breakdown> recent = new ArrayDeque<>();
+	// Key of the spans in the contexts, distinct from the one of any other handler
+	private final Object spanKey = new Object();
+
+	/**
+	 * Creates the handler.
+	 *
+	 * @param sampleRate     Share of the requests traced, from 0 to 1
+	 * @param minDuration    Duration under which a traced request is dropped
+	 * @param recentCapacity Number of breakdowns kept
+	 * @throws IllegalArgumentException if the sample rate is not between 0 and
+	 *                                  1 or the capacity is negative
+	 */
+	public LatencyBreakdownHandler(double sampleRate, Duration minDuration, int recentCapacity) {
+		if (!(sampleRate >= 0 && sampleRate <= 1)) {
+			throw new IllegalArgumentException("The sample rate must be between 0 and 1");
+		}
+		if (recentCapacity < 0) {
+			throw new IllegalArgumentException("The number of breakdowns kept must not be negative");
+		}
+		this.sampleRate = sampleRate;
+		this.minDurationNanos = minDuration.toNanos();
+		this.recentCapacity = recentCapacity;
+	}
+
+	/**
+	 * Latency of one span of a request.
+	 *
+	 * @param name       Contextual name of the observation
+	 * @param start      Start of the span
+	 * @param millis     Duration of the span
+	 * @param selfMillis Duration not spent in the child spans
+	 * @param error      Class of the error ending the span, null if none
+	 * @param children   Spans started within this one and ended before the
+	 *                   request, in start order
+	 */
+	public record Breakdown(String name, Instant start, double millis, double selfMillis, String error,
+			List<Breakdown> children) {
+
+		/**
+		 * Formats the tree of spans, one per line, indented by depth.
+		 *
+		 * @return Breakdown as text
+		 */
+		public String format() {
+			StringBuilder text = new StringBuilder();
+			format(text, 0);
+			return text.toString();
+		}
+
+		private void format(StringBuilder text, int depth) {
+			text.append("  ".repeat(depth)).append(name)
+					.append(String.format(" %.1f ms (self %.1f ms)", millis, selfMillis));
+			if (error != null) {
+				text.append(" failed with ").append(error);
+			}
+			for (Breakdown child : children) {
+				text.append(System.lineSeparator());
+				child.format(text, depth + 1);
+			}
+		}
+	}
+
+	@Override
+	public boolean supportsContext(Observation.Context context) {
+		return true;
+	}
+
+	@Override
+	public void onStart(Observation.Context context) {
+		ObservationView parent = context.getParentObservation();
+		if (parent == null) {
+			if (REQUEST.equals(context.getName()) && isSampled()) {
+				context.put(spanKey, new Span(context, null));
+			}
+			return;
+		}
+		Span parentSpan = parent.getContextView().get(spanKey);
+		if (parentSpan != null) {
+			Span span = new Span(context, parentSpan);
+			parentSpan.children.add(span);
+			context.put(spanKey, span);
+		}
+	}
+
+	@Override
+	public void onStop(Observation.Context context) {
+		Span span = context.get(spanKey);
+		if (span == null) {
+			return;
+		}
+		span.endNanos = System.nanoTime();
+		if (span.parent == null && span.endNanos - span.startNanos >= minDurationNanos) {
+			Breakdown breakdown = span.toBreakdown();
+			log.info("Latency breakdown of {}{}{}", breakdown.name(), System.lineSeparator(), breakdown.format());
+			keep(breakdown);
+		}
+	}
+
+	/**
+	 * Returns the most recent breakdowns.
+	 *
+	 * @return Breakdowns, the most recent first
+	 */
+	public synchronized List<Breakdown> getRecentBreakdowns() {
+		return List.copyOf(recent);
+	}
+
+	/**
+	 * Forgets the breakdowns kept so far.
+	 */
+	public synchronized void clear() {
+		recent.clear();
+	}
+
+	private synchronized void keep(Breakdown breakdown) {
+		if (recentCapacity == 0) {
+			return;
+		}
+		if (recent.size() == recentCapacity) {
+			recent.removeLast();
+		}
+		recent.addFirst(breakdown);
+	}
+
+	private boolean isSampled() {
+		return sampleRate >= 1 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+	}
+
+	private static final class Span {
+
+		private final Observation.Context context;
+		private final Span parent;
+		private final Instant start = Instant.now();
+		private final long startNanos = System.nanoTime();
+		// Children may be started by the threads a request hands work to
+		private final Queue<Span> children = new ConcurrentLinkedQueue<>();
+		private volatile long endNanos = -1;
+
+		private Span(Observation.Context context, Span parent) {
+			this.context = context;
+			this.parent = parent;
+		}
+
+		private Breakdown toBreakdown() {
+			List<Breakdown> ended = new ArrayList<>();
+			long childNanos = 0;
+			for (Span child : children) {
+				// Work still running after its request is not part of its latency
+				if (child.endNanos >= 0) {
+					ended.add(child.toBreakdown());
+					childNanos += child.endNanos - child.startNanos;
+				}
+			}
+			long nanos = endNanos - startNanos;
+			String name = context.getContextualName() != null ? context.getContextualName() : context.getName();
+			String error = context.getError() == null ? null : context.getError().getClass().getSimpleName();
+			return new Breakdown(name, start, nanos / 1e6, Math.max(0, nanos - childNanos) / 1e6, error,
+					List.copyOf(ended));
+		}
+	}
+}
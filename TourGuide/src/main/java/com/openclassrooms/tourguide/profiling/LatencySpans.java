@@ -0,0 +1,75 @@
+package com.openclassrooms.tourguide.profiling;
+
+import java.util.function.Supplier;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Micrometer observations of the service methods and the external calls a
+ * request goes through.
+ *
+ * Each observation is a span of the latency breakdown of the request, see
+ * {@link LatencyBreakdownHandler}, and a timer of the metrics. With the
+ * {@link ObservationRegistry#NOOP} registry, the body is simply called.
+ */
+public final class LatencySpans {
+
+	public static final String SERVICE = "tourguide.service";
+	public static final String EXTERNAL = "tourguide.external";
+
+	private LatencySpans() {
+	}
+
+	/**
+	 * Observes a service method, as a child of the current observation.
+	 *
+	 * @param <T>      Type of the result
+	 * @param registry Observation registry
+	 * @param method   Name of the method, as Class.method
+	 * @param body     Body of the method
+	 * @return Result of the body
+	 */
+	public static <T> T service(ObservationRegistry registry, String method, Supplier<T> body) {
+		return service(registry, null, method, body);
+	}
+
+	/**
+	 * Observes a service method run on another thread than its caller.
+	 *
+	 * @param <T>      Type of the result
+	 * @param registry Observation registry
+	 * @param parent   Observation of the caller, null to use the current one
+	 * @param method   Name of the method, as Class.method
+	 * @param body     Body of the method
+	 * @return Result of the body
+	 */
+	public static <T> T service(ObservationRegistry registry, Observation parent, String method, Supplier<T> body) {
+		Observation observation = Observation.createNotStarted(SERVICE, registry)
+				.contextualName(method)
+				.lowCardinalityKeyValue("method", method);
+		if (parent != null) {
+			observation.parentObservation(parent);
+		}
+		return observation.observe(body);
+	}
+
+	/**
+	 * Observes a call to an external service, also recorded as an
+	 * {@link ExternalCallEvent}.
+	 *
+	 * @param <T>       Type of the result
+	 * @param registry  Observation registry
+	 * @param service   Name of the service
+	 * @param operation Name of the method called
+	 * @param call      Call to the service
+	 * @return Result of the call
+	 */
+	public static <T> T external(ObservationRegistry registry, String service, String operation, Supplier<T> call) {
+		return Observation.createNotStarted(EXTERNAL, registry)
+				.contextualName(service + "." + operation)
+				.lowCardinalityKeyValue("service", service)
+				.lowCardinalityKeyValue("operation", operation)
+				.observe(() -> ExternalCallEvent.record(service, operation, call));
+	}
+}
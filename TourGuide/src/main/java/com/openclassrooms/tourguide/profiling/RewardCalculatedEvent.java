@@ -0,0 +1,36 @@
+package com.openclassrooms.tourguide.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a reward calculation, for one user or for a bulk
+ * pass over every user.
+ */
+@Name("com.openclassrooms.tourguide.RewardCalculated")
+@Label("Reward Calculated")
+@Category({ "TourGuide", "Rewards" })
+@Description("Check of visited locations against attractions")
+public class RewardCalculatedEvent extends Event {
+
+	public static final String USER_PASS = "user";
+	public static final String ATTRACTION_PASS = "attraction";
+	public static final String OFF_HEAP_PASS = "off-heap";
+
+	@Label("Pass")
+	@Description("user, attraction or off-heap")
+	public String pass;
+
+	@Label("Users")
+	public int users;
+
+	@Label("Candidates Checked")
+	@Description("Pairs of a location and an attraction checked for proximity")
+	public long candidatesChecked;
+
+	@Label("Rewards Granted")
+	public int rewardsGranted;
+}
@@ -0,0 +1,28 @@
+package com.openclassrooms.tourguide.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of one tracker cycle, lasting from its start until
+ * every tracked user has been located.
+ */
+@Name("com.openclassrooms.tourguide.TrackerCycle")
+@Label("Tracker Cycle")
+@Category({ "TourGuide", "Tracking" })
+@Description("Cycle of the tracker over the registered users")
+public class TrackerCycleEvent extends Event {
+
+	@Label("Cycle")
+	public long cycle;
+
+	@Label("Registered Users")
+	public int users;
+
+	@Label("Tracked Users")
+	@Description("Users owned by this instance and located in this cycle")
+	public long trackedUsers;
+}
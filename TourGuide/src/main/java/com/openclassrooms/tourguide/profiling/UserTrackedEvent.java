@@ -0,0 +1,29 @@
+package com.openclassrooms.tourguide.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event of the location of one user through the GPS service.
+ */
+@Name("com.openclassrooms.tourguide.UserTracked")
+@Label("User Tracked")
+@Category({ "TourGuide", "Tracking" })
+@Description("Location of a user, from the GPS call to the update of the user")
+public class UserTrackedEvent extends Event {
+
+	@Label("User Name")
+	public String userName;
+
+	@Label("GPS Latency")
+	@Timespan(Timespan.NANOSECONDS)
+	public long gpsLatency;
+
+	@Label("GPS Answered")
+	@Description("false if the GPS client gave up and a fallback location was used")
+	public boolean gpsAnswered;
+}
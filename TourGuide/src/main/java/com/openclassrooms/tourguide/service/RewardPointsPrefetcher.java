@@ -0,0 +1,107 @@
+package com.openclassrooms.tourguide.service;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.openclassrooms.tourguide.cache.RewardPointsKey;
+
+/**
+ * Loads reward points in the background before they are needed.
+ *
+ * Loads run on a small pool of daemon threads fed by a bounded queue. When the
+ * queue is full, new loads are dropped rather than delaying the caller: a
+ * dropped load only means the points will be fetched on demand. A load already
+ * queued or running for the same key is not queued again.
+ */
+class RewardPointsPrefetcher {
+
+	private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+	private final ThreadPoolExecutor executor;
+	private final Set<RewardPointsKey> pending = ConcurrentHashMap.newKeySet();
+	private final LongAdder submitted = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+
+	/**
+	 * Creates a prefetcher.
+	 *
+	 * @param threads       Maximum number of concurrent loads
+	 * @param queueCapacity Maximum number of loads waiting for a thread
+	 * @throws IllegalArgumentException if a value is not strictly positive
+	 */
+	RewardPointsPrefetcher(int threads, int queueCapacity) {
+		if (threads <= 0 || queueCapacity <= 0) {
+			throw new IllegalArgumentException("Prefetch threads and queue capacity must be strictly positive");
+		}
+		int pool = POOL_NUMBER.incrementAndGet();
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+					Thread thread = new Thread(runnable,
+							"reward-prefetch-" + pool + "-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.AbortPolicy());
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Queues a load unless one is already pending for the same key or the queue
+	 * is full.
+	 *
+	 * @param key  Key identifying the loaded value
+	 * @param load Load to run
+	 * @return true if the load was queued
+	 */
+	boolean prefetch(RewardPointsKey key, Runnable load) {
+		if (executor.isShutdown() || !pending.add(key)) {
+			return false;
+		}
+		try {
+			executor.execute(() -> {
+				try {
+					load.run();
+				} finally {
+					pending.remove(key);
+				}
+			});
+			submitted.increment();
+			return true;
+		} catch (RejectedExecutionException e) {
+			pending.remove(key);
+			dropped.increment();
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the number of loads queued since the creation of the prefetcher.
+	 *
+	 * @return Number of queued loads
+	 */
+	long getSubmittedCount() {
+		return submitted.sum();
+	}
+
+	/**
+	 * Returns the number of loads dropped because the queue was full.
+	 *
+	 * @return Number of dropped loads
+	 */
+	long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	/**
+	 * Stops the threads, dropping the queued loads.
+	 */
+	void shutdown() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,170 @@
+package com.openclassrooms.tourguide.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Service;
+
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+/**
+ * Reward statistics maintained incrementally as rewards are granted.
+ *
+ * The leaderboard keeps one entry per rewarded user in a concurrent skip list
+ * sorted by total points, so the top users are read without scanning the
+ * users. The rewards granted for each attraction are counted with
+ * {@link LongAdder}s, indexed by attraction ordinal, so concurrent updates do
+ * not contend on a single counter.
+ *
+ * Reads are weakly consistent: an entry being moved in the leaderboard may be
+ * missed by a concurrent read.
+ */
+@Service
+public class RewardStatistics {
+
+	private static final Comparator<LeaderboardEntry> RANKING = Comparator
+			.comparingLong(LeaderboardEntry::rewardPoints).reversed()
+			.thenComparing(LeaderboardEntry::userId);
+
+	private final ConcurrentSkipListSet<LeaderboardEntry> leaderboard = new ConcurrentSkipListSet<>(RANKING);
+	private final ConcurrentHashMap<UUID, LeaderboardEntry> leaderboardEntries = new ConcurrentHashMap<>();
+	private volatile AttractionCounters[] attractionCounters = new AttractionCounters[0];
+
+	/**
+	 * Position of a user in the leaderboard.
+	 *
+	 * @param userName     Name of the user
+	 * @param userId       Identifier of the user
+	 * @param rewardPoints Total reward points of the user
+	 */
+	public record LeaderboardEntry(String userName, UUID userId, long rewardPoints) {
+	}
+
+	/**
+	 * Rewards granted for an attraction.
+	 *
+	 * @param attractionName Name of the attraction
+	 * @param rewardCount    Number of rewards granted
+	 * @param rewardPoints   Total points of these rewards
+	 */
+	public record AttractionRewards(String attractionName, long rewardCount, long rewardPoints) {
+	}
+
+	/**
+	 * Records a reward that was just added to a user.
+	 *
+	 * @param user       User who received the reward
+	 * @param userReward Reward added
+	 */
+	public void recordReward(User user, UserReward userReward) {
+		AttractionCounters counters = countersOf(userReward.attractionOrdinal(), userReward.attraction.attractionName);
+		counters.rewardCount.increment();
+		counters.rewardPoints.add(userReward.getRewardPoints());
+		updateUserTotal(user);
+	}
+
+	/**
+	 * Changes the points of a reward already granted to a user, and moves the
+	 * difference to the counters of the attraction and to the leaderboard.
+	 *
+	 * @param user         User holding the reward
+	 * @param userReward   Reward to change
+	 * @param rewardPoints New number of points
+	 * @throws IllegalArgumentException if the reward was not added to the user
+	 */
+	public void changeRewardPoints(User user, UserReward userReward, int rewardPoints) {
+		int delta = user.changeRewardPoints(userReward, rewardPoints);
+		if (delta != 0) {
+			countersOf(userReward.attractionOrdinal(), userReward.attraction.attractionName).rewardPoints.add(delta);
+			updateUserTotal(user);
+		}
+	}
+
+	/**
+	 * Moves a user in the leaderboard according to its current total points.
+	 *
+	 * Updates of the same user are serialized, and the total is read inside the
+	 * update, so the leaderboard ends with the latest total.
+	 *
+	 * @param user User whose total changed
+	 */
+	public void updateUserTotal(User user) {
+		leaderboardEntries.compute(user.getUserId(), (userId, previous) -> {
+			long rewardPoints = user.getRewardPoints();
+			if (previous != null) {
+				if (previous.rewardPoints() == rewardPoints) {
+					return previous;
+				}
+				leaderboard.remove(previous);
+			}
+			LeaderboardEntry entry = new LeaderboardEntry(user.getUserName(), userId, rewardPoints);
+			leaderboard.add(entry);
+			return entry;
+		});
+	}
+
+	/**
+	 * Returns the users with the most reward points.
+	 *
+	 * @param limit Maximum number of users
+	 * @return Leaderboard entries, best first
+	 */
+	public List<LeaderboardEntry> getTopUsers(int limit) {
+		return leaderboard.stream().limit(Math.max(0, limit)).toList();
+	}
+
+	/**
+	 * Returns the rewards granted for every attraction that was rewarded at
+	 * least once.
+	 *
+	 * @return Counters per attraction, in ordinal order
+	 */
+	public List<AttractionRewards> getAttractionRewards() {
+		AttractionCounters[] snapshot = attractionCounters;
+		List<AttractionRewards> result = new ArrayList<>(snapshot.length);
+		for (AttractionCounters counters : snapshot) {
+			if (counters != null) {
+				result.add(new AttractionRewards(counters.attractionName, counters.rewardCount.sum(),
+						counters.rewardPoints.sum()));
+			}
+		}
+		return result;
+	}
+
+	private AttractionCounters countersOf(int ordinal, String attractionName) {
+		AttractionCounters[] snapshot = attractionCounters;
+		if (ordinal < snapshot.length && snapshot[ordinal] != null) {
+			return snapshot[ordinal];
+		}
+		synchronized (this) {
+			snapshot = attractionCounters;
+			if (ordinal >= snapshot.length) {
+				AttractionCounters[] grown = new AttractionCounters[Math.max(ordinal + 1, snapshot.length * 2)];
+				System.arraycopy(snapshot, 0, grown, 0, snapshot.length);
+				snapshot = grown;
+			}
+			if (snapshot[ordinal] == null) {
+				snapshot[ordinal] = new AttractionCounters(attractionName);
+			}
+			attractionCounters = snapshot;
+			return snapshot[ordinal];
+		}
+	}
+
+	private static final class AttractionCounters {
+
+		private final String attractionName;
+		private final LongAdder rewardCount = new LongAdder();
+		private final LongAdder rewardPoints = new LongAdder();
+
+		private AttractionCounters(String attractionName) {
+			this.attractionName = attractionName;
+		}
+	}
+}
@@ -1,30 +1,39 @@
 package com.openclassrooms.tourguide.service;
 
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Set;
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.tourguide.attraction.AttractionCatalog;
+import com.openclassrooms.tourguide.cache.RewardPointsKey;
+import com.openclassrooms.tourguide.cache.TwoTierRewardPointsCache;
+import com.openclassrooms.tourguide.geo.BatchDistanceKernel;
+import com.openclassrooms.tourguide.geo.CoordinateArrays;
+import com.openclassrooms.tourguide.geo.GeoDistance;
+import com.openclassrooms.tourguide.geo.ProximityChecker;
+import com.openclassrooms.tourguide.geo.UserLocationIndex;
+import com.openclassrooms.tourguide.profiling.ExternalCallEvent;
+import com.openclassrooms.tourguide.profiling.LatencySpans;
+import com.openclassrooms.tourguide.profiling.RewardCalculatedEvent;
+import com.openclassrooms.tourguide.user.OffHeapUserStore;
 import com.openclassrooms.tourguide.user.User;
 import com.openclassrooms.tourguide.user.UserReward;
+import com.openclassrooms.tourguide.user.UserState;
 
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import rewardCentral.RewardCentral;
@@ -33,25 +42,44 @@ import rewardCentral.RewardCentral;
 @Slf4j
 public class RewardsService {
 
-	private static final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
 	private final int defaultProximityBuffer = 10;
 	private int proximityBuffer = defaultProximityBuffer;
 	private final int attractionProximityRange = 200;
 
 	private final GpsUtil gpsUtil;
 	private final RewardCentral rewardsCentral;
-	private final Map<String, Double> distanceCache = new ConcurrentHashMap<>();
 	private final ExecutorService executor;
+	private final AttractionCatalog attractionCatalog;
 
 	private static final int MAX_THREADS = 64;
 	private static final Semaphore semaphore = new Semaphore(MAX_THREADS);
 	private int maxAttractionsToCheck = 10;
-	private List<User> allUsers = new ArrayList<>();
+	private List<User> allUsers = List.of();
+
+	private static final double USER_INDEX_CELL_SIZE_DEGREES = 0.5;
+	private final UserLocationIndex userLocationIndex = new UserLocationIndex(USER_INDEX_CELL_SIZE_DEGREES);
+	private volatile boolean attractionCentricBulk = false;
+	private ProximityChecker proximityChecker = new ProximityChecker(true);
+	private BatchDistanceKernel distanceKernel = BatchDistanceKernel.scalar();
+	private volatile CoordinateArrays attractionCoordinates;
+	private volatile OffHeapUserStore offHeapUserStore;
+	private ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
+	private RewardStatistics rewardStatistics = new RewardStatistics();
+	private TwoTierRewardPointsCache rewardPointsCache = new TwoTierRewardPointsCache(Duration.ofMinutes(10),
+			100_000);
+
+	private static final int DEFAULT_PREFETCH_THREADS = 8;
+	private static final int DEFAULT_PREFETCH_QUEUE_CAPACITY = 10_000;
+	private volatile RewardPointsPrefetcher rewardPointsPrefetcher = new RewardPointsPrefetcher(
+			DEFAULT_PREFETCH_THREADS, DEFAULT_PREFETCH_QUEUE_CAPACITY);
 
 	/**
 	 * Creates a rewards management service with GPS and RewardCentral services, and
 	 * a thread pool for asynchronous tasks.
 	 *
+	 * The attractions of gpsUtil are loaded into an {@link AttractionCatalog},
+	 * which gives the ordinals of the attractions checked by this service.
+	 *
 	 * @param gpsUtil         Geolocation service
 	 * @param rewardCentral   Service to get reward points
 	 * @param executorService Executor for parallel tasks
@@ -65,6 +93,16 @@ public class RewardsService {
 		if (executor == null || executor.isShutdown()) {
 			throw new IllegalStateException("ExecutorService must be initialized and active");
 		}
+		this.attractionCatalog = new AttractionCatalog(gpsUtil);
+	}
+
+	/**
+	 * Returns the catalog of the attractions, which gives their ordinals.
+	 *
+	 * @return Attraction catalog
+	 */
+	public AttractionCatalog getAttractionCatalog() {
+		return attractionCatalog;
 	}
 
 	/**
@@ -77,6 +115,133 @@ public class RewardsService {
 		this.maxAttractionsToCheck = maxAttractionsToCheck;
 	}
 
+	/**
+	 * Selects how {@link #calculateRewardsForAllUsers(List, List)} processes a
+	 * bulk pass.
+	 *
+	 * When enabled, the pass is driven by attractions: each attraction queries the
+	 * spatial index of the users' latest positions, and only the users found
+	 * within the proximity buffer are checked against RewardCentral.
+	 *
+	 * @param attractionCentricBulk true to use the attraction-centric pass, false
+	 *                              to check every user's history
+	 */
+	@Value("${tourguide.rewards.attractionCentricBulk:false}")
+	public void setAttractionCentricBulk(boolean attractionCentricBulk) {
+		this.attractionCentricBulk = attractionCentricBulk;
+	}
+
+	/**
+	 * Enables or disables the fast proximity checks.
+	 *
+	 * When enabled, proximity checks first reject far away attractions with a
+	 * bounding-box test and use an equirectangular approximation, falling back on
+	 * {@link #getDistance(Location, Location)} near the threshold. Results are the
+	 * same in both modes.
+	 *
+	 * @param fastProximityChecks true to use the approximate proximity checks
+	 */
+	@Value("${tourguide.rewards.fastProximityChecks:true}")
+	public void setFastProximityChecks(boolean fastProximityChecks) {
+		this.proximityChecker = new ProximityChecker(fastProximityChecks);
+	}
+
+	/**
+	 * Selects the kernel computing the distances from a location to every
+	 * attraction.
+	 *
+	 * The SIMD kernel needs the JVM to be started with
+	 * {@code --add-modules jdk.incubator.vector}; otherwise the scalar kernel is
+	 * kept.
+	 *
+	 * @param simd true to use the SIMD kernel when available
+	 */
+	@Value("${tourguide.distance.simd:false}")
+	public void setSimdDistanceKernel(boolean simd) {
+		this.distanceKernel = BatchDistanceKernel.create(simd);
+	}
+
+	/**
+	 * Sets the off-heap copy of the users' hot fields scanned by the
+	 * attraction-centric pass instead of the spatial index.
+	 *
+	 * @param offHeapUserStore Store mirroring the users, null to use the index
+	 */
+	public void setOffHeapUserStore(OffHeapUserStore offHeapUserStore) {
+		this.offHeapUserStore = offHeapUserStore;
+	}
+
+	/**
+	 * Sets the registry observing the reward points lookups and the calls to
+	 * RewardCentral.
+	 *
+	 * @param observationRegistry Shared observation registry
+	 */
+	@Autowired(required = false)
+	public void setObservationRegistry(ObservationRegistry observationRegistry) {
+		this.observationRegistry = observationRegistry;
+	}
+
+	/**
+	 * Sets the statistics updated every time a reward is granted.
+	 *
+	 * @param rewardStatistics Shared reward statistics
+	 */
+	@Autowired(required = false)
+	public void setRewardStatistics(RewardStatistics rewardStatistics) {
+		this.rewardStatistics = rewardStatistics;
+	}
+
+	/**
+	 * Returns the statistics updated every time a reward is granted.
+	 *
+	 * @return Reward statistics
+	 */
+	public RewardStatistics getRewardStatistics() {
+		return rewardStatistics;
+	}
+
+	/**
+	 * Sets the cache of the reward points returned by RewardCentral.
+	 *
+	 * @param rewardPointsCache Shared reward points cache
+	 */
+	@Autowired(required = false)
+	public void setRewardPointsCache(TwoTierRewardPointsCache rewardPointsCache) {
+		this.rewardPointsCache = rewardPointsCache;
+	}
+
+	/**
+	 * Returns the cache of the reward points returned by RewardCentral.
+	 *
+	 * @return Reward points cache
+	 */
+	public TwoTierRewardPointsCache getRewardPointsCache() {
+		return rewardPointsCache;
+	}
+
+	/**
+	 * Configures the background loading of reward points near the tracked
+	 * locations.
+	 *
+	 * @param enabled       true to prefetch the reward points of the attractions
+	 *                      within the attraction proximity range
+	 * @param threads       Maximum number of concurrent RewardCentral calls made
+	 *                      by the prefetch
+	 * @param queueCapacity Maximum number of waiting prefetches, further ones are
+	 *                      dropped
+	 */
+	@Autowired
+	public void configureRewardPointsPrefetch(@Value("${tourguide.rewards.prefetch.enabled:true}") boolean enabled,
+			@Value("${tourguide.rewards.prefetch.threads:8}") int threads,
+			@Value("${tourguide.rewards.prefetch.queueCapacity:10000}") int queueCapacity) {
+		RewardPointsPrefetcher previous = rewardPointsPrefetcher;
+		rewardPointsPrefetcher = enabled ? new RewardPointsPrefetcher(threads, queueCapacity) : null;
+		if (previous != null) {
+			previous.shutdown();
+		}
+	}
+
 	/**
 	 * Cleanly shuts down the thread pool if it is still active.
 	 */
@@ -85,12 +250,18 @@ public class RewardsService {
 		if (!executor.isShutdown()) {
 			executor.shutdown();
 		}
-
+		RewardPointsPrefetcher prefetcher = rewardPointsPrefetcher;
+		if (prefetcher != null) {
+			prefetcher.shutdown();
+		}
+		attractionCatalog.close();
 	}
 
 	/**
 	 * Replaces the list of service users with a new one.
 	 *
+	 * The list is not copied: a read-only view of it is kept.
+	 *
 	 * @param allUsers List of users to register
 	 * @throws IllegalStateException if the list is empty or null
 	 */
@@ -98,12 +269,7 @@ public class RewardsService {
 		if (allUsers == null || allUsers.isEmpty()) {
 			throw new IllegalStateException("User list is empty. Cannot initialize users.");
 		}
-		if (this.allUsers == null) {
-			this.allUsers = new ArrayList<>();
-		} else {
-			this.allUsers.clear();
-		}
-		this.allUsers.addAll(allUsers);
+		this.allUsers = Collections.unmodifiableList(allUsers);
 	}
 
 	/**
@@ -123,7 +289,11 @@ public class RewardsService {
 	}
 
 	/**
-	 * Calculates rewards for a user based on their past visits.
+	 * Calculates rewards for a user based on their whole history.
+	 *
+	 * Every visited location is checked, which decodes the cold blocks of the
+	 * history; this is a backfill, the tracking only checks each new location
+	 * with {@link #calculateRewards(User, VisitedLocation, List)}.
 	 *
 	 * @param user        Concerned user
 	 * @param attractions List of available attractions
@@ -135,53 +305,88 @@ public class RewardsService {
 					user.getUserName(), user.getVisitedLocations().size(), attractions.size());
 		}
 
-		List<VisitedLocation> userLocations = user.getVisitedLocations();
-
-		PriorityQueue<Attraction> closestAttractions = new PriorityQueue<>(
-				Comparator.comparingDouble(
-						attraction -> -cachedDistance(user.getLastVisitedLocation().location, attraction)));
+		UserState state = user.getState();
+		calculateRewards(user, state.visitedLocations(), state.lastVisitedLocation(), attractions);
+	}
 
-		for (Attraction attraction : attractions) {
-			closestAttractions.offer(attraction);
-			if (closestAttractions.size() > maxAttractionsToCheck) {
-				closestAttractions.poll();
-			}
-		}
+	/**
+	 * Calculates the rewards a user earns with a new visited location, without
+	 * reading the rest of their history: older locations were checked when
+	 * they were added.
+	 *
+	 * @param user            Concerned user
+	 * @param visitedLocation Location just added to the user's history
+	 * @param attractions     List of available attractions
+	 */
+	public void calculateRewards(User user, VisitedLocation visitedLocation, List<Attraction> attractions) {
+		calculateRewards(user, List.of(visitedLocation), visitedLocation, attractions);
+	}
 
-		List<Attraction> attractionsToCheck = new ArrayList<>(closestAttractions);
+	private void calculateRewards(User user, List<VisitedLocation> userLocations, VisitedLocation latest,
+			List<Attraction> attractions) {
+		RewardCalculatedEvent event = new RewardCalculatedEvent();
+		event.begin();
+		List<Attraction> attractionsToCheck = getClosestAttractions(latest.location, attractions,
+				maxAttractionsToCheck);
 
-		Set<UUID> rewardedAttractionIds = user.getUserRewards().stream()
-				.map(r -> r.attraction.attractionId)
-				.collect(Collectors.toSet());
+		int[] ordinals = ordinalsOf(attractionsToCheck);
 
+		int granted = 0;
 		for (VisitedLocation visitedLocation : userLocations) {
-			for (Attraction attraction : attractionsToCheck) {
-				if (nearAttraction(visitedLocation, attraction)
-						&& !rewardedAttractionIds.contains(attraction.attractionId)) {
+			for (int i = 0; i < ordinals.length; i++) {
+				Attraction attraction = attractionsToCheck.get(i);
+				if (isRewardable(user, ordinals[i]) && nearAttraction(visitedLocation, attraction)) {
 					int points = getRewardPoints(attraction, user);
-					user.addUserReward(new UserReward(visitedLocation, attraction, points));
-					rewardedAttractionIds.add(attraction.attractionId);
+					if (grantReward(user, new UserReward(visitedLocation, attraction, ordinals[i], points))) {
+						granted++;
+					}
 				}
 			}
 		}
+		event.pass = RewardCalculatedEvent.USER_PASS;
+		event.users = 1;
+		event.candidatesChecked = (long) userLocations.size() * ordinals.length;
+		event.rewardsGranted = granted;
+		event.commit();
 	}
 
 	/**
-	 * Calculates rewards for a user asynchronously (in the background).
+	 * Calculates rewards for a user asynchronously (in the background), based
+	 * on their whole history.
 	 *
 	 * @param user        Concerned user
 	 * @param attractions List of available attractions
 	 * @return An asynchronous task representing the current computation
+	 * @see #calculateRewards(User, List)
 	 */
 	public CompletableFuture<Void> calculateRewardsAsync(User user, List<Attraction> attractions) {
+		return calculateRewardsAsync(() -> calculateRewards(user, attractions));
+	}
+
+	/**
+	 * Calculates the rewards of a new visited location asynchronously.
+	 *
+	 * @param user            Concerned user
+	 * @param visitedLocation Location just added to the user's history
+	 * @param attractions     List of available attractions
+	 * @return An asynchronous task representing the current computation
+	 * @see #calculateRewards(User, VisitedLocation, List)
+	 */
+	public CompletableFuture<Void> calculateRewardsAsync(User user, VisitedLocation visitedLocation,
+			List<Attraction> attractions) {
+		return calculateRewardsAsync(() -> calculateRewards(user, visitedLocation, attractions));
+	}
+
+	private CompletableFuture<Void> calculateRewardsAsync(Runnable calculation) {
 		return CompletableFuture.runAsync(() -> {
 			try {
-
 				semaphore.acquire();
-				calculateRewards(user, attractions);
 			} catch (InterruptedException e) {
 				Thread.currentThread().interrupt();
 				throw new RuntimeException("Thread interrupted", e);
+			}
+			try {
+				calculation.run();
 			} finally {
 				semaphore.release();
 			}
@@ -191,10 +396,19 @@ public class RewardsService {
 	/**
 	 * Calculates rewards for a list of users in parallel.
 	 *
+	 * Depending on {@link #setAttractionCentricBulk(boolean)}, either each user's
+	 * history is checked against the closest attractions, or the pass is driven
+	 * by attractions through {@link #calculateRewardsByAttraction(List, List)}.
+	 *
 	 * @param users       User list
 	 * @param attractions List of attractions to consider
 	 */
 	public void calculateRewardsForAllUsers(List<User> users, List<Attraction> attractions) {
+		if (attractionCentricBulk) {
+			calculateRewardsByAttraction(users, attractions);
+			return;
+		}
+
 		List<CompletableFuture<Void>> futures = users.stream()
 				.map(user -> calculateRewardsAsync(user, attractions))
 
@@ -205,36 +419,219 @@ public class RewardsService {
 	}
 
 	/**
-	 * Creates a unique key to associate a geographic location with an attraction.
+	 * Records the latest position of a user in the spatial index used by the
+	 * attraction-centric bulk pass. Does nothing while that pass is disabled:
+	 * the users given to the pass are indexed when it runs.
+	 *
+	 * @param user            Concerned user
+	 * @param visitedLocation Latest visited location of the user
+	 */
+	public void indexUserLocation(User user, VisitedLocation visitedLocation) {
+		if (!attractionCentricBulk) {
+			return;
+		}
+		userLocationIndex.update(user, visitedLocation);
+	}
+
+	/**
+	 * Calculates rewards by looking, for each attraction, at the users whose latest
+	 * position is within the proximity buffer.
+	 *
+	 * The given users are first (re)indexed with their latest visited location.
+	 * The pass then covers every indexed user, not only those given. Only the
+	 * candidates found near an attraction and not yet rewarded for it get a
+	 * RewardCentral lookup, so the cost depends on the number of nearby users
+	 * rather than on the size of every user's history.
+	 *
+	 * Older locations of the history are not rechecked: they were already
+	 * evaluated when they were the latest position of the user.
+	 *
+	 * With an {@link OffHeapUserStore}, the latest positions and rewarded
+	 * attractions are scanned off-heap instead, see
+	 * {@link #calculateRewardsFromOffHeap(OffHeapUserStore, List)}.
+	 *
+	 * @param users       Users whose latest position must be refreshed in the index
+	 * @param attractions List of attractions to consider
+	 */
+	public void calculateRewardsByAttraction(List<User> users, List<Attraction> attractions) {
+		OffHeapUserStore store = offHeapUserStore;
+		if (store != null) {
+			calculateRewardsFromOffHeap(store, attractions);
+			return;
+		}
+
+		RewardCalculatedEvent event = new RewardCalculatedEvent();
+		event.begin();
+		for (User user : users) {
+			VisitedLocation lastVisitedLocation = user.getState().lastVisitedLocation();
+			if (lastVisitedLocation != null) {
+				userLocationIndex.update(user, lastVisitedLocation);
+			}
+		}
+
+		List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+		long[] candidates = new long[1];
+		for (Attraction attraction : attractions) {
+			int ordinal = attractionCatalog.ordinalOf(attraction);
+			if (ordinal < 0) {
+				continue;
+			}
+			userLocationIndex.forEachWithin(attraction, proximityBuffer, proximityChecker,
+					(user, visitedLocation) -> {
+						candidates[0]++;
+						if (!user.isAttractionRewarded(ordinal)) {
+							futures.add(addUserRewardAsync(user, visitedLocation, attraction, ordinal));
+						}
+					});
+		}
+
+		commit(event, RewardCalculatedEvent.ATTRACTION_PASS, userLocationIndex.size(), candidates[0], futures);
+	}
+
+	/**
+	 * Calculates rewards from the latest positions mirrored in an off-heap user
+	 * store.
 	 *
-	 * Latitude and longitude coordinates are rounded to two decimal places to
-	 * reduce precision and improve cache reuse.*
+	 * Every slot is read into the same flyweight and checked against the
+	 * attractions it has not been rewarded for, so the scan creates no object
+	 * per user. Only the candidates found within the proximity buffer are
+	 * checked again on their user, whose position may have changed, before a
+	 * RewardCentral lookup.
 	 *
-	 * @param location   Reference location
-	 * @param attraction Attraction concerned
-	 * @return A string representing the associated cache key
+	 * @param store       Store mirroring the users
+	 * @param attractions List of attractions to consider
+	 */
+	public void calculateRewardsFromOffHeap(OffHeapUserStore store, List<Attraction> attractions) {
+		int[] ordinals = ordinalsOf(attractions);
+
+		RewardCalculatedEvent event = new RewardCalculatedEvent();
+		event.begin();
+		List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+		store.forEach(slot -> {
+			if (!slot.hasLocation()) {
+				return;
+			}
+			for (int i = 0; i < ordinals.length; i++) {
+				Attraction attraction = attractions.get(i);
+				if (ordinals[i] < 0 || slot.isRewarded(ordinals[i]) || !proximityChecker.isWithin(attraction.latitude,
+						attraction.longitude, slot.latitude(), slot.longitude(), proximityBuffer)) {
+					continue;
+				}
+				User user = store.userAt(slot.index());
+				VisitedLocation lastVisitedLocation = user.getState().lastVisitedLocation();
+				if (!user.isAttractionRewarded(ordinals[i]) && nearAttraction(lastVisitedLocation, attraction)) {
+					futures.add(addUserRewardAsync(user, lastVisitedLocation, attraction, ordinals[i]));
+				}
+			}
+		});
+
+		commit(event, RewardCalculatedEvent.OFF_HEAP_PASS, store.size(), (long) store.size() * ordinals.length,
+				futures);
+	}
+
+	/**
+	 * Waits for the rewards of a bulk pass, then records the pass.
+	 */
+	private static void commit(RewardCalculatedEvent event, String pass, int users, long candidatesChecked,
+			List<CompletableFuture<Boolean>> futures) {
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+		event.end();
+		if (event.shouldCommit()) {
+			event.pass = pass;
+			event.users = users;
+			event.candidatesChecked = candidatesChecked;
+			event.rewardsGranted = (int) futures.stream().filter(CompletableFuture::join).count();
+			event.commit();
+		}
+	}
+
+	private CompletableFuture<Boolean> addUserRewardAsync(User user, VisitedLocation visitedLocation,
+			Attraction attraction, int ordinal) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				semaphore.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Thread interrupted", e);
+			}
+			try {
+				return grantReward(user,
+						new UserReward(visitedLocation, attraction, ordinal, getRewardPoints(attraction, user)));
+			} finally {
+				semaphore.release();
+			}
+		}, executor);
+	}
+
+	/**
+	 * Returns the ordinals of attractions, -1 for those outside the catalog.
+	 */
+	private int[] ordinalsOf(List<Attraction> attractions) {
+		int[] ordinals = new int[attractions.size()];
+		for (int i = 0; i < ordinals.length; i++) {
+			ordinals[i] = attractionCatalog.ordinalOf(attractions.get(i));
+		}
+		return ordinals;
+	}
+
+	/**
+	 * Indicates whether a user may still be rewarded for an attraction, which
+	 * must be in the catalog.
 	 */
-	private String getCacheKey(Location location, Attraction attraction) {
+	private static boolean isRewardable(User user, int ordinal) {
+		return ordinal >= 0 && !user.isAttractionRewarded(ordinal);
+	}
 
-		double lat = Math.round(location.latitude * 100.0) / 100.0;
-		double lon = Math.round(location.longitude * 100.0) / 100.0;
-		return lat + "," + lon + "_" + attraction.attractionId;
+	private boolean grantReward(User user, UserReward userReward) {
+		if (user.addUserReward(userReward)) {
+			rewardStatistics.recordReward(user, userReward);
+			return true;
+		}
+		return false;
 	}
 
 	/**
-	 * Calculates the distance between a location and an attraction with caching.
+	 * Returns the attractions closest to a location, sorted by increasing
+	 * distance.
 	 *
-	 * If the distance has already been calculated for this location and attraction
-	 * combination, it is retrieved from the cache. Otherwise, it is calculated and
-	 * stored.
+	 * All distances are computed in one pass by the batch distance kernel over
+	 * the coordinates of the attractions, which are kept between calls made with
+	 * the same list.
 	 *
-	 * @param location   Reference location
-	 * @param attraction Target attraction
-	 * @return Distance between location and attraction (in miles)
+	 * @param location    Reference location
+	 * @param attractions List of attractions to rank
+	 * @param limit       Maximum number of attractions to return
+	 * @return Closest attractions, the nearest first
 	 */
-	private double cachedDistance(Location location, Attraction attraction) {
-		String key = getCacheKey(location, attraction);
-		return distanceCache.computeIfAbsent(key, k -> getDistance(location, attraction));
+	public List<Attraction> getClosestAttractions(Location location, List<Attraction> attractions, int limit) {
+		CoordinateArrays coordinates = attractionCoordinates;
+		if (coordinates == null || !coordinates.isBuiltFrom(attractions)) {
+			coordinates = CoordinateArrays.of(attractions);
+			attractionCoordinates = coordinates;
+		}
+		double[] distances = new double[coordinates.size()];
+		distanceKernel.distances(location, coordinates, distances);
+
+		int count = Math.min(Math.max(limit, 0), distances.length);
+		int[] closest = new int[count];
+		int found = 0;
+		for (int i = 0; i < distances.length; i++) {
+			if (found == count && (count == 0 || distances[i] >= distances[closest[count - 1]])) {
+				continue;
+			}
+			int position = found < count ? found++ : count - 1;
+			while (position > 0 && distances[closest[position - 1]] > distances[i]) {
+				closest[position] = closest[position - 1];
+				position--;
+			}
+			closest[position] = i;
+		}
+
+		List<Attraction> result = new ArrayList<>(count);
+		for (int index : closest) {
+			result.add(attractions.get(index));
+		}
+		return result;
 	}
 
 	/**
@@ -245,31 +642,97 @@ public class RewardsService {
 	 * @return true si la distance est inférieure à la limite, false sinon
 	 */
 	public boolean isWithinAttractionProximity(Attraction attraction, Location location) {
-		return getDistance(attraction, location) <= attractionProximityRange;
+		return proximityChecker.isWithin(attraction, location, attractionProximityRange);
 	}
 
-	private boolean nearAttraction(VisitedLocation visitedLocation, Attraction attraction) {
-		return getDistance(attraction, visitedLocation.location) <= proximityBuffer;
+	/**
+	 * Indicates whether a visited location may still earn a reward: it is within
+	 * the proximity buffer of an attraction the user has not been rewarded for.
+	 *
+	 * @param user            Concerned user
+	 * @param visitedLocation Location of the user's history
+	 * @param attractions     List of attractions to consider
+	 * @return true if the location must be kept for the reward calculation
+	 */
+	public boolean isRewardRelevant(User user, VisitedLocation visitedLocation, List<Attraction> attractions) {
+		for (Attraction attraction : attractions) {
+			if (nearAttraction(visitedLocation, attraction)
+					&& isRewardable(user, attractionCatalog.ordinalOf(attraction))) {
+				return true;
+			}
+		}
+		return false;
 	}
 
-	private final Cache<String, Integer> rewardPointsCache = Caffeine.newBuilder()
-			.maximumSize(100_000)
-			.expireAfterWrite(10, TimeUnit.MINUTES)
-			.build();
+	private boolean nearAttraction(VisitedLocation visitedLocation, Attraction attraction) {
+		return proximityChecker.isWithin(attraction, visitedLocation.location, proximityBuffer);
+	}
 
 	/**
 	 * Returns the number of reward points earned by a user at a given attraction.
 	 * Uses a cache to speed up the result.*
+	 * Attractions outside the catalog have no ordinal, so their points are not
+	 * cached.
 	 * 
 	 * @param attraction The attraction visited
 	 * @param user       The user concerned
 	 * @return Number of points awarded
 	 */
 	public int getRewardPoints(Attraction attraction, User user) {
-		String key = attraction.attractionName + ":" + user.getUserId();
-		return rewardPointsCache.get(key, k -> Math.max(
-				rewardsCentral.getAttractionRewardPoints(attraction.attractionId, user.getUserId()),
-				1));
+		int ordinal = attractionCatalog.ordinalOf(attraction);
+		return LatencySpans.service(observationRegistry, "RewardsService.getRewardPoints",
+				() -> ordinal < 0 ? loadRewardPoints(attraction, user)
+						: rewardPointsCache.get(RewardPointsKey.of(user.getUserId(), ordinal),
+								attraction.attractionName, () -> loadRewardPoints(attraction, user)));
+	}
+
+	private int loadRewardPoints(Attraction attraction, User user) {
+		return Math.max(LatencySpans.external(observationRegistry, ExternalCallEvent.REWARD_CENTRAL,
+				"getAttractionRewardPoints",
+				() -> rewardsCentral.getAttractionRewardPoints(attraction.attractionId, user.getUserId())), 1);
+	}
+
+	/**
+	 * Loads in the background the reward points of the attractions within the
+	 * attraction proximity range of a tracked location.
+	 *
+	 * By the time the user gets close enough to be rewarded, or asks for the
+	 * nearby attractions, the points are usually in the cache. Attractions
+	 * already rewarded or already cached are skipped, and prefetches are dropped
+	 * when too many are waiting.
+	 *
+	 * @param user            Concerned user
+	 * @param visitedLocation Location just tracked
+	 * @param attractions     Attractions to consider
+	 */
+	public void prefetchRewardPoints(User user, VisitedLocation visitedLocation, List<Attraction> attractions) {
+		RewardPointsPrefetcher prefetcher = rewardPointsPrefetcher;
+		if (prefetcher == null) {
+			return;
+		}
+		for (Attraction attraction : attractions) {
+			if (!proximityChecker.isWithin(attraction, visitedLocation.location, attractionProximityRange)
+					|| !isRewardable(user, attractionCatalog.ordinalOf(attraction))) {
+				continue;
+			}
+			RewardPointsKey key = rewardPointsKey(attraction, user);
+			if (!rewardPointsCache.contains(key)) {
+				prefetcher.prefetch(key, () -> getRewardPoints(attraction, user));
+			}
+		}
+	}
+
+	boolean isRewardPointsCached(Attraction attraction, User user) {
+		return attractionCatalog.ordinalOf(attraction) >= 0
+				&& rewardPointsCache.contains(rewardPointsKey(attraction, user));
+	}
+
+	RewardPointsPrefetcher getRewardPointsPrefetcher() {
+		return rewardPointsPrefetcher;
+	}
+
+	private RewardPointsKey rewardPointsKey(Attraction attraction, User user) {
+		return RewardPointsKey.of(user.getUserId(), attractionCatalog.ordinalOf(attraction));
 	}
 
 	/**
@@ -280,15 +743,6 @@ public class RewardsService {
 	 * @return Distance between the two locations in miles
 	 */
 	public double getDistance(Location loc1, Location loc2) {
-		double lat1 = Math.toRadians(loc1.latitude);
-		double lon1 = Math.toRadians(loc1.longitude);
-		double lat2 = Math.toRadians(loc2.latitude);
-		double lon2 = Math.toRadians(loc2.longitude);
-
-		double angle = Math.acos(Math.sin(lat1) * Math.sin(lat2)
-				+ Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2));
-
-		double nauticalMiles = 60 * Math.toDegrees(angle);
-		return STATUTE_MILES_PER_NAUTICAL_MILE * nauticalMiles;
+		return GeoDistance.miles(loc1, loc2);
 	}
 }
\ No newline at end of file
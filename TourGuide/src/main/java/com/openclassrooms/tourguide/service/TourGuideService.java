@@ -1,36 +1,50 @@
 package com.openclassrooms.tourguide.service;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
-import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
+import java.util.Optional;
 import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.tourguide.attraction.AttractionCatalog;
+import com.openclassrooms.tourguide.cache.FreshnessAwareLocationCache;
+import com.openclassrooms.tourguide.cluster.UserOwnership;
+import com.openclassrooms.tourguide.gps.ResilientGpsClient;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.profiling.ExternalCallEvent;
+import com.openclassrooms.tourguide.profiling.LatencySpans;
+import com.openclassrooms.tourguide.profiling.UserTrackedEvent;
+import com.openclassrooms.tourguide.tracker.LocationHistoryCompactor;
 import com.openclassrooms.tourguide.tracker.Tracker;
+import com.openclassrooms.tourguide.user.ColdUserStore;
+import com.openclassrooms.tourguide.user.LocationRetention;
+import com.openclassrooms.tourguide.user.OffHeapUserStore;
 import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRegistry;
 import com.openclassrooms.tourguide.user.UserReward;
+import com.openclassrooms.tourguide.user.UserTiering;
 
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
 import tripPricer.Provider;
 import tripPricer.TripPricer;
 
@@ -46,17 +60,26 @@ public class TourGuideService {
 
 	private final ExecutorService executor;
 	private List<User> allUsers;
-	private final Map<String, User> internalUserMap = new ConcurrentHashMap<>();
+	private final UserRegistry userRegistry = new UserRegistry();
+	private volatile UserOwnership userOwnership = UserOwnership.ALL;
 	private final GpsUtil gpsUtil;
+	private volatile ResilientGpsClient gpsClient;
+	// Created on first use when no client was set, and closed with the service
+	private ResilientGpsClient defaultGpsClient;
+	private final AttractionCatalog attractionCatalog;
 	private final RewardsService rewardsService;
-	private final TripPricer tripPricer = new TripPricer();
+	private volatile TripPricer tripPricer = new TripPricer();
 	public final Tracker tracker;
 	private final boolean startTracker;
 
-	private final Cache<UUID, VisitedLocation> locationCache = Caffeine.newBuilder()
-			.expireAfterWrite(5, TimeUnit.MINUTES)
-			.maximumSize(500_000)
-			.build();
+	private volatile FreshnessAwareLocationCache locationCache = new FreshnessAwareLocationCache(
+			FreshnessAwareLocationCache.Settings.defaults());
+	private volatile Duration defaultMaxStaleness = FreshnessAwareLocationCache.Settings.defaults().maxTtl();
+	private volatile LocationHistoryCompactor historyCompactor;
+	private volatile UserTiering userTiering;
+	private volatile int coldTrackingInterval;
+	private volatile OffHeapUserStore offHeapUserStore;
+	private volatile ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
 
 	private static final String TRIP_PRICER_API_KEY = "test-server-api-key";
 	private final boolean testMode = true;
@@ -76,6 +99,7 @@ public class TourGuideService {
 	public TourGuideService(GpsUtil gpsUtil, RewardsService rewardsService, ExecutorService executorService,
 			@Value("${tourguide.startTracker:true}") boolean startTracker) {
 		this.gpsUtil = gpsUtil;
+		this.attractionCatalog = rewardsService.getAttractionCatalog();
 		this.rewardsService = rewardsService;
 		this.executor = executorService;
 		this.startTracker = startTracker;
@@ -95,7 +119,7 @@ public class TourGuideService {
 	 * Defines a new user list for the service.
 	 *
 	 * This method replaces the current users with those provided in
-	 * parameters
+	 * parameters. The list is not copied: a read-only view of it is kept.
 	 *
 	 * The list must not be null or empty, otherwise an error is thrown.
 	 *
@@ -111,7 +135,287 @@ public class TourGuideService {
 		if (allUsers.isEmpty()) {
 			throw new IllegalStateException("User list is empty. Cannot initialize users.");
 		}
-		this.allUsers = new ArrayList<>(allUsers);
+		this.allUsers = Collections.unmodifiableList(allUsers);
+	}
+
+	/**
+	 * Defines which users are handled by this instance.
+	 *
+	 * In cluster mode, the tracker only polls the users owned by this instance.
+	 * By default, every user is owned locally.
+	 *
+	 * @param userOwnership Ownership of the users
+	 */
+
+	@Autowired(required = false)
+	public void setUserOwnership(UserOwnership userOwnership) {
+		this.userOwnership = userOwnership;
+	}
+
+	/**
+	 * Sets the client through which the GPS service is called.
+	 *
+	 * @param gpsClient Client bounding the GPS calls with deadlines, hedges and a
+	 *                  circuit breaker
+	 */
+
+	@Autowired(required = false)
+	public synchronized void setGpsClient(ResilientGpsClient gpsClient) {
+		ResilientGpsClient previous = this.gpsClient;
+		this.gpsClient = gpsClient;
+		if (previous != null && previous != gpsClient) {
+			previous.close();
+		}
+	}
+
+	/**
+	 * Sets the service pricing the trip deals.
+	 *
+	 * @param tripPricer Trip pricing service
+	 */
+
+	@Autowired(required = false)
+	public void setTripPricer(TripPricer tripPricer) {
+		this.tripPricer = tripPricer;
+	}
+
+	/**
+	 * Sets the registry observing the service methods and the external calls
+	 * made for a request.
+	 *
+	 * @param observationRegistry Shared observation registry
+	 */
+
+	@Autowired(required = false)
+	public void setObservationRegistry(ObservationRegistry observationRegistry) {
+		this.observationRegistry = observationRegistry;
+	}
+
+	/**
+	 * Returns the client through which the GPS service is called. When none was
+	 * set, a client with the default settings is created on first use.
+	 *
+	 * @return GPS client
+	 */
+
+	public ResilientGpsClient getGpsClient() {
+		ResilientGpsClient client = gpsClient;
+		if (client == null) {
+			synchronized (this) {
+				client = gpsClient;
+				if (client == null) {
+					client = ResilientGpsClient.of(gpsUtil, ResilientGpsClient.Settings.defaults());
+					defaultGpsClient = client;
+					gpsClient = client;
+				}
+			}
+		}
+		return client;
+	}
+
+	/**
+	 * Configures the cache of the latest user locations.
+	 *
+	 * @param minTtl            Time to live of the locations of the fastest
+	 *                          users
+	 * @param maxTtl            Time to live of the locations of still users, and
+	 *                          staleness accepted when the caller gives none
+	 * @param toleranceMiles    Distance a user may have moved since a served
+	 *                          location
+	 * @param refreshAheadRatio Share of the time to live after which a read
+	 *                          refreshes the location in the background
+	 * @param maxSize           Maximum number of cached locations
+	 */
+
+	@Autowired
+	public void configureLocationCache(@Value("${tourguide.location.cache.minTtl:30s}") Duration minTtl,
+			@Value("${tourguide.location.cache.maxTtl:5m}") Duration maxTtl,
+			@Value("${tourguide.location.cache.toleranceMiles:0.5}") double toleranceMiles,
+			@Value("${tourguide.location.cache.refreshAheadRatio:0.8}") double refreshAheadRatio,
+			@Value("${tourguide.location.cache.maxSize:500000}") long maxSize) {
+		this.locationCache = new FreshnessAwareLocationCache(
+				new FreshnessAwareLocationCache.Settings(minTtl, maxTtl, toleranceMiles, refreshAheadRatio, maxSize));
+		this.defaultMaxStaleness = maxTtl;
+	}
+
+	/**
+	 * Returns the cache of the latest user locations.
+	 *
+	 * @return Location cache
+	 */
+
+	public FreshnessAwareLocationCache getLocationCache() {
+		return locationCache;
+	}
+
+	/**
+	 * Configures the background compaction of the location histories.
+	 *
+	 * @param enabled                    true to run the compaction periodically
+	 * @param interval                   Delay between two compaction passes
+	 * @param fullResolution             Age under which every location is kept
+	 * @param downsampleInterval         Interval in which one older location is
+	 *                                   kept
+	 * @param downsampleMinDistanceMiles Move keeping an older location whatever
+	 *                                   its interval, 0 to disable
+	 * @param coldAfter                  Age above which locations are
+	 *                                   compressed
+	 * @param maxAge                     Age above which locations are dropped,
+	 *                                   unless they may still earn a reward
+	 */
+
+	@Autowired
+	public void configureHistoryCompaction(@Value("${tourguide.history.compaction.enabled:true}") boolean enabled,
+			@Value("${tourguide.history.compaction.interval:15m}") Duration interval,
+			@Value("${tourguide.history.retention.fullResolution:1d}") Duration fullResolution,
+			@Value("${tourguide.history.retention.downsampleInterval:1h}") Duration downsampleInterval,
+			@Value("${tourguide.history.retention.downsampleMinDistanceMiles:1.0}") double downsampleMinDistanceMiles,
+			@Value("${tourguide.history.retention.coldAfter:2d}") Duration coldAfter,
+			@Value("${tourguide.history.retention.maxAge:30d}") Duration maxAge) {
+		LocationHistoryCompactor compactor = new LocationHistoryCompactor(this, rewardsService, new LocationRetention(
+				fullResolution, downsampleInterval, downsampleMinDistanceMiles, coldAfter, maxAge));
+		if (enabled) {
+			compactor.start(interval);
+		}
+		LocationHistoryCompactor previous = historyCompactor;
+		historyCompactor = compactor;
+		if (previous != null) {
+			previous.close();
+		}
+	}
+
+	/**
+	 * Returns the job compacting the location histories.
+	 *
+	 * @return Compactor, or null if the compaction was never configured
+	 */
+
+	public LocationHistoryCompactor getHistoryCompactor() {
+		return historyCompactor;
+	}
+
+	/**
+	 * Configures the periodic reload of the attraction catalog, which rebuilds
+	 * the nearest-attractions grid when gpsUtil answers new attractions.
+	 *
+	 * @param interval Delay between two loads, zero to load the attractions
+	 *                 only at startup
+	 */
+
+	@Autowired
+	public void configureAttractionRefresh(
+			@Value("${tourguide.attractions.refreshInterval:0}") Duration interval) {
+		if (interval.isNegative()) {
+			throw new IllegalArgumentException("The attraction refresh interval must not be negative");
+		}
+		if (!interval.isZero()) {
+			attractionCatalog.start(interval);
+		}
+	}
+
+	/**
+	 * Configures the eviction of inactive users to a local file store.
+	 *
+	 * @param enabled              true to evict inactive users periodically
+	 * @param inactiveAfter        Time without access after which a user is
+	 *                             evicted
+	 * @param interval             Delay between two eviction passes
+	 * @param path                 Directory of the evicted users, emptied at
+	 *                             startup
+	 * @param coldTrackingInterval Number of tracker cycles between two
+	 *                             locations of an evicted user, 0 to never
+	 *                             track them
+	 */
+
+	@Autowired
+	public void configureUserTiering(@Value("${tourguide.tiering.enabled:false}") boolean enabled,
+			@Value("${tourguide.tiering.inactiveAfter:7d}") Duration inactiveAfter,
+			@Value("${tourguide.tiering.interval:10m}") Duration interval,
+			@Value("${tourguide.tiering.path:data/cold-users}") String path,
+			@Value("${tourguide.tiering.coldTrackingInterval:0}") int coldTrackingInterval) {
+		if (coldTrackingInterval < 0) {
+			throw new IllegalArgumentException("The cold tracking interval must not be negative");
+		}
+		this.coldTrackingInterval = coldTrackingInterval;
+		if (!enabled) {
+			return;
+		}
+		UserTiering tiering = new UserTiering(userRegistry, new ColdUserStore(Path.of(path), attractionCatalog),
+				inactiveAfter);
+		tiering.start(interval);
+		UserTiering previous = userTiering;
+		userTiering = tiering;
+		if (previous != null) {
+			previous.close();
+		}
+	}
+
+	/**
+	 * Returns the job evicting the inactive users.
+	 *
+	 * @return Tiering, or null if it is disabled
+	 */
+
+	public UserTiering getUserTiering() {
+		return userTiering;
+	}
+
+	/**
+	 * Indicates whether the tracker locates a user in a cycle. Resident users
+	 * are located every cycle; evicted users only every cold tracking interval,
+	 * since locating them reads their state back.
+	 *
+	 * @param user  User to check
+	 * @param cycle Number of the tracker cycle
+	 * @return true if the user is located in this cycle
+	 */
+
+	public boolean isTrackedInCycle(User user, long cycle) {
+		return user.isResident() || coldTrackingInterval > 0 && cycle % coldTrackingInterval == 0;
+	}
+
+	/**
+	 * Configures the off-heap copy of the users' hot fields: latest location,
+	 * reward total and rewarded attractions. Registered users, then every new
+	 * user, get a slot kept up to date with their updates, which the
+	 * attraction-centric reward pass scans instead of the spatial index.
+	 *
+	 * @param enabled  true to mirror the users off-heap
+	 * @param capacity Maximum number of users
+	 */
+
+	@Autowired
+	public void configureOffHeapUsers(@Value("${tourguide.users.offHeap.enabled:false}") boolean enabled,
+			@Value("${tourguide.users.offHeap.capacity:1000000}") int capacity) {
+		if (!enabled || offHeapUserStore != null) {
+			return;
+		}
+		// The slots grow if a refresh of the catalog adds attractions
+		OffHeapUserStore store = new OffHeapUserStore(capacity, Math.max(1, attractionCatalog.getOrdinalCount()));
+		offHeapUserStore = store;
+		userRegistry.forEach(store::register);
+		rewardsService.setOffHeapUserStore(store);
+	}
+
+	/**
+	 * Returns the off-heap copy of the users' hot fields.
+	 *
+	 * @return Store, or null if it is disabled
+	 */
+
+	public OffHeapUserStore getOffHeapUserStore() {
+		return offHeapUserStore;
+	}
+
+	/**
+	 * Indicates whether a user is handled by this instance.
+	 *
+	 * @param user User to check
+	 * @return true if this instance tracks the user
+	 */
+
+	public boolean isOwnedLocally(User user) {
+		return userOwnership.isOwnedLocally(user.getUserName());
 	}
 
 	/**
@@ -122,7 +426,28 @@ public class TourGuideService {
 	 */
 
 	public List<UserReward> getUserRewards(User user) {
-		return user.getUserRewards();
+		return LatencySpans.service(observationRegistry, "TourGuideService.getUserRewards", user::getUserRewards);
+	}
+
+	/**
+	 * Returns the locations a user visited in a time range, sorted by time.
+	 *
+	 * The range is found by binary search in the user's history; the result is
+	 * a view and copies nothing.
+	 *
+	 * @param user Concerned user
+	 * @param from Start of the range, inclusive
+	 * @param to   End of the range, exclusive
+	 * @return Locations visited in the range
+	 * @throws IllegalArgumentException if the range ends before it starts
+	 */
+
+	public List<VisitedLocation> getLocationHistory(User user, Instant from, Instant to) {
+		if (to.isBefore(from)) {
+			throw new IllegalArgumentException("The range must not end before it starts");
+		}
+		return LatencySpans.service(observationRegistry, "TourGuideService.getLocationHistory",
+				() -> user.getVisitedLocationsBetween(Date.from(from), Date.from(to)));
 	}
 
 	/**
@@ -136,35 +461,101 @@ public class TourGuideService {
 	 */
 
 	public VisitedLocation getUserLocation(User user) {
-		return (!user.getVisitedLocations().isEmpty()) ? user.getLastVisitedLocation() : trackUserLocation(user).join();
+		return LatencySpans.service(observationRegistry, "TourGuideService.getUserLocation", () -> {
+			VisitedLocation lastVisitedLocation = user.getState().lastVisitedLocation();
+			return (lastVisitedLocation != null) ? lastVisitedLocation : trackUserLocation(user).join();
+		});
 	}
 
 	/**
-	 * Starts location tracking for a given user.
+	 * Returns a location of the user no older than a given staleness.
 	 *
-	 * If a recent position is already available in the cache, it is used
-	 * directly.
-	 * Otherwise, a new position is retrieved from the GPS service, added to the
-	 * user's history, and rewards are calculated in the background.
+	 * @param user         Concerned user
+	 * @param maxStaleness Oldest location accepted, zero to always locate the
+	 *                     user
+	 * @return Cached position if fresh enough, updated position otherwise
+	 */
+
+	public VisitedLocation getUserLocation(User user, Duration maxStaleness) {
+		return LatencySpans.service(observationRegistry, "TourGuideService.getUserLocation",
+				() -> trackUserLocation(user, maxStaleness).join());
+	}
+
+	/**
+	 * Starts location tracking for a given user, accepting a cached position
+	 * as old as the maximum time to live of the location cache.
 	 *
 	 * @param user The user to locate
 	 * @return A CompletableFuture containing the user's new (or old) position
+	 * @see #trackUserLocation(User, Duration)
 	 */
 
 	public CompletableFuture<VisitedLocation> trackUserLocation(User user) {
-		return CompletableFuture.supplyAsync(() -> {
-			VisitedLocation cachedLocation = locationCache.getIfPresent(user.getUserId());
-			if (cachedLocation != null)
-				return cachedLocation;
+		return trackUserLocation(user, defaultMaxStaleness);
+	}
+
+	/**
+	 * Starts location tracking for a given user.
+	 *
+	 * If a position younger than both the given staleness and its own time to
+	 * live is cached, it is used directly; when it is close to expiring, it is
+	 * also refreshed in the background.
+	 * Otherwise, a new position is retrieved from the GPS service, added to the
+	 * user's history, the reward points of the attractions around it are
+	 * prefetched, and rewards are calculated in the background.
+	 *
+	 * When the GPS service fails, misses its deadline or is considered down, the
+	 * last known position of the user is returned and nothing is recorded. A
+	 * user without any known position waits for the GPS service instead.
+	 *
+	 * @param user         The user to locate
+	 * @param maxStaleness Oldest cached position accepted, zero to always locate
+	 *                     the user
+	 * @return A CompletableFuture containing the user's new (or old) position
+	 */
 
-			VisitedLocation visitedLocation = gpsUtil.getUserLocation(user.getUserId());
+	public CompletableFuture<VisitedLocation> trackUserLocation(User user, Duration maxStaleness) {
+		FreshnessAwareLocationCache cache = locationCache;
+		UUID userId = user.getUserId();
+		VisitedLocation cachedLocation = cache.getIfFresh(userId, maxStaleness);
+		if (cachedLocation != null) {
+			if (cache.claimRefresh(userId)) {
+				CompletableFuture.runAsync(() -> locateUser(user, cache), executor)
+						.whenComplete((ignored, e) -> cache.releaseRefresh(userId));
+			}
+			return CompletableFuture.completedFuture(cachedLocation);
+		}
+		// The executor threads do not see the observation of the caller
+		Observation caller = observationRegistry.getCurrentObservation();
+		return CompletableFuture.supplyAsync(() -> LatencySpans.service(observationRegistry, caller,
+				"TourGuideService.locateUser", () -> locateUser(user, cache)), executor);
+	}
 
-			user.addToVisitedLocations(visitedLocation);
-			List<Attraction> attractions = gpsUtil.getAttractions();
-			rewardsService.calculateRewardsAsync(user, attractions);
-			locationCache.put(user.getUserId(), visitedLocation);
-			return visitedLocation;
-		}, executor);
+	private VisitedLocation locateUser(User user, FreshnessAwareLocationCache cache) {
+		UserTrackedEvent event = new UserTrackedEvent();
+		event.begin();
+		long gpsStart = System.nanoTime();
+		Optional<VisitedLocation> location = LatencySpans.service(observationRegistry,
+				"ResilientGpsClient.getUserLocation", () -> getGpsClient().getUserLocation(user.getUserId()));
+		event.gpsLatency = System.nanoTime() - gpsStart;
+		event.gpsAnswered = location.isPresent();
+		event.userName = user.getUserName();
+		VisitedLocation lastVisitedLocation = user.getState().lastVisitedLocation();
+		if (location.isEmpty() && lastVisitedLocation != null) {
+			event.commit();
+			return lastVisitedLocation;
+		}
+		// Without a known position there is nothing to fall back on
+		VisitedLocation visitedLocation = location.orElseGet(() -> LatencySpans.external(observationRegistry,
+				ExternalCallEvent.GPS_UTIL, "getUserLocation", () -> gpsUtil.getUserLocation(user.getUserId())));
+
+		user.addToVisitedLocations(visitedLocation);
+		rewardsService.indexUserLocation(user, visitedLocation);
+		rewardsService.prefetchRewardPoints(user, visitedLocation, attractionCatalog.getAttractions());
+		rewardsService.calculateRewardsAsync(user, visitedLocation, attractionCatalog.getAttractions());
+		cache.put(user.getUserId(), visitedLocation, lastVisitedLocation);
+		event.commit();
+		return visitedLocation;
 	}
 
 	/**
@@ -172,14 +563,15 @@ public class TourGuideService {
 	 *
 	 * Each user is located in parallel via asynchronous calls,
 	 * and execution waits for all operations to complete before
-	 * continuing.
+	 * continuing. Cached positions are not used, so every user gets a new
+	 * position.
 	 *
 	 * @param users List of users to follow
 	 */
 
 	public void trackAllUsersLocations(List<User> users) {
 		List<CompletableFuture<Void>> futures = users.stream()
-				.map(user -> trackUserLocation(user).thenAccept(location -> {
+				.map(user -> trackUserLocation(user, Duration.ZERO).thenAccept(location -> {
 				}))
 				.toList();
 
@@ -189,19 +581,26 @@ public class TourGuideService {
 	/**
 	 * Returns the 5 closest attractions to the given position.
 	 *
-	 * This method sorts all known attractions by distance
-	 * from the user's current location, then returns the top 5.
+	 * Only the candidate attractions precomputed for the grid cell of the
+	 * location are compared, see {@link AttractionCatalog#getNearestAttractions}.
 	 *
 	 * @param visitedLocation Current position of the user
 	 * @return List of the 5 nearest attractions
 	 */
 
 	public List<Attraction> getNearByAttractions(VisitedLocation visitedLocation) {
-		return gpsUtil.getAttractions().stream()
-				.sorted(Comparator.comparingDouble(
-						attraction -> rewardsService.getDistance(attraction, visitedLocation.location)))
-				.limit(5)
-				.collect(Collectors.toList());
+		return LatencySpans.service(observationRegistry, "TourGuideService.getNearByAttractions",
+				() -> attractionCatalog.getNearestAttractions(visitedLocation.location, 5));
+	}
+
+	/**
+	 * Returns the catalog of attractions used by the service.
+	 *
+	 * @return Attraction catalog
+	 */
+
+	public AttractionCatalog getAttractionCatalog() {
+		return attractionCatalog;
 	}
 
 	/**
@@ -216,10 +615,30 @@ public class TourGuideService {
 	 */
 
 	public User getUser(String userName) {
-		User user = internalUserMap.get(userName.trim());
+		return LatencySpans.service(observationRegistry, "TourGuideService.getUser", () -> {
+			User user = userRegistry.get(userName);
+			if (user == null) {
+				throw new IllegalArgumentException("User " + userName + " not found");
+			}
+			user.recordAccess();
+			return user;
+		});
+	}
+
+	/**
+	 * Search for a user by identifier.
+	 *
+	 * @param userId Identifier of the user to search for
+	 * @return The user corresponding to the given identifier
+	 * @throws IllegalArgumentException if no user is found
+	 */
+
+	public User getUserById(UUID userId) {
+		User user = userRegistry.getById(userId);
 		if (user == null) {
-			throw new IllegalArgumentException("User " + userName + " not found");
+			throw new IllegalArgumentException("User " + userId + " not found");
 		}
+		user.recordAccess();
 		return user;
 	}
 
@@ -227,13 +646,28 @@ public class TourGuideService {
 	 * Returns the full list of registered users.
 	 *
 	 * This method returns a new list containing all users
-	 * currently stored in internal memory.
+	 * currently stored in internal memory. Callers that only need to go
+	 * through the users should use {@link #getUserRegistry()} instead, which
+	 * does not copy anything.
 	 *
 	 * @return List of all known users
 	 */
 
 	public List<User> getAllUsers() {
-		return new ArrayList<>(internalUserMap.values());
+		return userRegistry.stream().toList();
+	}
+
+	/**
+	 * Returns the registry holding the users of the service.
+	 *
+	 * The registry can be streamed, sequentially or in parallel, without
+	 * copying the users.
+	 *
+	 * @return User registry
+	 */
+
+	public UserRegistry getUserRegistry() {
+		return userRegistry;
 	}
 
 	/**
@@ -246,15 +680,18 @@ public class TourGuideService {
 	 */
 
 	public void addUser(User user) {
-		internalUserMap.putIfAbsent(user.getUserName(), user);
+		OffHeapUserStore store = offHeapUserStore;
+		if (userRegistry.putIfAbsent(user) == null && store != null) {
+			store.register(user);
+		}
 	}
 
 	/**
 	 * Generate a list of personalized travel offers for a user.
 	 *
-	 * The number of reward points is taken into account to calculate
-	 * offers tailored to the user's profile (adults, children,
-	 * duration).
+	 * The user's total reward points, kept up to date as rewards are granted,
+	 * are taken into account to calculate offers tailored to the user's
+	 * profile (adults, children, duration).
 	 * The list is then saved to the user's account.
 	 *
 	 * @param user The user for whom we want to get offers
@@ -262,16 +699,19 @@ public class TourGuideService {
 	 */
 
 	public List<Provider> getTripDeals(User user) {
-		int rewardPoints = user.getUserRewards().stream().mapToInt(UserReward::getRewardPoints).sum();
-		List<Provider> providers = tripPricer.getPrice(
-				TRIP_PRICER_API_KEY,
-				user.getUserId(),
-				user.getUserPreferences().getNumberOfAdults(),
-				user.getUserPreferences().getNumberOfChildren(),
-				user.getUserPreferences().getTripDuration(),
-				rewardPoints);
-		user.setTripDeals(providers);
-		return providers;
+		return LatencySpans.service(observationRegistry, "TourGuideService.getTripDeals", () -> {
+			int rewardPoints = (int) Math.min(user.getRewardPoints(), Integer.MAX_VALUE);
+			List<Provider> providers = LatencySpans.external(observationRegistry, ExternalCallEvent.TRIP_PRICER,
+					"getPrice", () -> tripPricer.getPrice(
+							TRIP_PRICER_API_KEY,
+							user.getUserId(),
+							user.getUserPreferences().getNumberOfAdults(),
+							user.getUserPreferences().getNumberOfChildren(),
+							user.getUserPreferences().getTripDuration(),
+							rewardPoints));
+			user.setTripDeals(providers);
+			return providers;
+		});
 	}
 
 	/**
@@ -280,7 +720,7 @@ public class TourGuideService {
 	 * The number of users to be created is determined by a configuration value.
 	 * Each user receives a username, a unique name, and a history of simulated
 	 * locations.
-	 * These users are added to the service's internal map.
+	 * These users are added to the service's user registry.
 	 */
 
 	private void initializeInternalUsers() {
@@ -289,7 +729,8 @@ public class TourGuideService {
 			String userName = "internalUser" + i;
 			User user = new User(UUID.randomUUID(), userName, "000", userName + "@tourGuide.com");
 			generateUserLocationHistory(user);
-			internalUserMap.put(userName, user);
+			rewardsService.indexUserLocation(user, user.getLastVisitedLocation());
+			userRegistry.putIfAbsent(user);
 		}
 	}
 
@@ -346,12 +787,26 @@ public class TourGuideService {
 	}
 
 	/**
-	 * Stops user tracking if it is active.
+	 * Stops user tracking if it is active, the history compaction, the user
+	 * tiering and the GPS client created by the service.
 	 */
+	@PreDestroy
 	public void shutdown() {
 		if (tracker != null) {
 			tracker.stopTracking();
 		}
+		LocationHistoryCompactor compactor = historyCompactor;
+		if (compactor != null) {
+			compactor.close();
+		}
+		UserTiering tiering = userTiering;
+		if (tiering != null) {
+			tiering.close();
+		}
+		ResilientGpsClient client = gpsClient;
+		if (client != null && client == defaultGpsClient) {
+			client.close();
+		}
 	}
 
 }
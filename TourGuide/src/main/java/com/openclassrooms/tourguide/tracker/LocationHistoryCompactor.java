@@ -0,0 +1,143 @@
+package com.openclassrooms.tourguide.tracker;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.time.StopWatch;
+
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.LocationRetention;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+import gpsUtil.location.Attraction;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Background job bounding the location history of the users.
+ *
+ * Every tracker cycle adds a location to every user, so histories would grow
+ * with the uptime. The job periodically applies the {@link LocationRetention}
+ * to the histories of the resident users owned by this instance; evicted
+ * users are left in their store. Reward-relevant visits are never removed: the
+ * locations of the rewards granted, and the locations still within the
+ * proximity buffer of an attraction the user has not been rewarded for.
+ */
+@Slf4j
+public class LocationHistoryCompactor implements AutoCloseable {
+
+	private final TourGuideService tourGuideService;
+	private final RewardsService rewardsService;
+	private final LocationRetention retention;
+	private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "location-history-compactor");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final LongAdder passes = new LongAdder();
+	private final LongAdder removedLocations = new LongAdder();
+
+	/**
+	 * Creates a compactor, which does nothing until started.
+	 *
+	 * @param tourGuideService Service holding the users
+	 * @param rewardsService   Service deciding which visits may earn a reward
+	 * @param retention        Retention tiers
+	 */
+	public LocationHistoryCompactor(TourGuideService tourGuideService, RewardsService rewardsService,
+			LocationRetention retention) {
+		this.tourGuideService = tourGuideService;
+		this.rewardsService = rewardsService;
+		this.retention = retention;
+	}
+
+	/**
+	 * Runs a compaction pass at a fixed delay.
+	 *
+	 * @param interval Delay between the end of a pass and the start of the next
+	 */
+	public void start(Duration interval) {
+		executorService.scheduleWithFixedDelay(this::compactSafely, interval.toMillis(), interval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Compacts the history of every user owned by this instance.
+	 *
+	 * @return Number of locations removed
+	 */
+	public long compactUsers() {
+		return compactUsers(System.currentTimeMillis());
+	}
+
+	long compactUsers(long now) {
+		StopWatch stopWatch = new StopWatch();
+		stopWatch.start();
+		List<Attraction> attractions = tourGuideService.getAttractionCatalog().getAttractions();
+		long removed = tourGuideService.getUserRegistry().parallelStream()
+				.filter(tourGuideService::isOwnedLocally)
+				.filter(User::isResident)
+				.mapToLong(user -> compact(user, attractions, now))
+				.sum();
+		stopWatch.stop();
+		passes.increment();
+		removedLocations.add(removed);
+		log.debug("Location history compaction removed {} locations in {} ms", removed, stopWatch.getTime());
+		return removed;
+	}
+
+	/**
+	 * Returns the number of compaction passes run.
+	 *
+	 * @return Number of passes
+	 */
+	public long getPassCount() {
+		return passes.sum();
+	}
+
+	/**
+	 * Returns the number of locations removed since the creation of the
+	 * compactor.
+	 *
+	 * @return Number of removed locations
+	 */
+	public long getRemovedCount() {
+		return removedLocations.sum();
+	}
+
+	/**
+	 * Stops the scheduled passes.
+	 */
+	@Override
+	public void close() {
+		executorService.shutdownNow();
+	}
+
+	private int compact(User user, List<Attraction> attractions, long now) {
+		// Compressed locations are decoded as new objects, so rewarded visits are
+		// recognized by their time
+		Set<Long> rewardedVisitTimes = new HashSet<>();
+		for (UserReward reward : user.getUserRewards()) {
+			rewardedVisitTimes.add(reward.visitedLocation.timeVisited.getTime());
+		}
+		return user.compactVisitedLocations(history -> history.compact(retention, now,
+				location -> rewardedVisitTimes.contains(location.timeVisited.getTime())
+						|| rewardsService.isRewardRelevant(user, location, attractions)));
+	}
+
+	private void compactSafely() {
+		try {
+			compactUsers();
+		} catch (RuntimeException e) {
+			// A failed pass must not cancel the next ones
+			log.error("Location history compaction failed", e);
+		}
+	}
+}
@@ -1,14 +1,18 @@
 package com.openclassrooms.tourguide.tracker;
 
-import java.util.List;
+import java.time.Duration;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang3.time.StopWatch;
 
+import com.openclassrooms.tourguide.profiling.TrackerCycleEvent;
 import com.openclassrooms.tourguide.service.TourGuideService;
 import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRegistry;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -19,6 +23,7 @@ public class Tracker extends Thread {
 	private final ScheduledExecutorService executorService = Executors
 			.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
 	private final TourGuideService tourGuideService;
+	private final AtomicLong cycles = new AtomicLong();
 	private boolean stop = false;
 
 	public Tracker(TourGuideService tourGuideService) {
@@ -36,6 +41,14 @@ public class Tracker extends Thread {
 		executorService.shutdownNow();
 	}
 
+	/**
+	 * Locates every user owned by this instance. Cached locations are bypassed,
+	 * so each cycle records a new location even when the polling interval is
+	 * shorter than their time to live. Evicted users are only located in the
+	 * cycles allowed by {@link TourGuideService#isTrackedInCycle(User, long)}.
+	 * Returns once the locations are submitted; the cycle event is committed by
+	 * the last location to complete.
+	 */
 	public void trackUsers() {
 
 		if (stop) {
@@ -43,13 +56,41 @@ public class Tracker extends Thread {
 			return;
 		}
 
-		List<User> users = tourGuideService.getAllUsers();
+		UserRegistry users = tourGuideService.getUserRegistry();
 		log.debug("Begin Tracker. Tracking " + users.size() + " users.");
 
+		long cycle = cycles.getAndIncrement();
+		TrackerCycleEvent event = new TrackerCycleEvent();
+		event.begin();
+		event.cycle = cycle;
+		event.users = users.size();
 		StopWatch stopWatch = new StopWatch();
 		stopWatch.start();
-		users.parallelStream().forEach(u -> tourGuideService.trackUserLocation(u));
-		stopWatch.stop();
-		log.debug("Tracker Time Elapsed: " + TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()) + " seconds.");
+		// One extra pending count for the submission itself, so that the cycle
+		// cannot end before every location is submitted
+		AtomicInteger pending = new AtomicInteger(1);
+		AtomicInteger tracked = new AtomicInteger();
+		users.parallelStream()
+				.filter(tourGuideService::isOwnedLocally)
+				.filter(u -> tourGuideService.isTrackedInCycle(u, cycle))
+				.forEach(u -> {
+					pending.incrementAndGet();
+					tracked.incrementAndGet();
+					tourGuideService.trackUserLocation(u, Duration.ZERO)
+							.whenComplete((location, e) -> endCycleIfLast(pending, event, stopWatch));
+				});
+		event.trackedUsers = tracked.get();
+		endCycleIfLast(pending, event, stopWatch);
+	}
+
+	/**
+	 * Ends a cycle once its last location completes, failed locations included.
+	 */
+	private static void endCycleIfLast(AtomicInteger pending, TrackerCycleEvent event, StopWatch stopWatch) {
+		if (pending.decrementAndGet() == 0) {
+			event.commit();
+			stopWatch.stop();
+			log.debug("Tracker Time Elapsed: " + TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()) + " seconds.");
+		}
 	}
 }
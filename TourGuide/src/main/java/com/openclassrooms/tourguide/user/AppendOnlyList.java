@@ -0,0 +1,100 @@
+package com.openclassrooms.tourguide.user;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent list supporting cheap appends.
+ *
+ * A list is an immutable view of the first {@code size} slots of a backing
+ * array. Appending to the newest version of a list writes the next free slot
+ * of the shared array and returns a longer view, so older versions keep seeing
+ * their own elements and no copy is made. Appending to an older version, or
+ * losing a race for the next slot, copies the elements into a new array.
+ *
+ * Instances must be published safely (for example through an atomic
+ * reference) for readers to see the appended elements.
+ *
+ * @param <E> Type of the elements
+ */
+public final class AppendOnlyList<E> extends AbstractList<E> implements RandomAccess {
+
+	private static final int MIN_CAPACITY = 4;
+	private static final AppendOnlyList<Object> EMPTY = new AppendOnlyList<>(new Object[0], 0, new AtomicInteger());
+
+	private final Object[] elements;
+	private final int size;
+	// Number of slots of the backing array handed out, shared by every view
+	private final AtomicInteger claimed;
+
+	private AppendOnlyList(Object[] elements, int size, AtomicInteger claimed) {
+		this.elements = elements;
+		this.size = size;
+		this.claimed = claimed;
+	}
+
+	/**
+	 * Returns the empty list.
+	 *
+	 * @param <E> Type of the elements
+	 * @return Empty list
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> AppendOnlyList<E> empty() {
+		return (AppendOnlyList<E>) EMPTY;
+	}
+
+	/**
+	 * Creates a list holding the elements of a collection.
+	 *
+	 * @param <E>      Type of the elements
+	 * @param elements Elements to copy, in iteration order
+	 * @return New list
+	 */
+	public static <E> AppendOnlyList<E> copyOf(Collection<? extends E> elements) {
+		Object[] array = elements.toArray();
+		return array.length == 0 ? empty() : new AppendOnlyList<>(array, array.length, new AtomicInteger(array.length));
+	}
+
+	/**
+	 * Returns a list made of this list followed by one more element.
+	 *
+	 * @param element Element to append
+	 * @return New version of the list; this list is left unchanged
+	 */
+	public AppendOnlyList<E> append(E element) {
+		if (size < elements.length && claimed.compareAndSet(size, size + 1)) {
+			elements[size] = element;
+			return new AppendOnlyList<>(elements, size + 1, claimed);
+		}
+		Object[] copy = new Object[Math.max(MIN_CAPACITY, size * 2)];
+		System.arraycopy(elements, 0, copy, 0, size);
+		copy[size] = element;
+		return new AppendOnlyList<>(copy, size + 1, new AtomicInteger(size + 1));
+	}
+
+	/**
+	 * Returns the last element of the list.
+	 *
+	 * @return Last element, or null if the list is empty
+	 */
+	public E last() {
+		return size == 0 ? null : get(size - 1);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+		}
+		return (E) elements[index];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,86 @@
+package com.openclassrooms.tourguide.user;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable set of attraction ordinals stored as bits.
+ *
+ * Checking an ordinal is a single bit test; adding one returns a new set.
+ */
+public final class AttractionBitSet {
+
+	public static final AttractionBitSet EMPTY = new AttractionBitSet(new long[0]);
+
+	private final long[] words;
+
+	private AttractionBitSet(long[] words) {
+		this.words = words;
+	}
+
+	/**
+	 * Checks whether an ordinal belongs to the set.
+	 *
+	 * @param ordinal Attraction ordinal
+	 * @return true if the ordinal is in the set
+	 */
+	public boolean contains(int ordinal) {
+		int word = ordinal >>> 6;
+		return word < words.length && (words[word] & (1L << ordinal)) != 0;
+	}
+
+	/**
+	 * Returns a set containing the ordinals of this set plus the given one.
+	 *
+	 * @param ordinal Attraction ordinal to add
+	 * @return This set if the ordinal is already present, a new set otherwise
+	 */
+	public AttractionBitSet with(int ordinal) {
+		if (ordinal < 0) {
+			throw new IllegalArgumentException("Ordinal must be positive");
+		}
+		if (contains(ordinal)) {
+			return this;
+		}
+		int word = ordinal >>> 6;
+		long[] copy = Arrays.copyOf(words, Math.max(words.length, word + 1));
+		copy[word] |= 1L << ordinal;
+		return new AttractionBitSet(copy);
+	}
+
+	/**
+	 * Returns the number of ordinals in the set.
+	 *
+	 * @return Number of ordinals
+	 */
+	public int size() {
+		int size = 0;
+		for (long word : words) {
+			size += Long.bitCount(word);
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the number of words holding the bits.
+	 */
+	int wordCount() {
+		return words.length;
+	}
+
+	/**
+	 * Returns one word of the bits, 0 past the last word.
+	 */
+	long word(int index) {
+		return index < words.length ? words[index] : 0;
+	}
+
+	/**
+	 * Returns the ordinals of the set in increasing order.
+	 *
+	 * @return Stream of ordinals
+	 */
+	public IntStream ordinals() {
+		return IntStream.range(0, words.length << 6).filter(this::contains);
+	}
+}
@@ -0,0 +1,251 @@
+package com.openclassrooms.tourguide.user;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.openclassrooms.tourguide.attraction.AttractionCatalog;
+
+import gpsUtil.location.Attraction;
+import tripPricer.Provider;
+
+/**
+ * Local file store of the state of evicted users.
+ *
+ * Each evicted user has one file, named after their id, holding their location
+ * history (compressed blocks stay encoded), rewards and trip deals. Files are
+ * written to a temporary file first and then renamed, so a crash never leaves
+ * a partial state; they are deleted once the user is paged back in.
+ *
+ * The rewards point back to the attractions of the catalog once read, so they
+ * keep their attraction ids across an eviction. Their attraction ordinals are
+ * stored as is: they hold for the run that wrote them, the only one reading
+ * the files.
+ */
+public class ColdUserStore {
+
+	private static final int FORMAT_VERSION = 2;
+	private static final String EXTENSION = ".user";
+
+	private final Path directory;
+	private final AttractionCatalog attractionCatalog;
+	private final AtomicLong storedUsers = new AtomicLong();
+	private final AtomicLong storedBytes = new AtomicLong();
+	private final LongAdder writes = new LongAdder();
+	private final LongAdder reads = new LongAdder();
+
+	/**
+	 * Creates a store, removing the users left by a previous run: their
+	 * resident copy was lost with it.
+	 *
+	 * @param directory Directory of the files, created if needed
+	 * @throws UncheckedIOException if the directory cannot be prepared
+	 */
+	public ColdUserStore(Path directory) {
+		this(directory, null);
+	}
+
+	/**
+	 * Creates a store whose rewards are read back with the attractions of a
+	 * catalog, removing the users left by a previous run.
+	 *
+	 * @param directory         Directory of the files, created if needed
+	 * @param attractionCatalog Catalog of the attractions, null to read the
+	 *                          rewards with new attractions
+	 * @throws UncheckedIOException if the directory cannot be prepared
+	 */
+	public ColdUserStore(Path directory, AttractionCatalog attractionCatalog) {
+		this.directory = directory;
+		this.attractionCatalog = attractionCatalog;
+		try {
+			Files.createDirectories(directory);
+			try (var files = Files.list(directory)) {
+				for (Path file : (Iterable<Path>) files::iterator) {
+					if (file.getFileName().toString().endsWith(EXTENSION)
+							|| file.getFileName().toString().endsWith(EXTENSION + ".tmp")) {
+						Files.delete(file);
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot prepare the cold user store in " + directory, e);
+		}
+	}
+
+	/**
+	 * Returns the number of users stored.
+	 *
+	 * @return Number of evicted users
+	 */
+	public long getStoredUsers() {
+		return storedUsers.get();
+	}
+
+	/**
+	 * Returns the size of the files of the stored users.
+	 *
+	 * @return Number of bytes
+	 */
+	public long getStoredBytes() {
+		return storedBytes.get();
+	}
+
+	/**
+	 * Returns the number of users written since the creation of the store.
+	 *
+	 * @return Number of evictions
+	 */
+	public long getWriteCount() {
+		return writes.sum();
+	}
+
+	/**
+	 * Returns the number of users read back since the creation of the store.
+	 *
+	 * @return Number of page-ins
+	 */
+	public long getReadCount() {
+		return reads.sum();
+	}
+
+	/**
+	 * Writes the state of a user.
+	 *
+	 * @param userId Id of the user
+	 * @param state  State to store
+	 * @throws UncheckedIOException if the file cannot be written
+	 */
+	void write(UUID userId, UserState state) {
+		Path file = fileOf(userId);
+		Path temporary = directory.resolve(file.getFileName() + ".tmp");
+		try {
+			try (DataOutputStream output = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+				output.writeInt(FORMAT_VERSION);
+				state.visitedLocations().writeTo(output);
+				output.writeLong(state.rewardPoints());
+				output.writeInt(state.userRewards().size());
+				for (UserReward reward : state.userRewards()) {
+					LocationBlock.writeLocation(output, reward.visitedLocation);
+					output.writeUTF(reward.attraction.attractionName);
+					output.writeUTF(reward.attraction.city);
+					output.writeUTF(reward.attraction.state);
+					output.writeDouble(reward.attraction.latitude);
+					output.writeDouble(reward.attraction.longitude);
+					output.writeInt(reward.attractionOrdinal());
+					output.writeInt(reward.getRewardPoints());
+				}
+				output.writeInt(state.tripDeals().size());
+				for (Provider provider : state.tripDeals()) {
+					output.writeLong(provider.tripId.getMostSignificantBits());
+					output.writeLong(provider.tripId.getLeastSignificantBits());
+					output.writeUTF(provider.name);
+					output.writeDouble(provider.price);
+				}
+			}
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			storedUsers.incrementAndGet();
+			storedBytes.addAndGet(Files.size(file));
+			writes.increment();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot store user " + userId, e);
+		}
+	}
+
+	/**
+	 * Reads the state of a user and deletes their file. The rewards read are
+	 * attached to the user.
+	 *
+	 * @param user Evicted user
+	 * @return Stored state
+	 * @throws UncheckedIOException if the file cannot be read
+	 */
+	UserState read(User user) {
+		Path file = fileOf(user.getUserId());
+		UserState state;
+		try {
+			long size = Files.size(file);
+			try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+				int version = input.readInt();
+				if (version != FORMAT_VERSION) {
+					throw new IOException("Unsupported format version " + version);
+				}
+				LocationHistory visitedLocations = LocationHistory.readFrom(input, user.getUserId());
+				long rewardPoints = input.readLong();
+				List<UserReward> rewards = new ArrayList<>();
+				AttractionBitSet rewardedAttractions = AttractionBitSet.EMPTY;
+				for (int i = input.readInt(); i > 0; i--) {
+					UserReward reward = new UserReward(LocationBlock.readLocation(input, user.getUserId()),
+							readAttraction(input), input.readInt(), input.readInt());
+					reward.attachTo(user);
+					rewards.add(reward);
+					rewardedAttractions = rewardedAttractions.with(reward.attractionOrdinal());
+				}
+				List<Provider> tripDeals = new ArrayList<>();
+				for (int i = input.readInt(); i > 0; i--) {
+					tripDeals.add(new Provider(new UUID(input.readLong(), input.readLong()), input.readUTF(),
+							input.readDouble()));
+				}
+				state = new UserState(visitedLocations, AppendOnlyList.copyOf(rewards), List.copyOf(tripDeals),
+						rewardedAttractions, rewardPoints);
+			}
+			Files.delete(file);
+			storedUsers.decrementAndGet();
+			storedBytes.addAndGet(-size);
+			reads.increment();
+		} catch (NoSuchFileException e) {
+			throw new UncheckedIOException("User " + user.getUserName() + " is not stored", e);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot read user " + user.getUserName(), e);
+		}
+		return state;
+	}
+
+	/**
+	 * Reads an attraction, returning the one of the catalog with the same name
+	 * if there is one: gpsUtil gives every new attraction a random id.
+	 */
+	private Attraction readAttraction(DataInputStream input) throws IOException {
+		Attraction attraction = new Attraction(input.readUTF(), input.readUTF(), input.readUTF(), input.readDouble(),
+				input.readDouble());
+		Attraction known = attractionCatalog == null ? null
+				: attractionCatalog.getAttraction(attraction.attractionName);
+		return known != null ? known : attraction;
+	}
+
+	/**
+	 * Deletes the file of a user whose eviction was abandoned.
+	 *
+	 * @param userId Id of the user
+	 */
+	void delete(UUID userId) {
+		Path file = fileOf(userId);
+		try {
+			long size = Files.size(file);
+			if (Files.deleteIfExists(file)) {
+				storedUsers.decrementAndGet();
+				storedBytes.addAndGet(-size);
+			}
+		} catch (NoSuchFileException e) {
+			// Already deleted
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot delete user " + userId, e);
+		}
+	}
+
+	private Path fileOf(UUID userId) {
+		return directory.resolve(userId + EXTENSION);
+	}
+}
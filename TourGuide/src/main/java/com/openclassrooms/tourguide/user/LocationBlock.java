@@ -0,0 +1,294 @@
+package com.openclassrooms.tourguide.user;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Compressed block of visited locations of one user, sorted by time.
+ *
+ * Coordinates are quantized to {@value #DEGREE_SCALE} steps per degree (about
+ * a centimeter); times keep their millisecond. Each location is stored as
+ * zigzag varints of:
+ * <ul>
+ * <li>the change of the interval since the previous location, which is close
+ * to 0 for locations tracked at a regular interval;</li>
+ * <li>the change of the latitude and of the longitude since the previous
+ * location.</li>
+ * </ul>
+ * A block is decoded as a whole the first time one of its locations is read.
+ * The decoded locations are only softly referenced, so the garbage collector
+ * may reclaim them and keep the block at its encoded size.
+ */
+public final class LocationBlock {
+
+	public static final int DEGREE_SCALE = 10_000_000;
+
+	private final UUID userId;
+	private final byte[] bytes;
+	private final int size;
+	private final long firstTimeMillis;
+	private final VisitedLocation last;
+	private volatile SoftReference<VisitedLocation[]> decoded = new SoftReference<>(null);
+
+	private LocationBlock(UUID userId, byte[] bytes, int size, long firstTimeMillis, VisitedLocation last) {
+		this.userId = userId;
+		this.bytes = bytes;
+		this.size = size;
+		this.firstTimeMillis = firstTimeMillis;
+		this.last = last;
+	}
+
+	/**
+	 * Encodes locations into a block.
+	 *
+	 * @param locations Locations of one user, sorted by time
+	 * @return New block
+	 * @throws IllegalArgumentException if the list is empty, not sorted by time,
+	 *                                  or holds locations of several users
+	 */
+	public static LocationBlock encode(List<VisitedLocation> locations) {
+		if (locations.isEmpty()) {
+			throw new IllegalArgumentException("A block needs at least one location");
+		}
+		UUID userId = locations.get(0).userId;
+		// Three varints of at most 10 bytes each per location
+		byte[] buffer = new byte[locations.size() * 30];
+		int position = 0;
+		long previousTime = 0;
+		long previousInterval = 0;
+		long previousLatitude = 0;
+		long previousLongitude = 0;
+		for (int i = 0; i < locations.size(); i++) {
+			VisitedLocation location = locations.get(i);
+			if (!userId.equals(location.userId)) {
+				throw new IllegalArgumentException("A block holds the locations of one user");
+			}
+			long time = location.timeVisited.getTime();
+			if (i > 0 && time < previousTime) {
+				throw new IllegalArgumentException("Locations of a block must be sorted by time");
+			}
+			if (i == 0) {
+				position = writeVarLong(buffer, position, time);
+			} else {
+				long interval = time - previousTime;
+				position = writeVarLong(buffer, position, interval - previousInterval);
+				previousInterval = interval;
+			}
+			long latitude = quantize(location.location.latitude);
+			long longitude = quantize(location.location.longitude);
+			position = writeVarLong(buffer, position, latitude - previousLatitude);
+			position = writeVarLong(buffer, position, longitude - previousLongitude);
+			previousTime = time;
+			previousLatitude = latitude;
+			previousLongitude = longitude;
+		}
+		VisitedLocation last = new VisitedLocation(userId, new Location(dequantize(previousLatitude),
+				dequantize(previousLongitude)), new Date(previousTime));
+		return new LocationBlock(userId, Arrays.copyOf(buffer, position), locations.size(),
+				locations.get(0).timeVisited.getTime(), last);
+	}
+
+	/**
+	 * Returns the number of locations of the block.
+	 *
+	 * @return Number of locations
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the size of the encoded locations.
+	 *
+	 * @return Number of bytes
+	 */
+	public int getEncodedSize() {
+		return bytes.length;
+	}
+
+	/**
+	 * Returns the time of the first location, without decoding the block.
+	 *
+	 * @return Time in epoch milliseconds
+	 */
+	public long firstTimeMillis() {
+		return firstTimeMillis;
+	}
+
+	/**
+	 * Returns the time of the last location, without decoding the block.
+	 *
+	 * @return Time in epoch milliseconds
+	 */
+	public long lastTimeMillis() {
+		return last.timeVisited.getTime();
+	}
+
+	/**
+	 * Returns the last location, without decoding the block.
+	 *
+	 * @return Last location
+	 */
+	public VisitedLocation last() {
+		return last;
+	}
+
+	/**
+	 * Returns a location, decoding the block if needed.
+	 *
+	 * @param index Position of the location in the block
+	 * @return Decoded location
+	 */
+	public VisitedLocation get(int index) {
+		if (index == size - 1) {
+			return last;
+		}
+		return decode().get(index);
+	}
+
+	/**
+	 * Returns the first position of a location visited at or after a time.
+	 *
+	 * @param timeMillis Time in epoch milliseconds
+	 * @return Position in the block, or the size of the block if every location
+	 *         is older
+	 */
+	public int lowerBound(long timeMillis) {
+		VisitedLocation[] locations = decodedLocations();
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (locations[middle].timeVisited.getTime() < timeMillis) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the locations of the block, decoding them if they are not
+	 * referenced anymore.
+	 *
+	 * @return Unmodifiable list of the decoded locations
+	 */
+	public List<VisitedLocation> decode() {
+		return Collections.unmodifiableList(Arrays.asList(decodedLocations()));
+	}
+
+	/**
+	 * Writes the block, still encoded.
+	 */
+	void writeTo(DataOutput output) throws IOException {
+		output.writeInt(size);
+		output.writeLong(firstTimeMillis);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+		writeLocation(output, last);
+	}
+
+	/**
+	 * Reads a block written by {@link #writeTo(DataOutput)}.
+	 */
+	static LocationBlock readFrom(DataInput input, UUID userId) throws IOException {
+		int size = input.readInt();
+		long firstTimeMillis = input.readLong();
+		byte[] bytes = new byte[input.readInt()];
+		input.readFully(bytes);
+		return new LocationBlock(userId, bytes, size, firstTimeMillis, readLocation(input, userId));
+	}
+
+	/**
+	 * Writes the time and coordinates of a location, without its user.
+	 */
+	static void writeLocation(DataOutput output, VisitedLocation location) throws IOException {
+		output.writeLong(location.timeVisited.getTime());
+		output.writeDouble(location.location.latitude);
+		output.writeDouble(location.location.longitude);
+	}
+
+	/**
+	 * Reads a location written by {@link #writeLocation}.
+	 */
+	static VisitedLocation readLocation(DataInput input, UUID userId) throws IOException {
+		long time = input.readLong();
+		double latitude = input.readDouble();
+		double longitude = input.readDouble();
+		return new VisitedLocation(userId, new Location(latitude, longitude), new Date(time));
+	}
+
+	private VisitedLocation[] decodedLocations() {
+		VisitedLocation[] locations = decoded.get();
+		if (locations == null) {
+			// Concurrent readers may decode the block twice, with equal results
+			locations = decodeAll();
+			decoded = new SoftReference<>(locations);
+		}
+		return locations;
+	}
+
+	private VisitedLocation[] decodeAll() {
+		VisitedLocation[] locations = new VisitedLocation[size];
+		int[] position = new int[1];
+		long time = 0;
+		long interval = 0;
+		long latitude = 0;
+		long longitude = 0;
+		for (int i = 0; i < size - 1; i++) {
+			if (i == 0) {
+				time = readVarLong(bytes, position);
+			} else {
+				interval += readVarLong(bytes, position);
+				time += interval;
+			}
+			latitude += readVarLong(bytes, position);
+			longitude += readVarLong(bytes, position);
+			locations[i] = new VisitedLocation(userId, new Location(dequantize(latitude), dequantize(longitude)),
+					new Date(time));
+		}
+		locations[size - 1] = last;
+		return locations;
+	}
+
+	private static long quantize(double degrees) {
+		return Math.round(degrees * DEGREE_SCALE);
+	}
+
+	private static double dequantize(long steps) {
+		return (double) steps / DEGREE_SCALE;
+	}
+
+	private static int writeVarLong(byte[] buffer, int position, long value) {
+		long zigzag = (value << 1) ^ (value >> 63);
+		while ((zigzag & ~0x7FL) != 0) {
+			buffer[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+			zigzag >>>= 7;
+		}
+		buffer[position++] = (byte) zigzag;
+		return position;
+	}
+
+	private static long readVarLong(byte[] buffer, int[] position) {
+		long zigzag = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buffer[position[0]++];
+			zigzag |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		return (zigzag >>> 1) ^ -(zigzag & 1);
+	}
+}
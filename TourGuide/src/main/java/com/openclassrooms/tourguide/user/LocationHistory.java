@@ -0,0 +1,507 @@
+package com.openclassrooms.tourguide.user;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+import com.openclassrooms.tourguide.geo.GeoDistance;
+
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Persistent location history of a user, in the order the locations were
+ * added, with range queries on the visit times.
+ *
+ * Locations normally arrive in time order. As long as they do, range queries
+ * binary search the history itself. Otherwise, the order of the locations by
+ * time is computed on the first range query of a version of the history and
+ * kept with it. Later versions start from that order and only insert the
+ * locations appended since.
+ *
+ * The oldest locations may be moved by {@link #compact}, which sorts them by
+ * time first, into compressed {@link LocationBlock}s, which are only decoded when a read reaches them.
+ * Range queries skip the blocks outside the range without decoding them.
+ *
+ * Like {@link AppendOnlyList}, appending returns a new version and leaves this
+ * one unchanged.
+ */
+public final class LocationHistory extends AbstractList<VisitedLocation> implements RandomAccess {
+
+	public static final LocationHistory EMPTY = new LocationHistory(new LocationBlock[0], new int[] { 0 },
+			AppendOnlyList.empty(), true, null);
+
+	/**
+	 * Number of locations of the blocks created by {@link #compact}.
+	 */
+	public static final int BLOCK_SIZE = 256;
+
+	// Oldest locations, compressed, followed by the locations kept as objects
+	private final LocationBlock[] blocks;
+	// Index of the first location of each block, then the number of compressed
+	// locations
+	private final int[] blockStarts;
+	private final AppendOnlyList<VisitedLocation> locations;
+	private final boolean timeOrdered;
+	// Indexes of the locations sorted by time, only needed when not time ordered
+	private volatile int[] timeOrder;
+	// Time order of an earlier version, whose locations are the first ones of
+	// this version
+	private final int[] earlierTimeOrder;
+
+	private LocationHistory(LocationBlock[] blocks, int[] blockStarts, AppendOnlyList<VisitedLocation> locations,
+			boolean timeOrdered, int[] earlierTimeOrder) {
+		this.blocks = blocks;
+		this.blockStarts = blockStarts;
+		this.locations = locations;
+		this.timeOrdered = timeOrdered;
+		this.earlierTimeOrder = earlierTimeOrder;
+	}
+
+	/**
+	 * Creates a history holding the locations of a collection.
+	 *
+	 * @param locations Locations, in the order they were added
+	 * @return New history
+	 */
+	public static LocationHistory copyOf(Collection<VisitedLocation> locations) {
+		AppendOnlyList<VisitedLocation> list = AppendOnlyList.copyOf(locations);
+		return new LocationHistory(EMPTY.blocks, EMPTY.blockStarts, list, isTimeOrdered(Long.MIN_VALUE, list), null);
+	}
+
+	/**
+	 * Returns a history made of this one followed by one more location.
+	 *
+	 * @param location Location to append
+	 * @return New version of the history
+	 */
+	public LocationHistory append(VisitedLocation location) {
+		boolean ordered = timeOrdered && (isEmpty() || lastTimeMillis() <= timeOf(location));
+		int[] order = timeOrder;
+		return new LocationHistory(blocks, blockStarts, locations.append(location), ordered,
+				ordered ? null : order != null ? order : earlierTimeOrder);
+	}
+
+	/**
+	 * Returns the latest added location.
+	 *
+	 * @return Latest location, or null if the history is empty
+	 */
+	public VisitedLocation last() {
+		if (!locations.isEmpty() || blocks.length == 0) {
+			return locations.last();
+		}
+		return blocks[blocks.length - 1].last();
+	}
+
+	/**
+	 * Indicates whether the locations were added in time order.
+	 *
+	 * @return true if range queries need no extra index
+	 */
+	public boolean isTimeOrdered() {
+		return timeOrdered;
+	}
+
+	/**
+	 * Returns the number of locations stored in compressed blocks.
+	 *
+	 * @return Number of compressed locations, the first ones of the history
+	 */
+	public int getCompressedSize() {
+		return blockStarts[blocks.length];
+	}
+
+	/**
+	 * Returns the size of the compressed locations.
+	 *
+	 * @return Number of encoded bytes
+	 */
+	public long getEncodedSize() {
+		long bytes = 0;
+		for (LocationBlock block : blocks) {
+			bytes += block.getEncodedSize();
+		}
+		return bytes;
+	}
+
+	/**
+	 * Returns the locations visited in a time range, sorted by time. Locations
+	 * visited at the same time keep the order they were added in.
+	 *
+	 * The result is a view of the history: it is found by two binary searches
+	 * and copies nothing, so pages can be taken from it with
+	 * {@link List#subList(int, int)}.
+	 *
+	 * @param fromMillis Start of the range, inclusive, in epoch milliseconds
+	 * @param toMillis   End of the range, exclusive, in epoch milliseconds
+	 * @return Locations visited in the range
+	 */
+	public List<VisitedLocation> between(long fromMillis, long toMillis) {
+		int[] order = timeOrdered ? null : timeOrder();
+		int start = lowerBound(order, fromMillis);
+		int end = Math.max(start, lowerBound(order, toMillis));
+		return new TimeOrderedView(order, start, end);
+	}
+
+	/**
+	 * Returns the history without the locations a retention no longer keeps.
+	 *
+	 * The latest location and the locations matched by {@code pinned} are kept
+	 * whatever their age. Downsampling is stable: compacting a compacted history
+	 * again at the same time removes nothing more.
+	 *
+	 * Locations added out of time order are sorted by time first, except the
+	 * latest added location which stays last. The kept locations older than the
+	 * cold tier of the retention are then moved into compressed blocks of
+	 * {@value #BLOCK_SIZE} locations. Compressed locations are already
+	 * downsampled: only the blocks reaching past the maximum age are decoded
+	 * again, to drop their expired locations.
+	 *
+	 * @param retention Retention tiers
+	 * @param nowMillis Current time, in epoch milliseconds
+	 * @param pinned    Locations that must be kept, such as the ones that may
+	 *                  still earn a reward
+	 * @return Compacted history, or this history if nothing changed
+	 */
+	public LocationHistory compact(LocationRetention retention, long nowMillis, Predicate<VisitedLocation> pinned) {
+		long fullResolutionStart = nowMillis - retention.fullResolution().toMillis();
+		long coldStart = nowMillis - retention.coldAfter().toMillis();
+		long retentionStart = nowMillis - retention.maxAge().toMillis();
+		long interval = retention.downsampleInterval().toMillis();
+
+		int expiredBlocks = 0;
+		List<VisitedLocation> survivors = new ArrayList<>();
+		while (expiredBlocks < blocks.length && blocks[expiredBlocks].firstTimeMillis() < retentionStart) {
+			for (VisitedLocation location : blocks[expiredBlocks].decode()) {
+				if (timeOf(location) >= retentionStart || pinned.test(location)) {
+					survivors.add(location);
+				}
+			}
+			expiredBlocks++;
+		}
+		boolean changed = survivors.size() < blockStarts[expiredBlocks];
+
+		List<VisitedLocation> candidates = timeOrdered ? locations : sortedByTime(locations);
+		int size = candidates.size();
+		List<VisitedLocation> kept = new ArrayList<>(size);
+		// Every kept downsampled location, pinned or not, starts a new sample
+		VisitedLocation lastSample = blocks.length == 0 ? null : blocks[blocks.length - 1].last();
+		for (int i = 0; i < size; i++) {
+			VisitedLocation location = candidates.get(i);
+			long time = timeOf(location);
+			boolean keep;
+			if (time >= fullResolutionStart || i == size - 1) {
+				keep = true;
+			} else if (time >= retentionStart) {
+				keep = lastSample == null
+						|| Math.floorDiv(time, interval) != Math.floorDiv(timeOf(lastSample), interval)
+						|| retention.downsampleMinDistanceMiles() > 0 && GeoDistance.miles(lastSample.location,
+								location.location) > retention.downsampleMinDistanceMiles()
+						|| pinned.test(location);
+				if (keep) {
+					lastSample = location;
+				}
+			} else {
+				keep = pinned.test(location);
+			}
+			if (keep) {
+				kept.add(location);
+			}
+		}
+		changed |= kept.size() < size;
+
+		// Complete blocks of old locations, never including the latest one
+		int frozen = 0;
+		while (frozen < kept.size() - 1 && timeOf(kept.get(frozen)) < coldStart) {
+			frozen++;
+		}
+		frozen -= frozen % BLOCK_SIZE;
+		if (!changed && frozen == 0) {
+			return this;
+		}
+
+		List<LocationBlock> newBlocks = new ArrayList<>();
+		for (int start = 0; start < survivors.size(); start += BLOCK_SIZE) {
+			newBlocks.add(LocationBlock.encode(survivors.subList(start, Math.min(survivors.size(), start + BLOCK_SIZE))));
+		}
+		newBlocks.addAll(Arrays.asList(blocks).subList(expiredBlocks, blocks.length));
+		for (int start = 0; start < frozen; start += BLOCK_SIZE) {
+			newBlocks.add(LocationBlock.encode(kept.subList(start, start + BLOCK_SIZE)));
+		}
+		int[] newBlockStarts = new int[newBlocks.size() + 1];
+		for (int i = 0; i < newBlocks.size(); i++) {
+			newBlockStarts[i + 1] = newBlockStarts[i] + newBlocks.get(i).size();
+		}
+		AppendOnlyList<VisitedLocation> hot = AppendOnlyList.copyOf(kept.subList(frozen, kept.size()));
+		return new LocationHistory(newBlocks.toArray(new LocationBlock[0]), newBlockStarts, hot,
+				timeOrdered || isTimeOrdered(newBlocks, hot), null);
+	}
+
+	/**
+	 * Writes the history, keeping its compressed blocks encoded.
+	 */
+	void writeTo(DataOutput output) throws IOException {
+		output.writeBoolean(timeOrdered);
+		output.writeInt(blocks.length);
+		for (LocationBlock block : blocks) {
+			block.writeTo(output);
+		}
+		output.writeInt(locations.size());
+		for (VisitedLocation location : locations) {
+			LocationBlock.writeLocation(output, location);
+		}
+	}
+
+	/**
+	 * Reads a history written by {@link #writeTo(DataOutput)}.
+	 */
+	static LocationHistory readFrom(DataInput input, UUID userId) throws IOException {
+		boolean timeOrdered = input.readBoolean();
+		LocationBlock[] blocks = new LocationBlock[input.readInt()];
+		int[] blockStarts = new int[blocks.length + 1];
+		for (int i = 0; i < blocks.length; i++) {
+			blocks[i] = LocationBlock.readFrom(input, userId);
+			blockStarts[i + 1] = blockStarts[i] + blocks[i].size();
+		}
+		List<VisitedLocation> locations = new ArrayList<>();
+		for (int i = input.readInt(); i > 0; i--) {
+			locations.add(LocationBlock.readLocation(input, userId));
+		}
+		return new LocationHistory(blocks, blockStarts, AppendOnlyList.copyOf(locations), timeOrdered, null);
+	}
+
+	@Override
+	public VisitedLocation get(int index) {
+		int compressed = blockStarts[blocks.length];
+		if (index >= compressed) {
+			return locations.get(index - compressed);
+		}
+		if (index < 0) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+		}
+		int block = Arrays.binarySearch(blockStarts, 0, blocks.length, index);
+		if (block < 0) {
+			block = -block - 2;
+		}
+		return blocks[block].get(index - blockStarts[block]);
+	}
+
+	@Override
+	public int size() {
+		return blockStarts[blocks.length] + locations.size();
+	}
+
+	/**
+	 * Returns the first position, in time order, of a location visited at or
+	 * after a time.
+	 */
+	private int lowerBound(int[] order, long timeMillis) {
+		if (order == null) {
+			return orderedLowerBound(timeMillis);
+		}
+		int low = 0;
+		int high = order.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (timeOf(get(order[middle])) < timeMillis) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Lower bound in a time ordered history, decoding at most the block holding
+	 * it.
+	 */
+	private int orderedLowerBound(long timeMillis) {
+		int low = 0;
+		int high = blocks.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (blocks[middle].lastTimeMillis() < timeMillis) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		if (low < blocks.length) {
+			return blockStarts[low] + blocks[low].lowerBound(timeMillis);
+		}
+		low = 0;
+		high = locations.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (timeOf(locations.get(middle)) < timeMillis) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return blockStarts[blocks.length] + low;
+	}
+
+	private long lastTimeMillis() {
+		return locations.isEmpty() ? blocks[blocks.length - 1].lastTimeMillis() : timeOf(locations.last());
+	}
+
+	private int[] timeOrder() {
+		int[] order = timeOrder;
+		if (order == null) {
+			// Concurrent first queries compute the same order
+			int[] earlier = earlierTimeOrder;
+			int from = earlier == null ? 0 : earlier.length;
+			long[] keys = new long[size() - from];
+			for (int i = 0; i < keys.length; i++) {
+				keys[i] = timeOf(get(from + i));
+			}
+			order = sortedIndexes(keys, from);
+			if (earlier != null) {
+				order = insert(earlier, order);
+			}
+			timeOrder = order;
+		}
+		return order;
+	}
+
+	/**
+	 * Inserts indexes sorted by time into an earlier time order. Equal times
+	 * keep the order they were added in, so each index goes after the earlier
+	 * locations visited at the same time.
+	 */
+	private int[] insert(int[] earlier, int[] added) {
+		int[] order = new int[earlier.length + added.length];
+		int copied = 0;
+		int position = 0;
+		for (int index : added) {
+			long time = timeOf(get(index));
+			int low = copied;
+			int high = earlier.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (timeOf(get(earlier[middle])) <= time) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			System.arraycopy(earlier, copied, order, position, low - copied);
+			position += low - copied;
+			copied = low;
+			order[position++] = index;
+		}
+		System.arraycopy(earlier, copied, order, position, earlier.length - copied);
+		return order;
+	}
+
+	/**
+	 * Returns {@code offset} plus the positions of the keys, sorted by key with
+	 * a bottom-up merge sort. The sort is stable: equal times keep the order
+	 * they were added in.
+	 */
+	private static int[] sortedIndexes(long[] keys, int offset) {
+		int[] order = new int[keys.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		int[] merged = new int[keys.length];
+		for (int width = 1; width < order.length; width *= 2) {
+			for (int start = 0; start < order.length; start += 2 * width) {
+				int middle = Math.min(start + width, order.length);
+				int end = Math.min(start + 2 * width, order.length);
+				int left = start;
+				int right = middle;
+				for (int i = start; i < end; i++) {
+					if (left < middle && (right == end || keys[order[left]] <= keys[order[right]])) {
+						merged[i] = order[left++];
+					} else {
+						merged[i] = order[right++];
+					}
+				}
+			}
+			int[] swap = order;
+			order = merged;
+			merged = swap;
+		}
+		for (int i = 0; i < order.length; i++) {
+			order[i] += offset;
+		}
+		return order;
+	}
+
+	/**
+	 * Sorts locations by time, keeping the last one last. The sort is stable.
+	 */
+	private static List<VisitedLocation> sortedByTime(List<VisitedLocation> locations) {
+		List<VisitedLocation> sorted = new ArrayList<>(locations.subList(0, Math.max(0, locations.size() - 1)));
+		sorted.sort(Comparator.comparingLong(LocationHistory::timeOf));
+		if (!locations.isEmpty()) {
+			sorted.add(locations.get(locations.size() - 1));
+		}
+		return sorted;
+	}
+
+	private static boolean isTimeOrdered(List<LocationBlock> blocks, List<VisitedLocation> locations) {
+		long previous = Long.MIN_VALUE;
+		for (LocationBlock block : blocks) {
+			if (block.firstTimeMillis() < previous) {
+				return false;
+			}
+			previous = block.lastTimeMillis();
+		}
+		return isTimeOrdered(previous, locations);
+	}
+
+	private static boolean isTimeOrdered(long previousTimeMillis, List<VisitedLocation> locations) {
+		long previous = previousTimeMillis;
+		for (VisitedLocation location : locations) {
+			long time = timeOf(location);
+			if (time < previous) {
+				return false;
+			}
+			previous = time;
+		}
+		return true;
+	}
+
+	private static long timeOf(VisitedLocation location) {
+		return location.timeVisited.getTime();
+	}
+
+	private final class TimeOrderedView extends AbstractList<VisitedLocation> implements RandomAccess {
+
+		private final int[] order;
+		private final int start;
+		private final int end;
+
+		TimeOrderedView(int[] order, int start, int end) {
+			this.order = order;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public VisitedLocation get(int index) {
+			if (index < 0 || index >= end - start) {
+				throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + (end - start));
+			}
+			return LocationHistory.this.get(order == null ? start + index : order[start + index]);
+		}
+
+		@Override
+		public int size() {
+			return end - start;
+		}
+	}
+}
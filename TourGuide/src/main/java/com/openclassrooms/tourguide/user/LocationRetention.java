@@ -0,0 +1,56 @@
+package com.openclassrooms.tourguide.user;
+
+import java.time.Duration;
+
+/**
+ * Retention tiers of the location history.
+ *
+ * Locations younger than {@code fullResolution} are all kept. Older ones are
+ * downsampled: a location is kept if it is the first of its
+ * {@code downsampleInterval}, or if the user moved more than
+ * {@code downsampleMinDistanceMiles} since the previous kept one. Locations
+ * older than {@code coldAfter} are compressed, and locations older than
+ * {@code maxAge} are dropped.
+ *
+ * @param fullResolution             Age under which every location is kept
+ * @param downsampleInterval         Interval in which one location is kept
+ *                                   once downsampled
+ * @param downsampleMinDistanceMiles Move keeping a downsampled location
+ *                                   whatever its interval, 0 to only keep one
+ *                                   location per interval
+ * @param coldAfter                  Age above which locations are compressed
+ * @param maxAge                     Age above which locations are dropped
+ */
+public record LocationRetention(Duration fullResolution, Duration downsampleInterval,
+		double downsampleMinDistanceMiles, Duration coldAfter, Duration maxAge) {
+
+	/**
+	 * Checks that the tiers follow each other.
+	 *
+	 * @throws IllegalArgumentException if a tier is empty or out of order
+	 */
+	public LocationRetention {
+		if (fullResolution.isNegative() || fullResolution.compareTo(coldAfter) > 0
+				|| coldAfter.compareTo(maxAge) > 0) {
+			throw new IllegalArgumentException("Tiers must be ordered: full resolution, cold, maximum age");
+		}
+		if (downsampleInterval.isNegative() || downsampleInterval.isZero()) {
+			throw new IllegalArgumentException("Downsample interval must be positive");
+		}
+		if (downsampleMinDistanceMiles < 0) {
+			throw new IllegalArgumentException("Downsample distance must not be negative");
+		}
+	}
+
+	/**
+	 * Returns the retention used when none is configured: every location of the
+	 * last day, then one per hour or per mile for 30 days, compressed after 2
+	 * days.
+	 *
+	 * @return Default retention
+	 */
+	public static LocationRetention defaults() {
+		return new LocationRetention(Duration.ofDays(1), Duration.ofHours(1), 1.0, Duration.ofDays(2),
+				Duration.ofDays(30));
+	}
+}
@@ -0,0 +1,418 @@
+package com.openclassrooms.tourguide.user;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Off-heap copy of the hot fields of the users, for deployments where the
+ * number of users makes their object graph a burden for the garbage collector.
+ *
+ * Each registered user gets a fixed-size slot in direct buffers of
+ * {@value #SLOTS_PER_CHUNK} slots, allocated as users are registered:
+ *
+ * <pre>
+ * 0         8              16            24         32          40          48              56
+ * | version | userId high | userId low | latitude | longitude | time (ms) | reward points | rewarded attraction bits...
+ * </pre>
+ *
+ * A slot mirrors its user: every update of the user writes the latest
+ * location, the reward total and the rewarded attractions. Writers of a slot
+ * are serialized by a lock stripe and make the version odd while they write;
+ * readers copy the slot into a {@link Slot} flyweight, retrying while the
+ * version is odd or changes, so scans neither lock nor allocate.
+ *
+ * A refresh of the attraction catalog can add attractions, so a user can be
+ * rewarded for an ordinal beyond the bits of the slots. The slots are then copied into larger
+ * chunks, with every writer held off; readers still on the previous chunks
+ * see the slots as they were before the copy.
+ */
+public class OffHeapUserStore {
+
+	public static final int SLOTS_PER_CHUNK = 1 << 16;
+
+	private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+			ByteOrder.nativeOrder());
+	private static final int LOCK_STRIPES = 256;
+
+	private static final int VERSION_OFFSET = 0;
+	private static final int USER_HIGH_OFFSET = 8;
+	private static final int USER_LOW_OFFSET = 16;
+	private static final int LATITUDE_OFFSET = 24;
+	private static final int LONGITUDE_OFFSET = 32;
+	private static final int TIME_OFFSET = 40;
+	private static final int POINTS_OFFSET = 48;
+	private static final int REWARDED_OFFSET = 56;
+
+	private final int capacity;
+	private final User[][] users;
+	private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+	private volatile Layout layout;
+	private volatile int size;
+
+	/**
+	 * Chunks of the slots, with the number of words of rewarded attraction
+	 * bits in each slot.
+	 */
+	private record Layout(int rewardedWords, int slotSize, ByteBuffer[] chunks) {
+
+		private Layout(int rewardedWords, int chunkCount) {
+			this(rewardedWords, REWARDED_OFFSET + rewardedWords * Long.BYTES, new ByteBuffer[chunkCount]);
+		}
+	}
+
+	/**
+	 * Creates an empty store.
+	 *
+	 * @param capacity           Maximum number of users
+	 * @param attractionCapacity Number of attraction ordinals the slots keep at
+	 *                           first; they grow when a user is rewarded for a
+	 *                           larger ordinal
+	 * @throws IllegalArgumentException if a capacity is not strictly positive
+	 */
+	public OffHeapUserStore(int capacity, int attractionCapacity) {
+		if (capacity <= 0 || attractionCapacity <= 0) {
+			throw new IllegalArgumentException("Capacities must be strictly positive");
+		}
+		this.capacity = capacity;
+		int chunkCount = (capacity + SLOTS_PER_CHUNK - 1) / SLOTS_PER_CHUNK;
+		this.layout = new Layout((attractionCapacity + Long.SIZE - 1) / Long.SIZE, chunkCount);
+		this.users = new User[chunkCount][];
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Returns the number of users the store can hold.
+	 *
+	 * @return Capacity in users
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of registered users.
+	 *
+	 * @return Number of slots in use
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the size of one slot.
+	 *
+	 * @return Number of bytes
+	 */
+	public int getSlotSize() {
+		return layout.slotSize();
+	}
+
+	/**
+	 * Returns the number of attraction ordinals each slot keeps.
+	 *
+	 * @return Number of rewarded attraction bits per slot
+	 */
+	public int getAttractionCapacity() {
+		return layout.rewardedWords() * Long.SIZE;
+	}
+
+	/**
+	 * Returns the memory allocated outside the heap.
+	 *
+	 * @return Number of bytes of the chunks allocated so far
+	 */
+	public long getOffHeapBytes() {
+		long chunkCount = (size + SLOTS_PER_CHUNK - 1) / SLOTS_PER_CHUNK;
+		return chunkCount * SLOTS_PER_CHUNK * layout.slotSize();
+	}
+
+	/**
+	 * Gives a slot to a user and keeps it up to date with the user's updates.
+	 *
+	 * @param user User to register
+	 * @return Index of the slot, the existing one if the user already has one
+	 * @throws IllegalStateException if the store is full
+	 */
+	public synchronized int register(User user) {
+		if (user.getOffHeapSlot() >= 0) {
+			return user.getOffHeapSlot();
+		}
+		int slot = size;
+		if (slot == capacity) {
+			throw new IllegalStateException("The off-heap user store is full");
+		}
+		Layout current = layout;
+		int chunk = slot / SLOTS_PER_CHUNK;
+		if (current.chunks()[chunk] == null) {
+			current.chunks()[chunk] = allocateChunk(current.slotSize());
+			users[chunk] = new User[SLOTS_PER_CHUNK];
+		}
+		ByteBuffer buffer = current.chunks()[chunk];
+		int offset = (slot % SLOTS_PER_CHUNK) * current.slotSize();
+		buffer.putLong(offset + USER_HIGH_OFFSET, user.getUserId().getMostSignificantBits());
+		buffer.putLong(offset + USER_LOW_OFFSET, user.getUserId().getLeastSignificantBits());
+		buffer.putDouble(offset + LATITUDE_OFFSET, Double.NaN);
+		buffer.putDouble(offset + LONGITUDE_OFFSET, Double.NaN);
+		users[chunk][slot % SLOTS_PER_CHUNK] = user;
+		// Publishes the chunk and the slot to the readers
+		size = slot + 1;
+		user.attachOffHeap(this, slot);
+		return slot;
+	}
+
+	/**
+	 * Returns the user of a slot.
+	 *
+	 * @param slot Index of the slot
+	 * @return Registered user
+	 */
+	public User userAt(int slot) {
+		checkSlot(slot);
+		return users[slot / SLOTS_PER_CHUNK][slot % SLOTS_PER_CHUNK];
+	}
+
+	/**
+	 * Creates a flyweight to read slots with. A flyweight is meant to be reused
+	 * by one thread for any number of slots.
+	 *
+	 * @return New flyweight, positioned on no slot
+	 */
+	public Slot newSlot() {
+		return new Slot(layout.rewardedWords());
+	}
+
+	/**
+	 * Copies a consistent snapshot of a slot into a flyweight.
+	 *
+	 * @param slot Index of the slot
+	 * @param into Flyweight receiving the fields
+	 */
+	public void read(int slot, Slot into) {
+		checkSlot(slot);
+		Layout current = layout;
+		ByteBuffer buffer = current.chunks()[slot / SLOTS_PER_CHUNK];
+		int offset = (slot % SLOTS_PER_CHUNK) * current.slotSize();
+		int rewardedWords = current.rewardedWords();
+		if (into.rewardedWords.length < rewardedWords) {
+			into.rewardedWords = new long[rewardedWords];
+		}
+		long version;
+		do {
+			version = (long) LONGS.getAcquire(buffer, offset + VERSION_OFFSET);
+			if ((version & 1) != 0) {
+				Thread.onSpinWait();
+				continue;
+			}
+			into.userIdHigh = buffer.getLong(offset + USER_HIGH_OFFSET);
+			into.userIdLow = buffer.getLong(offset + USER_LOW_OFFSET);
+			into.latitude = buffer.getDouble(offset + LATITUDE_OFFSET);
+			into.longitude = buffer.getDouble(offset + LONGITUDE_OFFSET);
+			into.timeMillis = buffer.getLong(offset + TIME_OFFSET);
+			into.rewardPoints = buffer.getLong(offset + POINTS_OFFSET);
+			for (int i = 0; i < rewardedWords; i++) {
+				into.rewardedWords[i] = buffer.getLong(offset + REWARDED_OFFSET + i * Long.BYTES);
+			}
+			VarHandle.loadLoadFence();
+		} while ((version & 1) != 0 || version != (long) LONGS.get(buffer, offset + VERSION_OFFSET));
+		Arrays.fill(into.rewardedWords, rewardedWords, into.rewardedWords.length, 0);
+		into.index = slot;
+	}
+
+	/**
+	 * Reads every slot in turn into the same flyweight.
+	 *
+	 * @param action Action applied to each slot; it must not keep the flyweight
+	 */
+	public void forEach(Consumer<? super Slot> action) {
+		Slot slot = newSlot();
+		int end = size;
+		for (int i = 0; i < end; i++) {
+			read(i, slot);
+			action.accept(slot);
+		}
+	}
+
+	/**
+	 * Writes the hot fields of the latest state of a user to their slot.
+	 * Evicted users keep the fields written before their eviction.
+	 */
+	void update(int slot, User user) {
+		int missingWords = write(slot, user);
+		while (missingWords > 0) {
+			// Grown without holding a stripe, as growing takes all of them
+			grow(missingWords);
+			missingWords = write(slot, user);
+		}
+	}
+
+	/**
+	 * Writes the latest state of a user to their slot, unless it has rewarded
+	 * attractions beyond the bits of the slot.
+	 *
+	 * @return 0 once written, or the number of words the slots need
+	 */
+	private int write(int slot, User user) {
+		ReentrantLock lock = locks[slot % LOCK_STRIPES];
+		lock.lock();
+		try {
+			// Read under the lock, so the last writer always writes the latest state
+			UserState state = user.residentState();
+			if (state == null) {
+				return 0;
+			}
+			Layout current = layout;
+			int rewardedWords = current.rewardedWords();
+			if (state.rewardedAttractions().wordCount() > rewardedWords) {
+				return state.rewardedAttractions().wordCount();
+			}
+			ByteBuffer buffer = current.chunks()[slot / SLOTS_PER_CHUNK];
+			int offset = (slot % SLOTS_PER_CHUNK) * current.slotSize();
+			long version = (long) LONGS.get(buffer, offset + VERSION_OFFSET);
+			LONGS.setOpaque(buffer, offset + VERSION_OFFSET, version + 1);
+			VarHandle.storeStoreFence();
+			VisitedLocation last = state.lastVisitedLocation();
+			buffer.putDouble(offset + LATITUDE_OFFSET, last == null ? Double.NaN : last.location.latitude);
+			buffer.putDouble(offset + LONGITUDE_OFFSET, last == null ? Double.NaN : last.location.longitude);
+			buffer.putLong(offset + TIME_OFFSET, last == null ? 0 : last.timeVisited.getTime());
+			buffer.putLong(offset + POINTS_OFFSET, state.rewardPoints());
+			for (int i = 0; i < rewardedWords; i++) {
+				buffer.putLong(offset + REWARDED_OFFSET + i * Long.BYTES, state.rewardedAttractions().word(i));
+			}
+			LONGS.setRelease(buffer, offset + VERSION_OFFSET, version + 2);
+			return 0;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Copies the slots into chunks holding at least a given number of words of
+	 * rewarded attraction bits. Writers are held off during the copy.
+	 */
+	private synchronized void grow(int rewardedWords) {
+		Layout current = layout;
+		if (current.rewardedWords() >= rewardedWords) {
+			return;
+		}
+		// Doubles the bits, so that new attractions seldom trigger a copy
+		Layout grown = new Layout(Math.max(rewardedWords, current.rewardedWords() * 2), current.chunks().length);
+		for (ReentrantLock lock : locks) {
+			lock.lock();
+		}
+		try {
+			int copiedBytes = REWARDED_OFFSET + current.rewardedWords() * Long.BYTES;
+			for (int chunk = 0; chunk < current.chunks().length; chunk++) {
+				ByteBuffer from = current.chunks()[chunk];
+				if (from == null) {
+					continue;
+				}
+				ByteBuffer to = allocateChunk(grown.slotSize());
+				for (int i = 0; i < SLOTS_PER_CHUNK; i++) {
+					to.put(i * grown.slotSize(), from, i * current.slotSize(), copiedBytes);
+				}
+				grown.chunks()[chunk] = to;
+			}
+			layout = grown;
+		} finally {
+			for (ReentrantLock lock : locks) {
+				lock.unlock();
+			}
+		}
+	}
+
+	private static ByteBuffer allocateChunk(int slotSize) {
+		return ByteBuffer.allocateDirect(SLOTS_PER_CHUNK * slotSize).order(ByteOrder.nativeOrder());
+	}
+
+	private void checkSlot(int slot) {
+		if (slot < 0 || slot >= size) {
+			throw new IndexOutOfBoundsException("Slot " + slot + " is not registered");
+		}
+	}
+
+	/**
+	 * Reusable view of the fields of one slot.
+	 */
+	public static final class Slot {
+
+		private long[] rewardedWords;
+		private int index = -1;
+		private long userIdHigh;
+		private long userIdLow;
+		private double latitude;
+		private double longitude;
+		private long timeMillis;
+		private long rewardPoints;
+
+		private Slot(int rewardedWords) {
+			this.rewardedWords = new long[rewardedWords];
+		}
+
+		public int index() {
+			return index;
+		}
+
+		public long userIdHigh() {
+			return userIdHigh;
+		}
+
+		public long userIdLow() {
+			return userIdLow;
+		}
+
+		/**
+		 * Returns the id of the user, as a new object.
+		 *
+		 * @return User id
+		 */
+		public UUID userId() {
+			return new UUID(userIdHigh, userIdLow);
+		}
+
+		/**
+		 * Indicates whether the user has visited any location.
+		 *
+		 * @return false if the latitude, longitude and time are not set
+		 */
+		public boolean hasLocation() {
+			return !Double.isNaN(latitude);
+		}
+
+		public double latitude() {
+			return latitude;
+		}
+
+		public double longitude() {
+			return longitude;
+		}
+
+		public long timeMillis() {
+			return timeMillis;
+		}
+
+		public long rewardPoints() {
+			return rewardPoints;
+		}
+
+		/**
+		 * Checks whether the user has been rewarded for an attraction.
+		 *
+		 * @param ordinal Attraction ordinal
+		 * @return true if rewarded
+		 */
+		public boolean isRewarded(int ordinal) {
+			int word = ordinal >>> 6;
+			return word < rewardedWords.length && (rewardedWords[word] & (1L << ordinal)) != 0;
+		}
+	}
+}
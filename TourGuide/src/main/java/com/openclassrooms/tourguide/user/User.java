@@ -2,10 +2,9 @@ package com.openclassrooms.tourguide.user;
 
 import java.util.Date;
 import java.util.List;
-import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 import gpsUtil.location.VisitedLocation;
 import tripPricer.Provider;
@@ -16,10 +15,14 @@ public class User {
 	private String phoneNumber;
 	private String emailAddress;
 	private Date latestLocationTimestamp;
-	private List<VisitedLocation> visitedLocations = new CopyOnWriteArrayList<>();
-	private final List<UserReward> userRewards = new CopyOnWriteArrayList<>();
 	private UserPreferences userPreferences = new UserPreferences();
-	private List<Provider> tripDeals = new CopyOnWriteArrayList<>();
+	private final AtomicReference<UserState> state = new AtomicReference<>(UserState.EMPTY);
+	// Store holding the state while it is evicted
+	private volatile ColdUserStore coldStore;
+	private volatile long lastAccessMillis = System.currentTimeMillis();
+	// Off-heap slot mirroring the hot fields, if any
+	private volatile OffHeapUserStore offHeapStore;
+	private volatile int offHeapSlot = -1;
 
 	public User(UUID userId, String userName, String phoneNumber, String emailAddress) {
 		this.userId = userId;
@@ -60,33 +63,259 @@ public class User {
 		return latestLocationTimestamp;
 	}
 
+	/**
+	 * Returns the current snapshot of the user's locations, rewards and trip
+	 * deals.
+	 *
+	 * Reading several values from the same snapshot guarantees they are
+	 * consistent with each other.
+	 *
+	 * @return Current immutable state
+	 */
+	public UserState getState() {
+		return currentState();
+	}
+
+	/**
+	 * Records an access to the user through the API, which keeps them resident.
+	 */
+	public void recordAccess() {
+		recordAccess(System.currentTimeMillis());
+	}
+
+	void recordAccess(long nowMillis) {
+		lastAccessMillis = nowMillis;
+	}
+
+	/**
+	 * Returns the time of the latest access to the user through the API.
+	 *
+	 * @return Time in epoch milliseconds, the creation time if never accessed
+	 */
+	public long getLastAccessMillis() {
+		return lastAccessMillis;
+	}
+
+	/**
+	 * Indicates whether the state of the user is in memory.
+	 *
+	 * @return false if the state is evicted to a {@link ColdUserStore}
+	 */
+	public boolean isResident() {
+		return state.get() != UserState.EVICTED;
+	}
+
+	/**
+	 * Writes the state of the user to a store and releases it from memory.
+	 *
+	 * The state is read back from the store by the next read or update of the
+	 * user. The eviction is abandoned if the state changes while it is written.
+	 *
+	 * @param store Store of the evicted users
+	 * @return true if the state was evicted
+	 */
+	public boolean evictTo(ColdUserStore store) {
+		UserState current = state.get();
+		if (current == UserState.EVICTED) {
+			return false;
+		}
+		store.write(userId, current);
+		coldStore = store;
+		if (state.compareAndSet(current, UserState.EVICTED)) {
+			return true;
+		}
+		store.delete(userId);
+		return false;
+	}
+
+	/**
+	 * Returns the slot of the user in an {@link OffHeapUserStore}.
+	 *
+	 * @return Index of the slot, -1 if the user has none
+	 */
+	public int getOffHeapSlot() {
+		return offHeapSlot;
+	}
+
+	void attachOffHeap(OffHeapUserStore store, int slot) {
+		offHeapSlot = slot;
+		offHeapStore = store;
+		store.update(slot, this);
+	}
+
+	/**
+	 * Returns the state without reading it back from the cold store.
+	 *
+	 * @return Current state, null if evicted
+	 */
+	UserState residentState() {
+		UserState current = state.get();
+		return current == UserState.EVICTED ? null : current;
+	}
+
+	/**
+	 * Returns the current state, reading it back from the store if it was
+	 * evicted.
+	 */
+	private UserState currentState() {
+		UserState current = state.get();
+		return current == UserState.EVICTED ? pageIn() : current;
+	}
+
+	private synchronized UserState pageIn() {
+		UserState current = state.get();
+		if (current == UserState.EVICTED) {
+			current = coldStore.read(this);
+			state.set(current);
+		}
+		return current;
+	}
+
+	/**
+	 * Publishes a new state computed from the current one, retrying if another
+	 * thread changed the state in the meantime, and returns the state it
+	 * replaced.
+	 */
+	private UserState updateState(UnaryOperator<UserState> update) {
+		UserState current;
+		UserState next;
+		do {
+			current = currentState();
+			next = update.apply(current);
+		} while (next != current && !state.compareAndSet(current, next));
+		OffHeapUserStore store = offHeapStore;
+		if (store != null && next != current) {
+			store.update(offHeapSlot, this);
+		}
+		return current;
+	}
+
 	public void addToVisitedLocations(VisitedLocation visitedLocation) {
-		visitedLocations.add(visitedLocation);
+		updateState(current -> current.withVisitedLocation(visitedLocation));
 	}
 
 	public List<VisitedLocation> getVisitedLocations() {
-		return visitedLocations;
+		return currentState().visitedLocations();
+	}
+
+	/**
+	 * Returns the locations visited in a time range, sorted by time.
+	 *
+	 * @param from Start of the range, inclusive
+	 * @param to   End of the range, exclusive
+	 * @return View of the locations visited in the range
+	 * @see LocationHistory#between(long, long)
+	 */
+	public List<VisitedLocation> getVisitedLocationsBetween(Date from, Date to) {
+		return currentState().visitedLocations().between(from.getTime(), to.getTime());
 	}
 
 	public VisitedLocation getLastVisitedLocations() {
-		return visitedLocations.isEmpty() ? null : visitedLocations.get(visitedLocations.size() - 1);
+		return currentState().lastVisitedLocation();
+	}
+
+	/**
+	 * Replaces the location history with a compacted version of it.
+	 *
+	 * The compaction is applied to the latest history, and applied again if a
+	 * location was added meanwhile, so no location added concurrently is lost.
+	 *
+	 * @param compaction Function returning the compacted history, or the same
+	 *                   history if nothing is removed
+	 * @return Number of locations removed
+	 */
+	public int compactVisitedLocations(UnaryOperator<LocationHistory> compaction) {
+		int[] removed = new int[1];
+		updateState(current -> {
+			LocationHistory compacted = compaction.apply(current.visitedLocations());
+			removed[0] = current.visitedLocations().size() - compacted.size();
+			return compacted == current.visitedLocations() ? current : current.withVisitedLocations(compacted);
+		});
+		return removed[0];
 	}
 
 	public void clearVisitedLocations() {
-		visitedLocations.clear();
-		visitedLocations = new CopyOnWriteArrayList<>();
+		updateState(UserState::withoutVisitedLocations);
 	}
 
-	private final Set<String> rewardedAttractions = ConcurrentHashMap.newKeySet();
+	/**
+	 * Adds a reward unless the user has already been rewarded for its
+	 * attraction.
+	 *
+	 * @param userReward Reward to add
+	 * @return true if the reward was added
+	 */
+	public boolean addUserReward(UserReward userReward) {
+		int ordinal = userReward.attractionOrdinal();
+		// Holding the monitor of the reward keeps its points from changing
+		// between the update of the total and the attachment to this user
+		synchronized (userReward) {
+			UserState previous = updateState(current -> current.withUserReward(userReward));
+			boolean added = !previous.rewardedAttractions().contains(ordinal);
+			if (added) {
+				userReward.attachTo(this);
+			}
+			return added;
+		}
+	}
 
-	public void addUserReward(UserReward userReward) {
-		if (rewardedAttractions.add(userReward.attraction.attractionName)) {
-			userRewards.add(userReward);
+	/**
+	 * Changes the points of one of the user's rewards, and adjusts the total by
+	 * the difference. Called by
+	 * {@link com.openclassrooms.tourguide.service.RewardStatistics#changeRewardPoints},
+	 * which also moves the difference to the reward statistics.
+	 *
+	 * @param userReward   Reward of this user
+	 * @param rewardPoints New number of points
+	 * @return Difference applied to the total
+	 * @throws IllegalArgumentException if the reward was not added to this user
+	 */
+	public int changeRewardPoints(UserReward userReward, int rewardPoints) {
+		synchronized (userReward) {
+			if (!userReward.isHeldBy(this)) {
+				throw new IllegalArgumentException("Reward not granted to user " + userName);
+			}
+			return userReward.changeRewardPoints(rewardPoints);
 		}
 	}
 
+	/**
+	 * Returns the total of the points of the user's rewards.
+	 *
+	 * The total is kept up to date as rewards are added and when the points of
+	 * one of them change, so it is read in constant time.
+	 *
+	 * @return Total reward points
+	 */
+	public long getRewardPoints() {
+		return currentState().rewardPoints();
+	}
+
+	void adjustRewardPoints(long delta) {
+		updateState(current -> current.withRewardPointsAdjusted(delta));
+	}
+
+	/**
+	 * Checks whether the user has already been rewarded for an attraction.
+	 *
+	 * @param attractionOrdinal Ordinal of the attraction
+	 * @return true if a reward exists for this attraction
+	 */
+	public boolean isAttractionRewarded(int attractionOrdinal) {
+		return currentState().rewardedAttractions().contains(attractionOrdinal);
+	}
+
+	/**
+	 * Returns the ordinals of the attractions the user has been rewarded for.
+	 *
+	 * @return Immutable snapshot of the rewarded attractions
+	 */
+	public AttractionBitSet getRewardedAttractions() {
+		return currentState().rewardedAttractions();
+	}
+
 	public List<UserReward> getUserRewards() {
-		return userRewards;
+		return currentState().userRewards();
 	}
 
 	public UserPreferences getUserPreferences() {
@@ -98,15 +327,16 @@ public class User {
 	}
 
 	public VisitedLocation getLastVisitedLocation() {
+		List<VisitedLocation> visitedLocations = currentState().visitedLocations();
 		return visitedLocations.get(visitedLocations.size() - 1);
 	}
 
 	public void setTripDeals(List<Provider> tripDeals) {
-		this.tripDeals = tripDeals;
+		updateState(current -> current.withTripDeals(tripDeals));
 	}
 
 	public List<Provider> getTripDeals() {
-		return tripDeals;
+		return currentState().tripDeals();
 	}
 
 }
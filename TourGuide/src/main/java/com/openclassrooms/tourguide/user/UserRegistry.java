@@ -0,0 +1,254 @@
+package com.openclassrooms.tourguide.user;
+
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Registry of the users, partitioned into a fixed number of shards.
+ *
+ * Users are spread over the shards by user name. The shards never change, so
+ * the registry can be traversed without copying: {@link #stream()} and
+ * {@link #spliterator()} give a weakly consistent view that splits along shard
+ * boundaries first, then inside a shard, for parallel processing.
+ *
+ * A secondary index gives the user owning a {@link UUID}. User names are
+ * normalized by removing leading and trailing whitespace; both lookups are
+ * allocation-free for names that are already normalized.
+ */
+public class UserRegistry {
+
+	private static final int DEFAULT_SHARD_COUNT = 64;
+
+	private final ConcurrentHashMap<String, User>[] shards;
+	private final ConcurrentHashMap<UUID, User> usersById = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates an empty registry with the default number of shards.
+	 */
+	public UserRegistry() {
+		this(DEFAULT_SHARD_COUNT);
+	}
+
+	/**
+	 * Creates an empty registry.
+	 *
+	 * @param shardCount Number of shards, rounded up to a power of two
+	 * @throws IllegalArgumentException if the shard count is not strictly
+	 *                                  positive
+	 */
+	@SuppressWarnings("unchecked")
+	public UserRegistry(int shardCount) {
+		if (shardCount <= 0) {
+			throw new IllegalArgumentException("Shard count must be strictly positive");
+		}
+		int size = Integer.highestOneBit(shardCount - 1) << 1;
+		shards = new ConcurrentHashMap[Math.max(1, size)];
+		for (int i = 0; i < shards.length; i++) {
+			shards[i] = new ConcurrentHashMap<>();
+		}
+	}
+
+	/**
+	 * Returns the user registered under a name.
+	 *
+	 * The name is looked up as is first; it is only trimmed when this lookup
+	 * misses and the name starts or ends with whitespace.
+	 *
+	 * @param userName User name
+	 * @return The user, or null if no user has this name
+	 */
+	public User get(String userName) {
+		User user = shardOf(userName).get(userName);
+		if (user == null && !isNormalized(userName)) {
+			String normalized = userName.trim();
+			user = shardOf(normalized).get(normalized);
+		}
+		return user;
+	}
+
+	/**
+	 * Returns the user with the given identifier.
+	 *
+	 * @param userId User identifier
+	 * @return The user, or null if no user has this identifier
+	 */
+	public User getById(UUID userId) {
+		return usersById.get(userId);
+	}
+
+	/**
+	 * Registers a user unless a user with the same name already exists.
+	 *
+	 * The user is indexed by name first, then by identifier, so a concurrent
+	 * reader may briefly find a new user by name but not yet by identifier.
+	 *
+	 * @param user User to register
+	 * @return The user already registered under this name, or null if the user
+	 *         was added
+	 */
+	public User putIfAbsent(User user) {
+		String userName = user.getUserName().trim();
+		User existing = shardOf(userName).putIfAbsent(userName, user);
+		if (existing == null) {
+			usersById.put(user.getUserId(), user);
+		}
+		return existing;
+	}
+
+	/**
+	 * Returns the number of registered users.
+	 *
+	 * @return Number of users
+	 */
+	public int size() {
+		long size = 0;
+		for (ConcurrentHashMap<String, User> shard : shards) {
+			size += shard.size();
+		}
+		return (int) Math.min(size, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the number of shards.
+	 *
+	 * @return Number of shards
+	 */
+	public int getShardCount() {
+		return shards.length;
+	}
+
+	/**
+	 * Calls an action for every registered user, without copying the registry.
+	 *
+	 * @param action Action to call
+	 */
+	public void forEach(Consumer<? super User> action) {
+		for (ConcurrentHashMap<String, User> shard : shards) {
+			shard.values().forEach(action);
+		}
+	}
+
+	/**
+	 * Returns a weakly consistent spliterator over the users.
+	 *
+	 * Users added or removed during the traversal may or may not be seen.
+	 *
+	 * @return Spliterator over the registered users
+	 */
+	public Spliterator<User> spliterator() {
+		return new ShardSpliterator(0, shards.length);
+	}
+
+	/**
+	 * Returns a sequential stream over the users.
+	 *
+	 * @return Stream over the registered users
+	 */
+	public Stream<User> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	/**
+	 * Returns a parallel stream over the users, split by shard.
+	 *
+	 * @return Parallel stream over the registered users
+	 */
+	public Stream<User> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+
+	private static boolean isNormalized(String userName) {
+		int length = userName.length();
+		return length == 0 || (userName.charAt(0) > ' ' && userName.charAt(length - 1) > ' ');
+	}
+
+	private ConcurrentHashMap<String, User> shardOf(String userName) {
+		int hash = userName.hashCode();
+		return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+	}
+
+	/**
+	 * Spliterator over a range of shards, traversing one shard after the other.
+	 */
+	private final class ShardSpliterator implements Spliterator<User> {
+
+		private int nextShard;
+		private final int endShard;
+		private Spliterator<User> current;
+
+		ShardSpliterator(int firstShard, int endShard) {
+			this.nextShard = firstShard;
+			this.endShard = endShard;
+		}
+
+		private ShardSpliterator(Spliterator<User> current) {
+			this.nextShard = 0;
+			this.endShard = 0;
+			this.current = current;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super User> action) {
+			while (true) {
+				if (current != null && current.tryAdvance(action)) {
+					return true;
+				}
+				if (nextShard >= endShard) {
+					current = null;
+					return false;
+				}
+				current = shards[nextShard++].values().spliterator();
+			}
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super User> action) {
+			if (current != null) {
+				current.forEachRemaining(action);
+				current = null;
+			}
+			while (nextShard < endShard) {
+				shards[nextShard++].values().forEach(action);
+			}
+		}
+
+		@Override
+		public Spliterator<User> trySplit() {
+			int remainingShards = endShard - nextShard;
+			if (remainingShards > 1) {
+				int middle = nextShard + remainingShards / 2;
+				ShardSpliterator prefix = new ShardSpliterator(nextShard, middle);
+				prefix.current = current;
+				current = null;
+				nextShard = middle;
+				return prefix;
+			}
+			if (remainingShards == 1 && current == null) {
+				current = shards[nextShard++].values().spliterator();
+			}
+			if (current == null) {
+				return null;
+			}
+			Spliterator<User> split = current.trySplit();
+			return split == null ? null : new ShardSpliterator(split);
+		}
+
+		@Override
+		public long estimateSize() {
+			long size = current == null ? 0 : current.estimateSize();
+			for (int i = nextShard; i < endShard; i++) {
+				size += shards[i].size();
+			}
+			return size;
+		}
+
+		@Override
+		public int characteristics() {
+			return CONCURRENT | DISTINCT | NONNULL;
+		}
+	}
+}
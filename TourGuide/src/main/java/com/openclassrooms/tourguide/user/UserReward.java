@@ -7,24 +7,92 @@ public class UserReward {
 
 	public final VisitedLocation visitedLocation;
 	public final Attraction attraction;
-	private int rewardPoints;
-	public UserReward(VisitedLocation visitedLocation, Attraction attraction, int rewardPoints) {
+	private final int attractionOrdinal;
+	private volatile int rewardPoints;
+	private User owner;
+
+	/**
+	 * Creates a reward.
+	 *
+	 * @param visitedLocation   Location that earned the reward
+	 * @param attraction        Attraction rewarded
+	 * @param attractionOrdinal Ordinal of the attraction in the
+	 *                          {@link com.openclassrooms.tourguide.attraction.AttractionCatalog}
+	 * @param rewardPoints      Points of the reward
+	 * @throws IllegalArgumentException if the ordinal is negative
+	 */
+	public UserReward(VisitedLocation visitedLocation, Attraction attraction, int attractionOrdinal,
+			int rewardPoints) {
+		if (attractionOrdinal < 0) {
+			throw new IllegalArgumentException("Attraction ordinal must be positive or zero");
+		}
 		this.visitedLocation = visitedLocation;
 		this.attraction = attraction;
+		this.attractionOrdinal = attractionOrdinal;
 		this.rewardPoints = rewardPoints;
 	}
-	
-	public UserReward(VisitedLocation visitedLocation, Attraction attraction) {
-		this.visitedLocation = visitedLocation;
-		this.attraction = attraction;
+
+	public UserReward(VisitedLocation visitedLocation, Attraction attraction, int attractionOrdinal) {
+		this(visitedLocation, attraction, attractionOrdinal, 0);
 	}
 
-	public void setRewardPoints(int rewardPoints) {
+	/**
+	 * Returns the ordinal of the attraction in the catalog. Named like a record
+	 * accessor so that it is not serialized with the reward.
+	 *
+	 * @return Ordinal of the attraction
+	 */
+	public int attractionOrdinal() {
+		return attractionOrdinal;
+	}
+
+	/**
+	 * Sets the points of a reward that has not been granted yet. The points of a
+	 * granted reward change through
+	 * {@link com.openclassrooms.tourguide.service.RewardStatistics#changeRewardPoints},
+	 * which keeps the statistics in step.
+	 *
+	 * @param rewardPoints Number of points
+	 * @throws IllegalStateException if the reward was added to a user
+	 */
+	public synchronized void setRewardPoints(int rewardPoints) {
+		if (owner != null) {
+			throw new IllegalStateException("Reward already granted to user " + owner.getUserName());
+		}
 		this.rewardPoints = rewardPoints;
 	}
-	
+
+	/**
+	 * Changes the points of the reward, and adjusts the total reward points of
+	 * the user holding it by the difference.
+	 *
+	 * @return Difference applied to the total of the user, 0 if the reward was
+	 *         not added to a user
+	 */
+	synchronized int changeRewardPoints(int rewardPoints) {
+		int delta = rewardPoints - this.rewardPoints;
+		this.rewardPoints = rewardPoints;
+		if (owner == null || delta == 0) {
+			return 0;
+		}
+		owner.adjustRewardPoints(delta);
+		return delta;
+	}
+
 	public int getRewardPoints() {
 		return rewardPoints;
 	}
-	
+
+	/**
+	 * Records the user holding this reward. Must be called while holding the
+	 * monitor of the reward, like {@link #changeRewardPoints(int)}.
+	 */
+	void attachTo(User owner) {
+		this.owner = owner;
+	}
+
+	boolean isHeldBy(User user) {
+		return owner == user;
+	}
+
 }
@@ -0,0 +1,74 @@
+package com.openclassrooms.tourguide.user;
+
+import java.util.List;
+
+import gpsUtil.location.VisitedLocation;
+import tripPricer.Provider;
+
+/**
+ * Immutable snapshot of the mutable data of a {@link User}.
+ *
+ * A user publishes a new snapshot for every change, so a reader holding a
+ * snapshot always sees a consistent combination of locations, rewards and
+ * trip deals.
+ *
+ * @param visitedLocations    Location history, in the order it was recorded
+ * @param userRewards         Rewards earned, in the order they were granted
+ * @param tripDeals           Latest trip deals
+ * @param rewardedAttractions Ordinals of the attractions present in the rewards
+ * @param rewardPoints        Total of the points of the rewards
+ */
+public record UserState(LocationHistory visitedLocations, AppendOnlyList<UserReward> userRewards,
+		List<Provider> tripDeals, AttractionBitSet rewardedAttractions, long rewardPoints) {
+
+	public static final UserState EMPTY = new UserState(LocationHistory.EMPTY, AppendOnlyList.empty(), List.of(),
+			AttractionBitSet.EMPTY, 0);
+
+	// Placeholder of the state of an evicted user, recognized by its identity
+	static final UserState EVICTED = new UserState(LocationHistory.EMPTY, AppendOnlyList.empty(), List.of(),
+			AttractionBitSet.EMPTY, 0);
+
+	/**
+	 * Returns the latest visited location.
+	 *
+	 * @return Latest location, or null if the history is empty
+	 */
+	public VisitedLocation lastVisitedLocation() {
+		return visitedLocations.last();
+	}
+
+	UserState withVisitedLocation(VisitedLocation visitedLocation) {
+		return new UserState(visitedLocations.append(visitedLocation), userRewards, tripDeals, rewardedAttractions,
+				rewardPoints);
+	}
+
+	UserState withoutVisitedLocations() {
+		return withVisitedLocations(LocationHistory.EMPTY);
+	}
+
+	UserState withVisitedLocations(LocationHistory visitedLocations) {
+		return new UserState(visitedLocations, userRewards, tripDeals, rewardedAttractions, rewardPoints);
+	}
+
+	/**
+	 * Returns the snapshot with one more reward, or this snapshot if the
+	 * attraction of the reward was already rewarded.
+	 */
+	UserState withUserReward(UserReward userReward) {
+		int ordinal = userReward.attractionOrdinal();
+		if (rewardedAttractions.contains(ordinal)) {
+			return this;
+		}
+		return new UserState(visitedLocations, userRewards.append(userReward), tripDeals,
+				rewardedAttractions.with(ordinal), rewardPoints + userReward.getRewardPoints());
+	}
+
+	UserState withRewardPointsAdjusted(long delta) {
+		return new UserState(visitedLocations, userRewards, tripDeals, rewardedAttractions, rewardPoints + delta);
+	}
+
+	UserState withTripDeals(List<Provider> tripDeals) {
+		return new UserState(visitedLocations, userRewards, List.copyOf(tripDeals), rewardedAttractions,
+				rewardPoints);
+	}
+}
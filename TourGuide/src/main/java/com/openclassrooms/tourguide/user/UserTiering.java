@@ -0,0 +1,110 @@
+package com.openclassrooms.tourguide.user;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Activity-based tiering of the users.
+ *
+ * Users not accessed through the API for longer than a threshold are evicted:
+ * their state (location history, rewards, trip deals) is written to a
+ * {@link ColdUserStore} and only the user itself, with their contact details
+ * and preferences, stays in the registry. The state is read back the next time
+ * it is needed, so every caller keeps working with the same {@link User}.
+ */
+@Slf4j
+public class UserTiering implements AutoCloseable {
+
+	private final UserRegistry users;
+	private final ColdUserStore store;
+	private final Duration inactiveAfter;
+	private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "user-tiering");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Creates the tiering, which evicts nobody until started.
+	 *
+	 * @param users         Registry of the users
+	 * @param store         Store of the evicted users
+	 * @param inactiveAfter Time without access after which a user is evicted
+	 */
+	public UserTiering(UserRegistry users, ColdUserStore store, Duration inactiveAfter) {
+		this.users = users;
+		this.store = store;
+		this.inactiveAfter = inactiveAfter;
+	}
+
+	/**
+	 * Runs an eviction pass at a fixed delay.
+	 *
+	 * @param interval Delay between the end of a pass and the start of the next
+	 */
+	public void start(Duration interval) {
+		executorService.scheduleWithFixedDelay(this::evictSafely, interval.toMillis(), interval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Evicts the resident users not accessed for longer than the threshold.
+	 *
+	 * @return Number of users evicted
+	 */
+	public long evictInactiveUsers() {
+		return evictInactiveUsers(System.currentTimeMillis());
+	}
+
+	long evictInactiveUsers(long now) {
+		long threshold = now - inactiveAfter.toMillis();
+		long evicted = users.stream()
+				.filter(user -> user.isResident() && user.getLastAccessMillis() < threshold)
+				.filter(user -> user.evictTo(store))
+				.count();
+		evictions.add(evicted);
+		log.debug("User tiering evicted {} users, {} stored", evicted, store.getStoredUsers());
+		return evicted;
+	}
+
+	/**
+	 * Returns the store of the evicted users.
+	 *
+	 * @return Cold user store
+	 */
+	public ColdUserStore getStore() {
+		return store;
+	}
+
+	/**
+	 * Returns the number of evictions since the creation of the tiering.
+	 *
+	 * @return Number of evictions
+	 */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Stops the scheduled passes.
+	 */
+	@Override
+	public void close() {
+		executorService.shutdownNow();
+	}
+
+	private void evictSafely() {
+		try {
+			evictInactiveUsers();
+		} catch (RuntimeException e) {
+			// Users not written stay resident and are retried by the next pass
+			log.error("User eviction failed", e);
+		}
+	}
+}
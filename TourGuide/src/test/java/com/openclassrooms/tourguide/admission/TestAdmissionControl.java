@@ -0,0 +1,107 @@
+package com.openclassrooms.tourguide.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.openclassrooms.tourguide.admission.AdmissionControl.EndpointPolicy;
+import com.openclassrooms.tourguide.admission.AdmissionControl.Permit;
+
+public class TestAdmissionControl {
+
+	private static final Map<Priority, Long> BUDGETS = Map.of(Priority.CRITICAL, 100L, Priority.STANDARD, 100L,
+			Priority.SHEDDABLE, 50L);
+
+	private final AdmissionControl admissionControl = new AdmissionControl(true, 4, BUDGETS,
+			Map.of("/getRewards", new EndpointPolicy(Priority.CRITICAL, 4),
+					"/getTripDeals", new EndpointPolicy(Priority.SHEDDABLE, 1),
+					"/getNearbyAttractions", new EndpointPolicy(Priority.SHEDDABLE, 4)));
+
+	@Test
+	public void endpointLimitRejectsAfterQueueBudget() {
+		Permit permit = admissionControl.tryAdmit("/getTripDeals");
+		assertNotNull(permit);
+
+		long start = System.nanoTime();
+		assertNull(admissionControl.tryAdmit("/getTripDeals"));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+		assertEquals(1, admissionControl.getRejectedCount("/getTripDeals"));
+
+		permit.release();
+		admissionControl.tryAdmit("/getTripDeals").release();
+		assertEquals(2, admissionControl.getAdmittedCount("/getTripDeals"));
+		assertEquals(0, admissionControl.getInApplicationCount());
+	}
+
+	@Test
+	public void sheddableEndpointsAreShedBeforeCriticalOnes() {
+		// Sheddable requests may only use half of the global limit of 4
+		Permit first = admissionControl.tryAdmit("/getNearbyAttractions");
+		Permit second = admissionControl.tryAdmit("/getNearbyAttractions");
+		assertNotNull(first);
+		assertNotNull(second);
+
+		long start = System.nanoTime();
+		assertNull(admissionControl.tryAdmit("/getNearbyAttractions"));
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(40), "Shedding must not wait");
+
+		Permit critical = admissionControl.tryAdmit("/getRewards");
+		assertNotNull(critical);
+		assertNotNull(admissionControl.tryAdmit("/getRewards"));
+		assertNull(admissionControl.tryAdmit("/getRewards"));
+		critical.release();
+		first.release();
+		second.release();
+	}
+
+	@Test
+	public void requestsThatCannotMeetTheBudgetAreRejectedAtOnce() throws InterruptedException {
+		Permit slow = admissionControl.tryAdmit("/getTripDeals");
+		Thread.sleep(200);
+		slow.release();
+
+		Permit permit = admissionControl.tryAdmit("/getTripDeals");
+		long start = System.nanoTime();
+		assertNull(admissionControl.tryAdmit("/getTripDeals"));
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(40), "Rejection must not wait");
+		assertEquals(1, admissionControl.getRetryAfterSeconds("/getTripDeals"));
+		permit.release();
+	}
+
+	@Test
+	public void unknownPathsShareOneEndpoint() {
+		for (int i = 0; i < 100; i++) {
+			admissionControl.tryAdmit("/unknown/" + i).release();
+		}
+
+		assertEquals(100, admissionControl.getAdmittedCount("/unknown/0"));
+		assertEquals(100, admissionControl.getAdmittedCount(AdmissionControl.OTHER_PATHS));
+		assertEquals(0, admissionControl.getAdmittedCount("/getRewards"));
+	}
+
+	@Test
+	public void interceptorAnswers503WithRetryAfter() throws Exception {
+		AdmissionInterceptor interceptor = new AdmissionInterceptor(admissionControl);
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/getTripDeals");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		assertTrue(interceptor.preHandle(request, response, null));
+
+		MockHttpServletRequest rejectedRequest = new MockHttpServletRequest("GET", "/getTripDeals");
+		MockHttpServletResponse rejectedResponse = new MockHttpServletResponse();
+		assertFalse(interceptor.preHandle(rejectedRequest, rejectedResponse, null));
+		assertEquals(503, rejectedResponse.getStatus());
+		assertEquals("1", rejectedResponse.getHeader("Retry-After"));
+
+		interceptor.afterCompletion(request, response, null, null);
+		assertEquals(0, admissionControl.getInApplicationCount());
+	}
+}
@@ -0,0 +1,83 @@
+package com.openclassrooms.tourguide.attraction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+
+public class TestAttractionCatalog {
+
+	@Test
+	public void refreshRebuildsTheGridOnlyWhenTheAttractionsChange() {
+		List<Attraction> answered = new CopyOnWriteArrayList<>(
+				List.of(new Attraction("Louvre", "Paris", "FR", 48.8606, 2.3376)));
+		GpsUtil gpsUtil = new GpsUtil() {
+			@Override
+			public List<Attraction> getAttractions() {
+				// A new id for every attraction on every call, as gpsUtil does
+				List<Attraction> attractions = new ArrayList<>();
+				for (Attraction a : answered) {
+					attractions.add(new Attraction(a.attractionName, a.city, a.state, a.latitude, a.longitude));
+				}
+				return attractions;
+			}
+		};
+		AttractionCatalog catalog = new AttractionCatalog(gpsUtil);
+		Attraction louvre = catalog.getAttraction("Louvre");
+		List<Attraction> loaded = catalog.getAttractions();
+
+		assertFalse(catalog.refresh());
+		assertSame(loaded, catalog.getAttractions());
+		assertNull(catalog.getAttraction("Colosseum"));
+
+		answered.add(new Attraction("Colosseum", "Rome", "IT", 41.8902, 12.4922));
+		assertTrue(catalog.refresh());
+
+		assertEquals(2, catalog.getAttractions().size());
+		assertSame(louvre, catalog.getAttraction("Louvre"));
+		assertEquals("Colosseum", catalog.getNearestAttractions(new Location(41.9, 12.5), 1).get(0).attractionName);
+		catalog.close();
+	}
+
+	@Test
+	public void namesKeepTheirOrdinalAcrossLoads() {
+		List<Attraction> answered = new CopyOnWriteArrayList<>(List.of(
+				new Attraction("Louvre", "Paris", "FR", 48.8606, 2.3376),
+				new Attraction("Colosseum", "Rome", "IT", 41.8902, 12.4922)));
+		GpsUtil gpsUtil = new GpsUtil() {
+			@Override
+			public List<Attraction> getAttractions() {
+				return List.copyOf(answered);
+			}
+		};
+		AttractionCatalog catalog = new AttractionCatalog(gpsUtil);
+		assertEquals(0, catalog.ordinalOf("Louvre"));
+		assertEquals(1, catalog.ordinalOf(catalog.getAttraction("Colosseum")));
+		assertEquals(-1, catalog.ordinalOf("Acropolis"));
+		assertEquals(2, catalog.getOrdinalCount());
+
+		answered.remove(0);
+		answered.add(new Attraction("Acropolis", "Athens", "GR", 37.9715, 23.7257));
+		assertTrue(catalog.refresh());
+
+		assertNull(catalog.getAttraction("Louvre"));
+		assertEquals(0, catalog.ordinalOf("Louvre"));
+		assertEquals(1, catalog.ordinalOf("Colosseum"));
+		assertEquals(2, catalog.ordinalOf("Acropolis"));
+		assertEquals("Acropolis", catalog.getAttractionName(2));
+		assertNull(catalog.getAttractionName(3));
+		assertEquals(3, catalog.getOrdinalCount());
+		catalog.close();
+	}
+}
@@ -0,0 +1,82 @@
+package com.openclassrooms.tourguide.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+public class TestFreshnessAwareLocationCache {
+
+	private static final long MINUTE = Duration.ofMinutes(1).toMillis();
+
+	private final AtomicLong clock = new AtomicLong(1_000_000_000);
+	private final FreshnessAwareLocationCache cache = new FreshnessAwareLocationCache(
+			new FreshnessAwareLocationCache.Settings(Duration.ofSeconds(30), Duration.ofMinutes(5), 0.5, 0.8, 1_000),
+			clock::get);
+	private final UUID userId = UUID.randomUUID();
+
+	@Test
+	public void timeToLiveFollowsUserSpeed() {
+		VisitedLocation previous = location(48.85, 2.35, 0);
+
+		assertEquals(5 * MINUTE, cache.ttlMillis(location(48.85, 2.35, 10 * MINUTE), previous));
+		assertEquals(5 * MINUTE, cache.ttlMillis(location(48.85, 2.35, 0), null));
+		// About 3 miles in 10 minutes: 0.5 mile takes 100 seconds
+		long walking = cache.ttlMillis(location(48.85, 2.4125, 10 * MINUTE), previous);
+		assertTrue(walking > 90_000 && walking < 110_000, "Unexpected time to live " + walking);
+		// Hundreds of miles in 10 minutes
+		assertEquals(30_000, cache.ttlMillis(location(45.76, 4.83, 10 * MINUTE), previous));
+	}
+
+	@Test
+	public void servedLocationsAreYoungerThanStalenessAndTimeToLive() {
+		VisitedLocation location = location(48.85, 2.35, 0);
+		cache.put(userId, location, null);
+
+		clock.addAndGet(MINUTE);
+		assertSame(location, cache.getIfFresh(userId, Duration.ofMinutes(2)));
+		assertNull(cache.getIfFresh(userId, Duration.ofSeconds(30)));
+		assertNull(cache.getIfFresh(userId, Duration.ZERO));
+
+		clock.addAndGet(5 * MINUTE);
+		assertNull(cache.getIfFresh(userId, Duration.ofHours(1)));
+
+		FreshnessAwareLocationCache.Statistics statistics = cache.getStatistics();
+		assertEquals(1, statistics.hits());
+		assertEquals(3, statistics.misses());
+		assertEquals(MINUTE, statistics.maxStalenessMs());
+		assertEquals(0, statistics.p50StalenessMs());
+		assertTrue(statistics.p99StalenessMs() >= MINUTE / 2 && statistics.p99StalenessMs() <= MINUTE);
+	}
+
+	@Test
+	public void refreshIsClaimedOnceNearExpiry() {
+		cache.put(userId, location(48.85, 2.35, 0), null);
+
+		clock.addAndGet(3 * MINUTE);
+		assertFalse(cache.claimRefresh(userId));
+
+		clock.addAndGet(MINUTE + 1);
+		assertTrue(cache.claimRefresh(userId));
+		assertFalse(cache.claimRefresh(userId));
+
+		cache.put(userId, location(48.85, 2.35, 4 * MINUTE), null);
+		assertFalse(cache.claimRefresh(userId));
+		assertEquals(1, cache.getStatistics().refreshes());
+	}
+
+	private VisitedLocation location(double latitude, double longitude, long timeMillis) {
+		return new VisitedLocation(userId, new Location(latitude, longitude), new Date(timeMillis));
+	}
+}
@@ -0,0 +1,85 @@
+package com.openclassrooms.tourguide.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestMappedRewardPointsStore {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void entriesSurviveReopening() {
+		Path file = directory.resolve("rewards.cache");
+		try (MappedRewardPointsStore store = new MappedRewardPointsStore(file, 1_000)) {
+			for (int i = 0; i < 100; i++) {
+				store.put(i, -i, "Disneyland", i * 10, 5_000);
+			}
+			store.put(3, -3, "Disneyland", 42, 5_000);
+		}
+
+		try (MappedRewardPointsStore store = new MappedRewardPointsStore(file, 1_000)) {
+			assertEquals(42, store.get(3, -3, "Disneyland", 1_000).points());
+			assertEquals(990, store.get(99, -99, "Disneyland", 1_000).points());
+			assertEquals(4_000, store.get(99, -99, "Disneyland", 1_000).remainingMillis());
+			assertNull(store.get(99, -99, "Jackson Hole", 1_000));
+			assertNull(store.get(99, -99, "Disneyland", 5_000));
+		}
+
+		// A different capacity changes the layout, so the file starts empty
+		try (MappedRewardPointsStore store = new MappedRewardPointsStore(file, 10_000)) {
+			assertNull(store.get(3, -3, "Disneyland", 1_000));
+		}
+	}
+
+	@Test
+	public void namesWithTheSameHashKeepTheirOwnPoints() {
+		assertEquals("Aa".hashCode(), "BB".hashCode());
+		try (MappedRewardPointsStore store = new MappedRewardPointsStore(directory.resolve("collision.cache"),
+				1_000)) {
+			store.put(1, 1, "Aa", 10, 5_000);
+
+			assertNull(store.get(1, 1, "BB", 1_000));
+			store.put(1, 1, "BB", 20, 5_000);
+			assertEquals(10, store.get(1, 1, "Aa", 1_000).points());
+			assertEquals(20, store.get(1, 1, "BB", 1_000).points());
+		}
+	}
+
+	@Test
+	public void namesTooLongAreNotStored() {
+		String name = "x".repeat(MappedRewardPointsStore.MAX_NAME_BYTES + 1);
+		assertFalse(MappedRewardPointsStore.canStore(name));
+		assertTrue(MappedRewardPointsStore.canStore("Kartchner Caverns State Park"));
+		try (MappedRewardPointsStore store = new MappedRewardPointsStore(directory.resolve("long.cache"), 1_000)) {
+			assertThrows(IllegalArgumentException.class, () -> store.put(1, 1, name, 10, 5_000));
+			assertNull(store.get(1, 1, name, 1_000));
+		}
+	}
+
+	@Test
+	public void fullBucketReplacesEntryExpiringFirst() {
+		try (MappedRewardPointsStore store = new MappedRewardPointsStore(directory.resolve("single.cache"),
+				MappedRewardPointsStore.SLOTS_PER_BUCKET)) {
+			assertEquals(MappedRewardPointsStore.SLOTS_PER_BUCKET, store.getCapacity());
+			for (int i = 0; i < MappedRewardPointsStore.SLOTS_PER_BUCKET; i++) {
+				store.put(i, i, "Disneyland", i, 1_000 + i);
+			}
+			store.put(100, 100, "Disneyland", 100, 2_000);
+
+			assertNull(store.get(0, 0, "Disneyland", 0));
+			assertEquals(100, store.get(100, 100, "Disneyland", 0).points());
+			for (int i = 1; i < MappedRewardPointsStore.SLOTS_PER_BUCKET; i++) {
+				assertEquals(i, store.get(i, i, "Disneyland", 0).points());
+			}
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.openclassrooms.tourguide.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestTwoTierRewardPointsCache {
+
+	private static final String ATTRACTION = "Disneyland";
+
+	@TempDir
+	Path directory;
+
+	private final AtomicLong clock = new AtomicLong(1_000_000);
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@Test
+	public void diskTierServesPointsAfterRestart() {
+		Path file = directory.resolve("rewards.cache");
+		RewardPointsKey key = RewardPointsKey.of(UUID.randomUUID(), 0);
+
+		try (TwoTierRewardPointsCache cache = newCache(file)) {
+			assertEquals(250, cache.get(key, ATTRACTION, this::load));
+			assertEquals(250, cache.get(key, ATTRACTION, this::load));
+			assertTrue(cache.contains(key));
+
+			TwoTierRewardPointsCache.Statistics statistics = cache.getStatistics();
+			assertEquals(1, statistics.l1Hits());
+			assertEquals(1, statistics.l1Misses());
+			assertEquals(1, statistics.l2Misses());
+			assertEquals(0.5, statistics.l1HitRatio());
+		}
+
+		try (TwoTierRewardPointsCache cache = newCache(file)) {
+			assertFalse(cache.contains(key));
+			assertEquals(250, cache.get(key, ATTRACTION, this::load));
+
+			TwoTierRewardPointsCache.Statistics statistics = cache.getStatistics();
+			assertEquals(1, statistics.l2Hits());
+			assertEquals(1.0, statistics.l2HitRatio());
+			assertEquals(0, statistics.loads());
+		}
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	public void expiredPointsAreLoadedAgain() {
+		RewardPointsKey key = RewardPointsKey.of(UUID.randomUUID(), 0);
+
+		try (TwoTierRewardPointsCache cache = newCache(directory.resolve("expiry.cache"))) {
+			cache.get(key, ATTRACTION, this::load);
+			clock.addAndGet(Duration.ofMinutes(9).toMillis());
+			cache.get(key, ATTRACTION, this::load);
+			assertEquals(1, loads.get());
+
+			clock.addAndGet(Duration.ofMinutes(2).toMillis());
+			cache.get(key, ATTRACTION, this::load);
+			assertEquals(2, loads.get());
+			assertEquals(2, cache.getStatistics().l2Misses());
+		}
+	}
+
+	@Test
+	public void promotedPointsKeepTheTimeToLiveLeftOnDisk() {
+		Path file = directory.resolve("promotion.cache");
+		RewardPointsKey key = RewardPointsKey.of(UUID.randomUUID(), 0);
+		try (TwoTierRewardPointsCache cache = newCache(file)) {
+			cache.get(key, ATTRACTION, this::load);
+		}
+
+		clock.addAndGet(Duration.ofMinutes(9).toMillis());
+		try (TwoTierRewardPointsCache cache = newCache(file)) {
+			cache.get(key, ATTRACTION, this::load);
+			assertEquals(1, loads.get());
+
+			clock.addAndGet(Duration.ofMinutes(2).toMillis());
+			assertFalse(cache.contains(key));
+			cache.get(key, ATTRACTION, this::load);
+			assertEquals(2, loads.get());
+		}
+	}
+
+	@Test
+	public void heapOnlyCacheCallsLoaderOnMisses() {
+		try (TwoTierRewardPointsCache cache = new TwoTierRewardPointsCache(Duration.ofMinutes(10), 100)) {
+			RewardPointsKey key = RewardPointsKey.of(UUID.randomUUID(), 0);
+			cache.get(key, ATTRACTION, this::load);
+			cache.get(key, ATTRACTION, this::load);
+
+			TwoTierRewardPointsCache.Statistics statistics = cache.getStatistics();
+			assertEquals(1, statistics.loads());
+			assertEquals(0, statistics.l2Hits() + statistics.l2Misses());
+			assertEquals(0, statistics.l2HitRatio());
+		}
+	}
+
+	private TwoTierRewardPointsCache newCache(Path file) {
+		return new TwoTierRewardPointsCache(Duration.ofMinutes(10), 100, new MappedRewardPointsStore(file, 1_000),
+				clock::get);
+	}
+
+	private int load() {
+		loads.incrementAndGet();
+		return 250;
+	}
+}
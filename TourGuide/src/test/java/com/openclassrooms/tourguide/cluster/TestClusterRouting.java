@@ -0,0 +1,122 @@
+package com.openclassrooms.tourguide.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.openclassrooms.tourguide.TourguideApplication;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+
+/**
+ * Starts two instances on localhost and checks they share the users.
+ */
+public class TestClusterRouting {
+
+	private static final int USERS = 20;
+
+	private static int previousUserNumber;
+	private static String firstUrl;
+	private static String secondUrl;
+	private static ConfigurableApplicationContext first;
+	private static ConfigurableApplicationContext second;
+
+	private final HttpClient httpClient = HttpClient.newHttpClient();
+
+	@BeforeAll
+	public static void startInstances() throws IOException {
+		previousUserNumber = InternalTestHelper.getInternalUserNumber();
+		InternalTestHelper.setInternalUserNumber(USERS);
+		int firstPort = freePort();
+		int secondPort = freePort();
+		firstUrl = "http://localhost:" + firstPort;
+		secondUrl = "http://localhost:" + secondPort;
+		first = start(firstPort, firstUrl);
+		second = start(secondPort, secondUrl);
+	}
+
+	@AfterAll
+	public static void stopInstances() {
+		if (first != null) {
+			first.close();
+		}
+		if (second != null) {
+			second.close();
+		}
+		InternalTestHelper.setInternalUserNumber(previousUserNumber);
+	}
+
+	@Test
+	public void instancesShareUsersAndRedirectToTheOwner() throws Exception {
+		ClusterMembership firstMembership = first.getBean(ClusterMembership.class);
+		ClusterMembership secondMembership = second.getBean(ClusterMembership.class);
+		awaitTrue(() -> firstMembership.getLiveNodes().size() == 2 && secondMembership.getLiveNodes().size() == 2);
+
+		List<String> userNames = IntStream.range(0, USERS).mapToObj(i -> "internalUser" + i).toList();
+		for (String userName : userNames) {
+			assertEquals(firstMembership.ownerOf(userName), secondMembership.ownerOf(userName));
+			assertTrue(firstMembership.isOwnedLocally(userName) != secondMembership.isOwnedLocally(userName));
+		}
+
+		String remoteUser = userNames.stream().filter(name -> !firstMembership.isOwnedLocally(name)).findFirst()
+				.orElseThrow();
+		HttpResponse<String> redirect = get(firstUrl + "/getLocation?userName=" + remoteUser);
+		assertEquals(307, redirect.statusCode());
+		assertEquals(secondUrl + "/getLocation?userName=" + remoteUser,
+				redirect.headers().firstValue("Location").orElseThrow());
+		assertEquals(200, get(redirect.headers().firstValue("Location").orElseThrow()).statusCode());
+
+		String localUser = userNames.stream().filter(firstMembership::isOwnedLocally).findFirst().orElseThrow();
+		assertEquals(200, get(firstUrl + "/getLocation?userName=" + localUser).statusCode());
+
+		// The remaining instance takes over every user once its peer is gone
+		second.close();
+		second = null;
+		awaitTrue(() -> firstMembership.getLiveNodes().size() == 1);
+		assertTrue(userNames.stream().allMatch(firstMembership::isOwnedLocally));
+		assertEquals(200, get(firstUrl + "/getLocation?userName=" + remoteUser).statusCode());
+	}
+
+	private HttpResponse<String> get(String url) throws Exception {
+		return httpClient.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+				HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static ConfigurableApplicationContext start(int port, String self) {
+		return new SpringApplicationBuilder(TourguideApplication.class).run(
+				"--server.port=" + port,
+				"--tourguide.startTracker=false",
+				"--tourguide.cluster.enabled=true",
+				"--tourguide.cluster.self=" + self,
+				"--tourguide.cluster.nodes=" + firstUrl + "," + secondUrl,
+				"--tourguide.cluster.heartbeatIntervalMillis=200");
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 15_000;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < deadline, "Condition not met in time");
+			Thread.sleep(100);
+		}
+	}
+}
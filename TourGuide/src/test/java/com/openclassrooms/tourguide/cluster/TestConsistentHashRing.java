@@ -0,0 +1,64 @@
+package com.openclassrooms.tourguide.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class TestConsistentHashRing {
+
+	private static final int USERS = 30_000;
+	private static final List<String> NODES = List.of("http://localhost:8081", "http://localhost:8082",
+			"http://localhost:8083");
+
+	@Test
+	public void usersAreSpreadEvenly() {
+		ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+
+		Map<String, Integer> owned = new HashMap<>();
+		for (int i = 0; i < USERS; i++) {
+			owned.merge(ring.ownerOf("internalUser" + i), 1, Integer::sum);
+		}
+
+		assertEquals(NODES.size(), owned.size());
+		for (int count : owned.values()) {
+			assertTrue(count > USERS / NODES.size() * 0.8 && count < USERS / NODES.size() * 1.2,
+					"Unbalanced ring: " + owned);
+		}
+	}
+
+	@Test
+	public void joiningNodeOnlyTakesUsersFromOthers() {
+		ConsistentHashRing before = new ConsistentHashRing(NODES, 128);
+		ConsistentHashRing after = new ConsistentHashRing(List.of("http://localhost:8084", "http://localhost:8081",
+				"http://localhost:8082", "http://localhost:8083"), 128);
+
+		int moved = 0;
+		for (int i = 0; i < USERS; i++) {
+			String userName = "internalUser" + i;
+			String owner = after.ownerOf(userName);
+			if (!owner.equals(before.ownerOf(userName))) {
+				assertEquals("http://localhost:8084", owner);
+				moved++;
+			}
+		}
+
+		assertTrue(moved > USERS / 4 * 0.8 && moved < USERS / 4 * 1.2, moved + " users moved");
+	}
+
+	@Test
+	public void ringDoesNotDependOnNodeOrder() {
+		ConsistentHashRing ring = new ConsistentHashRing(NODES, 16);
+		ConsistentHashRing reversed = new ConsistentHashRing(List.of(NODES.get(2), NODES.get(1), NODES.get(0)), 16);
+
+		for (int i = 0; i < 1_000; i++) {
+			assertEquals(ring.ownerOf("internalUser" + i), reversed.ownerOf("internalUser" + i));
+		}
+		assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 16));
+	}
+}
@@ -0,0 +1,211 @@
+package com.openclassrooms.tourguide.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.openclassrooms.tourguide.dto.LocationHistoryPageDTO;
+import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.user.UserReward;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+public class TestFlatBinaryMessageConverter {
+
+	private static final UUID USER_ID = UUID.randomUUID();
+	private static final VisitedLocation LOCATION = new VisitedLocation(USER_ID, new Location(33.8, -117.9),
+			new Date(1_700_000_000_000L));
+
+	private final FlatBinaryMessageConverter converter = new FlatBinaryMessageConverter();
+
+	@Test
+	public void writesLocation() throws IOException {
+		DataInputStream input = write(LOCATION, VisitedLocation.class, FlatBinaryMessageConverter.LOCATION);
+
+		assertEquals(USER_ID, new UUID(input.readLong(), input.readLong()));
+		assertEquals(33.8, input.readDouble());
+		assertEquals(-117.9, input.readDouble());
+		assertEquals(1_700_000_000_000L, input.readLong());
+		assertEquals(-1, input.read());
+	}
+
+	@Test
+	public void writesLocationHistoryPage() throws IOException {
+		VisitedLocation next = new VisitedLocation(USER_ID, new Location(34, -118), new Date(1_700_000_060_000L));
+		LocationHistoryPageDTO page = new LocationHistoryPageDTO("jon", 5, 2, null, List.of(LOCATION, next));
+
+		DataInputStream input = write(page, LocationHistoryPageDTO.class, FlatBinaryMessageConverter.PAGE);
+
+		assertEquals("jon", input.readUTF());
+		assertEquals(USER_ID, new UUID(input.readLong(), input.readLong()));
+		assertEquals(5, input.readInt());
+		assertEquals(2, input.readInt());
+		assertEquals(-1, input.readInt());
+		assertEquals(2, input.readInt());
+		input.skipBytes(24);
+		assertEquals(34, input.readDouble());
+		assertEquals(-118, input.readDouble());
+		assertEquals(1_700_000_060_000L, input.readLong());
+		assertEquals(-1, input.read());
+	}
+
+	@Test
+	public void writesRewards() throws IOException {
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008);
+		List<UserReward> rewards = List.of(new UserReward(LOCATION, attraction, 0, 250));
+
+		DataInputStream input = write(rewards, new ParameterizedTypeReference<List<UserReward>>() {
+		}.getType(), FlatBinaryMessageConverter.REWARDS);
+
+		assertEquals(1, input.readInt());
+		assertEquals(attraction.attractionId, new UUID(input.readLong(), input.readLong()));
+		assertEquals("Disneyland", input.readUTF());
+		assertEquals("Anaheim", input.readUTF());
+		assertEquals("CA", input.readUTF());
+		assertEquals(33.817595, input.readDouble());
+		assertEquals(-117.922008, input.readDouble());
+		assertEquals(33.8, input.readDouble());
+		assertEquals(-117.9, input.readDouble());
+		assertEquals(1_700_000_000_000L, input.readLong());
+		assertEquals(250, input.readInt());
+		assertEquals(-1, input.read());
+	}
+
+	@Test
+	public void writesNearbyAttractions() throws IOException {
+		List<NearbyAttractionDTO> attractions = List
+				.of(new NearbyAttractionDTO("Musée d'Orsay", 48.86, 2.326, 48.85, 2.35, 1.2, 80));
+
+		DataInputStream input = write(attractions, new ParameterizedTypeReference<List<NearbyAttractionDTO>>() {
+		}.getType(), FlatBinaryMessageConverter.NEARBY);
+
+		assertEquals(1, input.readInt());
+		assertEquals("Musée d'Orsay", input.readUTF());
+		assertEquals(48.86, input.readDouble());
+		assertEquals(2.326, input.readDouble());
+		assertEquals(48.85, input.readDouble());
+		assertEquals(2.35, input.readDouble());
+		assertEquals(1.2, input.readDouble());
+		assertEquals(80, input.readInt());
+		assertEquals(-1, input.read());
+	}
+
+	@Test
+	public void writesStringsAsModifiedUtf8() throws IOException {
+		FlatWriter writer = new FlatWriter(1);
+		writer.writeString("Zürich 東京 \uD83C\uDFA2 \u0000");
+		writer.writeString(null);
+
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(writer.toByteArray()));
+		assertEquals("Zürich 東京 \uD83C\uDFA2 \u0000", input.readUTF());
+		assertEquals("", input.readUTF());
+		assertThrows(IllegalArgumentException.class, () -> writer.writeString("x".repeat(0x10000)));
+	}
+
+	@Test
+	public void onlyWritesSupportedTypes() {
+		MediaType flat = FlatBinaryMessageConverter.MEDIA_TYPE;
+		assertTrue(converter.canWrite(VisitedLocation.class, VisitedLocation.class, flat));
+		assertFalse(converter.canWrite(VisitedLocation.class, VisitedLocation.class, MediaType.APPLICATION_JSON));
+		assertFalse(converter.canWrite(new ParameterizedTypeReference<List<String>>() {
+		}.getType(), List.class, flat));
+		assertFalse(converter.canWrite(String.class, String.class, flat));
+		assertFalse(converter.canRead(VisitedLocation.class, null, flat));
+	}
+
+	@Test
+	public void negotiatesFormatFromAcceptHeader() throws Exception {
+		MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new TestController())
+				.setMessageConverters(new MappingJackson2HttpMessageConverter(), converter).build();
+
+		mockMvc.perform(get("/location")).andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+		byte[] body = mockMvc.perform(get("/location").accept(FlatBinaryMessageConverter.MEDIA_TYPE))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(FlatBinaryMessageConverter.MEDIA_TYPE)).andReturn().getResponse()
+				.getContentAsByteArray();
+		assertEquals(4 + 16 + 8 + 8 + 8, body.length);
+		mockMvc.perform(get("/greeting").accept(FlatBinaryMessageConverter.MEDIA_TYPE))
+				.andExpect(status().isNotAcceptable());
+		mockMvc.perform(get("/names").accept(FlatBinaryMessageConverter.MEDIA_TYPE))
+				.andExpect(status().isNotAcceptable());
+
+		byte[] rewards = mockMvc.perform(get("/rewards").accept(FlatBinaryMessageConverter.MEDIA_TYPE))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(FlatBinaryMessageConverter.MEDIA_TYPE)).andReturn().getResponse()
+				.getContentAsByteArray();
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(rewards));
+		assertEquals(FlatBinaryMessageConverter.REWARDS, rewards[3]);
+		input.skipBytes(4);
+		assertEquals(1, input.readInt());
+		mockMvc.perform(get("/rewards")).andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+	}
+
+	private DataInputStream write(Object value, Type type, int kind) throws IOException {
+		MockHttpOutputMessage output = new MockHttpOutputMessage();
+		converter.write(value, type, FlatBinaryMessageConverter.MEDIA_TYPE, output);
+		byte[] bytes = output.getBodyAsBytes();
+		assertEquals(bytes.length, output.getHeaders().getContentLength());
+
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+		assertEquals('T', input.readByte());
+		assertEquals('G', input.readByte());
+		assertEquals(FlatBinaryMessageConverter.VERSION, input.readByte());
+		assertEquals(kind, input.readByte());
+		return input;
+	}
+
+	@RestController
+	static class TestController {
+
+		@RequestMapping("/location")
+		public VisitedLocation location() {
+			return LOCATION;
+		}
+
+		@RequestMapping("/rewards")
+		public List<UserReward> rewards() {
+			Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008);
+			return new ArrayList<>(List.of(new UserReward(LOCATION, attraction, 0, 250)));
+		}
+
+		@RequestMapping("/names")
+		public List<String> names() {
+			return new ArrayList<>(List.of("Disneyland"));
+		}
+
+		@RequestMapping("/greeting")
+		public Greeting greeting() {
+			return new Greeting("hello");
+		}
+	}
+
+	record Greeting(String text) {
+	}
+}
@@ -0,0 +1,64 @@
+package com.openclassrooms.tourguide.geo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Location;
+
+public class TestBatchDistanceKernel {
+
+	private final Random random = new Random(11);
+
+	@Test
+	public void scalarKernelMatchesGeoDistance() {
+		List<Location> targets = randomLocations(1_003);
+		CoordinateArrays coordinates = CoordinateArrays.of(targets);
+		double[] distances = new double[targets.size()];
+
+		for (int round = 0; round < 100; round++) {
+			Location from = randomLocation();
+			BatchDistanceKernel.scalar().distances(from, coordinates, distances);
+			for (int i = 0; i < targets.size(); i++) {
+				assertEquals(GeoDistance.miles(from, targets.get(i)), distances[i]);
+			}
+		}
+	}
+
+	@Test
+	public void simdKernelMatchesScalarKernel() {
+		BatchDistanceKernel simd = BatchDistanceKernel.create(true);
+		assertNotSame(BatchDistanceKernel.scalar(), simd);
+
+		List<Location> targets = randomLocations(1_003);
+		CoordinateArrays coordinates = CoordinateArrays.of(targets);
+		double[] expected = new double[targets.size()];
+		double[] actual = new double[targets.size()];
+
+		for (int round = 0; round < 100; round++) {
+			Location from = randomLocation();
+			BatchDistanceKernel.scalar().distances(from, coordinates, expected);
+			simd.distances(from, coordinates, actual);
+			for (int i = 0; i < targets.size(); i++) {
+				assertEquals(expected[i], actual[i], 1e-6);
+			}
+		}
+	}
+
+	private List<Location> randomLocations(int count) {
+		List<Location> locations = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			locations.add(randomLocation());
+		}
+		return locations;
+	}
+
+	private Location randomLocation() {
+		return new Location(random.nextDouble() * 170.1 - 85.05, random.nextDouble() * 360 - 180);
+	}
+}
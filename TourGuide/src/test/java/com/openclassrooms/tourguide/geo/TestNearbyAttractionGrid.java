@@ -0,0 +1,77 @@
+package com.openclassrooms.tourguide.geo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+
+public class TestNearbyAttractionGrid {
+
+	private final Random random = new Random(17);
+
+	@Test
+	public void gridMatchesFullScanForCatalogAttractions() {
+		List<Attraction> attractions = new GpsUtil().getAttractions();
+		NearbyAttractionGrid<Attraction> grid = new NearbyAttractionGrid<>(attractions, 5, 1);
+
+		for (int round = 0; round < 20_000; round++) {
+			Location location = round % 2 == 0 ? randomLocation() : nearAttraction(attractions);
+			assertEquals(fullScan(attractions, location, 5), grid.nearest(location, 5));
+		}
+		Location losAngeles = new Location(34.05, -118.24);
+		assertTrue(grid.getCandidateCount(losAngeles) < attractions.size());
+	}
+
+	@Test
+	public void gridMatchesFullScanForDenseAttractions() {
+		List<Location> attractions = new ArrayList<>();
+		for (int i = 0; i < 1_000; i++) {
+			attractions.add(randomLocation());
+		}
+		NearbyAttractionGrid<Location> grid = new NearbyAttractionGrid<>(attractions, 5, 1);
+
+		long candidates = 0;
+		for (int round = 0; round < 2_000; round++) {
+			Location location = round == 0 ? new Location(90, 0)
+					: round == 1 ? new Location(-12.5, 180) : randomLocation();
+			for (int limit : new int[] { 1, 5 }) {
+				assertEquals(fullScan(attractions, location, limit), grid.nearest(location, limit));
+			}
+			candidates += grid.getCandidateCount(location);
+		}
+
+		// Limits above the one of the grid fall back on a full scan
+		Location location = randomLocation();
+		assertEquals(fullScan(attractions, location, 8), grid.nearest(location, 8));
+		assertTrue(candidates / 2_000 < attractions.size() / 20, "Too many candidates: " + candidates / 2_000);
+	}
+
+	private <T extends Location> List<T> fullScan(List<T> attractions, Location location, int limit) {
+		double[] distances = attractions.stream().mapToDouble(attraction -> GeoDistance.miles(location, attraction))
+				.toArray();
+		return IntStream.range(0, attractions.size()).boxed()
+				.sorted(Comparator.comparingDouble((Integer i) -> distances[i]).thenComparing(i -> i))
+				.limit(limit)
+				.map(attractions::get)
+				.toList();
+	}
+
+	private Location nearAttraction(List<Attraction> attractions) {
+		Attraction attraction = attractions.get(random.nextInt(attractions.size()));
+		return new Location(attraction.latitude + random.nextGaussian(), attraction.longitude + random.nextGaussian());
+	}
+
+	private Location randomLocation() {
+		return new Location(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+	}
+}
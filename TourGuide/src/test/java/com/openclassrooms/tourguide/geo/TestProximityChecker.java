@@ -0,0 +1,71 @@
+package com.openclassrooms.tourguide.geo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Location;
+
+public class TestProximityChecker {
+
+	private static final double EARTH_RADIUS_MILES = GeoDistance.MILES_PER_DEGREE * 180 / Math.PI;
+
+	private final ProximityChecker checker = new ProximityChecker(true);
+	private final Random random = new Random(42);
+
+	@Test
+	public void sameDecisionsAsExactDistanceAroundThreshold() {
+		double[] radii = { 10, 200, 500, 1000 };
+		for (int i = 0; i < 500_000; i++) {
+			Location center = randomLocation();
+			double radius = radii[i % radii.length];
+			double distance = radius * (1 + (random.nextDouble() - 0.5) * 0.04);
+			Location other = destination(center, distance, random.nextDouble() * 2 * Math.PI);
+
+			assertEquals(GeoDistance.miles(center, other) <= radius, checker.isWithin(center, other, radius));
+		}
+	}
+
+	@Test
+	public void sameDecisionsAsExactDistanceForRandomPairs() {
+		for (int i = 0; i < 500_000; i++) {
+			Location from = randomLocation();
+			Location to = randomLocation();
+			double radius = random.nextDouble() * 3000;
+
+			assertEquals(GeoDistance.miles(from, to) <= radius, checker.isWithin(from, to, radius));
+		}
+	}
+
+	@Test
+	public void exactThresholdIsWithin() {
+		for (int i = 0; i < 100_000; i++) {
+			Location center = randomLocation();
+			Location other = destination(center, random.nextDouble() * 600, random.nextDouble() * 2 * Math.PI);
+			double radius = GeoDistance.miles(center, other);
+
+			assertTrue(checker.isWithin(center, other, radius));
+		}
+	}
+
+	private Location randomLocation() {
+		return new Location(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+	}
+
+	private Location destination(Location start, double distanceMiles, double bearing) {
+		double angle = distanceMiles / EARTH_RADIUS_MILES;
+		double latitude = Math.toRadians(start.latitude);
+		double longitude = Math.toRadians(start.longitude);
+
+		double destinationLatitude = Math.asin(Math.sin(latitude) * Math.cos(angle)
+				+ Math.cos(latitude) * Math.sin(angle) * Math.cos(bearing));
+		double destinationLongitude = longitude + Math.atan2(Math.sin(bearing) * Math.sin(angle) * Math.cos(latitude),
+				Math.cos(angle) - Math.sin(latitude) * Math.sin(destinationLatitude));
+
+		double longitudeDegrees = Math.toDegrees(destinationLongitude);
+		return new Location(Math.toDegrees(destinationLatitude), ((longitudeDegrees + 540) % 360) - 180);
+	}
+}
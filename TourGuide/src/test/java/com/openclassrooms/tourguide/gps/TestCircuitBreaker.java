@@ -0,0 +1,55 @@
+package com.openclassrooms.tourguide.gps;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class TestCircuitBreaker {
+
+	private final AtomicLong clock = new AtomicLong();
+	private final CircuitBreaker circuitBreaker = new CircuitBreaker(10, 4, 0.5, Duration.ofSeconds(5), clock::get);
+
+	@Test
+	public void opensWhenFailureRateReachesThreshold() {
+		for (int i = 0; i < 6; i++) {
+			assertTrue(circuitBreaker.tryAcquire());
+			circuitBreaker.recordSuccess();
+		}
+		for (int i = 0; i < 4; i++) {
+			assertTrue(circuitBreaker.tryAcquire());
+			circuitBreaker.recordFailure();
+			assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+		}
+		// 5 failures out of the last 10 calls
+		circuitBreaker.tryAcquire();
+		circuitBreaker.recordFailure();
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+		assertFalse(circuitBreaker.tryAcquire());
+	}
+
+	@Test
+	public void letsOneTrialThroughAfterOpenDuration() {
+		for (int i = 0; i < 4; i++) {
+			circuitBreaker.tryAcquire();
+			circuitBreaker.recordFailure();
+		}
+		assertFalse(circuitBreaker.tryAcquire());
+
+		clock.addAndGet(Duration.ofSeconds(5).toNanos());
+		assertTrue(circuitBreaker.tryAcquire());
+		assertFalse(circuitBreaker.tryAcquire());
+		circuitBreaker.recordFailure();
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+		clock.addAndGet(Duration.ofSeconds(5).toNanos());
+		assertTrue(circuitBreaker.tryAcquire());
+		circuitBreaker.recordSuccess();
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+		assertTrue(circuitBreaker.tryAcquire());
+	}
+}
@@ -0,0 +1,85 @@
+package com.openclassrooms.tourguide.gps;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+public class TestResilientGpsClient {
+
+	private final AtomicInteger gpsCalls = new AtomicInteger();
+
+	@Test
+	public void hedgeAnswersWhenFirstAttemptIsSlow() {
+		// Every other call stalls, so the hedge of a stalled call is fast
+		try (ResilientGpsClient client = newClient(userId -> {
+			if (gpsCalls.getAndIncrement() % 2 == 0) {
+				sleep(2_000);
+			}
+			return location(userId);
+		}, 1.0)) {
+			UUID userId = UUID.randomUUID();
+			long start = System.nanoTime();
+			Optional<VisitedLocation> location = client.getUserLocation(userId);
+
+			assertEquals(userId, location.orElseThrow().userId);
+			assertTrue(System.nanoTime() - start < Duration.ofMillis(500).toNanos());
+			assertEquals(1, client.getHedgeCount());
+		}
+	}
+
+	@Test
+	public void missedDeadlineGivesNoLocation() {
+		try (ResilientGpsClient client = newClient(userId -> {
+			sleep(2_000);
+			return location(userId);
+		}, 0)) {
+			long start = System.nanoTime();
+			assertTrue(client.getUserLocation(UUID.randomUUID()).isEmpty());
+			assertTrue(System.nanoTime() - start < Duration.ofMillis(1_000).toNanos());
+			assertEquals(1, client.getFailureCount());
+		}
+	}
+
+	@Test
+	public void openCircuitSkipsTheGpsService() {
+		try (ResilientGpsClient client = newClient(userId -> {
+			gpsCalls.incrementAndGet();
+			throw new IllegalStateException("GPS down");
+		}, 0)) {
+			for (int i = 0; i < 10; i++) {
+				assertTrue(client.getUserLocation(UUID.randomUUID()).isEmpty());
+			}
+			assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+			assertEquals(4, gpsCalls.get());
+			assertEquals(6, client.getShortCircuitCount());
+		}
+	}
+
+	private ResilientGpsClient newClient(Function<UUID, VisitedLocation> gps, double maxHedgeRatio) {
+		return new ResilientGpsClient(gps, new ResilientGpsClient.Settings(Duration.ofMillis(300),
+				Duration.ofMillis(20), maxHedgeRatio, 16, 10, 4, 0.5, Duration.ofMinutes(1)));
+	}
+
+	private static VisitedLocation location(UUID userId) {
+		return new VisitedLocation(userId, new Location(48.85, 2.35), new Date());
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package com.openclassrooms.tourguide.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Open-model HTTP load generator.
+ *
+ * Requests arrive as a Poisson process at a given rate, whatever the response
+ * times: a slow server faces a growing number of requests in flight, as it
+ * would in production, instead of slowing the generator down. The latency of
+ * a request is measured from its scheduled arrival, so the time a request
+ * waits behind a late one is not hidden (no coordinated omission).
+ */
+public class LoadGenerator {
+
+	private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+	private final HttpClient httpClient;
+	private final URI baseUri;
+	private final RequestMix mix;
+	private final List<String> userNames;
+	private final Random random;
+
+	/**
+	 * Creates a generator.
+	 *
+	 * @param httpClient Client sending the requests
+	 * @param baseUri    Root of the application, such as http://localhost:8080
+	 * @param mix        Endpoints requested
+	 * @param userNames  Users the requests are drawn for
+	 * @param seed       Seed of the arrivals, endpoints and users drawn
+	 */
+	public LoadGenerator(HttpClient httpClient, URI baseUri, RequestMix mix, List<String> userNames, long seed) {
+		this.httpClient = httpClient;
+		this.baseUri = baseUri;
+		this.mix = mix;
+		this.userNames = List.copyOf(userNames);
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Sends requests for a given time and waits for their responses.
+	 *
+	 * @param ratePerSecond Mean number of requests started per second
+	 * @param duration      Time during which requests are started
+	 * @param maxInFlight   Number of requests in flight beyond which new
+	 *                      arrivals are dropped, and counted as such
+	 * @return Throughput and latencies, per endpoint and overall
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public LoadReport run(double ratePerSecond, Duration duration, int maxInFlight) throws InterruptedException {
+		Map<String, Recorder> recorders = new LinkedHashMap<>();
+		for (String endpoint : mix.getEndpoints()) {
+			recorders.put(endpoint, new Recorder());
+		}
+		Semaphore inFlight = new Semaphore(maxInFlight);
+		double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+		long start = System.nanoTime();
+		long end = start + duration.toNanos();
+		double arrival = start;
+		while (true) {
+			arrival += -Math.log(1 - random.nextDouble()) * meanIntervalNanos;
+			long scheduled = (long) arrival;
+			if (scheduled >= end) {
+				break;
+			}
+			String endpoint = mix.pick(random);
+			HttpRequest request = request(endpoint, userNames.get(random.nextInt(userNames.size())));
+			Recorder recorder = recorders.get(endpoint);
+			for (long wait = scheduled - System.nanoTime(); wait > 0; wait = scheduled - System.nanoTime()) {
+				LockSupport.parkNanos(wait);
+			}
+			if (!inFlight.tryAcquire()) {
+				recorder.dropped.increment();
+				continue;
+			}
+			httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, e) -> {
+				recorder.record(System.nanoTime() - scheduled, e == null && response.statusCode() == 200);
+				inFlight.release();
+			});
+		}
+		// Waits for the last responses, which belong to the measured window
+		inFlight.tryAcquire(maxInFlight, 1, TimeUnit.MINUTES);
+		long elapsed = System.nanoTime() - start;
+
+		Map<String, LoadReport.EndpointResult> results = new LinkedHashMap<>();
+		Recorder all = new Recorder();
+		recorders.forEach((endpoint, recorder) -> {
+			results.put(endpoint, recorder.result(endpoint, elapsed));
+			all.add(recorder);
+		});
+		return new LoadReport(ratePerSecond, Duration.ofNanos(elapsed), List.copyOf(results.values()),
+				all.result("all", elapsed));
+	}
+
+	private HttpRequest request(String endpoint, String userName) {
+		return HttpRequest.newBuilder(baseUri.resolve("/" + endpoint + "?userName="
+				+ URLEncoder.encode(userName, StandardCharsets.UTF_8))).GET().build();
+	}
+
+	private static final class Recorder {
+
+		private final Histogram latencies = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+		private final LongAdder errors = new LongAdder();
+		private final LongAdder dropped = new LongAdder();
+
+		private void record(long latencyNanos, boolean succeeded) {
+			latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_LATENCY_MICROS));
+			if (!succeeded) {
+				errors.increment();
+			}
+		}
+
+		private void add(Recorder other) {
+			latencies.add(other.latencies);
+			errors.add(other.errors.sum());
+			dropped.add(other.dropped.sum());
+		}
+
+		private LoadReport.EndpointResult result(String endpoint, long elapsedNanos) {
+			long completed = latencies.getTotalCount();
+			return new LoadReport.EndpointResult(endpoint, completed, errors.sum(), dropped.sum(),
+					completed * 1e9 / elapsedNanos, millis(50), millis(90), millis(99), millis(99.9),
+					latencies.getMaxValue() / 1000.0);
+		}
+
+		private double millis(double percentile) {
+			return latencies.getValueAtPercentile(percentile) / 1000.0;
+		}
+	}
+}
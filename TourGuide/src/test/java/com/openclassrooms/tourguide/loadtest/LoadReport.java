@@ -0,0 +1,53 @@
+package com.openclassrooms.tourguide.loadtest;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of a load test run.
+ *
+ * @param targetRate Mean number of requests started per second
+ * @param elapsed    Time from the first arrival to the last response
+ * @param endpoints  Results per endpoint, in the order of the mix
+ * @param overall    Results of every endpoint together
+ */
+public record LoadReport(double targetRate, Duration elapsed, List<LoadReport.EndpointResult> endpoints,
+		LoadReport.EndpointResult overall) {
+
+	/**
+	 * Throughput and latencies of an endpoint, latencies in milliseconds.
+	 *
+	 * @param endpoint   Endpoint requested
+	 * @param completed  Number of responses, or failures to get one
+	 * @param errors     Number of requests without a 200 response
+	 * @param dropped    Number of arrivals not sent because too many requests
+	 *                   were in flight
+	 * @param throughput Responses per second
+	 */
+	public record EndpointResult(String endpoint, long completed, long errors, long dropped, double throughput,
+			double p50, double p90, double p99, double p999, double max) {
+	}
+
+	/**
+	 * Formats the report as a table, one line per endpoint.
+	 *
+	 * @return Report as text
+	 */
+	public String format() {
+		StringBuilder text = new StringBuilder(String.format("Target %.0f req/s, %d s%n", targetRate,
+				elapsed.toSeconds()));
+		text.append(String.format("%-22s %8s %7s %7s %9s %9s %9s %9s %9s %9s%n", "endpoint", "requests", "errors",
+				"dropped", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+		for (EndpointResult result : endpoints) {
+			format(text, result);
+		}
+		format(text, overall);
+		return text.toString();
+	}
+
+	private static void format(StringBuilder text, EndpointResult result) {
+		text.append(String.format("%-22s %8d %7d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", result.endpoint(),
+				result.completed(), result.errors(), result.dropped(), result.throughput(), result.p50(),
+				result.p90(), result.p99(), result.p999(), result.max()));
+	}
+}
@@ -0,0 +1,85 @@
+package com.openclassrooms.tourguide.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Weighted mix of the endpoints requested by a load test, such as
+ * {@code getLocation=40,getNearbyAttractions=30,getRewards=20,getTripDeals=10}.
+ * Every endpoint takes a {@code userName} parameter.
+ */
+public class RequestMix {
+
+	public static final String DEFAULT = "getLocation=40,getNearbyAttractions=30,getRewards=20,getTripDeals=10";
+
+	private final List<String> endpoints = new ArrayList<>();
+	private final int[] cumulativeWeights;
+
+	private RequestMix(Map<String, Integer> weights) {
+		cumulativeWeights = new int[weights.size()];
+		int total = 0;
+		for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+			endpoints.add(weight.getKey());
+			total += weight.getValue();
+			cumulativeWeights[endpoints.size() - 1] = total;
+		}
+	}
+
+	/**
+	 * Reads a mix.
+	 *
+	 * @param mix Comma-separated endpoint=weight pairs, endpoints without the
+	 *            leading slash
+	 * @return Request mix
+	 * @throws IllegalArgumentException if a pair is malformed or no weight is
+	 *                                  strictly positive
+	 */
+	public static RequestMix parse(String mix) {
+		Map<String, Integer> weights = new LinkedHashMap<>();
+		for (String pair : mix.split(",")) {
+			String[] parts = pair.trim().split("=");
+			if (parts.length != 2 || parts[0].isBlank()) {
+				throw new IllegalArgumentException("Expected endpoint=weight, got " + pair);
+			}
+			int weight = Integer.parseInt(parts[1].trim());
+			if (weight < 0) {
+				throw new IllegalArgumentException("Negative weight for " + parts[0]);
+			}
+			if (weight > 0) {
+				weights.merge(parts[0].trim(), weight, Integer::sum);
+			}
+		}
+		if (weights.isEmpty()) {
+			throw new IllegalArgumentException("The mix has no endpoint");
+		}
+		return new RequestMix(weights);
+	}
+
+	/**
+	 * Returns the endpoints of the mix.
+	 *
+	 * @return Endpoints, in the order of the mix
+	 */
+	public List<String> getEndpoints() {
+		return List.copyOf(endpoints);
+	}
+
+	/**
+	 * Draws an endpoint according to the weights.
+	 *
+	 * @param random Source of randomness
+	 * @return Endpoint
+	 */
+	public String pick(Random random) {
+		int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+		for (int i = 0; i < cumulativeWeights.length; i++) {
+			if (draw < cumulativeWeights[i]) {
+				return endpoints.get(i);
+			}
+		}
+		throw new IllegalStateException("Draw " + draw + " beyond the total weight");
+	}
+}
@@ -0,0 +1,101 @@
+package com.openclassrooms.tourguide.loadtest;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+import tripPricer.Provider;
+import tripPricer.TripPricer;
+
+/**
+ * Stand-ins of gpsUtil, RewardCentral and TripPricer answering after a fixed
+ * latency, without the random sleeps and the rate limit of the libraries, so
+ * that a load test measures the application rather than its dependencies.
+ *
+ * Deliberately not annotated: it would otherwise be picked up by the component
+ * scan of every application started by the tests. Pass it as a source of the
+ * application to use the stand-ins.
+ */
+public class StandInDependencies {
+
+	private static final Duration GPS_LATENCY = Duration.ofMillis(Long.getLong("tourguide.load.gpsLatencyMillis", 20));
+	private static final Duration REWARD_LATENCY = Duration
+			.ofMillis(Long.getLong("tourguide.load.rewardLatencyMillis", 10));
+	private static final Duration PRICER_LATENCY = Duration
+			.ofMillis(Long.getLong("tourguide.load.pricerLatencyMillis", 20));
+
+	@Bean
+	@Primary
+	public GpsUtil standInGpsUtil() {
+		return new StandInGpsUtil();
+	}
+
+	@Bean
+	@Primary
+	public RewardCentral standInRewardCentral() {
+		return new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				sleep(REWARD_LATENCY);
+				return ThreadLocalRandom.current().nextInt(1, 1000);
+			}
+		};
+	}
+
+	@Bean
+	public TripPricer standInTripPricer() {
+		return new TripPricer() {
+			@Override
+			public List<Provider> getPrice(String apiKey, UUID attractionId, int adults, int children,
+					int nightsStay, int rewardsPoints) {
+				sleep(PRICER_LATENCY);
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				return IntStream.range(0, 5)
+						.mapToObj(i -> new Provider(attractionId, "Provider " + i,
+								Math.max(0, random.nextInt(100, 1000) * (adults + children / 2.0) * nightsStay
+										- rewardsPoints)))
+						.toList();
+			}
+		};
+	}
+
+	private static final class StandInGpsUtil extends GpsUtil {
+
+		// Read once from the library, which sleeps on every call
+		private final List<Attraction> attractions = super.getAttractions();
+
+		@Override
+		public VisitedLocation getUserLocation(UUID userId) {
+			sleep(GPS_LATENCY);
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			return new VisitedLocation(userId,
+					new Location(random.nextDouble(-85.05112878, 85.05112878), random.nextDouble(-180, 180)),
+					new Date());
+		}
+
+		@Override
+		public List<Attraction> getAttractions() {
+			return attractions;
+		}
+	}
+
+	private static void sleep(Duration latency) {
+		try {
+			Thread.sleep(latency.toMillis());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted stand-in call", e);
+		}
+	}
+}
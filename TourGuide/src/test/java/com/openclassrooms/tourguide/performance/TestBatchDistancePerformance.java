@@ -0,0 +1,97 @@
+package com.openclassrooms.tourguide.performance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.geo.BatchDistanceKernel;
+import com.openclassrooms.tourguide.geo.CoordinateArrays;
+import com.openclassrooms.tourguide.geo.GeoDistance;
+
+import gpsUtil.location.Location;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class TestBatchDistancePerformance {
+
+	// Number of distances computed for each attraction count
+	private static final long DISTANCES_PER_RUN = 5_000_000;
+
+	private final Random random = new Random(3);
+
+	@Test
+	public void highVolumeBatchDistances() {
+		BatchDistanceKernel scalar = BatchDistanceKernel.scalar();
+		BatchDistanceKernel simd = BatchDistanceKernel.create(true);
+
+		log.info("===== FINAL RESULT =====");
+		for (int attractionCount : new int[] { 26, 1_000, 100_000 }) {
+			List<Location> attractions = randomLocations(attractionCount);
+			CoordinateArrays coordinates = CoordinateArrays.of(attractions);
+			Location[] origins = randomLocations(1_000).toArray(new Location[0]);
+			int rounds = (int) Math.max(1, DISTANCES_PER_RUN / attractionCount);
+
+			// Warm up every path before measuring
+			runPairwise(attractions, origins, Math.max(1, rounds / 10));
+			runKernel(scalar, coordinates, origins, Math.max(1, rounds / 10));
+			runKernel(simd, coordinates, origins, Math.max(1, rounds / 10));
+
+			StopWatch stopWatch = StopWatch.createStarted();
+			double pairwiseSum = runPairwise(attractions, origins, rounds);
+			long pairwiseMillis = stopWatch.getTime();
+
+			stopWatch = StopWatch.createStarted();
+			double scalarSum = runKernel(scalar, coordinates, origins, rounds);
+			long scalarMillis = stopWatch.getTime();
+
+			stopWatch = StopWatch.createStarted();
+			double simdSum = runKernel(simd, coordinates, origins, rounds);
+			long simdMillis = stopWatch.getTime();
+
+			long distances = (long) rounds * attractionCount;
+			log.info("{} attractions: pairwise {} distances/ms, scalar kernel {} distances/ms, SIMD kernel {} distances/ms",
+					attractionCount, distances / Math.max(1, pairwiseMillis), distances / Math.max(1, scalarMillis),
+					distances / Math.max(1, simdMillis));
+
+			assertEquals(pairwiseSum, scalarSum, Math.abs(pairwiseSum) * 1e-9);
+			assertEquals(scalarSum, simdSum, Math.abs(scalarSum) * 1e-9);
+		}
+	}
+
+	private double runPairwise(List<Location> attractions, Location[] origins, int rounds) {
+		double sum = 0;
+		for (int round = 0; round < rounds; round++) {
+			Location origin = origins[round % origins.length];
+			for (Location attraction : attractions) {
+				sum += GeoDistance.miles(origin, attraction);
+			}
+		}
+		return sum;
+	}
+
+	private double runKernel(BatchDistanceKernel kernel, CoordinateArrays coordinates, Location[] origins,
+			int rounds) {
+		double[] distances = new double[coordinates.size()];
+		double sum = 0;
+		for (int round = 0; round < rounds; round++) {
+			kernel.distances(origins[round % origins.length], coordinates, distances);
+			for (double distance : distances) {
+				sum += distance;
+			}
+		}
+		return sum;
+	}
+
+	private List<Location> randomLocations(int count) {
+		List<Location> locations = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			locations.add(new Location(random.nextDouble() * 170.1 - 85.05, random.nextDouble() * 360 - 180));
+		}
+		return locations;
+	}
+}
@@ -0,0 +1,88 @@
+package com.openclassrooms.tourguide.performance;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.openclassrooms.tourguide.TourguideApplication;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.loadtest.LoadGenerator;
+import com.openclassrooms.tourguide.loadtest.LoadReport;
+import com.openclassrooms.tourguide.loadtest.RequestMix;
+import com.openclassrooms.tourguide.loadtest.StandInDependencies;
+import com.openclassrooms.tourguide.service.TourGuideService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drives the HTTP endpoints of the application, JSON serialization included,
+ * with an open-model request mix while the tracker locates every user.
+ *
+ * The application runs against {@link StandInDependencies}. The run is set
+ * with system properties, for instance
+ * {@code -Dtourguide.load.rate=500 -Dtourguide.load.mix=getLocation=1,getTripDeals=1}.
+ */
+@Slf4j
+public class TestControllerLoadPerformance {
+
+	private static final int USERS = Integer.getInteger("tourguide.load.users", 1000);
+	private static final double RATE = Double.parseDouble(System.getProperty("tourguide.load.rate", "100"));
+	private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("tourguide.load.warmupSeconds", 10));
+	private static final Duration DURATION = Duration.ofSeconds(Long.getLong("tourguide.load.durationSeconds", 30));
+	private static final int MAX_IN_FLIGHT = Integer.getInteger("tourguide.load.maxInFlight", 2000);
+	private static final Duration TRACKER_INTERVAL = Duration
+			.ofSeconds(Long.getLong("tourguide.load.trackerIntervalSeconds", 10));
+	private static final String MIX = System.getProperty("tourguide.load.mix", RequestMix.DEFAULT);
+
+	@Test
+	public void requestMixWithTrackerRunning() throws Exception {
+		int previousUserNumber = InternalTestHelper.getInternalUserNumber();
+		InternalTestHelper.setInternalUserNumber(USERS);
+		int port = freePort();
+		ScheduledExecutorService tracking = Executors.newSingleThreadScheduledExecutor();
+		try (ConfigurableApplicationContext application = new SpringApplicationBuilder(TourguideApplication.class,
+				StandInDependencies.class).run("--server.port=" + port, "--tourguide.startTracker=true")) {
+			// The tracker of the application only runs every five minutes
+			TourGuideService tourGuideService = application.getBean(TourGuideService.class);
+			tracking.scheduleWithFixedDelay(tourGuideService.tracker::trackUsers, TRACKER_INTERVAL.toMillis(),
+					TRACKER_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+
+			List<String> userNames = IntStream.range(0, USERS).mapToObj(i -> "internalUser" + i).toList();
+			LoadGenerator generator = new LoadGenerator(HttpClient.newHttpClient(),
+					URI.create("http://localhost:" + port), RequestMix.parse(MIX), userNames, 42);
+			log.info("Warming up for {} s", WARMUP.toSeconds());
+			generator.run(RATE, WARMUP, MAX_IN_FLIGHT);
+			LoadReport report = generator.run(RATE, DURATION, MAX_IN_FLIGHT);
+
+			log.info("===== FINAL RESULT =====");
+			log.info("requestMixWithTrackerRunning: {} users, tracker every {} s{}{}", USERS,
+					TRACKER_INTERVAL.toSeconds(), System.lineSeparator(), report.format());
+			LoadReport.EndpointResult overall = report.overall();
+			assertTrue(overall.completed() > 0);
+			assertTrue(overall.errors() + overall.dropped() <= overall.completed() / 100,
+					"More than 1% of the requests failed or were dropped");
+		} finally {
+			tracking.shutdownNow();
+			InternalTestHelper.setInternalUserNumber(previousUserNumber);
+		}
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
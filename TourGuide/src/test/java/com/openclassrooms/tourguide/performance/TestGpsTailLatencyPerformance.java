@@ -0,0 +1,94 @@
+package com.openclassrooms.tourguide.performance;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.gps.ResilientGpsClient;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares tracking cycles calling a GPS stand-in directly and through the
+ * {@link ResilientGpsClient}. The stand-in answers in 5 to 15 ms, except for
+ * {@value #SPIKE_PERCENT}% of the calls which take {@value #SPIKE_MILLIS} ms.
+ */
+@Slf4j
+public class TestGpsTailLatencyPerformance {
+
+	private static final int USERS = 200;
+	private static final int CYCLES = 20;
+	private static final int THREADS = 32;
+	private static final int SPIKE_PERCENT = 3;
+	private static final long SPIKE_MILLIS = 1_500;
+
+	@Test
+	public void hedgingCutsTrackingCycleTail() {
+		List<UUID> userIds = IntStream.range(0, USERS).mapToObj(i -> UUID.randomUUID()).toList();
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try (ResilientGpsClient client = new ResilientGpsClient(TestGpsTailLatencyPerformance::spikyGps,
+				new ResilientGpsClient.Settings(Duration.ofMillis(500), Duration.ofMillis(5), 0.1, 256, 100, 20, 0.5,
+						Duration.ofSeconds(5)))) {
+			long[] directCycles = runCycles(executor, userIds, TestGpsTailLatencyPerformance::spikyGps);
+			long[] resilientCycles = runCycles(executor, userIds,
+					userId -> client.getUserLocation(userId).orElse(null));
+
+			log.info("===== FINAL RESULT =====");
+			log.info("hedgingCutsTrackingCycleTail: direct cycle p50 {} ms, p99 {} ms", percentile(directCycles, 0.5),
+					percentile(directCycles, 0.99));
+			log.info("hedgingCutsTrackingCycleTail: resilient cycle p50 {} ms, p99 {} ms, {} hedges, {} failures",
+					percentile(resilientCycles, 0.5), percentile(resilientCycles, 0.99), client.getHedgeCount(),
+					client.getFailureCount());
+
+			assertTrue(percentile(resilientCycles, 0.99) < percentile(directCycles, 0.99));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private long[] runCycles(ExecutorService executor, List<UUID> userIds, Function<UUID, VisitedLocation> gps) {
+		long[] cycleMillis = new long[CYCLES];
+		for (int cycle = 0; cycle < CYCLES; cycle++) {
+			StopWatch stopWatch = StopWatch.createStarted();
+			CompletableFuture.allOf(userIds.stream()
+					.map(userId -> CompletableFuture.runAsync(() -> gps.apply(userId), executor))
+					.toArray(CompletableFuture[]::new)).join();
+			stopWatch.stop();
+			cycleMillis[cycle] = stopWatch.getTime();
+		}
+		return cycleMillis;
+	}
+
+	private static long percentile(long[] values, double rank) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[(int) Math.ceil(sorted.length * rank) - 1];
+	}
+
+	private static VisitedLocation spikyGps(UUID userId) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long millis = random.nextInt(100) < SPIKE_PERCENT ? SPIKE_MILLIS : 5 + random.nextInt(11);
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return new VisitedLocation(userId, new Location(random.nextDouble(-85, 85), random.nextDouble(-180, 180)),
+				new Date());
+	}
+}
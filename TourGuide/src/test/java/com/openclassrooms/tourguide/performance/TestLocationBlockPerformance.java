@@ -0,0 +1,148 @@
+package com.openclassrooms.tourguide.performance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.user.LocationBlock;
+import com.openclassrooms.tourguide.user.LocationHistory;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class TestLocationBlockPerformance {
+
+	private static final int LOCATIONS = 1_000_000;
+	private static final int DECODE_ROUNDS = 5;
+	private static final long TRACKING_INTERVAL_MILLIS = 300_000;
+
+	private final UUID userId = UUID.randomUUID();
+
+	@Test
+	public void compressionRatioAndDecodeThroughput() {
+		log.info("===== FINAL RESULT =====");
+		double trackedRatio = measure("Tracked user", trackedLocations(new Random(7)));
+		double randomRatio = measure("Random positions", randomLocations(new Random(7)));
+
+		assertTrue(trackedRatio > 5, "Compression ratio of a tracked user: " + trackedRatio);
+		assertTrue(randomRatio > 2, "Compression ratio of random positions: " + randomRatio);
+	}
+
+	/**
+	 * Measures the heap taken by the locations as objects and as blocks, and
+	 * how fast the blocks decode. Returns the compression ratio.
+	 */
+	private double measure(String profile, List<VisitedLocation> locations) {
+		long objectsHeap = retainedHeap(() -> new ArrayList<>(copy(locations)));
+		long blocksHeap = retainedHeap(() -> encode(locations));
+		long encodedBytes = encode(locations).stream().mapToLong(LocationBlock::getEncodedSize).sum();
+
+		double bestLocationsPerSecond = 0;
+		long decoded = 0;
+		for (int round = 0; round < DECODE_ROUNDS; round++) {
+			// Fresh blocks, so that nothing is decoded yet
+			List<LocationBlock> blocks = encode(locations);
+			StopWatch stopWatch = StopWatch.createStarted();
+			decoded = 0;
+			for (LocationBlock block : blocks) {
+				decoded += block.decode().size();
+			}
+			stopWatch.stop();
+			bestLocationsPerSecond = Math.max(bestLocationsPerSecond,
+					decoded * 1e9 / Math.max(1, stopWatch.getNanoTime()));
+		}
+		assertEquals(LOCATIONS, decoded);
+
+		double ratio = (double) objectsHeap / blocksHeap;
+		log.info("{}: {} bytes per location as objects, {} bytes per location in blocks ({} encoded), ratio {}",
+				profile, String.format("%.1f", (double) objectsHeap / LOCATIONS),
+				String.format("%.1f", (double) blocksHeap / LOCATIONS),
+				String.format("%.1f", (double) encodedBytes / LOCATIONS), String.format("%.1f", ratio));
+		log.info("{}: decoding {} million locations per second", profile,
+				String.format("%.1f", bestLocationsPerSecond / 1e6));
+		return ratio;
+	}
+
+	/**
+	 * A user tracked every 5 minutes, with a few milliseconds of jitter, walking
+	 * around at up to a few kilometers per hour.
+	 */
+	private List<VisitedLocation> trackedLocations(Random random) {
+		List<VisitedLocation> locations = new ArrayList<>(LOCATIONS);
+		double latitude = 40.7;
+		double longitude = -74.0;
+		long time = 1_700_000_000_000L;
+		for (int i = 0; i < LOCATIONS; i++) {
+			latitude += (random.nextDouble() - 0.5) * 0.002;
+			longitude += (random.nextDouble() - 0.5) * 0.002;
+			time += TRACKING_INTERVAL_MILLIS + random.nextInt(20);
+			locations.add(new VisitedLocation(userId, new Location(latitude, longitude), new Date(time)));
+		}
+		return locations;
+	}
+
+	/**
+	 * Positions anywhere on Earth, as returned by the GPS simulator: the worst
+	 * case for the coordinate deltas.
+	 */
+	private List<VisitedLocation> randomLocations(Random random) {
+		List<VisitedLocation> locations = new ArrayList<>(LOCATIONS);
+		long time = 1_700_000_000_000L;
+		for (int i = 0; i < LOCATIONS; i++) {
+			time += TRACKING_INTERVAL_MILLIS + random.nextInt(20);
+			locations.add(new VisitedLocation(userId,
+					new Location(random.nextDouble() * 170 - 85, random.nextDouble() * 360 - 180), new Date(time)));
+		}
+		return locations;
+	}
+
+	private List<VisitedLocation> copy(List<VisitedLocation> locations) {
+		List<VisitedLocation> copy = new ArrayList<>(locations.size());
+		for (VisitedLocation location : locations) {
+			copy.add(new VisitedLocation(location.userId,
+					new Location(location.location.latitude, location.location.longitude),
+					new Date(location.timeVisited.getTime())));
+		}
+		return copy;
+	}
+
+	private static List<LocationBlock> encode(List<VisitedLocation> locations) {
+		List<LocationBlock> blocks = new ArrayList<>();
+		for (int start = 0; start < locations.size(); start += LocationHistory.BLOCK_SIZE) {
+			blocks.add(LocationBlock.encode(
+					locations.subList(start, Math.min(locations.size(), start + LocationHistory.BLOCK_SIZE))));
+		}
+		return blocks;
+	}
+
+	/**
+	 * Returns the growth of the used heap while the built value is reachable.
+	 */
+	private static long retainedHeap(Supplier<Object> builder) {
+		long before = usedHeap();
+		Object value = builder.get();
+		long after = usedHeap();
+		Reference.reachabilityFence(value);
+		return after - before;
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
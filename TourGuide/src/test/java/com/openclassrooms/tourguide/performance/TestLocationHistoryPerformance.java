@@ -0,0 +1,100 @@
+package com.openclassrooms.tourguide.performance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.user.LocationHistory;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class TestLocationHistoryPerformance {
+
+	private static final int LOCATIONS = 100_000;
+	private static final int QUERIES = 100_000;
+	private static final int SCANNED_QUERIES = 200;
+	private static final long INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+	@Test
+	public void rangeQueriesStayUnderOneMillisecond() {
+		UUID userId = UUID.randomUUID();
+		List<VisitedLocation> locations = new ArrayList<>(LOCATIONS);
+		for (int i = 0; i < LOCATIONS; i++) {
+			locations.add(new VisitedLocation(userId, new Location(0, 0), new Date(i * INTERVAL_MILLIS)));
+		}
+		LocationHistory history = LocationHistory.copyOf(locations);
+		long[][] ranges = ranges(new Random(42), QUERIES);
+
+		// Warm up before measuring
+		long found = query(history, ranges);
+		StopWatch stopWatch = new StopWatch();
+		stopWatch.start();
+		found = query(history, ranges);
+		stopWatch.stop();
+		double indexedMicros = stopWatch.getNanoTime() / 1_000.0 / QUERIES;
+
+		stopWatch.reset();
+		stopWatch.start();
+		long scanned = 0;
+		for (int i = 0; i < SCANNED_QUERIES; i++) {
+			scanned += scan(locations, ranges[i][0], ranges[i][1]);
+		}
+		stopWatch.stop();
+		double scanMicros = stopWatch.getNanoTime() / 1_000.0 / SCANNED_QUERIES;
+
+		long expected = 0;
+		for (int i = 0; i < SCANNED_QUERIES; i++) {
+			expected += history.between(ranges[i][0], ranges[i][1]).size();
+		}
+		assertEquals(expected, scanned);
+
+		log.info("===== FINAL RESULT =====");
+		log.info("{} locations, {} range queries, {} locations in their first pages", LOCATIONS, QUERIES, found);
+		log.info("Binary search: {} microseconds per query; linear scan: {} microseconds per query",
+				String.format("%.2f", indexedMicros), String.format("%.2f", scanMicros));
+		assertTrue(indexedMicros < 1_000);
+		assertTrue(indexedMicros < scanMicros);
+	}
+
+	private static long[][] ranges(Random random, int count) {
+		long end = LOCATIONS * INTERVAL_MILLIS;
+		long[][] ranges = new long[count][];
+		for (int i = 0; i < count; i++) {
+			long from = (long) (random.nextDouble() * end);
+			ranges[i] = new long[] { from, from + (long) (random.nextDouble() * TimeUnit.DAYS.toMillis(1)) };
+		}
+		return ranges;
+	}
+
+	private static long query(LocationHistory history, long[][] ranges) {
+		long found = 0;
+		for (long[] range : ranges) {
+			List<VisitedLocation> page = history.between(range[0], range[1]);
+			found += page.subList(0, Math.min(100, page.size())).size();
+		}
+		return found;
+	}
+
+	private static long scan(List<VisitedLocation> locations, long from, long to) {
+		long found = 0;
+		for (VisitedLocation location : locations) {
+			long time = location.timeVisited.getTime();
+			if (time >= from && time < to) {
+				found++;
+			}
+		}
+		return found;
+	}
+}
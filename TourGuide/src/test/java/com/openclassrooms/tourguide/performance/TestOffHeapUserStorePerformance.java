@@ -0,0 +1,192 @@
+package com.openclassrooms.tourguide.performance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.openclassrooms.tourguide.attraction.AttractionCatalog;
+import com.openclassrooms.tourguide.geo.ProximityChecker;
+import com.openclassrooms.tourguide.user.ColdUserStore;
+import com.openclassrooms.tourguide.user.OffHeapUserStore;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares the garbage collection of the users' hot fields kept on the heap
+ * with the same fields kept in an {@link OffHeapUserStore}, the rest of the
+ * state of the users being evicted to a {@link ColdUserStore}.
+ */
+@Slf4j
+public class TestOffHeapUserStorePerformance {
+
+	private static final int USERS = 200_000;
+	private static final int LOCATIONS_PER_USER = 12;
+	private static final int FULL_GC_ROUNDS = 3;
+	private static final long CHURN_BYTES = 4L << 30;
+	private static final int PROXIMITY_BUFFER = 10;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void garbageCollectionOfHeapAndOffHeapUsers() {
+		AttractionCatalog catalog = new AttractionCatalog(new GpsUtil());
+		List<Attraction> attractions = catalog.getAttractions();
+		int[] ordinals = attractions.stream().mapToInt(catalog::ordinalOf).toArray();
+		ProximityChecker checker = new ProximityChecker(true);
+
+		log.info("===== FINAL RESULT =====");
+		List<User> users = createUsers(attractions, ordinals);
+		Measure heap = measure("Heap", () -> scanHeap(users, attractions, ordinals, checker));
+
+		OffHeapUserStore store = new OffHeapUserStore(USERS, catalog.getOrdinalCount());
+		ColdUserStore coldStore = new ColdUserStore(directory);
+		StopWatch stopWatch = StopWatch.createStarted();
+		for (User user : users) {
+			store.register(user);
+			user.evictTo(coldStore);
+		}
+		stopWatch.stop();
+		log.info("Registered and evicted {} users in {} ms, {} MB off-heap", USERS, stopWatch.getTime(),
+				store.getOffHeapBytes() >> 20);
+		Measure offHeap = measure("Off-heap", () -> scanOffHeap(store, attractions, ordinals, checker));
+
+		assertEquals(heap.candidates(), offHeap.candidates());
+		assertTrue(offHeap.retainedBytes() < heap.retainedBytes() / 2,
+				"Retained heap: " + offHeap.retainedBytes() + " against " + heap.retainedBytes());
+		assertTrue(offHeap.fullGcMillis() < heap.fullGcMillis(),
+				"Full GC pause: " + offHeap.fullGcMillis() + " ms against " + heap.fullGcMillis() + " ms");
+	}
+
+	private record Measure(long retainedBytes, long fullGcMillis, long youngGcCount, long youngGcMillis,
+			long scanMillis, long candidates) {
+	}
+
+	private interface Scan {
+		long run();
+	}
+
+	/**
+	 * Measures the retained heap, the best of a few full collections, the
+	 * collections triggered by a burst of short-lived garbage, and a reward
+	 * candidate scan over every user.
+	 */
+	private Measure measure(String mode, Scan scan) {
+		long retainedBytes = usedHeap();
+		long fullGcMillis = Long.MAX_VALUE;
+		for (int round = 0; round < FULL_GC_ROUNDS; round++) {
+			StopWatch stopWatch = StopWatch.createStarted();
+			System.gc();
+			stopWatch.stop();
+			fullGcMillis = Math.min(fullGcMillis, stopWatch.getTime());
+		}
+
+		long[] before = gcTotals();
+		// The ring keeps the allocations from being optimized away
+		byte[][] ring = new byte[1024][];
+		for (long allocated = 0; allocated < CHURN_BYTES; allocated += 1024) {
+			ring[(int) (allocated >> 10) & (ring.length - 1)] = new byte[1024];
+		}
+		long[] after = gcTotals();
+
+		scan.run();
+		StopWatch stopWatch = StopWatch.createStarted();
+		long candidates = scan.run();
+		stopWatch.stop();
+
+		Measure measure = new Measure(retainedBytes, fullGcMillis, after[0] - before[0], after[1] - before[1],
+				stopWatch.getTime(), candidates);
+		log.info("{}: {} MB retained, full GC pause {} ms, {} collections taking {} ms for {} GB of garbage, "
+				+ "candidate scan {} ms", mode, retainedBytes >> 20, fullGcMillis, measure.youngGcCount(),
+				measure.youngGcMillis(), CHURN_BYTES >> 30, measure.scanMillis());
+		return measure;
+	}
+
+	private static List<User> createUsers(List<Attraction> attractions, int[] ordinals) {
+		Random random = new Random(42);
+		List<User> users = new ArrayList<>(USERS);
+		long start = 1_700_000_000_000L;
+		for (int i = 0; i < USERS; i++) {
+			UUID userId = new UUID(random.nextLong(), random.nextLong());
+			User user = new User(userId, "internalUser" + i, "000", "internalUser" + i + "@tourGuide.com");
+			for (int j = 0; j < LOCATIONS_PER_USER; j++) {
+				Location location = i % 100 == 0 && j == LOCATIONS_PER_USER - 1
+						? attractions.get(i % attractions.size())
+						: new Location(random.nextDouble() * 170 - 85, random.nextDouble() * 360 - 180);
+				user.addToVisitedLocations(new VisitedLocation(userId, new Location(location.latitude,
+						location.longitude), new Date(start + j * 300_000L)));
+			}
+			int rewarded = random.nextInt(attractions.size());
+			user.addUserReward(new UserReward(user.getLastVisitedLocation(), attractions.get(rewarded),
+					ordinals[rewarded], 100));
+			users.add(user);
+		}
+		return users;
+	}
+
+	private static long scanHeap(List<User> users, List<Attraction> attractions, int[] ordinals,
+			ProximityChecker checker) {
+		long candidates = 0;
+		for (User user : users) {
+			Location location = user.getState().lastVisitedLocation().location;
+			for (int i = 0; i < attractions.size(); i++) {
+				if (!user.isAttractionRewarded(ordinals[i])
+						&& checker.isWithin(attractions.get(i), location, PROXIMITY_BUFFER)) {
+					candidates++;
+				}
+			}
+		}
+		return candidates;
+	}
+
+	private static long scanOffHeap(OffHeapUserStore store, List<Attraction> attractions, int[] ordinals,
+			ProximityChecker checker) {
+		long[] candidates = new long[1];
+		store.forEach(slot -> {
+			for (int i = 0; i < attractions.size(); i++) {
+				Attraction attraction = attractions.get(i);
+				if (!slot.isRewarded(ordinals[i]) && checker.isWithin(attraction.latitude, attraction.longitude,
+						slot.latitude(), slot.longitude(), PROXIMITY_BUFFER)) {
+					candidates[0]++;
+				}
+			}
+		});
+		return candidates[0];
+	}
+
+	private static long[] gcTotals() {
+		long count = 0;
+		long millis = 0;
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, collector.getCollectionCount());
+			millis += Math.max(0, collector.getCollectionTime());
+		}
+		return new long[] { count, millis };
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,78 @@
+package com.openclassrooms.tourguide.performance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.geo.ProximityChecker;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class TestProximityCheckPerformance {
+
+	private static final int LOCATION_COUNT = 200_000;
+	private static final int ROUNDS = 5;
+
+	@Test
+	public void highVolumeProximityChecks() {
+		List<Attraction> attractions = new GpsUtil().getAttractions();
+		Random random = new Random(7);
+		Location[] locations = new Location[LOCATION_COUNT];
+		for (int i = 0; i < LOCATION_COUNT; i++) {
+			locations[i] = new Location(random.nextDouble() * 170.1 - 85.05, random.nextDouble() * 360 - 180);
+		}
+
+		ProximityChecker exact = new ProximityChecker(false);
+		ProximityChecker fast = new ProximityChecker(true);
+
+		// Warm up both paths before measuring
+		runChecks(exact, attractions, locations, 10);
+		runChecks(fast, attractions, locations, 10);
+
+		long exactMatches = 0;
+		long fastMatches = 0;
+		long exactMillis = 0;
+		long fastMillis = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			StopWatch stopWatch = StopWatch.createStarted();
+			exactMatches += runChecks(exact, attractions, locations, 200);
+			stopWatch.stop();
+			exactMillis += stopWatch.getTime();
+
+			stopWatch = StopWatch.createStarted();
+			fastMatches += runChecks(fast, attractions, locations, 200);
+			stopWatch.stop();
+			fastMillis += stopWatch.getTime();
+		}
+
+		long checks = (long) ROUNDS * attractions.size() * LOCATION_COUNT;
+		log.info("===== FINAL RESULT =====");
+		log.info("highVolumeProximityChecks: exact {} checks/s, fast {} checks/s",
+				checks * TimeUnit.SECONDS.toMillis(1) / Math.max(1, exactMillis),
+				checks * TimeUnit.SECONDS.toMillis(1) / Math.max(1, fastMillis));
+
+		assertEquals(exactMatches, fastMatches);
+	}
+
+	private long runChecks(ProximityChecker checker, List<Attraction> attractions, Location[] locations,
+			double radiusMiles) {
+		long matches = 0;
+		for (Attraction attraction : attractions) {
+			for (Location location : locations) {
+				if (checker.isWithin(attraction, location, radiusMiles)) {
+					matches++;
+				}
+			}
+		}
+		return matches;
+	}
+}
@@ -0,0 +1,150 @@
+package com.openclassrooms.tourguide.performance;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.openclassrooms.tourguide.codec.FlatBinaryMessageConverter;
+import com.openclassrooms.tourguide.codec.FlatWriter;
+import com.openclassrooms.tourguide.dto.LocationHistoryPageDTO;
+import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.user.UserReward;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares the size and the serialization throughput of the JSON responses
+ * with the flat binary ones, for the responses of the high-volume endpoints.
+ *
+ * JSON is written by an object mapper configured as the application's one.
+ */
+@Slf4j
+public class TestResponseFormatPerformance {
+
+	private static final int ITERATIONS = Integer.getInteger("tourguide.format.iterations", 200_000);
+	private static final int PAGE_SIZE = 100;
+
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+	private final ByteArrayOutputStream output = new ByteArrayOutputStream(1 << 16);
+	private final FlatWriter writer = new FlatWriter(1 << 16);
+
+	@Test
+	public void flatResponsesAreSmallerAndFaster() throws IOException {
+		Random random = new Random(42);
+		UUID userId = UUID.randomUUID();
+		List<Attraction> attractions = new GpsUtil().getAttractions();
+
+		VisitedLocation location = visitedLocation(userId, random, 0);
+		List<VisitedLocation> locations = new ArrayList<>();
+		for (int i = 0; i < PAGE_SIZE; i++) {
+			locations.add(visitedLocation(userId, random, i));
+		}
+		LocationHistoryPageDTO page = new LocationHistoryPageDTO("internalUser0", 1000, 0, PAGE_SIZE, locations);
+		List<UserReward> rewards = new ArrayList<>();
+		for (int i = 0; i < attractions.size(); i++) {
+			rewards.add(new UserReward(visitedLocation(userId, random, 0), attractions.get(i), i,
+					random.nextInt(1000)));
+		}
+		List<NearbyAttractionDTO> nearby = new ArrayList<>();
+		for (Attraction attraction : attractions.subList(0, 5)) {
+			nearby.add(new NearbyAttractionDTO(attraction.attractionName, attraction.latitude, attraction.longitude,
+					location.location.latitude, location.location.longitude, random.nextDouble() * 1000,
+					random.nextInt(1000)));
+		}
+
+		List<String> results = new ArrayList<>();
+		results.add(compare("getLocation", location, objectMapper.writerFor(VisitedLocation.class),
+				FlatBinaryMessageConverter.LOCATION));
+		results.add(compare("getLocationHistory", page, objectMapper.writerFor(LocationHistoryPageDTO.class),
+				FlatBinaryMessageConverter.PAGE));
+		results.add(compare("getRewards", rewards, objectMapper.writerFor(objectMapper.constructType(
+				new ParameterizedTypeReference<List<UserReward>>() {
+				}.getType())), FlatBinaryMessageConverter.REWARDS));
+		results.add(compare("getNearbyAttractions", nearby, objectMapper.writerFor(objectMapper.constructType(
+				new ParameterizedTypeReference<List<NearbyAttractionDTO>>() {
+				}.getType())), FlatBinaryMessageConverter.NEARBY));
+
+		log.info("===== FINAL RESULT =====");
+		StringBuilder table = new StringBuilder(String.format("%-22s %10s %10s %14s %14s %12s %12s%n", "response",
+				"json B", "flat B", "json resp/s", "flat resp/s", "json B/resp", "flat B/resp"));
+		results.forEach(table::append);
+		log.info("{} serializations per format and response{}{}", ITERATIONS, System.lineSeparator(), table);
+	}
+
+	private String compare(String response, Object value, ObjectWriter jsonWriter, int kind) throws IOException {
+		int jsonBytes = 0;
+		int flatBytes = 0;
+		// Warm up before measuring
+		for (int i = 0; i < ITERATIONS / 10; i++) {
+			jsonBytes = writeJson(jsonWriter, value);
+			flatBytes = writeFlat(value, kind);
+		}
+
+		long allocatedBefore = allocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			writeJson(jsonWriter, value);
+		}
+		long jsonNanos = System.nanoTime() - start;
+		long jsonAllocated = allocatedBytes() - allocatedBefore;
+
+		allocatedBefore = allocatedBytes();
+		start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			writeFlat(value, kind);
+		}
+		long flatNanos = System.nanoTime() - start;
+		long flatAllocated = allocatedBytes() - allocatedBefore;
+
+		assertTrue(flatBytes < jsonBytes, response + ": the flat response is not smaller than the JSON one");
+		return String.format("%-22s %10d %10d %14.0f %14.0f %12d %12d%n", response, jsonBytes, flatBytes,
+				perSecond(jsonNanos), perSecond(flatNanos), jsonAllocated / ITERATIONS, flatAllocated / ITERATIONS);
+	}
+
+	private int writeJson(ObjectWriter jsonWriter, Object value) throws IOException {
+		output.reset();
+		jsonWriter.writeValue(output, value);
+		return output.size();
+	}
+
+	private int writeFlat(Object value, int kind) throws IOException {
+		output.reset();
+		writer.reset();
+		FlatBinaryMessageConverter.encode(value, kind, writer);
+		writer.writeTo(output);
+		return output.size();
+	}
+
+	private static double perSecond(long nanos) {
+		return ITERATIONS * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+	}
+
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static VisitedLocation visitedLocation(UUID userId, Random random, int minutes) {
+		return new VisitedLocation(userId,
+				new Location(random.nextDouble() * 170 - 85, random.nextDouble() * 360 - 180),
+				new Date(1_700_000_000_000L + TimeUnit.MINUTES.toMillis(minutes)));
+	}
+}
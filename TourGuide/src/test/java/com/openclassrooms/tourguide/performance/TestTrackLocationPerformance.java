@@ -40,7 +40,7 @@ public class TestTrackLocationPerformance {
     private List<List<User>> partitionList(List<User> allUsers, int size) {
         List<List<User>> partitions = new ArrayList<>();
         for (int i = 0; i < allUsers.size(); i += size) {
-            partitions.add(List.copyOf(allUsers.subList(i, Math.min(i + size, allUsers.size()))));
+            partitions.add(allUsers.subList(i, Math.min(i + size, allUsers.size())));
         }
         return partitions;
     }
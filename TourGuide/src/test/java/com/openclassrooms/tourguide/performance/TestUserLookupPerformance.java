@@ -0,0 +1,109 @@
+package com.openclassrooms.tourguide.performance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class TestUserLookupPerformance {
+
+	// Registry sizes up to 1,000,000 users; 10,000,000 is opt-in because it
+	// needs several gigabytes of heap:
+	// mvn test -Dtest=TestUserLookupPerformance -Dtourguide.lookup.maxUsers=10000000
+	private static final int MAX_USERS = Integer.getInteger("tourguide.lookup.maxUsers", 1_000_000);
+	private static final int THREADS = 4;
+	private static final int LOOKUPS_PER_THREAD = 1_000_000;
+
+	@Test
+	public void lookupLatencyStaysFlat() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Double> byNameNanos = new ArrayList<>();
+		List<Double> byIdNanos = new ArrayList<>();
+		try {
+			log.info("===== FINAL RESULT =====");
+			for (int userCount = 10_000; userCount <= MAX_USERS; userCount *= 10) {
+				String[] names = new String[userCount];
+				UUID[] ids = new UUID[userCount];
+				UserRegistry registry = new UserRegistry();
+				for (int i = 0; i < userCount; i++) {
+					names[i] = "internalUser" + i;
+					ids[i] = UUID.randomUUID();
+					registry.putIfAbsent(new User(ids[i], names[i], "000", names[i] + "@tourGuide.com"));
+				}
+
+				// Warm up both paths before measuring
+				measure(executor, () -> lookUpByName(registry, names));
+				measure(executor, () -> lookUpById(registry, ids));
+
+				double byName = measure(executor, () -> lookUpByName(registry, names));
+				double byId = measure(executor, () -> lookUpById(registry, ids));
+				byNameNanos.add(byName);
+				byIdNanos.add(byId);
+				log.info("{} users: {} ns per lookup by name, {} ns per lookup by id", userCount,
+						String.format("%.1f", byName), String.format("%.1f", byId));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// Hash lookups do not depend on the number of users; the bound only
+		// leaves room for cache misses on the larger registries
+		assertTrue(byNameNanos.get(byNameNanos.size() - 1) < byNameNanos.get(0) * 20 + 1_000);
+		assertTrue(byIdNanos.get(byIdNanos.size() - 1) < byIdNanos.get(0) * 20 + 1_000);
+	}
+
+	private long lookUpByName(UserRegistry registry, String[] names) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long found = 0;
+		for (int i = 0; i < LOOKUPS_PER_THREAD; i++) {
+			if (registry.get(names[random.nextInt(names.length)]) != null) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	private long lookUpById(UserRegistry registry, UUID[] ids) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long found = 0;
+		for (int i = 0; i < LOOKUPS_PER_THREAD; i++) {
+			if (registry.getById(ids[random.nextInt(ids.length)]) != null) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Runs the lookups on every thread at once and returns the mean wall-clock
+	 * time of one lookup, in nanoseconds.
+	 */
+	private double measure(ExecutorService executor, Callable<Long> lookups)
+			throws Exception {
+		List<Future<Long>> futures = new ArrayList<>();
+		long start = System.nanoTime();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(executor.submit(lookups));
+		}
+		for (Future<Long> future : futures) {
+			assertEquals(LOOKUPS_PER_THREAD, future.get(10, TimeUnit.MINUTES));
+		}
+		return (double) (System.nanoTime() - start) / LOOKUPS_PER_THREAD;
+	}
+}
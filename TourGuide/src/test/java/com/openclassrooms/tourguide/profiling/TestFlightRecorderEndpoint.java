@@ -0,0 +1,132 @@
+package com.openclassrooms.tourguide.profiling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.unit.DataSize;
+
+import com.openclassrooms.tourguide.TourguideApplication;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.tracker.Tracker;
+
+import gpsUtil.GpsUtil;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import rewardCentral.RewardCentral;
+
+public class TestFlightRecorderEndpoint {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void dumpedRecordingHoldsTheTourGuideEvents() throws Exception {
+		FlightRecorderEndpoint endpoint = new FlightRecorderEndpoint(directory, Duration.ofMinutes(5),
+				DataSize.ofMegabytes(20));
+		assertEquals("NONE", endpoint.status().state());
+		assertThrows(IllegalStateException.class, () -> endpoint.dump(FlightRecorderEndpoint.DUMP));
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			assertEquals("RUNNING", endpoint.start().state());
+
+			InternalTestHelper.setInternalUserNumber(0);
+			GpsUtil gpsUtil = new GpsUtil();
+			TourGuideService tourGuideService = new TourGuideService(gpsUtil,
+					new RewardsService(gpsUtil, new RewardCentral(), executor), executor, false);
+			Tracker tracker = new Tracker(tourGuideService);
+			tracker.trackUsers();
+			tracker.stopTracking();
+			String answer = ExternalCallEvent.record(ExternalCallEvent.TRIP_PRICER, "getPrice", () -> {
+				sleep(50);
+				return "answer";
+			});
+			assertThrows(IllegalStateException.class,
+					() -> ExternalCallEvent.record(ExternalCallEvent.GPS_UTIL, "getUserLocation", () -> {
+						sleep(50);
+						throw new IllegalStateException("GPS down");
+					}));
+
+			List<RecordedEvent> events = RecordingFile.readAllEvents(Path.of(endpoint.dump(FlightRecorderEndpoint.DUMP)));
+
+			assertEquals("answer", answer);
+			assertTrue(events.stream()
+					.anyMatch(e -> e.getEventType().getName().equals("com.openclassrooms.tourguide.TrackerCycle")));
+			assertTrue(events.stream().anyMatch(e -> isExternalCall(e, ExternalCallEvent.TRIP_PRICER, false)));
+			assertTrue(events.stream().anyMatch(e -> isExternalCall(e, ExternalCallEvent.GPS_UTIL, true)));
+			assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("jdk.JVMInformation")),
+					"Events of the JDK default profile are recorded too");
+		} finally {
+			assertEquals("NONE", endpoint.stop().state());
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void recordingIsDrivenThroughTheActuator() throws Exception {
+		int previousUserNumber = InternalTestHelper.getInternalUserNumber();
+		InternalTestHelper.setInternalUserNumber(0);
+		int port = freePort();
+		String url = "http://localhost:" + port + "/actuator/flightrecorder";
+		HttpClient httpClient = HttpClient.newHttpClient();
+		try (ConfigurableApplicationContext application = new SpringApplicationBuilder(TourguideApplication.class)
+				.run("--server.port=" + port, "--tourguide.startTracker=false",
+						"--management.endpoints.web.exposure.include=health,flightrecorder,latencybreakdown",
+						"--tourguide.jfr.dumpDirectory=" + directory)) {
+			assertEquals(200, send(httpClient, url, "POST").statusCode());
+			HttpResponse<String> dump = send(httpClient, url + "/dump", "POST");
+			assertEquals(200, dump.statusCode());
+			assertTrue(Files.size(Path.of(dump.body())) > 0);
+			assertEquals(400, send(httpClient, url + "/restart", "POST").statusCode());
+			assertEquals(200, send(httpClient, url, "DELETE").statusCode());
+			assertTrue(send(httpClient, url, "GET").body().contains("NONE"));
+		} finally {
+			InternalTestHelper.setInternalUserNumber(previousUserNumber);
+		}
+	}
+
+	private static HttpResponse<String> send(HttpClient httpClient, String url, String method) throws Exception {
+		return httpClient.send(
+				HttpRequest.newBuilder(URI.create(url)).method(method, HttpRequest.BodyPublishers.noBody()).build(),
+				HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static boolean isExternalCall(RecordedEvent event, String service, boolean failed) {
+		return event.getEventType().getName().equals("com.openclassrooms.tourguide.ExternalCall")
+				&& service.equals(event.getString("service")) && event.getBoolean("failed") == failed
+				&& event.getDuration().toMillis() >= 50;
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.openclassrooms.tourguide.profiling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import rewardCentral.RewardCentral;
+
+public class TestLatencyBreakdownHandler {
+
+	@Test
+	public void breakdownFollowsTheRequestThroughServicesAndExternalCalls() {
+		LatencyBreakdownHandler handler = new LatencyBreakdownHandler(1, Duration.ZERO, 10);
+		ObservationRegistry registry = ObservationRegistry.create();
+		registry.observationConfig().observationHandler(handler);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			InternalTestHelper.setInternalUserNumber(0);
+			GpsUtil gpsUtil = new GpsUtil();
+			RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executor);
+			rewardsService.configureRewardPointsPrefetch(false, 1, 1);
+			rewardsService.setProximityBuffer(0);
+			rewardsService.setObservationRegistry(registry);
+			TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService, executor, false);
+			tourGuideService.setObservationRegistry(registry);
+			tourGuideService.addUser(new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com"));
+
+			// Same calls as the controller of /getNearbyAttractions
+			Observation.createNotStarted(LatencyBreakdownHandler.REQUEST, registry)
+					.contextualName("http get /getNearbyAttractions")
+					.observe(() -> {
+						User user = tourGuideService.getUser("jon");
+						VisitedLocation location = tourGuideService.getUserLocation(user);
+						List<Attraction> attractions = tourGuideService.getNearByAttractions(location);
+						rewardsService.getRewardPoints(attractions.get(0), user);
+						rewardsService.getRewardPoints(attractions.get(0), user);
+					});
+			tourGuideService.shutdown();
+			LatencySpans.service(registry, "TourGuideService.outsideOfAnyRequest", () -> null);
+
+			List<LatencyBreakdownHandler.Breakdown> breakdowns = handler.getRecentBreakdowns();
+			assertEquals(1, breakdowns.size());
+			LatencyBreakdownHandler.Breakdown request = breakdowns.get(0);
+			assertEquals("http get /getNearbyAttractions", request.name());
+			assertEquals(List.of("TourGuideService.getUser", "TourGuideService.getUserLocation",
+					"TourGuideService.getNearByAttractions", "RewardsService.getRewardPoints",
+					"RewardsService.getRewardPoints"), names(request.children()));
+
+			LatencyBreakdownHandler.Breakdown getUserLocation = request.children().get(1);
+			assertEquals(List.of("TourGuideService.locateUser"), names(getUserLocation.children()));
+			assertEquals(List.of("ResilientGpsClient.getUserLocation"),
+					names(getUserLocation.children().get(0).children()));
+			assertEquals(List.of("RewardCentral.getAttractionRewardPoints"),
+					names(request.children().get(3).children()), "The first lookup calls RewardCentral");
+			assertEquals(List.of(), names(request.children().get(4).children()), "The second one is cached");
+			assertTrue(request.millis() >= getUserLocation.millis() + request.children().get(3).millis());
+			assertTrue(request.format().contains("    ResilientGpsClient.getUserLocation"));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void unsampledAndFastRequestsAreNotKept() {
+		LatencyBreakdownHandler unsampled = new LatencyBreakdownHandler(0, Duration.ZERO, 10);
+		LatencyBreakdownHandler slowOnly = new LatencyBreakdownHandler(1, Duration.ofMinutes(1), 10);
+		ObservationRegistry registry = ObservationRegistry.create();
+		registry.observationConfig().observationHandler(unsampled).observationHandler(slowOnly);
+
+		Observation.createNotStarted(LatencyBreakdownHandler.REQUEST, registry)
+				.observe(() -> LatencySpans.service(registry, "TourGuideService.getUser", () -> null));
+
+		assertEquals(List.of(), unsampled.getRecentBreakdowns());
+		assertEquals(List.of(), slowOnly.getRecentBreakdowns());
+		assertThrows(IllegalArgumentException.class, () -> new LatencyBreakdownHandler(1.5, Duration.ZERO, 10));
+	}
+
+	private static List<String> names(List<LatencyBreakdownHandler.Breakdown> breakdowns) {
+		return breakdowns.stream().map(LatencyBreakdownHandler.Breakdown::name).toList();
+	}
+}
@@ -0,0 +1,159 @@
+package com.openclassrooms.tourguide.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+
+public class TestRewardStatistics {
+
+	private static final int THREADS = 16;
+	private static final int USERS = 200;
+	private static final int ATTRACTIONS = 50;
+
+	@Test
+	public void leaderboardAndCountersFollowGrantedRewards() {
+		RewardStatistics statistics = new RewardStatistics();
+		User jon = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		User jon2 = new User(UUID.randomUUID(), "jon2", "000", "jon2@tourGuide.com");
+
+		grant(statistics, jon, attraction("Disneyland"), 0, 100);
+		grant(statistics, jon2, attraction("Disneyland"), 0, 300);
+		grant(statistics, jon, attraction("Jackson Hole"), 1, 250);
+		assertFalse(jon.addUserReward(reward(jon, attraction("Jackson Hole"), 1, 1_000)));
+
+		List<RewardStatistics.LeaderboardEntry> top = statistics.getTopUsers(10);
+		assertEquals(List.of("jon", "jon2"), top.stream().map(RewardStatistics.LeaderboardEntry::userName).toList());
+		assertEquals(350, top.get(0).rewardPoints());
+		assertEquals(350, jon.getRewardPoints());
+		assertEquals(1, statistics.getTopUsers(1).size());
+
+		RewardStatistics.AttractionRewards disneyland = statistics.getAttractionRewards().stream()
+				.filter(rewards -> rewards.attractionName().equals("Disneyland")).findFirst().orElseThrow();
+		assertEquals(2, disneyland.rewardCount());
+		assertEquals(400, disneyland.rewardPoints());
+	}
+
+	@Test
+	public void changedRewardPointsReachTheCountersAndTheLeaderboard() {
+		RewardStatistics statistics = new RewardStatistics();
+		User jon = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		User jon2 = new User(UUID.randomUUID(), "jon2", "000", "jon2@tourGuide.com");
+		UserReward changed = reward(jon, attraction("Changed attraction"), 2, 100);
+		assertTrue(jon.addUserReward(changed));
+		statistics.recordReward(jon, changed);
+		grant(statistics, jon2, attraction("Changed attraction"), 2, 200);
+
+		statistics.changeRewardPoints(jon, changed, 500);
+		UserReward notGranted = reward(jon, attraction("Changed attraction"), 2, 100);
+		assertThrows(IllegalArgumentException.class, () -> statistics.changeRewardPoints(jon, notGranted, 1_000));
+		assertThrows(IllegalStateException.class, () -> changed.setRewardPoints(1_000));
+
+		assertEquals(500, jon.getRewardPoints());
+		assertEquals(List.of("jon", "jon2"),
+				statistics.getTopUsers(2).stream().map(RewardStatistics.LeaderboardEntry::userName).toList());
+		assertEquals(500, statistics.getTopUsers(1).get(0).rewardPoints());
+		RewardStatistics.AttractionRewards rewards = statistics.getAttractionRewards().stream()
+				.filter(attraction -> attraction.attractionName().equals("Changed attraction")).findFirst()
+				.orElseThrow();
+		assertEquals(2, rewards.rewardCount());
+		assertEquals(700, rewards.rewardPoints());
+	}
+
+	@Test
+	public void concurrentRewardsKeepTheLeaderboardSorted() throws Exception {
+		RewardStatistics statistics = new RewardStatistics();
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < USERS; i++) {
+			users.add(new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com"));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < THREADS; thread++) {
+				int offset = thread;
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < USERS * ATTRACTIONS; i++) {
+						User user = users.get((i + offset) % USERS);
+						int attraction = (i / USERS + offset) % ATTRACTIONS;
+						grant(statistics, user, attraction("Statistics attraction " + attraction), attraction,
+								attraction + 1);
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		List<RewardStatistics.LeaderboardEntry> top = statistics.getTopUsers(USERS);
+		assertEquals(USERS, top.size());
+		long expectedTotal = (long) ATTRACTIONS * (ATTRACTIONS + 1) / 2;
+		assertTrue(top.stream().allMatch(entry -> entry.rewardPoints() == expectedTotal));
+		assertEquals(top, top.stream()
+				.sorted(Comparator.comparingLong(RewardStatistics.LeaderboardEntry::rewardPoints).reversed())
+				.toList());
+		assertEquals((long) USERS * ATTRACTIONS, statistics.getAttractionRewards().stream()
+				.mapToLong(RewardStatistics.AttractionRewards::rewardCount).sum());
+	}
+
+	@Test
+	public void rewardsServiceRecordsGrantedRewards() {
+		GpsUtil gpsUtil = new GpsUtil();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executor);
+			User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+			List<Attraction> attractions = gpsUtil.getAttractions();
+			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attractions.get(0), new Date()));
+
+			rewardsService.calculateRewards(user, attractions);
+
+			RewardStatistics.LeaderboardEntry entry = rewardsService.getRewardStatistics().getTopUsers(1).get(0);
+			assertEquals(user.getUserId(), entry.userId());
+			assertEquals(user.getUserRewards().stream().mapToInt(UserReward::getRewardPoints).sum(),
+					entry.rewardPoints());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static void grant(RewardStatistics statistics, User user, Attraction attraction, int ordinal,
+			int points) {
+		UserReward userReward = reward(user, attraction, ordinal, points);
+		if (user.addUserReward(userReward)) {
+			statistics.recordReward(user, userReward);
+		}
+	}
+
+	private static UserReward reward(User user, Attraction attraction, int ordinal, int points) {
+		return new UserReward(new VisitedLocation(user.getUserId(), attraction, new Date()), attraction, ordinal,
+				points);
+	}
+
+	private static Attraction attraction(String name) {
+		return new Attraction(name, "City", "State", 0, 0);
+	}
+}
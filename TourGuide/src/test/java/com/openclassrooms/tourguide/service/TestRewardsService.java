@@ -1,6 +1,7 @@
 package com.openclassrooms.tourguide.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Date;
@@ -16,11 +17,13 @@ import org.junit.jupiter.api.Test;
 
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
 import lombok.extern.slf4j.Slf4j;
 import rewardCentral.RewardCentral;
 
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.user.OffHeapUserStore;
 import com.openclassrooms.tourguide.user.User;
 import com.openclassrooms.tourguide.user.UserReward;
 
@@ -60,6 +63,24 @@ public class TestRewardsService {
 
 	}
 
+	@Test
+	public void newLocationRewardsLeaveTheHistoryToTheBackfill() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, rewardCentral, executor);
+		List<Attraction> attractions = gpsUtil.getAttractions();
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attractions.get(0), new Date()));
+		VisitedLocation farLocation = new VisitedLocation(user.getUserId(), new Location(-45, 100), new Date());
+		user.addToVisitedLocations(farLocation);
+
+		rewardsService.calculateRewards(user, farLocation, attractions);
+		assertEquals(0, user.getUserRewards().size());
+
+		rewardsService.calculateRewards(user, attractions);
+		assertEquals(1, user.getUserRewards().size());
+	}
+
 	@Test
 	public void isWithinAttractionProximity() {
 		GpsUtil gpsUtil = new GpsUtil();
@@ -91,6 +112,131 @@ public class TestRewardsService {
 		assertEquals(expectedRewardCount, actualRewardCount);
 	}
 
+	@Test
+	public void rewardedAttractionsAreTrackedByOrdinal() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, rewardCentral, executor);
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		List<Attraction> attractions = gpsUtil.getAttractions();
+		Attraction attraction = attractions.get(0);
+		int ordinal = rewardsService.getAttractionCatalog().ordinalOf(attraction);
+		assertFalse(user.isAttractionRewarded(ordinal));
+
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+		rewardsService.calculateRewards(user, attractions);
+		rewardsService.calculateRewards(user, gpsUtil.getAttractions());
+
+		assertTrue(user.isAttractionRewarded(ordinal));
+		assertEquals(user.getUserRewards().size(), user.getRewardedAttractions().size());
+
+		user.addUserReward(new UserReward(user.getLastVisitedLocation(), attraction, ordinal, 10));
+		assertEquals(user.getRewardedAttractions().size(), user.getUserRewards().size());
+	}
+
+	@Test
+	public void attractionCentricBulkRewards() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, rewardCentral, executor);
+		rewardsService.setAttractionCentricBulk(true);
+
+		List<Attraction> attractions = gpsUtil.getAttractions();
+		User nearUser = new User(UUID.randomUUID(), "near", "000", "near@tourGuide.com");
+		nearUser.addToVisitedLocations(new VisitedLocation(nearUser.getUserId(), attractions.get(0), new Date()));
+		User farUser = new User(UUID.randomUUID(), "far", "000", "far@tourGuide.com");
+		farUser.addToVisitedLocations(new VisitedLocation(farUser.getUserId(), new Location(-45, 100), new Date()));
+
+		rewardsService.calculateRewardsForAllUsers(List.of(nearUser, farUser), attractions);
+		rewardsService.calculateRewardsForAllUsers(List.of(nearUser, farUser), attractions);
+
+		assertTrue(nearUser.getUserRewards().stream()
+				.anyMatch(r -> r.attraction.attractionName.equals(attractions.get(0).attractionName)));
+		assertEquals(nearUser.getUserRewards().size(), nearUser.getUserRewards().stream()
+				.map(r -> r.attraction.attractionName).distinct().count());
+		assertEquals(0, farUser.getUserRewards().size());
+	}
+
+	@Test
+	public void usersAreIndexedOnlyWhileTheAttractionCentricPassIsEnabled() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, rewardCentral, executor);
+		List<Attraction> attractions = gpsUtil.getAttractions();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), attractions.get(0), new Date());
+		user.addToVisitedLocations(visitedLocation);
+		rewardsService.indexUserLocation(user, visitedLocation);
+
+		rewardsService.setAttractionCentricBulk(true);
+		rewardsService.calculateRewardsByAttraction(List.of(), attractions);
+		assertEquals(0, user.getUserRewards().size());
+
+		rewardsService.calculateRewardsByAttraction(List.of(user), attractions);
+		assertTrue(user.getUserRewards().stream()
+				.anyMatch(r -> r.attraction.attractionName.equals(attractions.get(0).attractionName)));
+	}
+
+	@Test
+	public void offHeapAttractionCentricRewards() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, rewardCentral, executor);
+		rewardsService.setAttractionCentricBulk(true);
+		List<Attraction> attractions = gpsUtil.getAttractions();
+		OffHeapUserStore store = new OffHeapUserStore(10, rewardsService.getAttractionCatalog().getOrdinalCount());
+		rewardsService.setOffHeapUserStore(store);
+
+		User nearUser = new User(UUID.randomUUID(), "near", "000", "near@tourGuide.com");
+		User farUser = new User(UUID.randomUUID(), "far", "000", "far@tourGuide.com");
+		User newUser = new User(UUID.randomUUID(), "new", "000", "new@tourGuide.com");
+		store.register(nearUser);
+		store.register(farUser);
+		store.register(newUser);
+		nearUser.addToVisitedLocations(new VisitedLocation(nearUser.getUserId(), attractions.get(0), new Date()));
+		farUser.addToVisitedLocations(new VisitedLocation(farUser.getUserId(), new Location(-45, 100), new Date()));
+
+		rewardsService.calculateRewardsForAllUsers(List.of(), attractions);
+		rewardsService.calculateRewardsForAllUsers(List.of(), attractions);
+
+		OffHeapUserStore.Slot slot = store.newSlot();
+		store.read(nearUser.getOffHeapSlot(), slot);
+		assertTrue(nearUser.getUserRewards().stream()
+				.anyMatch(r -> r.attraction.attractionName.equals(attractions.get(0).attractionName)));
+		assertEquals(nearUser.getUserRewards().size(), nearUser.getUserRewards().stream()
+				.map(r -> r.attraction.attractionName).distinct().count());
+		assertTrue(slot.isRewarded(rewardsService.getAttractionCatalog().ordinalOf(attractions.get(0))));
+		assertEquals(nearUser.getRewardPoints(), slot.rewardPoints());
+		assertEquals(0, farUser.getUserRewards().size());
+		assertEquals(0, newUser.getUserRewards().size());
+	}
+
+	@Test
+	public void prefetchWarmsRewardPointsNearTrackedLocation() throws InterruptedException {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, rewardCentral, executor);
+
+		List<Attraction> attractions = gpsUtil.getAttractions();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), attractions.get(0), new Date());
+		List<Attraction> inRange = attractions.stream()
+				.filter(attraction -> rewardsService.isWithinAttractionProximity(attraction, visitedLocation.location))
+				.toList();
+
+		rewardsService.prefetchRewardPoints(user, visitedLocation, attractions);
+
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!inRange.stream().allMatch(attraction -> rewardsService.isRewardPointsCached(attraction, user))) {
+			assertTrue(System.currentTimeMillis() < deadline, "Reward points were not prefetched in time");
+			Thread.sleep(50);
+		}
+		assertEquals(inRange.size(), rewardsService.getRewardPointsPrefetcher().getSubmittedCount());
+		assertTrue(attractions.stream().filter(attraction -> !inRange.contains(attraction))
+				.noneMatch(attraction -> rewardsService.isRewardPointsCached(attraction, user)));
+
+		// Cached points are not fetched again
+		rewardsService.prefetchRewardPoints(user, visitedLocation, attractions);
+		assertEquals(inRange.size(), rewardsService.getRewardPointsPrefetcher().getSubmittedCount());
+		rewardsService.getRewardPointsPrefetcher().shutdown();
+	}
+
 	@AfterAll
 	public static void shutdownResources() throws InterruptedException {
 
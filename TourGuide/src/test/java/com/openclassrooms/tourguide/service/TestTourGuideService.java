@@ -1,8 +1,14 @@
 package com.openclassrooms.tourguide.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -11,12 +17,15 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
 import lombok.extern.slf4j.Slf4j;
 import rewardCentral.RewardCentral;
@@ -52,6 +61,11 @@ public class TestTourGuideService {
 		tourGuideService = new TourGuideService(gpsUtil, rewardsService, executor, false);
 	}
 
+	@AfterEach
+	public void shutdownService() {
+		tourGuideService.shutdown();
+	}
+
 	@Test
 	public void getUserLocation() {
 		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
@@ -98,6 +112,52 @@ public class TestTourGuideService {
 		assertEquals(user.getUserId(), visitedLocation.join().userId);
 	}
 
+	@Test
+	public void zeroStalenessBypassesLocationCache() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		VisitedLocation first = tourGuideService.trackUserLocation(user).join();
+
+		assertEquals(first, tourGuideService.trackUserLocation(user).join());
+		assertEquals(1, user.getVisitedLocations().size());
+
+		tourGuideService.trackUserLocation(user, Duration.ZERO).join();
+		assertEquals(2, user.getVisitedLocations().size());
+		assertEquals(1, tourGuideService.getLocationCache().getStatistics().hits());
+	}
+
+	@Test
+	public void evictedUsersAreTrackedEveryColdTrackingInterval(@TempDir Path directory) {
+		tourGuideService.configureUserTiering(true, Duration.ofDays(7), Duration.ofHours(1), directory.toString(), 3);
+		User resident = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		User evicted = new User(UUID.randomUUID(), "jim", "000", "jim@tourGuide.com");
+		evicted.evictTo(tourGuideService.getUserTiering().getStore());
+
+		assertTrue(tourGuideService.isTrackedInCycle(resident, 1));
+		assertFalse(tourGuideService.isTrackedInCycle(evicted, 1));
+		assertFalse(tourGuideService.isTrackedInCycle(evicted, 2));
+		assertTrue(tourGuideService.isTrackedInCycle(evicted, 3));
+		tourGuideService.shutdown();
+	}
+
+	@Test
+	public void getLocationHistory() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		Instant start = Instant.parse("2025-01-01T00:00:00Z");
+		for (int hour = 0; hour < 24; hour++) {
+			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(0, hour),
+					Date.from(start.plus(Duration.ofHours(hour)))));
+		}
+
+		List<VisitedLocation> history = tourGuideService.getLocationHistory(user, start.plus(Duration.ofHours(6)),
+				start.plus(Duration.ofHours(9)));
+
+		assertEquals(3, history.size());
+		assertEquals(6.0, history.get(0).location.longitude);
+		assertEquals(8.0, history.get(2).location.longitude);
+		assertThrows(IllegalArgumentException.class,
+				() -> tourGuideService.getLocationHistory(user, start.plusSeconds(1), start));
+	}
+
 	@Test
 	public void getNearbyAttractions() {
 		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
@@ -0,0 +1,95 @@
+package com.openclassrooms.tourguide.tracker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.LocationRetention;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+
+public class TestLocationHistoryCompactor {
+
+	private static final int DAYS = 100;
+
+	private ExecutorService executor;
+	private RewardsService rewardsService;
+	private TourGuideService tourGuideService;
+
+	@BeforeEach
+	public void initServices() {
+		InternalTestHelper.setInternalUserNumber(0);
+		executor = Executors.newFixedThreadPool(4);
+		GpsUtil gpsUtil = new GpsUtil();
+		rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executor);
+		tourGuideService = new TourGuideService(gpsUtil, rewardsService, executor, false);
+	}
+
+	@AfterEach
+	public void shutdownServices() {
+		tourGuideService.shutdown();
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void compactionKeepsRewardRelevantVisits() {
+		List<Attraction> attractions = tourGuideService.getAttractionCatalog().getAttractions();
+		Attraction rewarded = attractions.get(0);
+		Attraction notYetRewarded = attractions.get(1);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		tourGuideService.addUser(user);
+
+		Instant now = Instant.parse("2025-06-01T00:00:00Z");
+		VisitedLocation rewardedVisit = visit(user, rewarded, now.minus(Duration.ofDays(DAYS + 2)));
+		VisitedLocation relevantVisit = visit(user, notYetRewarded, now.minus(Duration.ofDays(DAYS + 1)));
+		user.addToVisitedLocations(rewardedVisit);
+		user.addToVisitedLocations(relevantVisit);
+		user.addToVisitedLocations(visit(user, rewarded, now.minus(Duration.ofDays(DAYS))));
+		for (int hour = DAYS * 24; hour >= 0; hour--) {
+			user.addToVisitedLocations(visit(user, new Location(0, 0), now.minus(Duration.ofHours(hour))));
+		}
+		user.addUserReward(new UserReward(rewardedVisit, rewarded, 0, 10));
+
+		LocationHistoryCompactor compactor = new LocationHistoryCompactor(tourGuideService, rewardsService,
+				new LocationRetention(Duration.ofDays(1), Duration.ofDays(1), 0, Duration.ofDays(7),
+						Duration.ofDays(7)));
+		long removed = compactor.compactUsers(now.toEpochMilli());
+
+		// Last day in full, one location per day for the 6 days before
+		List<VisitedLocation> history = user.getVisitedLocations();
+		assertEquals(2 + 25 + 6, history.size());
+		assertEquals(DAYS * 24 + 4 - history.size(), removed);
+		assertTrue(history.get(0) == rewardedVisit && history.get(1) == relevantVisit);
+		assertEquals(0, compactor.compactUsers(now.toEpochMilli()));
+		assertEquals(2, compactor.getPassCount());
+
+		rewardsService.setMaxAttractionsToCheck(attractions.size());
+		rewardsService.calculateRewards(user, attractions);
+		assertTrue(user.isAttractionRewarded(tourGuideService.getAttractionCatalog().ordinalOf(notYetRewarded)));
+	}
+
+	private static VisitedLocation visit(User user, Location location, Instant time) {
+		return new VisitedLocation(user.getUserId(), new Location(location.latitude, location.longitude),
+				Date.from(time));
+	}
+}
@@ -0,0 +1,156 @@
+package com.openclassrooms.tourguide.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.openclassrooms.tourguide.attraction.AttractionCatalog;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tripPricer.Provider;
+
+public class TestColdUserStore {
+
+	private static final long START = 1_700_000_000_000L;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void evictedUserIsReadBackWithTheSameState() {
+		ColdUserStore store = new ColdUserStore(directory);
+		User user = trackedUser(600);
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008);
+		UserReward reward = new UserReward(user.getVisitedLocations().get(42), attraction, 3, 250);
+		user.addUserReward(reward);
+		Provider provider = new Provider(UUID.randomUUID(), "Holiday Travels", 99.5);
+		user.setTripDeals(List.of(provider));
+		List<VisitedLocation> before = List.copyOf(user.getVisitedLocations());
+
+		assertTrue(user.evictTo(store));
+
+		assertFalse(user.isResident());
+		assertEquals(1, store.getStoredUsers());
+		assertTrue(store.getStoredBytes() > 0);
+		assertEquals(before.size(), user.getVisitedLocations().size());
+		assertTrue(user.isResident());
+		assertEquals(0, store.getStoredUsers());
+		assertEquals(0, store.getStoredBytes());
+		assertEquals(1, store.getReadCount());
+		for (int i = 0; i < before.size(); i++) {
+			VisitedLocation location = user.getVisitedLocations().get(i);
+			assertEquals(user.getUserId(), location.userId);
+			assertEquals(before.get(i).timeVisited, location.timeVisited);
+			assertEquals(before.get(i).location.latitude, location.location.latitude, 1e-7);
+			assertEquals(before.get(i).location.longitude, location.location.longitude, 1e-7);
+		}
+		UserReward readReward = user.getUserRewards().get(0);
+		assertEquals(250, readReward.getRewardPoints());
+		assertEquals(250, user.getRewardPoints());
+		assertEquals(before.get(42).timeVisited, readReward.visitedLocation.timeVisited);
+		assertEquals("Disneyland", readReward.attraction.attractionName);
+		assertEquals(33.817595, readReward.attraction.latitude);
+		assertEquals(-117.922008, readReward.attraction.longitude);
+		assertEquals(3, readReward.attractionOrdinal());
+		assertTrue(user.isAttractionRewarded(3));
+		Provider readProvider = user.getTripDeals().get(0);
+		assertEquals(provider.tripId, readProvider.tripId);
+		assertEquals("Holiday Travels", readProvider.name);
+		assertEquals(99.5, readProvider.price);
+	}
+
+	@Test
+	public void rewardsKeepTheAttractionIdsOfTheCatalog() {
+		AttractionCatalog catalog = new AttractionCatalog(new GpsUtil());
+		ColdUserStore store = new ColdUserStore(directory, catalog);
+		User user = trackedUser(10);
+		Attraction attraction = catalog.getAttractions().get(0);
+		user.addUserReward(new UserReward(user.getVisitedLocations().get(0), attraction, catalog.ordinalOf(attraction),
+				100));
+
+		assertTrue(user.evictTo(store));
+
+		assertEquals(attraction.attractionId, user.getUserRewards().get(0).attraction.attractionId);
+		assertSame(attraction, user.getUserRewards().get(0).attraction);
+	}
+
+	@Test
+	public void updateOfAnEvictedUserReadsItBackFirst() {
+		ColdUserStore store = new ColdUserStore(directory);
+		User user = trackedUser(10);
+		user.evictTo(store);
+
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(1, 2),
+				new Date(START + Duration.ofDays(1).toMillis())));
+
+		assertTrue(user.isResident());
+		assertEquals(11, user.getVisitedLocations().size());
+		assertEquals(1, store.getReadCount());
+	}
+
+	@Test
+	public void startupRemovesTheUsersOfAPreviousRun() throws IOException {
+		ColdUserStore previous = new ColdUserStore(directory);
+		trackedUser(10).evictTo(previous);
+		Files.writeString(directory.resolve("unrelated.txt"), "kept");
+
+		ColdUserStore store = new ColdUserStore(directory);
+
+		assertEquals(0, store.getStoredUsers());
+		try (var files = Files.list(directory)) {
+			assertEquals(List.of(directory.resolve("unrelated.txt")), files.toList());
+		}
+	}
+
+	@Test
+	public void tieringEvictsOnlyInactiveUsers() {
+		ColdUserStore store = new ColdUserStore(directory);
+		UserRegistry registry = new UserRegistry();
+		User inactive = trackedUser(10);
+		User active = trackedUser(10);
+		registry.putIfAbsent(inactive);
+		registry.putIfAbsent(active);
+		long now = inactive.getLastAccessMillis() + Duration.ofDays(8).toMillis();
+		active.recordAccess(now - Duration.ofDays(1).toMillis());
+
+		try (UserTiering tiering = new UserTiering(registry, store, Duration.ofDays(7))) {
+			// The inactive user was last accessed at its creation, 8 days before
+			assertEquals(1, tiering.evictInactiveUsers(now));
+			assertEquals(0, tiering.evictInactiveUsers(now));
+			assertEquals(1, tiering.getEvictionCount());
+		}
+
+		assertFalse(inactive.isResident());
+		assertTrue(active.isResident());
+		assertSame(inactive, registry.get(inactive.getUserName()));
+		assertEquals(10, inactive.getVisitedLocations().size());
+	}
+
+	private static User trackedUser(int locations) {
+		UUID userId = UUID.randomUUID();
+		User user = new User(userId, "user" + userId, "000", "user@tourGuide.com");
+		for (int i = 0; i < locations; i++) {
+			// Tracked every 5 minutes, so older locations fill compressed blocks
+			user.addToVisitedLocations(new VisitedLocation(userId, new Location(48.85 + i * 1e-4, 2.35 - i * 1e-4),
+					new Date(START + i * 300_000L)));
+		}
+		user.compactVisitedLocations(history -> history.compact(LocationRetention.defaults(),
+				START + Duration.ofDays(3).toMillis(), location -> true));
+		return user;
+	}
+}
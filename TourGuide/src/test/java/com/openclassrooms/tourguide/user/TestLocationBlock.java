@@ -0,0 +1,81 @@
+package com.openclassrooms.tourguide.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+public class TestLocationBlock {
+
+	private static final UUID USER_ID = UUID.randomUUID();
+
+	@Test
+	public void decodedLocationsMatchQuantizedOriginals() {
+		Random random = new Random(42);
+		List<VisitedLocation> locations = new ArrayList<>();
+		long time = 1_700_000_000_000L;
+		for (int i = 0; i < 500; i++) {
+			time += random.nextInt(600_000);
+			locations.add(new VisitedLocation(USER_ID,
+					new Location(random.nextDouble() * 170 - 85, random.nextDouble() * 360 - 180), new Date(time)));
+		}
+
+		LocationBlock block = LocationBlock.encode(locations);
+		List<VisitedLocation> decoded = block.decode();
+
+		assertEquals(locations.size(), block.size());
+		assertEquals(locations.get(0).timeVisited.getTime(), block.firstTimeMillis());
+		assertEquals(time, block.lastTimeMillis());
+		for (int i = 0; i < locations.size(); i++) {
+			VisitedLocation location = decoded.get(i);
+			assertEquals(USER_ID, location.userId);
+			assertEquals(locations.get(i).timeVisited, location.timeVisited);
+			assertEquals(locations.get(i).location.latitude, location.location.latitude,
+					1.0 / LocationBlock.DEGREE_SCALE);
+			assertEquals(locations.get(i).location.longitude, location.location.longitude,
+					1.0 / LocationBlock.DEGREE_SCALE);
+		}
+		assertSame(block.last(), decoded.get(decoded.size() - 1));
+		assertSame(decoded.get(10), block.get(10));
+	}
+
+	@Test
+	public void regularTrackingEncodesIntoFewBytes() {
+		List<VisitedLocation> locations = new ArrayList<>();
+		for (int i = 0; i < 1_000; i++) {
+			// Tracked every 5 minutes, moving a few meters at a time
+			locations.add(new VisitedLocation(USER_ID, new Location(48.85 + i * 1e-5, 2.35 - i * 1e-5),
+					new Date(1_700_000_000_000L + i * 300_000L)));
+		}
+
+		LocationBlock block = LocationBlock.encode(locations);
+
+		// One byte for the unchanged interval, two per coordinate
+		assertTrue(block.getEncodedSize() < locations.size() * 6, "Encoded size: " + block.getEncodedSize());
+		assertEquals(List.of(10L, 11L), List.of((long) block.lowerBound(1_700_000_000_000L + 10 * 300_000L),
+				(long) block.lowerBound(1_700_000_000_000L + 10 * 300_000L + 1)));
+		assertEquals(1_000, block.lowerBound(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void invalidBlocksAreRejected() {
+		VisitedLocation first = new VisitedLocation(USER_ID, new Location(0, 0), new Date(1_000));
+		VisitedLocation earlier = new VisitedLocation(USER_ID, new Location(0, 0), new Date(500));
+		VisitedLocation otherUser = new VisitedLocation(UUID.randomUUID(), new Location(0, 0), new Date(2_000));
+
+		assertThrows(IllegalArgumentException.class, () -> LocationBlock.encode(List.of()));
+		assertThrows(IllegalArgumentException.class, () -> LocationBlock.encode(List.of(first, earlier)));
+		assertThrows(IllegalArgumentException.class, () -> LocationBlock.encode(List.of(first, otherUser)));
+	}
+}
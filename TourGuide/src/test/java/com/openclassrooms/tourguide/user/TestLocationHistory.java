@@ -0,0 +1,256 @@
+package com.openclassrooms.tourguide.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.geo.GeoDistance;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+public class TestLocationHistory {
+
+	private static final UUID USER_ID = UUID.randomUUID();
+
+	@Test
+	public void rangeBoundsAreHalfOpen() {
+		LocationHistory history = LocationHistory.EMPTY;
+		for (long time = 0; time < 10; time++) {
+			history = history.append(visit(time * 100));
+		}
+
+		assertTrue(history.isTimeOrdered());
+		assertEquals(List.of(200L, 300L, 400L), times(history.between(200, 500)));
+		assertEquals(List.of(200L, 300L, 400L), times(history.between(150, 450)));
+		assertEquals(List.of(), times(history.between(500, 500)));
+		assertEquals(List.of(), times(history.between(600, 100)));
+		assertEquals(10, history.between(Long.MIN_VALUE, Long.MAX_VALUE).size());
+		assertEquals(List.of(), LocationHistory.EMPTY.between(Long.MIN_VALUE, Long.MAX_VALUE));
+	}
+
+	@Test
+	public void outOfOrderLocationsAreReturnedInTimeOrder() {
+		VisitedLocation late = visit(300);
+		VisitedLocation firstTie = visit(100);
+		VisitedLocation secondTie = visit(100);
+		LocationHistory ordered = LocationHistory.EMPTY.append(visit(50));
+		LocationHistory history = ordered.append(late).append(firstTie).append(visit(200)).append(secondTie);
+
+		assertTrue(ordered.isTimeOrdered());
+		assertFalse(history.isTimeOrdered());
+		assertSame(late, history.get(1));
+		List<VisitedLocation> range = history.between(100, 301);
+		assertEquals(List.of(100L, 100L, 200L, 300L), times(range));
+		assertSame(firstTie, range.get(0));
+		assertSame(secondTie, range.get(1));
+	}
+
+	@Test
+	public void rangeQueriesMatchLinearScan() {
+		Random random = new Random(42);
+		List<VisitedLocation> locations = new ArrayList<>();
+		long time = 0;
+		for (int i = 0; i < 2_000; i++) {
+			// Mostly increasing times, with ties and a few late arrivals
+			time += random.nextInt(3);
+			locations.add(visit(random.nextInt(20) == 0 ? time - random.nextInt(50) : time));
+		}
+		LocationHistory history = LocationHistory.copyOf(locations);
+
+		for (int i = 0; i < 500; i++) {
+			long from = random.nextInt((int) time + 20) - 10;
+			long to = from + random.nextInt(200);
+			List<VisitedLocation> expected = locations.stream()
+					.filter(location -> location.timeVisited.getTime() >= from && location.timeVisited.getTime() < to)
+					.sorted(Comparator.comparingLong(location -> location.timeVisited.getTime()))
+					.collect(Collectors.toList());
+			assertEquals(expected, history.between(from, to));
+		}
+	}
+
+	@Test
+	public void appendedVersionsExtendTheEarlierTimeOrder() {
+		Random random = new Random(42);
+		List<VisitedLocation> locations = new ArrayList<>();
+		LocationHistory history = LocationHistory.EMPTY;
+		for (int i = 0; i < 500; i++) {
+			VisitedLocation location = visit(random.nextInt(100));
+			locations.add(location);
+			history = history.append(location);
+			if (random.nextInt(3) == 0) {
+				List<VisitedLocation> expected = locations.stream()
+						.sorted(Comparator.comparingLong(visited -> visited.timeVisited.getTime()))
+						.collect(Collectors.toList());
+				assertEquals(expected, history.between(-1, Long.MAX_VALUE));
+			}
+		}
+	}
+
+	@Test
+	public void pagesAreTakenFromTheRange() {
+		LocationHistory history = LocationHistory.EMPTY;
+		for (long time = 0; time < 250; time++) {
+			history = history.append(visit(time));
+		}
+
+		List<VisitedLocation> range = history.between(10, 240);
+		assertEquals(230, range.size());
+		assertEquals(List.of(110L, 111L, 112L), times(range.subList(100, 103)));
+	}
+
+	@Test
+	public void compactionAppliesRetentionTiers() {
+		long hour = Duration.ofHours(1).toMillis();
+		long now = 100 * hour;
+		LocationRetention retention = new LocationRetention(Duration.ofHours(10), Duration.ofHours(1), 5,
+				Duration.ofHours(50), Duration.ofHours(50));
+		LocationHistory history = LocationHistory.EMPTY;
+		// Four locations per hour for 100 hours, moving 1 mile every 5 hours
+		for (long time = 0; time < now; time += hour / 4) {
+			history = history.append(visit(time, time / (5 * hour) / GeoDistance.MILES_PER_DEGREE));
+		}
+		VisitedLocation pinned = history.get(10);
+
+		LocationHistory compacted = history.compact(retention, now, location -> location == pinned);
+
+		// Pinned location, one per hour between 50 and 90 hours, all in the last 10
+		assertEquals(1 + 40 + 40, compacted.size());
+		assertSame(pinned, compacted.get(0));
+		assertEquals(List.of(50 * hour, 51 * hour), times(compacted.subList(1, 3)));
+		assertSame(history.last(), compacted.last());
+		assertTrue(compacted.isTimeOrdered());
+		assertSame(compacted, compacted.compact(retention, now, location -> location == pinned));
+	}
+
+	@Test
+	public void compactionKeepsMovesWithinAnInterval() {
+		long minute = Duration.ofMinutes(1).toMillis();
+		LocationRetention retention = new LocationRetention(Duration.ZERO, Duration.ofHours(1), 1,
+				Duration.ofDays(1), Duration.ofDays(1));
+		LocationHistory history = LocationHistory.EMPTY
+				.append(visit(0, 0))
+				.append(visit(10 * minute, 0.001))
+				.append(visit(20 * minute, 0.1))
+				.append(visit(30 * minute, 0.1))
+				.append(visit(40 * minute, 0.1));
+
+		LocationHistory compacted = history.compact(retention, 60 * minute, location -> false);
+
+		assertEquals(List.of(0L, 20 * minute, 40 * minute), times(compacted));
+		assertSame(history, history.compact(new LocationRetention(Duration.ofDays(1), Duration.ofHours(1), 1,
+				Duration.ofDays(1), Duration.ofDays(1)), 60 * minute, location -> false));
+	}
+
+	@Test
+	public void oldLocationsAreCompressedAndStillQueryable() {
+		long minute = Duration.ofMinutes(1).toMillis();
+		LocationRetention retention = new LocationRetention(Duration.ZERO, Duration.ofMinutes(1), 0,
+				Duration.ofDays(1), Duration.ofDays(10));
+		List<VisitedLocation> locations = new ArrayList<>();
+		LocationHistory history = LocationHistory.EMPTY;
+		for (int i = 0; i < 3 * LocationHistory.BLOCK_SIZE; i++) {
+			VisitedLocation location = visit(i * minute, i * 1e-4);
+			locations.add(location);
+			history = history.append(location);
+		}
+		long now = Duration.ofDays(1).toMillis() + (2 * LocationHistory.BLOCK_SIZE + 10) * minute;
+
+		LocationHistory compacted = history.compact(retention, now, location -> false);
+
+		assertEquals(2 * LocationHistory.BLOCK_SIZE, compacted.getCompressedSize());
+		assertTrue(compacted.getEncodedSize() < 2 * LocationHistory.BLOCK_SIZE * 8);
+		assertEquals(locations.size(), compacted.size());
+		assertSame(history.last(), compacted.last());
+		assertSame(compacted, compacted.compact(retention, now, location -> false));
+		for (int i = 0; i < locations.size(); i += 37) {
+			assertEquals(locations.get(i).timeVisited, compacted.get(i).timeVisited);
+			assertEquals(locations.get(i).location.longitude, compacted.get(i).location.longitude, 1e-7);
+		}
+		assertEquals(times(history.between(100 * minute, 600 * minute)),
+				times(compacted.between(100 * minute, 600 * minute)));
+		assertEquals(times(history.between(-1, Long.MAX_VALUE)), times(compacted.between(-1, Long.MAX_VALUE)));
+
+		LocationHistory appended = compacted.append(visit(now, 0));
+		assertTrue(appended.isTimeOrdered());
+		assertEquals(locations.size() + 1, appended.between(0, now + 1).size());
+		assertFalse(compacted.append(visit(0, 0)).isTimeOrdered());
+	}
+
+	@Test
+	public void outOfOrderLocationsAreSortedAndCompressed() {
+		long minute = Duration.ofMinutes(1).toMillis();
+		LocationRetention retention = new LocationRetention(Duration.ZERO, Duration.ofMinutes(1), 0,
+				Duration.ofDays(1), Duration.ofDays(10));
+		List<VisitedLocation> locations = new ArrayList<>();
+		for (int i = 0; i < 2 * LocationHistory.BLOCK_SIZE; i++) {
+			locations.add(visit(i * minute, i * 1e-4));
+		}
+		Collections.shuffle(locations, new Random(42));
+		LocationHistory history = LocationHistory.copyOf(locations);
+		long now = Duration.ofDays(2).toMillis();
+		VisitedLocation latest = visit(now - 10 * minute);
+		history = history.append(latest);
+		assertFalse(history.isTimeOrdered());
+
+		LocationHistory compacted = history.compact(retention, now, location -> false);
+
+		assertEquals(2 * LocationHistory.BLOCK_SIZE, compacted.getCompressedSize());
+		assertEquals(history.size(), compacted.size());
+		assertSame(latest, compacted.last());
+		assertTrue(compacted.isTimeOrdered());
+		assertEquals(times(history.between(-1, Long.MAX_VALUE)), times(compacted));
+		assertSame(compacted, compacted.compact(retention, now, location -> false));
+	}
+
+	@Test
+	public void expiredCompressedLocationsAreDroppedUnlessPinned() {
+		long minute = Duration.ofMinutes(1).toMillis();
+		LocationRetention retention = new LocationRetention(Duration.ZERO, Duration.ofMinutes(1), 0,
+				Duration.ZERO, Duration.ofDays(1));
+		LocationHistory history = LocationHistory.EMPTY;
+		for (int i = 0; i <= LocationHistory.BLOCK_SIZE; i++) {
+			history = history.append(visit(i * minute));
+		}
+		LocationHistory compacted = history.compact(retention, LocationHistory.BLOCK_SIZE * minute,
+				location -> false);
+		assertEquals(LocationHistory.BLOCK_SIZE, compacted.getCompressedSize());
+
+		// A day later, the compressed locations older than 100 minutes expire
+		long later = Duration.ofDays(1).toMillis() + 100 * minute + 1;
+		LocationHistory expired = compacted.compact(retention, later,
+				location -> location.timeVisited.getTime() == 50 * minute);
+
+		List<Long> times = times(expired);
+		assertEquals(1 + 155 + 1, times.size());
+		assertEquals(List.of(50 * minute, 101 * minute), times.subList(0, 2));
+		assertEquals(LocationHistory.BLOCK_SIZE * minute, times.get(times.size() - 1));
+		assertEquals(1 + 155, expired.getCompressedSize());
+	}
+
+	private static VisitedLocation visit(long timeMillis) {
+		return visit(timeMillis, 0);
+	}
+
+	private static VisitedLocation visit(long timeMillis, double longitude) {
+		return new VisitedLocation(USER_ID, new Location(0, longitude), new Date(timeMillis));
+	}
+
+
+	private static List<Long> times(List<VisitedLocation> locations) {
+		return locations.stream().map(location -> location.timeVisited.getTime()).collect(Collectors.toList());
+	}
+}
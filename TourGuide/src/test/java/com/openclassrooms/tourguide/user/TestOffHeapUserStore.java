@@ -0,0 +1,165 @@
+package com.openclassrooms.tourguide.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+public class TestOffHeapUserStore {
+
+	private static final long START = 1_700_000_000_000L;
+
+	@Test
+	public void slotMirrorsTheUpdatesOfItsUser() {
+		OffHeapUserStore store = new OffHeapUserStore(10, 100);
+		User user = newUser();
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(10, 20), new Date(START)));
+
+		int index = store.register(user);
+		Attraction attraction = new Attraction("Off-heap park", "Paris", "FR", 48.85, 2.35);
+		user.addUserReward(new UserReward(user.getLastVisitedLocation(), attraction, 7, 120));
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(11, 21), new Date(START + 1)));
+
+		OffHeapUserStore.Slot slot = store.newSlot();
+		store.read(index, slot);
+		assertEquals(index, user.getOffHeapSlot());
+		assertEquals(index, store.register(user));
+		assertEquals(1, store.size());
+		assertEquals(user.getUserId(), slot.userId());
+		assertTrue(slot.hasLocation());
+		assertEquals(11, slot.latitude());
+		assertEquals(21, slot.longitude());
+		assertEquals(START + 1, slot.timeMillis());
+		assertEquals(120, slot.rewardPoints());
+		assertTrue(slot.isRewarded(7));
+		assertFalse(slot.isRewarded(8));
+		assertSame(user, store.userAt(index));
+	}
+
+	@Test
+	public void evictedUserKeepsTheirHotFields(@TempDir Path directory) {
+		OffHeapUserStore store = new OffHeapUserStore(10, 100);
+		User user = newUser();
+		store.register(user);
+		OffHeapUserStore.Slot slot = store.newSlot();
+		store.read(0, slot);
+		assertFalse(slot.hasLocation());
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(10, 20), new Date(START)));
+
+		assertTrue(user.evictTo(new ColdUserStore(directory)));
+		store.read(0, slot);
+
+		assertFalse(user.isResident());
+		assertEquals(10, slot.latitude());
+		assertEquals(START, slot.timeMillis());
+	}
+
+	@Test
+	public void slotsGrowForOrdinalsBeyondTheirCapacity() {
+		OffHeapUserStore store = new OffHeapUserStore(10, 1);
+		User user = newUser();
+		User other = newUser();
+		store.register(user);
+		store.register(other);
+		other.addToVisitedLocations(new VisitedLocation(other.getUserId(), new Location(10, 20), new Date(START)));
+		OffHeapUserStore.Slot slot = store.newSlot();
+		// As for an attraction added by a refresh of the catalog
+		Attraction attraction = new Attraction("Growing park", "Paris", "FR", 48.85, 2.35);
+		int ordinal = store.getAttractionCapacity();
+
+		user.addUserReward(new UserReward(new VisitedLocation(user.getUserId(), new Location(48.85, 2.35),
+				new Date(START)), attraction, ordinal, 40));
+		store.read(0, slot);
+
+		assertTrue(store.getAttractionCapacity() > ordinal);
+		assertTrue(slot.isRewarded(ordinal));
+		assertEquals(40, slot.rewardPoints());
+		store.read(1, slot);
+		assertFalse(slot.isRewarded(ordinal));
+		assertEquals(10, slot.latitude());
+		assertEquals(START, slot.timeMillis());
+		assertEquals(other.getUserId(), slot.userId());
+	}
+
+	@Test
+	public void registrationBeyondCapacityFails() {
+		OffHeapUserStore store = new OffHeapUserStore(OffHeapUserStore.SLOTS_PER_CHUNK + 1, 1);
+		List<Integer> visited = new ArrayList<>();
+		for (int i = 0; i <= OffHeapUserStore.SLOTS_PER_CHUNK; i++) {
+			store.register(newUser());
+		}
+		store.forEach(slot -> visited.add(slot.index()));
+
+		assertEquals(OffHeapUserStore.SLOTS_PER_CHUNK + 1, visited.size());
+		assertEquals(2L * OffHeapUserStore.SLOTS_PER_CHUNK * store.getSlotSize(), store.getOffHeapBytes());
+		assertThrows(IllegalStateException.class, () -> store.register(newUser()));
+	}
+
+	@Test
+	public void readersNeverSeeTornSlots() throws Exception {
+		OffHeapUserStore store = new OffHeapUserStore(1, 1);
+		User user = newUser();
+		store.register(user);
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		AtomicBoolean writing = new AtomicBoolean(true);
+		try {
+			List<Future<?>> writers = new ArrayList<>();
+			for (int writer = 0; writer < 2; writer++) {
+				writers.add(executor.submit(() -> {
+					for (int i = 1; i <= 20_000; i++) {
+						// Latitude and longitude always equal, so a torn read shows
+						user.addToVisitedLocations(new VisitedLocation(user.getUserId(),
+								new Location(i % 80, i % 80), new Date(START + i)));
+					}
+				}));
+			}
+			Future<Integer> reader = executor.submit(() -> {
+				OffHeapUserStore.Slot slot = store.newSlot();
+				int torn = 0;
+				while (writing.get()) {
+					store.read(0, slot);
+					if (slot.hasLocation() && slot.latitude() != slot.longitude()) {
+						torn++;
+					}
+				}
+				return torn;
+			});
+			for (Future<?> writer : writers) {
+				writer.get(30, TimeUnit.SECONDS);
+			}
+			writing.set(false);
+
+			assertEquals(0, reader.get(30, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+		OffHeapUserStore.Slot slot = store.newSlot();
+		store.read(0, slot);
+		assertEquals(user.getLastVisitedLocation().location.latitude, slot.latitude());
+	}
+
+	private static User newUser() {
+		UUID userId = UUID.randomUUID();
+		return new User(userId, "user" + userId, "000", "user@tourGuide.com");
+	}
+}
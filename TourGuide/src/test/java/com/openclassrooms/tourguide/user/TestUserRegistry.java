@@ -0,0 +1,91 @@
+package com.openclassrooms.tourguide.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+public class TestUserRegistry {
+
+	private static final int USERS = 10_000;
+
+	@Test
+	public void putIfAbsentKeepsTheFirstUser() {
+		UserRegistry registry = new UserRegistry();
+		User first = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		User second = new User(UUID.randomUUID(), "jon", "000", "jon2@tourGuide.com");
+
+		assertNull(registry.putIfAbsent(first));
+		assertSame(first, registry.putIfAbsent(second));
+		assertSame(first, registry.get("jon"));
+		assertNull(registry.get("jon2"));
+		assertEquals(1, registry.size());
+	}
+
+	@Test
+	public void usersAreFoundByIdAndByNormalizedName() {
+		UserRegistry registry = new UserRegistry();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		registry.putIfAbsent(user);
+
+		assertSame(user, registry.getById(user.getUserId()));
+		assertSame(user, registry.get(" jon\t"));
+		assertNull(registry.getById(UUID.randomUUID()));
+		assertNull(registry.get(" "));
+	}
+
+	@Test
+	public void idIndexOnlyHoldsRegisteredUsers() {
+		UserRegistry registry = new UserRegistry();
+		User first = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		User duplicate = new User(UUID.randomUUID(), " jon ", "000", "jon2@tourGuide.com");
+
+		registry.putIfAbsent(first);
+
+		assertSame(first, registry.putIfAbsent(duplicate));
+		assertNull(registry.getById(duplicate.getUserId()));
+	}
+
+	@Test
+	public void parallelStreamVisitsEveryUserOnce() {
+		UserRegistry registry = new UserRegistry(10);
+		for (int i = 0; i < USERS; i++) {
+			registry.putIfAbsent(new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com"));
+		}
+
+		Set<String> visited = ConcurrentHashMap.newKeySet();
+		long count = registry.parallelStream().peek(user -> visited.add(user.getUserName())).count();
+
+		assertEquals(16, registry.getShardCount());
+		assertEquals(USERS, registry.size());
+		assertEquals(USERS, count);
+		assertEquals(USERS, visited.size());
+		assertEquals(USERS, registry.stream().map(User::getUserName).collect(Collectors.toSet()).size());
+	}
+
+	@Test
+	public void spliteratorSplitsAlongShards() {
+		UserRegistry registry = new UserRegistry(4);
+		for (int i = 0; i < USERS; i++) {
+			registry.putIfAbsent(new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com"));
+		}
+
+		Spliterator<User> suffix = registry.spliterator();
+		Spliterator<User> prefix = suffix.trySplit();
+
+		assertNotNull(prefix);
+		assertEquals(USERS, prefix.estimateSize() + suffix.estimateSize());
+		long[] seen = new long[1];
+		prefix.forEachRemaining(user -> seen[0]++);
+		suffix.forEachRemaining(user -> seen[0]++);
+		assertEquals(USERS, seen[0]);
+	}
+}
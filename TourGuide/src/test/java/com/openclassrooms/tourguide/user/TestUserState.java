@@ -0,0 +1,152 @@
+package com.openclassrooms.tourguide.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tripPricer.Provider;
+
+public class TestUserState {
+
+	private static final int TRACKER_THREADS = 32;
+	private static final int LOCATIONS_PER_TRACKER = 2_000;
+	private static final int REWARD_THREADS = 8;
+	private static final int ATTRACTIONS = 200;
+	private static final int READER_THREADS = 24;
+
+	@Test
+	public void appendOnlyListKeepsOlderVersionsUnchanged() {
+		AppendOnlyList<String> first = AppendOnlyList.<String>empty().append("a");
+		AppendOnlyList<String> second = first.append("b");
+		AppendOnlyList<String> branch = first.append("c");
+
+		assertEquals(List.of("a"), first);
+		assertEquals(List.of("a", "b"), second);
+		assertEquals(List.of("a", "c"), branch);
+	}
+
+	@Test
+	public void rewardPointsTotalFollowsRewardChanges() throws Exception {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		List<UserReward> rewards = new ArrayList<>();
+		for (int i = 0; i < ATTRACTIONS; i++) {
+			Attraction attraction = new Attraction("Total attraction " + i, "City", "State", 0, i);
+			UserReward reward = new UserReward(new VisitedLocation(user.getUserId(), attraction, new Date()),
+					attraction, i, 10);
+			assertTrue(user.addUserReward(reward));
+			rewards.add(reward);
+		}
+		UserReward duplicate = new UserReward(rewards.get(0).visitedLocation, rewards.get(0).attraction, 0, 500);
+		assertFalse(user.addUserReward(duplicate));
+		duplicate.setRewardPoints(1_000);
+		assertEquals(10L * ATTRACTIONS, user.getRewardPoints());
+
+		ExecutorService executor = Executors.newFixedThreadPool(REWARD_THREADS);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < REWARD_THREADS; t++) {
+				int points = t;
+				futures.add(executor.submit(() -> rewards.forEach(reward -> user.changeRewardPoints(reward, points))));
+			}
+			for (Future<?> future : futures) {
+				future.get(1, TimeUnit.MINUTES);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(rewards.stream().mapToInt(UserReward::getRewardPoints).sum(), user.getRewardPoints());
+		assertEquals(user.getState().rewardPoints(), user.getRewardPoints());
+	}
+
+	@Test
+	public void concurrentTrackingAndReadsSeeConsistentSnapshots() throws Exception {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		List<Attraction> attractions = new ArrayList<>();
+		for (int i = 0; i < ATTRACTIONS; i++) {
+			attractions.add(new Attraction("Stress attraction " + i, "City", "State", i % 90, i));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(TRACKER_THREADS + REWARD_THREADS + READER_THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicBoolean writing = new AtomicBoolean(true);
+		List<Future<?>> writers = new ArrayList<>();
+		List<Future<?>> readers = new ArrayList<>();
+
+		for (int t = 0; t < TRACKER_THREADS; t++) {
+			writers.add(executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < LOCATIONS_PER_TRACKER; i++) {
+					user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(i % 90, i % 180),
+							new Date()));
+				}
+				return null;
+			}));
+		}
+		for (int t = 0; t < REWARD_THREADS; t++) {
+			writers.add(executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < attractions.size(); i++) {
+					Attraction attraction = attractions.get(i);
+					VisitedLocation location = new VisitedLocation(user.getUserId(), attraction, new Date());
+					user.addUserReward(new UserReward(location, attraction, i, 1));
+					user.setTripDeals(List.of(new Provider(UUID.randomUUID(), attraction.attractionName, 1)));
+				}
+				return null;
+			}));
+		}
+		for (int t = 0; t < READER_THREADS; t++) {
+			readers.add(executor.submit(() -> {
+				start.await();
+				int previousLocations = 0;
+				while (writing.get()) {
+					UserState state = user.getState();
+					assertEquals(state.userRewards().size(), state.rewardedAttractions().size());
+					for (UserReward reward : state.userRewards()) {
+						assertTrue(state.rewardedAttractions().contains(reward.attractionOrdinal()));
+					}
+					int locations = state.visitedLocations().size();
+					assertTrue(locations >= previousLocations);
+					if (locations > 0) {
+						assertEquals(state.visitedLocations().get(locations - 1), state.lastVisitedLocation());
+					}
+					previousLocations = locations;
+				}
+				return null;
+			}));
+		}
+
+		start.countDown();
+		for (Future<?> writer : writers) {
+			writer.get(2, TimeUnit.MINUTES);
+		}
+		writing.set(false);
+		for (Future<?> reader : readers) {
+			reader.get(1, TimeUnit.MINUTES);
+		}
+		executor.shutdown();
+
+		UserState state = user.getState();
+		assertEquals(TRACKER_THREADS * LOCATIONS_PER_TRACKER, state.visitedLocations().size());
+		assertEquals(ATTRACTIONS, state.userRewards().size());
+		assertEquals(ATTRACTIONS, state.rewardedAttractions().size());
+		assertEquals(1, state.tripDeals().size());
+	}
+}